@@ -1,6 +1,6 @@
 package com.example.base.configs;
 
-import com.example.modules.users.entities.User;
+import com.example.modules.auth.dtos.AuthenticatedUser;
 import java.util.Optional;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,7 +21,8 @@ public class JpaConfig {
         .map(SecurityContext::getAuthentication)
         .filter(Authentication::isAuthenticated)
         .map(Authentication::getPrincipal)
-        .map(User.class::cast)
-        .map(User::getId);
+        .filter(AuthenticatedUser.class::isInstance)
+        .map(AuthenticatedUser.class::cast)
+        .map(AuthenticatedUser::getId);
   }
 }
@@ -18,6 +18,8 @@ public enum ErrorCode {
     "OPERATION_NOT_ALLOWED",
     "error.operation.not_allowed"
   ),
+  TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "TOO_MANY_REQUESTS", "error.request.too_many"),
+  REQUEST_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "REQUEST_TOO_LARGE", "error.request.too_large"),
 
   TOKEN_REQUIRED(HttpStatus.UNAUTHORIZED, "TOKEN_REQUIRED", "auth.token.required"),
   TOKEN_EXPIRED(HttpStatus.UNAUTHORIZED, "TOKEN_EXPIRED", "auth.token.expired"),
@@ -31,7 +33,21 @@ public enum ErrorCode {
 
   ACCOUNT_NOT_FOUND(HttpStatus.NOT_FOUND, "ACCOUNT_NOT_FOUND", "user.account.not_found"),
   USER_NOT_FOUND(HttpStatus.NOT_FOUND, "USER_NOT_FOUND", "user.not_found"),
-  POST_NOT_FOUND(HttpStatus.NOT_FOUND, "POST_NOT_FOUND", "content.post.not_found");
+  AVATAR_NOT_UPLOADED(HttpStatus.BAD_REQUEST, "AVATAR_NOT_UPLOADED", "user.avatar.not_uploaded"),
+  AVATAR_INVALID(HttpStatus.BAD_REQUEST, "AVATAR_INVALID", "user.avatar.invalid"),
+  AVATAR_CHANGED(HttpStatus.CONFLICT, "AVATAR_CHANGED", "user.avatar.changed"),
+  POST_NOT_FOUND(HttpStatus.NOT_FOUND, "POST_NOT_FOUND", "content.post.not_found"),
+
+  EMAIL_TEMPLATE_NOT_FOUND(
+    HttpStatus.BAD_REQUEST,
+    "EMAIL_TEMPLATE_NOT_FOUND",
+    "email.template.not_found"
+  ),
+  BULK_EMAIL_JOB_NOT_FOUND(
+    HttpStatus.NOT_FOUND,
+    "BULK_EMAIL_JOB_NOT_FOUND",
+    "email.bulk_job.not_found"
+  );
 
   HttpStatus status;
   String code;
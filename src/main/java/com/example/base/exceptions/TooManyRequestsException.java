@@ -0,0 +1,22 @@
+package com.example.base.exceptions;
+
+import com.example.base.enums.ErrorCode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Thrown when a request is rejected because the server (or the client's quota) is saturated. The
+ * response tells the client when to retry through the {@code Retry-After} header.
+ */
+@Getter
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class TooManyRequestsException extends AppException {
+
+  long retryAfterSeconds;
+
+  public TooManyRequestsException(long retryAfterSeconds) {
+    super(ErrorCode.TOO_MANY_REQUESTS);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
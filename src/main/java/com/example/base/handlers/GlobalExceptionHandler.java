@@ -6,9 +6,11 @@ import static com.example.base.enums.ErrorCode.UNKNOWN_ERROR;
 import com.example.base.dtos.ErrorResponseDTO;
 import com.example.base.enums.ErrorCode;
 import com.example.base.exceptions.AppException;
+import com.example.base.exceptions.TooManyRequestsException;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -32,6 +34,18 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(errorCode.getStatus()).body(response);
   }
 
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<ErrorResponseDTO> handleTooManyRequestsException(
+    TooManyRequestsException e
+  ) {
+    ErrorCode errorCode = e.getErrorCode();
+    ErrorResponseDTO response = ErrorResponseDTO.of(errorCode, e.getMessage());
+
+    return ResponseEntity.status(errorCode.getStatus())
+      .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+      .body(response);
+  }
+
   @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
   public ResponseEntity<ErrorResponseDTO> handleHttpMethodNotSupportedException(
     HttpRequestMethodNotSupportedException e
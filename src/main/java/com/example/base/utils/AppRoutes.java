@@ -1,14 +1,16 @@
 package com.example.base.utils;
 
 import java.util.List;
-import org.springframework.util.AntPathMatcher;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Utility class that defines API route constants and provides route matching functionality.
  *
  * <p>This class contains all the API endpoint prefixes used throughout the application
  * and maintains a whitelist of routes that don't require authentication or special handling.
- * It uses Spring's AntPathMatcher for pattern-based route matching.</p>
+ * The whitelisted patterns are parsed once into {@link PathPattern}s for route matching.</p>
  *
  * <p>The class follows a hierarchical structure with a base API prefix and specific
  * prefixes for different resource types (auth, users, posts).</p>
@@ -24,14 +26,13 @@ import org.springframework.util.AntPathMatcher;
  */
 public final class AppRoutes {
 
-  private static final AntPathMatcher pathMatcher = new AntPathMatcher();
-
   public static final String API_PREFIX = "/api/v1";
 
   public static final String AUTH_PREFIX = API_PREFIX + "/auth";
   public static final String USER_PREFIX = API_PREFIX + "/users";
   public static final String ME_PREFIX = API_PREFIX + "/me";
   public static final String POSTS_PREFIX = API_PREFIX + "/posts";
+  public static final String EMAILS_PREFIX = API_PREFIX + "/emails";
 
   public static final List<String> whitelistedRoutes = List.of(
     API_PREFIX + "/docs/**",
@@ -43,7 +44,22 @@ public final class AppRoutes {
     "/actuator/**"
   );
 
+  private static final List<PathPattern> whitelistedPatterns = whitelistedRoutes
+    .stream()
+    .map(PathPatternParser.defaultInstance::parse)
+    .toList();
+
   public static boolean isWhitelistedRoute(String path) {
-    return whitelistedRoutes.stream().anyMatch(route -> pathMatcher.match(route, path));
+    return isWhitelistedRoute(PathContainer.parsePath(path));
+  }
+
+  public static boolean isWhitelistedRoute(PathContainer path) {
+    for (PathPattern pattern : whitelistedPatterns) {
+      if (pattern.matches(path)) {
+        return true;
+      }
+    }
+
+    return false;
   }
 }
@@ -0,0 +1,23 @@
+package com.example.modules.auth.dtos;
+
+import com.example.modules.auth.enums.Role;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * The principal stored in the security context of authenticated requests.
+ *
+ * <p>
+ * It only holds what is needed to authorize the request, so authenticating a request does not
+ * load the {@code User} entity. Controllers that need the entity get it with
+ * {@link com.example.modules.auth.annotations.CurrentUser @CurrentUser}.
+ * </p>
+ */
+@Value
+@AllArgsConstructor
+public class AuthenticatedUser implements Serializable {
+
+  String id;
+  Role role;
+}
@@ -0,0 +1,215 @@
+package com.example.modules.auth.filters;
+
+import static com.example.base.utils.AppRoutes.AUTH_PREFIX;
+
+import com.example.base.enums.ErrorCode;
+import com.example.base.exceptions.AppException;
+import com.example.base.exceptions.TooManyRequestsException;
+import com.example.modules.auth.services.RateLimitService;
+import com.example.modules.auth.services.RateLimitService.Bucket;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+/**
+ * Rate limits the authentication endpoints that can be abused to guess passwords or to flood
+ * mailboxes, per client IP and per email. Rejected requests get a 429 response before any
+ * database query or password hashing is done.
+ *
+ * <p>
+ * The email is read from the body, which is buffered for the controller. Bodies larger than
+ * {@link #MAX_BODY_SIZE} are rejected with a 413 response, whether they declare their length or
+ * not (chunked bodies): otherwise, padding the body would skip the email limit.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+  private static final int MAX_BODY_SIZE = 8 * 1024;
+
+  private static final Map<String, String> RATE_LIMITED_ROUTES = Map.of(
+    AUTH_PREFIX + "/login",
+    "login",
+    AUTH_PREFIX + "/register",
+    "register",
+    AUTH_PREFIX + "/forgot-password",
+    "forgot_password"
+  );
+
+  @Value("${auth.rate-limit.enabled:true}")
+  private Boolean ENABLED;
+
+  @Value("${auth.rate-limit.ip.capacity:20}")
+  private Long IP_CAPACITY;
+
+  @Value("${auth.rate-limit.ip.refill-per-minute:10}")
+  private Double IP_REFILL_PER_MINUTE;
+
+  @Value("${auth.rate-limit.email.capacity:5}")
+  private Long EMAIL_CAPACITY;
+
+  @Value("${auth.rate-limit.email.refill-per-minute:1}")
+  private Double EMAIL_REFILL_PER_MINUTE;
+
+  RateLimitService rateLimitService;
+  ObjectMapper objectMapper;
+  HandlerExceptionResolver handlerExceptionResolver;
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    return (
+      !ENABLED ||
+      !HttpMethod.POST.matches(request.getMethod()) ||
+      !RATE_LIMITED_ROUTES.containsKey(request.getRequestURI())
+    );
+  }
+
+  @Override
+  protected void doFilterInternal(
+    @NonNull HttpServletRequest request,
+    @NonNull HttpServletResponse response,
+    @NonNull FilterChain filterChain
+  ) throws ServletException, IOException {
+    final String endpoint = RATE_LIMITED_ROUTES.get(request.getRequestURI());
+    final List<Bucket> buckets = new ArrayList<>(2);
+
+    if (request.getContentLengthLong() > MAX_BODY_SIZE) {
+      reject(request, response, new AppException(ErrorCode.REQUEST_TOO_LARGE, MAX_BODY_SIZE));
+      return;
+    }
+
+    // Bodies without a declared length are read up to one byte past the limit
+    final CachedBodyRequest cachedBodyRequest = new CachedBodyRequest(request);
+    if (cachedBodyRequest.body.length > MAX_BODY_SIZE) {
+      reject(request, response, new AppException(ErrorCode.REQUEST_TOO_LARGE, MAX_BODY_SIZE));
+      return;
+    }
+
+    buckets.add(
+      new Bucket(endpoint + ":ip:" + request.getRemoteAddr(), IP_CAPACITY, IP_REFILL_PER_MINUTE)
+    );
+
+    final String email = readEmail(cachedBodyRequest.body);
+    if (email != null) {
+      buckets.add(
+        new Bucket(endpoint + ":email:" + email, EMAIL_CAPACITY, EMAIL_REFILL_PER_MINUTE)
+      );
+    }
+
+    final long retryAfterMillis = rateLimitService.tryConsume(buckets);
+    if (retryAfterMillis > 0) {
+      reject(request, response, new TooManyRequestsException(Math.ceilDiv(retryAfterMillis, 1000)));
+      return;
+    }
+
+    filterChain.doFilter(cachedBodyRequest, response);
+  }
+
+  private void reject(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    AppException exception
+  ) {
+    handlerExceptionResolver.resolveException(request, response, null, exception);
+  }
+
+  private String readEmail(byte[] body) {
+    if (body.length == 0) {
+      return null;
+    }
+
+    try {
+      final JsonNode email = objectMapper.readTree(body).path("email");
+      if (!email.isTextual() || email.asText().isBlank()) {
+        return null;
+      }
+
+      return email.asText().trim().toLowerCase(Locale.ROOT);
+    } catch (IOException e) {
+      // The request is rejected by the validation of the controller anyway
+      return null;
+    }
+  }
+
+  /** A request whose body is read up front, so that it can be read again by the controller. */
+  private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request) throws IOException {
+      super(request);
+      this.body = request.getInputStream().readNBytes(MAX_BODY_SIZE + 1);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      final ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+
+      return new ServletInputStream() {
+        @Override
+        public int read() {
+          return inputStream.read();
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) {
+          return inputStream.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+          return inputStream.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      final String encoding = getCharacterEncoding();
+
+      return new BufferedReader(
+        new InputStreamReader(
+          getInputStream(),
+          encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8
+        )
+      );
+    }
+  }
+}
@@ -6,30 +6,24 @@ import static com.example.base.enums.ErrorCode.TOKEN_REVOKED;
 import static com.example.base.enums.ErrorCode.USER_NOT_FOUND;
 
 import com.example.base.exceptions.AppException;
-import com.example.base.utils.AppRoutes;
-import com.example.modules.auth.annotations.AllowRoles;
-import com.example.modules.auth.annotations.OptionalAuth;
-import com.example.modules.auth.annotations.Public;
-import com.example.modules.auth.enums.Role;
+import com.example.modules.auth.dtos.AuthenticatedUser;
 import com.example.modules.auth.services.JwtService;
-import com.example.modules.users.entities.User;
-import com.example.modules.users.repositories.UsersRepository;
+import com.example.modules.auth.utils.RoutePolicy;
+import com.example.modules.auth.utils.RoutePolicyRegistry;
+import com.example.modules.users.dtos.UserSnapshotDTO;
+import com.example.modules.users.services.UserSnapshotService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.lang.Collections;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -39,10 +33,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerExceptionResolver;
-import org.springframework.web.servlet.HandlerExecutionChain;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 @Component
 @RequiredArgsConstructor
@@ -50,11 +41,8 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   JwtService jwtService;
-  UsersRepository usersRepository;
-
-  @Qualifier("requestMappingHandlerMapping")
-  RequestMappingHandlerMapping handlerMapping;
-
+  UserSnapshotService userSnapshotService;
+  RoutePolicyRegistry routePolicyRegistry;
   HandlerExceptionResolver handlerExceptionResolver;
 
   @Override
@@ -63,12 +51,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @NonNull HttpServletResponse response,
     @NonNull FilterChain filterChain
   ) throws ServletException, IOException {
-    final String currentRoute = request.getServletPath();
     final SecurityContext securityContext = SecurityContextHolder.getContext();
-    final boolean isCurrentRoutePublic = isPublicAnnotatedRoute(request);
-    final boolean isCurrentRouteOptionalAuth = isOptionalAuthAnnotatedRoute(request);
+    final RoutePolicy routePolicy = routePolicyRegistry.resolve(request);
+    final boolean isCurrentRouteOptionalAuth = routePolicy.isOptionalAuth();
 
-    if (AppRoutes.isWhitelistedRoute(currentRoute) || isCurrentRoutePublic) {
+    if (routePolicy.isPublic()) {
       bypassAuthentication(request, response, filterChain, securityContext);
       return;
     }
@@ -87,32 +74,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       final Jws<Claims> decodedToken = jwtService.verifyAccessToken(
         authorizationHeader.substring("Bearer ".length())
       );
-      final Date tokenIssuedAt = decodedToken.getPayload().getIssuedAt();
+      final Date tokenIssuedAt = JwtService.getIssuedAt(decodedToken.getPayload());
       final String userId = decodedToken.getPayload().getSubject();
 
       if (jwtService.isTokenInvalidated(userId, tokenIssuedAt)) {
         throw new AppException(TOKEN_REVOKED);
       }
 
-      User user = usersRepository
-        .findById(userId)
+      final UserSnapshotDTO user = userSnapshotService
+        .getSnapshot(userId)
+        .filter(UserSnapshotDTO::isEnabled)
         .orElseThrow(() ->
           new AppException(USER_NOT_FOUND, "The user belonging to this token no longer exists.")
         );
 
-      final String currentRole = decodedToken.getPayload().get("role", String.class);
-      final List<String> allowRoles = getAllowRolesOfCurrentRoute(request)
-        .stream()
-        .map(Role::getValue)
-        .collect(Collectors.toList());
+      // The role is read from the snapshot rather than from the token, so role changes apply
+      // to tokens that were issued before the change
+      final String currentRole = user.getRole().getValue();
 
-      if (!allowRoles.isEmpty() && !allowRoles.contains(currentRole)) {
+      if (!routePolicy.isRoleAllowed(currentRole)) {
         throw new AppException(OPERATION_NOT_ALLOWED);
       }
 
       securityContext.setAuthentication(
         new UsernamePasswordAuthenticationToken(
-          user,
+          new AuthenticatedUser(user.getId(), user.getRole()),
           null,
           List.of(new SimpleGrantedAuthority(currentRole))
         )
@@ -129,51 +115,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
   }
 
-  private boolean isPublicAnnotatedRoute(HttpServletRequest request) {
-    try {
-      final HandlerExecutionChain handlerChain = handlerMapping.getHandler(request);
-      if (handlerChain != null && handlerChain.getHandler() instanceof HandlerMethod) {
-        HandlerMethod handlerMethod = (HandlerMethod) handlerChain.getHandler();
-        Method method = handlerMethod.getMethod();
-        return method.isAnnotationPresent(Public.class);
-      }
-    } catch (Exception e) {
-      return false;
-    }
-    return false;
-  }
-
-  private boolean isOptionalAuthAnnotatedRoute(HttpServletRequest request) {
-    try {
-      final HandlerExecutionChain handlerChain = handlerMapping.getHandler(request);
-      if (handlerChain != null && handlerChain.getHandler() instanceof HandlerMethod) {
-        HandlerMethod handlerMethod = (HandlerMethod) handlerChain.getHandler();
-        Method method = handlerMethod.getMethod();
-        return method.isAnnotationPresent(OptionalAuth.class);
-      }
-    } catch (Exception e) {
-      return false;
-    }
-    return false;
-  }
-
-  private List<Role> getAllowRolesOfCurrentRoute(HttpServletRequest request) {
-    try {
-      final HandlerExecutionChain handlerChain = handlerMapping.getHandler(request);
-      if (handlerChain != null && handlerChain.getHandler() instanceof HandlerMethod) {
-        final HandlerMethod handlerMethod = (HandlerMethod) handlerChain.getHandler();
-        final Method method = handlerMethod.getMethod();
-        if (method.isAnnotationPresent(AllowRoles.class)) {
-          final AllowRoles publicAnnotation = method.getAnnotation(AllowRoles.class);
-          return List.of(publicAnnotation.value());
-        }
-      }
-    } catch (Exception e) {
-      return Collections.emptyList();
-    }
-    return Collections.emptyList();
-  }
-
   private void bypassAuthentication(
     @NonNull HttpServletRequest request,
     @NonNull HttpServletResponse response,
@@ -1,7 +1,9 @@
 package com.example.modules.auth.resolvers;
 
 import com.example.modules.auth.annotations.CurrentUser;
+import com.example.modules.auth.dtos.AuthenticatedUser;
 import com.example.modules.users.entities.User;
+import com.example.modules.users.repositories.UsersRepository;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.MethodParameter;
@@ -16,31 +18,50 @@ import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 
+/**
+ * Resolves the parameters annotated with {@link CurrentUser}.
+ *
+ * <p>
+ * {@link User} parameters are resolved to a lazy reference of the entity: the user is only loaded
+ * from the database when one of its fields (other than the ID) is read. Handlers that only need
+ * the ID and the role can declare an {@link AuthenticatedUser} parameter instead.
+ * </p>
+ */
 @Component
 @RequiredArgsConstructor
 public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
 
+  private final UsersRepository usersRepository;
+
   @Override
   public boolean supportsParameter(@NonNull MethodParameter parameter) {
     return (
       parameter.hasParameterAnnotation(CurrentUser.class) &&
-      parameter.getParameterType().equals(User.class)
+      (parameter.getParameterType().equals(User.class) ||
+        parameter.getParameterType().equals(AuthenticatedUser.class))
     );
   }
 
   @Override
   @Nullable
-  public User resolveArgument(
+  public Object resolveArgument(
     @NonNull MethodParameter parameter,
     @Nullable ModelAndViewContainer mavContainer,
     @NonNull NativeWebRequest webRequest,
     @Nullable WebDataBinderFactory binderFactory
   ) {
-    return Optional.ofNullable(SecurityContextHolder.getContext())
+    AuthenticatedUser authenticatedUser = Optional.ofNullable(SecurityContextHolder.getContext())
       .map(SecurityContext::getAuthentication)
       .filter(Authentication::isAuthenticated)
       .map(Authentication::getPrincipal)
-      .map(User.class::cast)
+      .filter(AuthenticatedUser.class::isInstance)
+      .map(AuthenticatedUser.class::cast)
       .orElse(null);
+
+    if (authenticatedUser == null || parameter.getParameterType().equals(AuthenticatedUser.class)) {
+      return authenticatedUser;
+    }
+
+    return usersRepository.getReferenceById(authenticatedUser.getId());
   }
 }
@@ -16,24 +16,22 @@ import com.example.modules.auth.dtos.ResetPasswordRequestDTO;
 import com.example.modules.auth.entities.Account;
 import com.example.modules.auth.repositories.AccountsRepository;
 import com.example.modules.email.dtos.SendEmailEventDTO;
-import com.example.modules.redis.publishers.RedisStreamPublisher;
-import com.example.modules.redis.services.RedisService;
+import com.example.modules.outbox.services.OutboxService;
 import com.example.modules.users.entities.User;
 import com.example.modules.users.repositories.UsersRepository;
+import com.example.modules.users.services.UserSnapshotService;
 import com.example.modules.users.utils.UserMapper;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -44,10 +42,11 @@ public class AuthService {
   private final AccountsRepository accountsRepository;
   private final UsersRepository usersRepository;
   private final JwtService jwtService;
-  private final RedisService redisService;
+  private final TokenRevocationService tokenRevocationService;
   private final UserMapper userMapper;
   private final PasswordEncoder passwordEncoder;
-  private final RedisStreamPublisher redisStreamPublisher;
+  private final OutboxService outboxService;
+  private final UserSnapshotService userSnapshotService;
 
   @Value("${app.frontend-url}")
   private String frontendUrl;
@@ -59,15 +58,22 @@ public class AuthService {
     String email = loginRequest.getEmail();
     String password = loginRequest.getPassword();
 
-    Account account = accountsRepository
-      .findByEmail(email)
+    // The account is fetched with the user, in a single query
+    User user = usersRepository
+      .findByAccountEmail(email)
       .orElseThrow(() -> new AppException(INVALID_CREDENTIALS));
+    Account account = user.getAccount();
 
     if (!passwordEncoder.matches(password, account.getPassword())) {
       throw new AppException(INVALID_CREDENTIALS);
     }
 
-    User user = usersRepository.findByAccount(account).get();
+    // Re-hash the password with the configured strength while we have it in plain text
+    if (passwordEncoder.upgradeEncoding(account.getPassword())) {
+      account.setPassword(passwordEncoder.encode(password));
+      accountsRepository.save(account);
+    }
+
     return getTokenResponse(user);
   }
 
@@ -75,30 +81,20 @@ public class AuthService {
     final String email = registerRequest.getEmail();
     final String password = registerRequest.getPassword();
 
-    final Optional<Account> existingAccount = accountsRepository.findByEmail(email);
-    final User savedUser;
+    // Checking and claiming the email is a single upsert, so concurrent registrations with the
+    // same email cannot both succeed
+    final String userId = usersRepository
+      .register(email, passwordEncoder.encode(password))
+      .orElseThrow(() -> new AppException(EMAIL_USED));
 
-    if (!existingAccount.isPresent()) {
-      final Account savedAccount = accountsRepository.save(
-        Account.builder().email(email).password(passwordEncoder.encode(password)).build()
-      );
+    // The email may have belonged to a deleted account, which is restored by the upsert
+    userSnapshotService.evict(userId);
 
-      savedUser = usersRepository.save(User.builder().account(savedAccount).build());
-    } else if (existingAccount.get().isEnabled()) {
-      throw new AppException(EMAIL_USED);
-    } else {
-      final Account account = existingAccount.get();
-      account.setEmail(email);
-      account.setPassword(passwordEncoder.encode(password));
-      account.setDeletedTimestamp(null);
-      final Account savedAccount = accountsRepository.save(account);
-      final User user = usersRepository
-        .findByAccount(account)
-        .orElse(User.builder().account(savedAccount).build());
-      savedUser = usersRepository.save(user);
-    }
+    final User user = usersRepository
+      .findWithAccountById(userId)
+      .orElseThrow(() -> new AppException(USER_NOT_FOUND));
 
-    return getTokenResponse(savedUser);
+    return getTokenResponse(user);
   }
 
   public AuthTokenDTO refresh(String refreshToken) {
@@ -108,7 +104,7 @@ public class AuthService {
 
     final Jws<Claims> decodedRefreshToken = jwtService.verifyRefreshToken(refreshToken);
     final String userId = decodedRefreshToken.getPayload().getSubject();
-    final Date tokenIssuedAt = decodedRefreshToken.getPayload().getIssuedAt();
+    final Date tokenIssuedAt = JwtService.getIssuedAt(decodedRefreshToken.getPayload());
 
     if (jwtService.isTokenInvalidated(userId, tokenIssuedAt)) {
       throw new AppException(TOKEN_REVOKED);
@@ -146,9 +142,11 @@ public class AuthService {
     userAccount.setPassword(passwordEncoder.encode(request.getNewPassword()));
     accountsRepository.save(userAccount);
 
+    userSnapshotService.evict(user.getId());
     invalidateTokens(user.getId());
   }
 
+  @Transactional
   public void forgotPassword(String email) {
     User user = usersRepository
       .findByAccountEmail(email)
@@ -178,7 +176,7 @@ public class AuthService {
       )
       .build();
 
-    redisStreamPublisher.send("stream:email_sending", event);
+    outboxService.publish("stream:email_sending", event);
   }
 
   public void resetPassword(ResetPasswordRequestDTO request) {
@@ -193,9 +191,13 @@ public class AuthService {
 
     user.getAccount().setPassword(passwordEncoder.encode(newPassword));
     usersRepository.save(user);
+    userSnapshotService.evict(user.getId());
   }
 
   private AuthTokenDTO getTokenResponse(User user) {
+    // The user has just been loaded, so the first authenticated requests need no database read
+    userSnapshotService.update(user);
+
     final String accessToken = jwtService.generateAccessToken(user);
     final String refreshToken = jwtService.generateRefreshToken(user);
 
@@ -207,9 +209,6 @@ public class AuthService {
   }
 
   private void invalidateTokens(String userId) {
-    redisService.set(
-      "user:%s:tokens:invalidated_before".formatted(userId),
-      Instant.now().truncatedTo(ChronoUnit.SECONDS)
-    );
+    tokenRevocationService.revokeAll(userId);
   }
 }
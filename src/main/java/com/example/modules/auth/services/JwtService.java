@@ -2,22 +2,23 @@ package com.example.modules.auth.services;
 
 import com.example.base.enums.ErrorCode;
 import com.example.base.exceptions.AppException;
-import com.example.modules.redis.services.RedisService;
+import com.example.modules.auth.utils.JwtKeyring;
 import com.example.modules.users.entities.User;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
-import javax.crypto.SecretKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +29,11 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class JwtService {
 
+  private static final String PASSWORD_FINGERPRINT_CLAIM = "pwd";
+
+  /** The issue time in epoch milliseconds: {@code iat} only has a precision of one second. */
+  private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
   @Value("${jwt.access.secret}")
   private String ACCESS_SECRET;
 
@@ -37,6 +43,15 @@ public class JwtService {
   @Value("${jwt.reset-password.secret}")
   private String RESET_PASSWORD_SECRET;
 
+  @Value("${jwt.access.previous-secrets:}")
+  private String[] ACCESS_PREVIOUS_SECRETS;
+
+  @Value("${jwt.refresh.previous-secrets:}")
+  private String[] REFRESH_PREVIOUS_SECRETS;
+
+  @Value("${jwt.reset-password.previous-secrets:}")
+  private String[] RESET_PASSWORD_PREVIOUS_SECRETS;
+
   @Value("${jwt.access.expiration}")
   private Long ACCESS_EXPIRATION;
 
@@ -46,18 +61,49 @@ public class JwtService {
   @Value("${jwt.reset-password.expiration}")
   private Long RESET_PASSWORD_EXPIRATION;
 
-  private final RedisService redisService;
+  private final TokenRevocationService tokenRevocationService;
   private final ObjectMapper objectMapper;
 
+  private JwtKeyring accessKeyring;
+  private JwtKeyring refreshKeyring;
+  private JwtKeyring resetPasswordKeyring;
+
+  private JwtParser accessTokenParser;
+  private JwtParser refreshTokenParser;
+  private JwtParser resetPasswordTokenParser;
+
+  /**
+   * Derives the signing keys and builds the parsers once. Parsers are immutable and thread-safe,
+   * and they look up the verification key through the keyring by the {@code kid} of the token.
+   */
+  @PostConstruct
+  void init() {
+    accessKeyring = new JwtKeyring(ACCESS_SECRET, ACCESS_PREVIOUS_SECRETS);
+    refreshKeyring = new JwtKeyring(REFRESH_SECRET, REFRESH_PREVIOUS_SECRETS);
+    resetPasswordKeyring = new JwtKeyring(RESET_PASSWORD_SECRET, RESET_PASSWORD_PREVIOUS_SECRETS);
+
+    accessTokenParser = Jwts.parser().keyLocator(accessKeyring).build();
+    refreshTokenParser = Jwts.parser().keyLocator(refreshKeyring).build();
+    resetPasswordTokenParser = Jwts.parser().keyLocator(resetPasswordKeyring).build();
+  }
+
+  /** @param tokenIssuedAt the issue time of the token, as returned by {@link #getIssuedAt} */
   public boolean isTokenInvalidated(String userId, Date tokenIssuedAt) {
-    String key = "user:%s:tokens:invalidated_before".formatted(userId);
-    Instant invalidatedBefore = redisService.get(key, Instant.class);
+    // Millisecond precision, like the revocation watermarks
+    long invalidatedBefore = tokenRevocationService.getWatermark(userId);
 
-    if (invalidatedBefore == null) {
-      return false;
-    }
+    return tokenIssuedAt.getTime() < invalidatedBefore;
+  }
+
+  /**
+   * @return the issue time of a token, to the millisecond. Tokens issued before the
+   *         {@value #ISSUED_AT_MILLIS_CLAIM} claim was added fall back to {@code iat}, which is
+   *         revoked by a revocation later in the same second.
+   */
+  public static Date getIssuedAt(Claims claims) {
+    Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
 
-    return tokenIssuedAt.toInstant().isBefore(invalidatedBefore);
+    return issuedAtMillis != null ? new Date(issuedAtMillis) : claims.getIssuedAt();
   }
 
   public String generateAccessToken(User user) {
@@ -66,11 +112,15 @@ public class JwtService {
     Date expiration = Date.from(currentInstant.plusSeconds(ACCESS_EXPIRATION));
 
     return Jwts.builder()
+      .header()
+      .keyId(accessKeyring.getActiveKeyId())
+      .and()
       .subject(user.getId())
       .claim("role", user.getAccount().getRole())
+      .claim(ISSUED_AT_MILLIS_CLAIM, currentInstant.toEpochMilli())
       .issuedAt(issuedAt)
       .expiration(expiration)
-      .signWith(getSecretKeyFromString(ACCESS_SECRET))
+      .signWith(accessKeyring.getActiveKey())
       .compact();
   }
 
@@ -80,35 +130,47 @@ public class JwtService {
     Date expiration = Date.from(currentInstant.plusSeconds(REFRESH_EXPIRATION));
 
     return Jwts.builder()
+      .header()
+      .keyId(refreshKeyring.getActiveKeyId())
+      .and()
       .subject(user.getId())
+      .claim(ISSUED_AT_MILLIS_CLAIM, currentInstant.toEpochMilli())
       .issuedAt(issuedAt)
       .expiration(expiration)
-      .signWith(getSecretKeyFromString(REFRESH_SECRET))
+      .signWith(refreshKeyring.getActiveKey())
       .compact();
   }
 
+  /**
+   * Reset password tokens are bound to the current password of the user through a fingerprint
+   * claim, so that a token can only be used once: it stops being valid as soon as the password
+   * changes.
+   */
   public String generateResetPasswordToken(User user) {
     Instant currentInstant = Instant.now();
     Date issuedAt = Date.from(currentInstant);
     Date expiration = Date.from(currentInstant.plusSeconds(RESET_PASSWORD_EXPIRATION));
-    String secret = RESET_PASSWORD_SECRET + user.getAccount().getPassword();
 
     return Jwts.builder()
+      .header()
+      .keyId(resetPasswordKeyring.getActiveKeyId())
+      .and()
       .subject(user.getId())
       .claim("email", user.getAccount().getEmail())
       .claim("type", "reset_password")
+      .claim(PASSWORD_FINGERPRINT_CLAIM, getPasswordFingerprint(user))
       .issuedAt(issuedAt)
       .expiration(expiration)
-      .signWith(getSecretKeyFromString(secret))
+      .signWith(resetPasswordKeyring.getActiveKey())
       .compact();
   }
 
   public Jws<Claims> verifyAccessToken(String token) {
-    return parseSignedToken(token, ACCESS_SECRET);
+    return parseSignedToken(token, accessTokenParser);
   }
 
   public Jws<Claims> verifyRefreshToken(String token) {
-    return parseSignedToken(token, REFRESH_SECRET);
+    return parseSignedToken(token, refreshTokenParser);
   }
 
   public String extractUserIdUnverified(String token) {
@@ -127,21 +189,30 @@ public class JwtService {
   }
 
   public Jws<Claims> verifyResetPasswordToken(String token, User user) {
-    var decoded = parseSignedToken(token, RESET_PASSWORD_SECRET + user.getAccount().getPassword());
+    var decoded = parseSignedToken(token, resetPasswordTokenParser);
+    Claims claims = decoded.getPayload();
+
+    if (!"reset_password".equals(claims.get("type"))) {
+      throw new AppException(ErrorCode.TOKEN_INVALID);
+    }
 
-    if (!decoded.getPayload().get("type").equals("reset_password")) {
+    String fingerprint = claims.get(PASSWORD_FINGERPRINT_CLAIM, String.class);
+    if (
+      fingerprint == null ||
+      !MessageDigest.isEqual(
+        fingerprint.getBytes(StandardCharsets.US_ASCII),
+        getPasswordFingerprint(user).getBytes(StandardCharsets.US_ASCII)
+      )
+    ) {
       throw new AppException(ErrorCode.TOKEN_INVALID);
     }
 
     return decoded;
   }
 
-  private Jws<Claims> parseSignedToken(String token, String secretKey) {
+  private Jws<Claims> parseSignedToken(String token, JwtParser parser) {
     try {
-      return Jwts.parser()
-        .verifyWith(getSecretKeyFromString(secretKey))
-        .build()
-        .parseSignedClaims(token);
+      return parser.parseSignedClaims(token);
     } catch (ExpiredJwtException e) {
       throw new AppException(ErrorCode.TOKEN_EXPIRED);
     } catch (IllegalArgumentException e) {
@@ -151,12 +222,14 @@ public class JwtService {
     }
   }
 
-  private SecretKey getSecretKeyFromString(String secret) {
+  private String getPasswordFingerprint(User user) {
     try {
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      byte[] keyBytes = digest.digest(secret.getBytes(StandardCharsets.UTF_8));
+      String password = user.getAccount().getPassword();
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+        (password == null ? "" : password).getBytes(StandardCharsets.UTF_8)
+      );
 
-      return Keys.hmacShaKeyFor(keyBytes);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
     } catch (NoSuchAlgorithmException e) {
       throw new RuntimeException("SHA-256 algorithm not found", e);
     }
@@ -0,0 +1,144 @@
+package com.example.modules.auth.services;
+
+import com.example.base.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link PasswordEncoder} that runs BCrypt on a dedicated, bounded thread pool.
+ *
+ * <p>
+ * Hashing a password is deliberately expensive, so a burst of logins could otherwise occupy every
+ * request thread and stall the cheap endpoints. At most {@code pool-size} hashes run at the same
+ * time and at most {@code queue-capacity} wait for a thread. When both are full, the request fails
+ * immediately with a {@link TooManyRequestsException} (429 with a {@code Retry-After} header).
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PasswordHashingService implements PasswordEncoder {
+
+  private static final String METRIC_PREFIX = "auth.password_hashing";
+
+  @Value("${auth.password-hashing.strength:10}")
+  private Integer STRENGTH;
+
+  @Value("${auth.password-hashing.pool-size:0}")
+  private Integer POOL_SIZE;
+
+  @Value("${auth.password-hashing.queue-capacity:64}")
+  private Integer QUEUE_CAPACITY;
+
+  @Value("${auth.password-hashing.retry-after:1}")
+  private Long RETRY_AFTER;
+
+  private final MeterRegistry meterRegistry;
+
+  private BCryptPasswordEncoder delegate;
+  private ThreadPoolExecutor executor;
+  private Timer encodeTimer;
+  private Timer matchesTimer;
+  private Counter rejectedCounter;
+
+  @PostConstruct
+  void init() {
+    int poolSize = POOL_SIZE > 0 ? POOL_SIZE : Runtime.getRuntime().availableProcessors();
+
+    delegate = new BCryptPasswordEncoder(STRENGTH);
+    executor = new ThreadPoolExecutor(
+      poolSize,
+      poolSize,
+      0,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+      new CustomizableThreadFactory("password-hashing-"),
+      new ThreadPoolExecutor.AbortPolicy()
+    );
+
+    Gauge.builder(METRIC_PREFIX + ".queue.size", executor, e -> e.getQueue().size())
+      .description("Number of password hashing tasks waiting for a thread")
+      .register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + ".active", executor, ThreadPoolExecutor::getActiveCount)
+      .description("Number of password hashing tasks running")
+      .register(meterRegistry);
+    encodeTimer = Timer.builder(METRIC_PREFIX + ".duration")
+      .tag("operation", "encode")
+      .register(meterRegistry);
+    matchesTimer = Timer.builder(METRIC_PREFIX + ".duration")
+      .tag("operation", "matches")
+      .register(meterRegistry);
+    rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+      .description("Number of password hashing tasks rejected because the pool was saturated")
+      .register(meterRegistry);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return execute(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return execute(() ->
+      matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword))
+    );
+  }
+
+  /**
+   * Whether a password hash was computed with a lower strength than the configured one, and so
+   * should be computed again. This does not hash anything, so it runs on the calling thread.
+   */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T execute(Callable<T> task) {
+    Future<T> future;
+
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejectedCounter.increment();
+      throw new TooManyRequestsException(RETRY_AFTER);
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing a password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+
+      throw new IllegalStateException("Failed to hash a password", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package com.example.modules.auth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+
+/**
+ * Token-bucket rate limiter shared by every instance of the application.
+ *
+ * <p>
+ * The buckets are stored in Redis and updated by a Lua script, so checking (and consuming) the
+ * buckets of a request is atomic and takes a single round trip. When a bucket is empty, the
+ * time until it has a token again is also remembered in memory: the following requests hitting
+ * the same bucket are rejected by this instance without calling Redis, which keeps floods from
+ * a single client away from Redis.
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RateLimitService {
+
+  private static final String KEY_PREFIX = "rate_limit:";
+
+  @Value("${auth.rate-limit.local-cache.max-size:100000}")
+  private Long LOCAL_CACHE_MAX_SIZE;
+
+  private final StringRedisTemplate stringRedisTemplate;
+
+  @SuppressWarnings("rawtypes")
+  private final RedisScript<List> tokenBucketScript = RedisScript.of(
+    new ClassPathResource("scripts/token_bucket.lua"),
+    List.class
+  );
+
+  /** Epoch millisecond until which each empty bucket is known to stay empty. */
+  private Cache<String, Long> deniedUntil;
+
+  @PostConstruct
+  void init() {
+    deniedUntil = Caffeine.newBuilder()
+      .maximumSize(LOCAL_CACHE_MAX_SIZE)
+      .expireAfter(
+        new Expiry<String, Long>() {
+          @Override
+          public long expireAfterCreate(@NonNull String key, @NonNull Long until, long now) {
+            return remainingNanos(until);
+          }
+
+          @Override
+          public long expireAfterUpdate(
+            @NonNull String key,
+            @NonNull Long until,
+            long now,
+            long currentDuration
+          ) {
+            return remainingNanos(until);
+          }
+
+          @Override
+          public long expireAfterRead(
+            @NonNull String key,
+            @NonNull Long until,
+            long now,
+            long currentDuration
+          ) {
+            return currentDuration;
+          }
+        }
+      )
+      .build();
+  }
+
+  /**
+   * Takes a token from every bucket, or from none of them if one of the buckets is empty.
+   *
+   * @param buckets the buckets limiting the current request
+   * @return {@code 0} if the request is allowed, otherwise the number of milliseconds after which
+   *         it can be retried
+   */
+  public long tryConsume(List<Bucket> buckets) {
+    long now = System.currentTimeMillis();
+    long localRetryAfter = 0;
+
+    for (Bucket bucket : buckets) {
+      Long until = deniedUntil.getIfPresent(bucket.key());
+      if (until != null && until > now) {
+        localRetryAfter = Math.max(localRetryAfter, until - now);
+      }
+    }
+
+    if (localRetryAfter > 0) {
+      return localRetryAfter;
+    }
+
+    List<String> keys = new ArrayList<>(buckets.size());
+    List<String> args = new ArrayList<>(buckets.size() * 2);
+
+    for (Bucket bucket : buckets) {
+      keys.add(KEY_PREFIX + bucket.key());
+      args.add(Long.toString(bucket.capacity()));
+      args.add(Double.toString(bucket.refillPerMinute() / 60_000d));
+    }
+
+    List<?> result;
+    try {
+      result = stringRedisTemplate.execute(tokenBucketScript, keys, args.toArray());
+    } catch (RuntimeException e) {
+      // Rate limiting must not take the authentication endpoints down with Redis
+      log.error("Error checking the rate limits {}: {}", keys, e.getMessage());
+      return 0;
+    }
+
+    if (result == null || result.isEmpty()) {
+      return 0;
+    }
+
+    long retryAfter = ((Number) result.get(0)).longValue();
+
+    if (retryAfter > 0) {
+      for (int i = 0; i < buckets.size(); i++) {
+        long wait = ((Number) result.get(i + 1)).longValue();
+        if (wait > 0) {
+          deniedUntil.asMap().merge(buckets.get(i).key(), now + wait, Math::max);
+        }
+      }
+    }
+
+    return retryAfter;
+  }
+
+  private static long remainingNanos(long until) {
+    return Math.max(0, until - System.currentTimeMillis()) * 1_000_000;
+  }
+
+  /**
+   * A token bucket.
+   *
+   * @param key identifies the bucket, e.g. {@code login:ip:127.0.0.1}
+   * @param capacity maximum number of tokens, i.e. the size of the largest allowed burst
+   * @param refillPerMinute number of tokens added to the bucket every minute
+   */
+  public record Bucket(String key, long capacity, double refillPerMinute) {}
+}
@@ -0,0 +1,159 @@
+package com.example.modules.auth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps track of the revocation watermark of every user: tokens of a user issued before its
+ * watermark are revoked.
+ *
+ * <p>
+ * Watermarks are stored in Redis (as epoch milliseconds) and cached in memory, including the users
+ * that have no watermark, so checking a token usually needs no network round trip. When tokens
+ * are revoked, the new watermark is published on a Redis channel so that every instance of the
+ * application updates its cache. The cache entries also expire after a short time, which bounds
+ * the delay of a revocation if a message is lost.
+ * </p>
+ *
+ * <p>
+ * Each cached watermark is a primitive {@code long} held by an {@link AtomicLong}, which is
+ * updated in place: checking a token neither unboxes nor allocates, and a revocation only
+ * allocates a holder for users that are not cached.
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TokenRevocationService implements MessageListener {
+
+  /** Watermark of the users whose tokens have never been revoked. */
+  public static final long NO_WATERMARK = Long.MIN_VALUE;
+
+  private static final String WATERMARK_KEY = "user:%s:tokens:invalidated_before";
+  private static final String REVOCATION_CHANNEL = "channel:token_revocation";
+
+  @Value("${jwt.refresh.expiration}")
+  private Long REFRESH_EXPIRATION;
+
+  @Value("${auth.token-revocation.local-cache.max-size:100000}")
+  private Long LOCAL_CACHE_MAX_SIZE;
+
+  @Value("${auth.token-revocation.local-cache.expiration:60}")
+  private Long LOCAL_CACHE_EXPIRATION;
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+  private Cache<String, AtomicLong> watermarks;
+
+  @PostConstruct
+  void init() {
+    watermarks = Caffeine.newBuilder()
+      .maximumSize(LOCAL_CACHE_MAX_SIZE)
+      .expireAfterWrite(Duration.ofSeconds(LOCAL_CACHE_EXPIRATION))
+      .build();
+
+    redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+  }
+
+  /**
+   * @return the epoch millisecond before which the tokens of the user are revoked, or
+   *         {@link #NO_WATERMARK}
+   */
+  public long getWatermark(String userId) {
+    try {
+      return watermarks.get(userId, this::loadWatermark).get();
+    } catch (RuntimeException e) {
+      // Same behaviour as a missing watermark, but the result is not cached
+      log.error("Error getting the revocation watermark of user {}: {}", userId, e.getMessage());
+      return NO_WATERMARK;
+    }
+  }
+
+  /**
+   * Revokes all the tokens of a user issued before now, on every instance of the application.
+   * Millisecond precision revokes the tokens issued earlier in the current second, but not the
+   * ones issued right after, such as the tokens of a refresh.
+   */
+  public void revokeAll(String userId) {
+    long watermark = Instant.now().toEpochMilli();
+
+    // Once the longest-lived token issued before the watermark has expired, it is not needed
+    stringRedisTemplate
+      .opsForValue()
+      .set(
+        WATERMARK_KEY.formatted(userId),
+        Long.toString(watermark),
+        Duration.ofSeconds(REFRESH_EXPIRATION)
+      );
+    updateWatermark(userId, watermark);
+    stringRedisTemplate.convertAndSend(REVOCATION_CHANNEL, userId + ":" + watermark);
+  }
+
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    int separatorIndex = body.lastIndexOf(':');
+
+    try {
+      updateWatermark(
+        body.substring(0, separatorIndex),
+        Long.parseLong(body.substring(separatorIndex + 1))
+      );
+    } catch (RuntimeException e) {
+      log.warn("Ignoring malformed token revocation message: {}", body);
+    }
+  }
+
+  private void updateWatermark(String userId, long watermark) {
+    watermarks
+      .asMap()
+      .computeIfAbsent(userId, id -> new AtomicLong(watermark))
+      .accumulateAndGet(watermark, Math::max);
+  }
+
+  private AtomicLong loadWatermark(String userId) {
+    String value = stringRedisTemplate.opsForValue().get(WATERMARK_KEY.formatted(userId));
+
+    return new AtomicLong(value == null ? NO_WATERMARK : parseWatermark(value));
+  }
+
+  private static long parseWatermark(String value) {
+    String watermark = value.trim();
+
+    // Watermarks written by previous versions are JSON-serialized instants
+    if (watermark.startsWith("\"")) {
+      Instant instant = Instant.parse(watermark.substring(1, watermark.length() - 1));
+      long millis = instant.toEpochMilli();
+      return instant.getNano() % 1_000_000 == 0 ? millis : millis + 1;
+    }
+
+    // Or decimal epoch seconds
+    if (watermark.contains(".")) {
+      return new BigDecimal(watermark)
+        .movePointRight(3)
+        .setScale(0, RoundingMode.CEILING)
+        .longValueExact();
+    }
+
+    return Long.parseLong(watermark);
+  }
+}
@@ -0,0 +1,108 @@
+package com.example.modules.auth.utils;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.SecretKey;
+
+/**
+ * A set of HMAC keys used to sign and verify one kind of JWT (access, refresh, ...).
+ *
+ * <p>
+ * Every key is derived once from its secret and identified by a {@code kid} (key ID) that is
+ * written into the header of the tokens it signs. When verifying, the keyring is used as the
+ * key locator of the JWT parser, so the verification key is picked by the {@code kid} of the
+ * incoming token without any further key derivation.
+ * </p>
+ *
+ * <p>
+ * Secrets are rotated through the configuration, so that every instance agrees on the keys: the
+ * new secret becomes the signing secret, and the previous one is listed among the previous
+ * secrets until the tokens it has signed have expired. Tokens without a {@code kid} header
+ * (issued before key IDs were introduced) are verified with the active key.
+ * </p>
+ */
+public final class JwtKeyring extends LocatorAdapter<Key> {
+
+  private final SigningKey active;
+  private final Map<String, SigningKey> keys;
+
+  /**
+   * @param secret the secret of the active signing key
+   * @param previousSecrets secrets that are no longer used for signing, but still accepted for
+   *        verification. Can be {@code null}.
+   */
+  public JwtKeyring(String secret, String[] previousSecrets) {
+    this.active = SigningKey.of(secret);
+
+    Map<String, SigningKey> keys = new LinkedHashMap<>();
+    keys.put(active.id(), active);
+
+    if (previousSecrets != null) {
+      Arrays.stream(previousSecrets)
+        .filter(previousSecret -> previousSecret != null && !previousSecret.isBlank())
+        .map(previousSecret -> SigningKey.of(previousSecret.trim()))
+        .forEach(key -> keys.putIfAbsent(key.id(), key));
+    }
+
+    this.keys = Map.copyOf(keys);
+  }
+
+  public String getActiveKeyId() {
+    return active.id();
+  }
+
+  public SecretKey getActiveKey() {
+    return active.key();
+  }
+
+  @Override
+  protected Key locate(JwsHeader header) {
+    String keyId = header.getKeyId();
+
+    if (keyId == null) {
+      return active.key();
+    }
+
+    SigningKey key = keys.get(keyId);
+
+    // The parser rejects the token when no verification key can be located
+    return key == null ? null : key.key();
+  }
+
+  /**
+   * Derives the HMAC key of a secret. The secret is hashed with SHA-256 first, so that secrets
+   * of any length produce a key that is long enough for HS256.
+   */
+  public static SecretKey deriveKey(String secret) {
+    return Keys.hmacShaKeyFor(sha256(secret.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static byte[] sha256(byte[] input) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(input);
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256 algorithm not found", e);
+    }
+  }
+
+  private record SigningKey(String id, SecretKey key) {
+    static SigningKey of(String secret) {
+      SecretKey key = deriveKey(secret);
+      // The key ID is a fingerprint of the key, so it never reveals the key itself
+      String id = Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(Arrays.copyOf(sha256(key.getEncoded()), 9));
+
+      return new SigningKey(id, key);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.modules.auth.utils;
+
+import com.example.modules.auth.annotations.AllowRoles;
+import com.example.modules.auth.annotations.OptionalAuth;
+import com.example.modules.auth.annotations.Public;
+import java.util.Set;
+
+/**
+ * The authentication requirements of a route, resolved once from the annotations of its handler
+ * method.
+ *
+ * @param isPublic whether the route is annotated with {@link Public} (or whitelisted)
+ * @param isOptionalAuth whether the route is annotated with {@link OptionalAuth}
+ * @param allowedRoles the values of the roles listed in {@link AllowRoles}, or {@code null} if
+ *        all roles are allowed. An empty set means that no role is allowed.
+ */
+public record RoutePolicy(boolean isPublic, boolean isOptionalAuth, Set<String> allowedRoles) {
+  /** Policy of routes that require an authenticated user, whatever their role. */
+  public static final RoutePolicy AUTHENTICATED = new RoutePolicy(false, false, null);
+
+  /** Policy of routes that bypass authentication. */
+  public static final RoutePolicy PUBLIC = new RoutePolicy(true, false, null);
+
+  public boolean isRoleAllowed(String role) {
+    return allowedRoles == null || allowedRoles.contains(role);
+  }
+
+  /**
+   * Combines the policies of two handlers mapped to the same route and HTTP method (e.g. that only
+   * differ by their request parameters), keeping the most restrictive requirements of both.
+   */
+  RoutePolicy restrictWith(RoutePolicy other) {
+    Set<String> roles;
+
+    if (allowedRoles == null) {
+      roles = other.allowedRoles();
+    } else if (other.allowedRoles() == null) {
+      roles = allowedRoles;
+    } else {
+      // Disjoint roles leave an empty set, which allows no role at all
+      roles = Set.copyOf(allowedRoles.stream().filter(other.allowedRoles()::contains).toList());
+    }
+
+    return new RoutePolicy(
+      isPublic && other.isPublic(),
+      isOptionalAuth && other.isOptionalAuth(),
+      roles
+    );
+  }
+}
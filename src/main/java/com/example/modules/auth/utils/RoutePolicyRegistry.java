@@ -0,0 +1,158 @@
+package com.example.modules.auth.utils;
+
+import com.example.base.utils.AppRoutes;
+import com.example.modules.auth.annotations.AllowRoles;
+import com.example.modules.auth.annotations.OptionalAuth;
+import com.example.modules.auth.annotations.Public;
+import com.example.modules.auth.enums.Role;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Table of the {@link RoutePolicy} of every route, built once at startup from the handler methods
+ * registered in {@link RequestMappingHandlerMapping}.
+ *
+ * <p>
+ * Resolving the policy of a request is a single lookup in the routes of its HTTP method, which
+ * are sorted from the most specific pattern to the least specific one (like Spring MVC does when
+ * it selects a handler). Requests that match no route, for example unknown paths, get the
+ * {@link RoutePolicy#AUTHENTICATED} policy.
+ * </p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RoutePolicyRegistry implements SmartInitializingSingleton {
+
+  private static final Set<RequestMethod> ALL_METHODS = Set.of(RequestMethod.values());
+
+  @Qualifier("requestMappingHandlerMapping")
+  private final RequestMappingHandlerMapping handlerMapping;
+
+  private volatile Map<RequestMethod, List<Route>> routesByMethod = Map.of();
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    refresh();
+  }
+
+  /**
+   * (Re)builds the table from the handler methods currently registered in the handler mapping.
+   */
+  public void refresh() {
+    Map<RequestMethod, Map<String, Route>> routes = new EnumMap<>(RequestMethod.class);
+
+    handlerMapping
+      .getHandlerMethods()
+      .forEach((mappingInfo, handlerMethod) -> {
+        RoutePolicy policy = resolvePolicy(handlerMethod);
+        Set<RequestMethod> methods = mappingInfo.getMethodsCondition().getMethods();
+
+        for (PathPattern pattern : getPathPatterns(mappingInfo)) {
+          for (RequestMethod method : methods.isEmpty() ? ALL_METHODS : methods) {
+            routes
+              .computeIfAbsent(method, key -> new LinkedHashMap<>())
+              .merge(pattern.getPatternString(), new Route(pattern, policy), Route::restrictWith);
+          }
+        }
+      });
+
+    Map<RequestMethod, List<Route>> table = new EnumMap<>(RequestMethod.class);
+    routes.forEach((method, routesOfMethod) -> {
+      List<Route> sortedRoutes = new ArrayList<>(routesOfMethod.values());
+      sortedRoutes.sort(Comparator.comparing(Route::pattern, PathPattern.SPECIFICITY_COMPARATOR));
+      table.put(method, List.copyOf(sortedRoutes));
+    });
+
+    routesByMethod = table;
+    log.info(
+      "Resolved security policies of {} handler methods",
+      handlerMapping.getHandlerMethods().size()
+    );
+  }
+
+  public RoutePolicy resolve(HttpServletRequest request) {
+    PathContainer path = RequestPath.parse(
+      request.getRequestURI(),
+      request.getContextPath()
+    ).pathWithinApplication();
+
+    if (AppRoutes.isWhitelistedRoute(path)) {
+      return RoutePolicy.PUBLIC;
+    }
+
+    RequestMethod method = RequestMethod.resolve(request.getMethod());
+    if (method == RequestMethod.HEAD) {
+      // HEAD requests are handled by GET mappings
+      method = RequestMethod.GET;
+    }
+
+    List<Route> routes = method == null ? null : routesByMethod.get(method);
+    if (routes == null) {
+      return RoutePolicy.AUTHENTICATED;
+    }
+
+    for (Route route : routes) {
+      if (route.pattern().matches(path)) {
+        return route.policy();
+      }
+    }
+
+    return RoutePolicy.AUTHENTICATED;
+  }
+
+  private static RoutePolicy resolvePolicy(HandlerMethod handlerMethod) {
+    AllowRoles allowRoles = handlerMethod.getMethodAnnotation(AllowRoles.class);
+    Set<String> allowedRoles = allowRoles == null
+      ? null
+      : Arrays.stream(allowRoles.value())
+        .map(Role::getValue)
+        .collect(Collectors.toUnmodifiableSet());
+
+    return new RoutePolicy(
+      handlerMethod.hasMethodAnnotation(Public.class),
+      handlerMethod.hasMethodAnnotation(OptionalAuth.class),
+      allowedRoles
+    );
+  }
+
+  private static Set<PathPattern> getPathPatterns(RequestMappingInfo mappingInfo) {
+    if (mappingInfo.getPathPatternsCondition() != null) {
+      return mappingInfo.getPathPatternsCondition().getPatterns();
+    }
+
+    // The handler mapping is configured with AntPathMatcher instead of PathPatternParser
+    return mappingInfo
+      .getPatternValues()
+      .stream()
+      .map(PathPatternParser.defaultInstance::parse)
+      .collect(Collectors.toSet());
+  }
+
+  private record Route(PathPattern pattern, RoutePolicy policy) {
+    Route restrictWith(Route other) {
+      return new Route(pattern, policy.restrictWith(other.policy()));
+    }
+  }
+}
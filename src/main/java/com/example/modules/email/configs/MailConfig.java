@@ -0,0 +1,58 @@
+package com.example.modules.email.configs;
+
+import com.example.modules.email.services.PooledJavaMailSender;
+import java.time.Duration;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * Replaces the {@link JavaMailSender} of Spring Boot, which opens a new connection for every
+ * message, with a {@link PooledJavaMailSender} configured from the same {@code spring.mail.*}
+ * properties.
+ */
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(MailProperties.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MailConfig {
+
+  @Value("${mail.pool.size:4}")
+  Integer POOL_SIZE;
+
+  @Value("${mail.pool.max-messages-per-connection:100}")
+  Integer MAX_MESSAGES_PER_CONNECTION;
+
+  @Value("${mail.pool.max-idle-time:30}")
+  Long MAX_IDLE_TIME;
+
+  @Bean
+  JavaMailSender javaMailSender(MailProperties properties) {
+    log.info("Initializing mail sender with a pool of {} connections", POOL_SIZE);
+    PooledJavaMailSender sender = new PooledJavaMailSender(
+      POOL_SIZE,
+      MAX_MESSAGES_PER_CONNECTION,
+      Duration.ofSeconds(MAX_IDLE_TIME)
+    );
+
+    sender.setHost(properties.getHost());
+    if (properties.getPort() != null) {
+      sender.setPort(properties.getPort());
+    }
+    sender.setUsername(properties.getUsername());
+    sender.setPassword(properties.getPassword());
+    sender.setProtocol(properties.getProtocol());
+    if (properties.getDefaultEncoding() != null) {
+      sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+    }
+    sender.getJavaMailProperties().putAll(properties.getProperties());
+
+    return sender;
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.modules.email.controllers;
+
+import static com.example.base.utils.AppRoutes.EMAILS_PREFIX;
+
+import com.example.base.dtos.SuccessResponseDTO;
+import com.example.modules.auth.annotations.AllowRoles;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.email.dtos.BulkEmailJobDTO;
+import com.example.modules.email.dtos.CreateBulkEmailDTO;
+import com.example.modules.email.services.BulkEmailService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = EMAILS_PREFIX, produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Tag(name = "emails", description = "Operations related to emails")
+public class EmailsController {
+
+  private final BulkEmailService bulkEmailService;
+
+  @Operation(
+    summary = "Send an email to every user, or every user with a role",
+    description = "The emails are sent in the background. The progress is returned by GET /emails/bulk/{id}.",
+    responses = {
+      @ApiResponse(responseCode = "202", description = "Bulk email started successfully"),
+      @ApiResponse(responseCode = "400", description = "Template not found", content = @Content),
+      @ApiResponse(responseCode = "403", description = "User is not an admin", content = @Content),
+      @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content),
+    }
+  )
+  @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true)
+  @AllowRoles({ Role.ADMIN })
+  @PostMapping("/bulk")
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public SuccessResponseDTO<BulkEmailJobDTO> createBulkEmail(
+    @RequestBody @Valid CreateBulkEmailDTO createBulkEmailDTO
+  ) {
+    return SuccessResponseDTO.<BulkEmailJobDTO>builder()
+      .status(202)
+      .message("Bulk email started successfully.")
+      .data(bulkEmailService.createJob(createBulkEmailDTO))
+      .build();
+  }
+
+  @Operation(
+    summary = "Get the progress of a bulk email",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Bulk email retrieved successfully"),
+      @ApiResponse(responseCode = "403", description = "User is not an admin", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Bulk email not found", content = @Content),
+      @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content),
+    }
+  )
+  @AllowRoles({ Role.ADMIN })
+  @GetMapping("/bulk/{id}")
+  public SuccessResponseDTO<BulkEmailJobDTO> getBulkEmail(@PathVariable String id) {
+    return SuccessResponseDTO.<BulkEmailJobDTO>builder()
+      .message("Bulk email retrieved successfully.")
+      .data(bulkEmailService.findJobById(id))
+      .build();
+  }
+
+  @Operation(
+    summary = "Cancel a bulk email",
+    description = "The emails that are not sent yet are not sent.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Bulk email cancelled successfully"),
+      @ApiResponse(responseCode = "403", description = "User is not an admin", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Bulk email not found", content = @Content),
+      @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content),
+    }
+  )
+  @AllowRoles({ Role.ADMIN })
+  @PostMapping("/bulk/{id}/cancel")
+  public SuccessResponseDTO<BulkEmailJobDTO> cancelBulkEmail(@PathVariable String id) {
+    return SuccessResponseDTO.<BulkEmailJobDTO>builder()
+      .message("Bulk email cancelled successfully.")
+      .data(bulkEmailService.cancelJob(id))
+      .build();
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.modules.email.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk of the recipients of a bulk email: the users whose ID is in
+ * {@code (afterUserId, lastUserId]}. The chunk only holds the bounds, the recipients are read when
+ * it is sent.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEmailChunkEventDTO {
+
+  private String jobId;
+  private String afterUserId;
+  private String lastUserId;
+}
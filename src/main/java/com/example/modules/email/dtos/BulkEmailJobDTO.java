@@ -0,0 +1,43 @@
+package com.example.modules.email.dtos;
+
+import com.example.base.dtos.EntityDTO;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.email.enums.BulkEmailJobStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEmailJobDTO extends EntityDTO {
+
+  @Schema(description = "The name of the email template", example = "newsletter")
+  private String templateName;
+
+  @Schema(description = "The subject of the emails", example = "What's new this month")
+  private String subject;
+
+  @Schema(description = "The role of the recipients, every user if null", nullable = true)
+  private Role role;
+
+  @Schema(description = "The status of the job")
+  private BulkEmailJobStatus status;
+
+  @Schema(description = "The number of chunks of recipients dispatched to the workers")
+  private Integer dispatchedChunks;
+
+  @Schema(description = "The number of chunks of recipients sent")
+  private Integer completedChunks;
+
+  @Schema(description = "The number of emails sent")
+  private Long sentCount;
+
+  @Schema(description = "The number of emails that could not be sent")
+  private Long failedCount;
+}
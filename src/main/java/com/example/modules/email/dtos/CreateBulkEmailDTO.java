@@ -0,0 +1,38 @@
+package com.example.modules.email.dtos;
+
+import com.example.modules.auth.enums.Role;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Length;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateBulkEmailDTO {
+
+  @Schema(description = "The name of the email template", example = "newsletter")
+  @NotBlank
+  @Pattern(regexp = "[\\w-]+")
+  private String templateName;
+
+  @Schema(description = "The subject of the emails", example = "What's new this month")
+  @NotBlank
+  @Length(max = 255)
+  private String subject;
+
+  @Schema(
+    description = "The variables of the template that are the same for every recipient. The " +
+    "variables email, firstName, lastName and username are set for each recipient."
+  )
+  private Map<String, Object> variables;
+
+  @Schema(description = "Only send the email to the users with this role", nullable = true)
+  private Role role;
+}
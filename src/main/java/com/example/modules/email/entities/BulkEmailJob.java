@@ -0,0 +1,80 @@
+package com.example.modules.email.entities;
+
+import com.example.base.entities.BaseEntity;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.email.enums.BulkEmailJobStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * An email sent to every user (or every user with a role), from one template.
+ *
+ * <p>
+ * The recipients are never loaded all at once: they are dispatched in chunks of consecutive user
+ * IDs, after {@code lastDispatchedUserId}, by the
+ * {@link com.example.modules.email.services.BulkEmailService}. The job resumes from there after
+ * a restart.
+ * </p>
+ */
+@SuperBuilder
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "bulk_email_jobs")
+public class BulkEmailJob extends BaseEntity {
+
+  @Column(nullable = false)
+  private String templateName;
+
+  @Column(nullable = false)
+  private String subject;
+
+  /** The variables of the template that are the same for every recipient. */
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(columnDefinition = "jsonb")
+  private Map<String, Object> variables;
+
+  /** The role of the recipients, or {@code null} for every user. */
+  @Enumerated(EnumType.STRING)
+  private Role role;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  @Builder.Default
+  private BulkEmailJobStatus status = BulkEmailJobStatus.RUNNING;
+
+  /** The ID of the last recipient dispatched, empty before the first chunk. */
+  @Column(nullable = false)
+  @Builder.Default
+  private String lastDispatchedUserId = "";
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer dispatchedChunks = 0;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Integer completedChunks = 0;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Long sentCount = 0L;
+
+  @Column(nullable = false)
+  @Builder.Default
+  private Long failedCount = 0L;
+}
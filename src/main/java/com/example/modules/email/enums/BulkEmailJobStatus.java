@@ -0,0 +1,12 @@
+package com.example.modules.email.enums;
+
+public enum BulkEmailJobStatus {
+  /** Chunks of recipients are still to be dispatched. */
+  RUNNING,
+  /** Every chunk has been dispatched, some are still being sent. */
+  DISPATCHED,
+  /** Every chunk has been sent. */
+  COMPLETED,
+  /** No more chunks are dispatched, and the chunks already dispatched are skipped. */
+  CANCELLED,
+}
@@ -0,0 +1,67 @@
+package com.example.modules.email.listeners;
+
+import com.example.modules.email.dtos.BulkEmailChunkEventDTO;
+import com.example.modules.email.services.BulkEmailService;
+import com.example.modules.redis.listeners.RedisStreamListener;
+import com.example.modules.redis.listeners.StreamConsumerOptions;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class BulkEmailChunkListener extends RedisStreamListener<BulkEmailChunkEventDTO> {
+
+  @Value("${email.bulk.concurrency:2}")
+  private Integer CONCURRENCY;
+
+  private final BulkEmailService bulkEmailService;
+
+  public BulkEmailChunkListener(
+    StringRedisTemplate redisTemplate,
+    ObjectMapper objectMapper,
+    BulkEmailService bulkEmailService
+  ) {
+    super(redisTemplate, objectMapper);
+    this.bulkEmailService = bulkEmailService;
+  }
+
+  @Override
+  public String getStreamKey() {
+    return BulkEmailService.CHUNKS_STREAM_KEY;
+  }
+
+  @Override
+  public String getConsumerGroup() {
+    return "group:bulk_email_workers";
+  }
+
+  @Override
+  public Class<BulkEmailChunkEventDTO> getTargetType() {
+    return BulkEmailChunkEventDTO.class;
+  }
+
+  /**
+   * A chunk holds many emails: each consumer reads one chunk at a time, and at most
+   * {@code email.bulk.concurrency} chunks are sent at the same time.
+   */
+  @Override
+  public StreamConsumerOptions getConsumerOptions(StreamConsumerOptions defaults) {
+    return new StreamConsumerOptions(defaults.consumerCount(), 1, CONCURRENCY);
+  }
+
+  @Override
+  protected void process(String messageId, BulkEmailChunkEventDTO dto) {
+    log.info("Processing bulk email chunk of job: {}", dto.getJobId());
+
+    bulkEmailService.sendChunk(dto);
+  }
+
+  /** A chunk that is given up on is recorded as failed, so that its job can complete. */
+  @Override
+  protected void deadLettered(String messageId, BulkEmailChunkEventDTO dto) {
+    bulkEmailService.recordFailedChunk(dto);
+  }
+}
@@ -0,0 +1,62 @@
+package com.example.modules.email.repositories;
+
+import com.example.modules.email.entities.BulkEmailJob;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface BulkEmailJobsRepository extends JpaRepository<BulkEmailJob, String> {
+  /**
+   * Locks the oldest running jobs that have fewer than {@code maxPendingChunks} chunks being sent,
+   * until the end of the transaction. Jobs locked by another transaction are skipped, so that
+   * several instances dispatch different jobs at the same time.
+   */
+  @Query(
+    nativeQuery = true,
+    value = """
+    SELECT * FROM bulk_email_jobs
+    WHERE status = 'RUNNING' AND dispatched_chunks - completed_chunks < :maxPendingChunks
+    ORDER BY created_timestamp
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+    """
+  )
+  List<BulkEmailJob> lockDispatchable(int maxPendingChunks, int limit);
+
+  @Transactional
+  @Modifying
+  @Query(
+    """
+    UPDATE BulkEmailJob j
+    SET j.completedChunks = j.completedChunks + 1,
+      j.sentCount = j.sentCount + :sentCount,
+      j.failedCount = j.failedCount + :failedCount,
+      j.status = CASE
+        WHEN j.status = com.example.modules.email.enums.BulkEmailJobStatus.DISPATCHED
+          AND j.completedChunks + 1 >= j.dispatchedChunks
+        THEN com.example.modules.email.enums.BulkEmailJobStatus.COMPLETED
+        ELSE j.status
+      END,
+      j.updatedTimestamp = CURRENT_TIMESTAMP
+    WHERE j.id = :id
+    """
+  )
+  int recordChunk(String id, long sentCount, long failedCount);
+
+  /** Cancels the job, unless it is completed. */
+  @Transactional
+  @Modifying
+  @Query(
+    """
+    UPDATE BulkEmailJob j
+    SET j.status = com.example.modules.email.enums.BulkEmailJobStatus.CANCELLED,
+      j.updatedTimestamp = CURRENT_TIMESTAMP
+    WHERE j.id = :id AND j.status <> com.example.modules.email.enums.BulkEmailJobStatus.COMPLETED
+    """
+  )
+  int cancel(String id);
+}
@@ -0,0 +1,389 @@
+package com.example.modules.email.services;
+
+import static com.example.base.enums.ErrorCode.BULK_EMAIL_JOB_NOT_FOUND;
+import static com.example.base.enums.ErrorCode.EMAIL_TEMPLATE_NOT_FOUND;
+
+import com.example.base.exceptions.AppException;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.email.dtos.BulkEmailChunkEventDTO;
+import com.example.modules.email.dtos.BulkEmailJobDTO;
+import com.example.modules.email.dtos.CreateBulkEmailDTO;
+import com.example.modules.email.entities.BulkEmailJob;
+import com.example.modules.email.enums.BulkEmailJobStatus;
+import com.example.modules.email.repositories.BulkEmailJobsRepository;
+import com.example.modules.email.utils.BulkEmailJobMapper;
+import com.example.modules.outbox.services.OutboxService;
+import com.example.modules.users.dtos.UserContactDTO;
+import com.example.modules.users.repositories.UsersRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sends an email from one template to a large set of users.
+ *
+ * <p>
+ * The recipients are never loaded all at once. Every {@code email.bulk.dispatch-interval}
+ * milliseconds, the running jobs are locked with {@code FOR UPDATE SKIP LOCKED}, and their next
+ * chunks of {@code email.bulk.chunk-size} recipients are found by keyset pagination on the user
+ * IDs. Each chunk is published to {@value #CHUNKS_STREAM_KEY} through the outbox, in the
+ * transaction that moves the cursor of the job, so that a job resumes where it stopped after a
+ * restart. The {@link com.example.modules.email.listeners.BulkEmailChunkListener} then reads the
+ * recipients of a chunk, sends their emails in batches of {@value #RECIPIENTS_PER_BATCH}, and
+ * records the progress of the job.
+ * </p>
+ *
+ * <p>
+ * The progress of a chunk is saved in Redis after each batch, for
+ * {@value #CHUNK_PROGRESS_TTL_HOURS} hours. When a chunk is sent again, e.g. after its consumer
+ * stopped or failed to record it, only the recipients after the last batch sent receive the
+ * email. The recipients of the batch that was being sent may receive it twice. Once the chunk is
+ * recorded in its job, its progress is flagged as recorded, and a chunk delivered again after that
+ * is skipped.
+ * </p>
+ *
+ * <p>
+ * Sending is throttled: a job has at most {@code email.bulk.max-pending-chunks} chunks published
+ * and not sent yet, and the chunks are sent by at most {@code email.bulk.concurrency} consumers on
+ * each instance, so that bulk emails do not take every connection of the mail sender from the
+ * other emails.
+ * </p>
+ */
+@Service
+@Slf4j
+public class BulkEmailService {
+
+  public static final String CHUNKS_STREAM_KEY = "stream:bulk_email_chunks";
+
+  private static final int JOBS_PER_DISPATCH = 10;
+
+  private static final int RECIPIENTS_PER_BATCH = 20;
+
+  private static final String CHUNK_PROGRESS_KEY = "bulk_email:%s:chunk:%s:progress";
+  private static final long CHUNK_PROGRESS_TTL_HOURS = 24;
+  private static final String PROGRESS_CURSOR = "cursor";
+  private static final String PROGRESS_SENT = "sent";
+  private static final String PROGRESS_FAILED = "failed";
+  private static final String PROGRESS_RECORDED = "recorded";
+
+  @Value("${email.bulk.chunk-size:100}")
+  private Integer CHUNK_SIZE;
+
+  @Value("${email.bulk.max-pending-chunks:4}")
+  private Integer MAX_PENDING_CHUNKS;
+
+  @Value("${email.bulk.dispatch-interval:1000}")
+  private Long DISPATCH_INTERVAL;
+
+  private final BulkEmailJobsRepository bulkEmailJobsRepository;
+  private final UsersRepository usersRepository;
+  private final OutboxService outboxService;
+  private final EmailService emailService;
+  private final EmailTemplateRenderer emailTemplateRenderer;
+  private final BulkEmailJobMapper bulkEmailJobMapper;
+  private final StringRedisTemplate redisTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  private ScheduledExecutorService scheduler;
+
+  public BulkEmailService(
+    BulkEmailJobsRepository bulkEmailJobsRepository,
+    UsersRepository usersRepository,
+    OutboxService outboxService,
+    EmailService emailService,
+    EmailTemplateRenderer emailTemplateRenderer,
+    BulkEmailJobMapper bulkEmailJobMapper,
+    StringRedisTemplate redisTemplate,
+    PlatformTransactionManager transactionManager
+  ) {
+    this.bulkEmailJobsRepository = bulkEmailJobsRepository;
+    this.usersRepository = usersRepository;
+    this.outboxService = outboxService;
+    this.emailService = emailService;
+    this.emailTemplateRenderer = emailTemplateRenderer;
+    this.bulkEmailJobMapper = bulkEmailJobMapper;
+    this.redisTemplate = redisTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @PostConstruct
+  void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofVirtual().name("bulk-email-dispatcher").factory()
+    );
+    scheduler.scheduleWithFixedDelay(
+      this::dispatchAll,
+      DISPATCH_INTERVAL,
+      DISPATCH_INTERVAL,
+      TimeUnit.MILLISECONDS
+    );
+  }
+
+  @PreDestroy
+  void stop() {
+    // The jobs are dispatched by the other instances, or after the restart
+    scheduler.shutdownNow();
+  }
+
+  public BulkEmailJobDTO createJob(CreateBulkEmailDTO createBulkEmailDTO) {
+    if (!emailTemplateRenderer.exists(createBulkEmailDTO.getTemplateName())) {
+      throw new AppException(EMAIL_TEMPLATE_NOT_FOUND);
+    }
+
+    BulkEmailJob job = bulkEmailJobsRepository.save(
+      BulkEmailJob.builder()
+        .templateName(createBulkEmailDTO.getTemplateName())
+        .subject(createBulkEmailDTO.getSubject())
+        .variables(createBulkEmailDTO.getVariables())
+        .role(createBulkEmailDTO.getRole())
+        .build()
+    );
+
+    return bulkEmailJobMapper.toBulkEmailJobDTO(job);
+  }
+
+  public BulkEmailJobDTO findJobById(String id) {
+    return bulkEmailJobsRepository
+      .findById(id)
+      .map(bulkEmailJobMapper::toBulkEmailJobDTO)
+      .orElseThrow(() -> new AppException(BULK_EMAIL_JOB_NOT_FOUND));
+  }
+
+  /** Stops dispatching the job. The chunks already dispatched are skipped. */
+  public BulkEmailJobDTO cancelJob(String id) {
+    bulkEmailJobsRepository.cancel(id);
+    return findJobById(id);
+  }
+
+  /**
+   * Sends the emails of a chunk of recipients, then records the progress of its job. Resumes
+   * after the last batch sent if the chunk was sent before, and does nothing if it was already
+   * recorded.
+   */
+  public void sendChunk(BulkEmailChunkEventDTO chunk) {
+    String progressKey = CHUNK_PROGRESS_KEY.formatted(chunk.getJobId(), chunk.getLastUserId());
+    Map<Object, Object> progress = redisTemplate.opsForHash().entries(progressKey);
+
+    if (progress.containsKey(PROGRESS_RECORDED)) {
+      log.info("Chunk of bulk email {} is already recorded, it is skipped", chunk.getJobId());
+      return;
+    }
+
+    BulkEmailJob job = bulkEmailJobsRepository.findById(chunk.getJobId()).orElse(null);
+
+    if (job == null) {
+      log.warn("Bulk email job {} not found, its chunk is skipped", chunk.getJobId());
+      return;
+    }
+
+    if (job.getStatus() == BulkEmailJobStatus.CANCELLED) {
+      recordChunk(job.getId(), progressKey, 0, 0);
+      return;
+    }
+
+    String cursor = (String) progress.getOrDefault(PROGRESS_CURSOR, chunk.getAfterUserId());
+    long sentCount = Long.parseLong((String) progress.getOrDefault(PROGRESS_SENT, "0"));
+    long failedCount = Long.parseLong((String) progress.getOrDefault(PROGRESS_FAILED, "0"));
+
+    List<UserContactDTO> recipients = usersRepository.findContactsBetween(
+      cursor,
+      chunk.getLastUserId(),
+      getRecipientRoles(job)
+    );
+
+    for (int from = 0; from < recipients.size(); from += RECIPIENTS_PER_BATCH) {
+      List<UserContactDTO> batch = recipients.subList(
+        from,
+        Math.min(from + RECIPIENTS_PER_BATCH, recipients.size())
+      );
+      Map<String, Map<String, Object>> variablesByRecipient = new LinkedHashMap<>();
+
+      for (UserContactDTO recipient : batch) {
+        variablesByRecipient.put(recipient.getEmail(), resolveVariables(job, recipient));
+      }
+
+      int batchFailedCount = emailService.sendHtmlEmails(
+        job.getSubject(),
+        job.getTemplateName(),
+        variablesByRecipient
+      );
+      sentCount += variablesByRecipient.size() - batchFailedCount;
+      failedCount += batchFailedCount;
+
+      saveProgress(progressKey, batch.getLast().getId(), sentCount, failedCount);
+    }
+
+    recordChunk(job.getId(), progressKey, sentCount, failedCount);
+    log.info("Bulk email {}: {} emails sent, {} failed", job.getId(), sentCount, failedCount);
+  }
+
+  /**
+   * Records a chunk that could not be sent, once it is moved to the dead-letter stream, so that its
+   * job does not wait for it forever. Its recipients that were not sent the email are counted as
+   * failed. Does nothing if the chunk was already recorded.
+   */
+  public void recordFailedChunk(BulkEmailChunkEventDTO chunk) {
+    String progressKey = CHUNK_PROGRESS_KEY.formatted(chunk.getJobId(), chunk.getLastUserId());
+    Map<Object, Object> progress = redisTemplate.opsForHash().entries(progressKey);
+
+    if (progress.containsKey(PROGRESS_RECORDED)) {
+      return;
+    }
+
+    BulkEmailJob job = bulkEmailJobsRepository.findById(chunk.getJobId()).orElse(null);
+
+    if (job == null) {
+      return;
+    }
+
+    if (job.getStatus() == BulkEmailJobStatus.CANCELLED) {
+      recordChunk(job.getId(), progressKey, 0, 0);
+      return;
+    }
+
+    String cursor = (String) progress.getOrDefault(PROGRESS_CURSOR, chunk.getAfterUserId());
+    long sentCount = Long.parseLong((String) progress.getOrDefault(PROGRESS_SENT, "0"));
+    long failedCount =
+      Long.parseLong((String) progress.getOrDefault(PROGRESS_FAILED, "0")) +
+      usersRepository
+        .findContactsBetween(cursor, chunk.getLastUserId(), getRecipientRoles(job))
+        .size();
+
+    recordChunk(job.getId(), progressKey, sentCount, failedCount);
+    log.warn(
+      "Bulk email {}: chunk given up on, {} emails sent, {} failed",
+      job.getId(),
+      sentCount,
+      failedCount
+    );
+  }
+
+  void dispatchAll() {
+    try {
+      transactionTemplate.executeWithoutResult(status -> dispatch());
+    } catch (RuntimeException e) {
+      log.error("Error dispatching bulk emails: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Dispatches chunks of the running jobs, until they have {@code email.bulk.max-pending-chunks}
+   * chunks being sent. Must be called in a transaction.
+   *
+   * @return the number of chunks dispatched
+   */
+  int dispatch() {
+    int dispatchedChunks = 0;
+
+    for (BulkEmailJob job : bulkEmailJobsRepository.lockDispatchable(
+      MAX_PENDING_CHUNKS,
+      JOBS_PER_DISPATCH
+    )) {
+      while (
+        job.getStatus() == BulkEmailJobStatus.RUNNING &&
+        job.getDispatchedChunks() - job.getCompletedChunks() < MAX_PENDING_CHUNKS
+      ) {
+        List<String> recipientIds = usersRepository.findContactIdsAfter(
+          job.getLastDispatchedUserId(),
+          getRecipientRoles(job),
+          Limit.of(CHUNK_SIZE)
+        );
+
+        if (!recipientIds.isEmpty()) {
+          String lastUserId = recipientIds.getLast();
+          outboxService.publish(
+            CHUNKS_STREAM_KEY,
+            BulkEmailChunkEventDTO.builder()
+              .jobId(job.getId())
+              .afterUserId(job.getLastDispatchedUserId())
+              .lastUserId(lastUserId)
+              .build()
+          );
+          job.setLastDispatchedUserId(lastUserId);
+          job.setDispatchedChunks(job.getDispatchedChunks() + 1);
+          dispatchedChunks++;
+        }
+
+        if (recipientIds.size() < CHUNK_SIZE) {
+          // No recipients left: the job is completed now, or when its last chunk is sent
+          job.setStatus(
+            job.getCompletedChunks().equals(job.getDispatchedChunks())
+              ? BulkEmailJobStatus.COMPLETED
+              : BulkEmailJobStatus.DISPATCHED
+          );
+        }
+      }
+    }
+
+    return dispatchedChunks;
+  }
+
+  /**
+   * Adds the counts of a chunk to its job, then flags the progress of the chunk as recorded, so
+   * that the chunk is not recorded again if it is delivered again.
+   */
+  private void recordChunk(String jobId, String progressKey, long sentCount, long failedCount) {
+    bulkEmailJobsRepository.recordChunk(jobId, sentCount, failedCount);
+
+    try {
+      redisTemplate.opsForHash().put(progressKey, PROGRESS_RECORDED, Boolean.TRUE.toString());
+      redisTemplate.expire(progressKey, CHUNK_PROGRESS_TTL_HOURS, TimeUnit.HOURS);
+    } catch (RuntimeException e) {
+      // The chunk is also marked as processed by its listener, which skips it if it is redelivered
+      log.warn("Error flagging a chunk of bulk email {} as recorded: {}", jobId, e.getMessage());
+    }
+  }
+
+  private void saveProgress(String progressKey, String cursor, long sentCount, long failedCount) {
+    redisTemplate
+      .opsForHash()
+      .putAll(
+        progressKey,
+        Map.of(
+          PROGRESS_CURSOR,
+          cursor,
+          PROGRESS_SENT,
+          Long.toString(sentCount),
+          PROGRESS_FAILED,
+          Long.toString(failedCount)
+        )
+      );
+    redisTemplate.expire(progressKey, CHUNK_PROGRESS_TTL_HOURS, TimeUnit.HOURS);
+  }
+
+  private static Set<Role> getRecipientRoles(BulkEmailJob job) {
+    return job.getRole() == null ? EnumSet.allOf(Role.class) : EnumSet.of(job.getRole());
+  }
+
+  /** The variables of the job, with the ones of the recipient. */
+  private static Map<String, Object> resolveVariables(BulkEmailJob job, UserContactDTO recipient) {
+    Map<String, Object> variables = job.getVariables() == null
+      ? new HashMap<>()
+      : new HashMap<>(job.getVariables());
+
+    variables.put("email", recipient.getEmail());
+    variables.put("firstName", recipient.getFirstName());
+    variables.put("lastName", recipient.getLastName());
+    variables.put(
+      "username",
+      "%s %s".formatted(recipient.getFirstName(), recipient.getLastName())
+    );
+
+    return variables;
+  }
+}
@@ -3,15 +3,16 @@ package com.example.modules.email.services;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 @Service
 @Slf4j
@@ -19,7 +20,7 @@ import org.thymeleaf.spring6.SpringTemplateEngine;
 public class EmailService {
 
   private final JavaMailSender mailSender;
-  private final SpringTemplateEngine templateEngine;
+  private final EmailTemplateRenderer emailTemplateRenderer;
 
   @Value("${spring.mail.username}")
   private String emailFrom;
@@ -31,28 +32,76 @@ public class EmailService {
     Map<String, Object> variables
   ) {
     try {
-      Context context = new Context();
-      context.setVariables(variables);
-
-      String htmlBody = templateEngine.process(templateName, context);
-
-      MimeMessage message = mailSender.createMimeMessage();
-      MimeMessageHelper helper = new MimeMessageHelper(
-        message,
-        true,
-        StandardCharsets.UTF_8.name()
-      );
-
-      helper.setFrom(emailFrom);
-      helper.setTo(to);
-      helper.setSubject(subject);
-      helper.setText(htmlBody, true);
-
-      mailSender.send(message);
+      mailSender.send(createHtmlEmail(to, subject, templateName, variables));
       log.info("Email sent successfully to: {}", to);
     } catch (MessagingException e) {
       log.error("Failed to send email", e);
       throw new RuntimeException("Email sending failed");
     }
   }
+
+  /**
+   * Sends an email from the same template to each recipient, in a single batch (over a single
+   * connection, see {@link PooledJavaMailSender}).
+   *
+   * @param variablesByRecipient the variables of the template for each recipient email
+   * @return the number of emails that could not be sent
+   * @throws MailSendException if none of the emails could be sent, e.g. because the mail server is
+   *         unavailable, so that the batch can be retried without sending an email twice
+   */
+  public int sendHtmlEmails(
+    String subject,
+    String templateName,
+    Map<String, Map<String, Object>> variablesByRecipient
+  ) {
+    List<MimeMessage> messages = new ArrayList<>(variablesByRecipient.size());
+
+    try {
+      for (Map.Entry<String, Map<String, Object>> recipient : variablesByRecipient.entrySet()) {
+        messages.add(
+          createHtmlEmail(recipient.getKey(), subject, templateName, recipient.getValue())
+        );
+      }
+    } catch (MessagingException e) {
+      log.error("Failed to create emails", e);
+      throw new RuntimeException("Email sending failed");
+    }
+
+    if (messages.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      mailSender.send(messages.toArray(MimeMessage[]::new));
+      return 0;
+    } catch (MailSendException e) {
+      int failedCount = e.getFailedMessages().size();
+
+      if (failedCount == 0 || failedCount == messages.size()) {
+        throw e;
+      }
+
+      log.warn("Failed to send {} of {} emails", failedCount, messages.size());
+      return failedCount;
+    }
+  }
+
+  private MimeMessage createHtmlEmail(
+    String to,
+    String subject,
+    String templateName,
+    Map<String, Object> variables
+  ) throws MessagingException {
+    String htmlBody = emailTemplateRenderer.render(templateName, variables);
+
+    MimeMessage message = mailSender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(message, true, StandardCharsets.UTF_8.name());
+
+    helper.setFrom(emailFrom);
+    helper.setTo(to);
+    helper.setSubject(subject);
+    helper.setText(htmlBody, true);
+
+    return message;
+  }
 }
@@ -0,0 +1,186 @@
+package com.example.modules.email.services;
+
+import com.example.modules.email.utils.CssInliner;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
+
+/**
+ * Renders the email templates ({@code templates/<name>.html}).
+ *
+ * <p>
+ * Templates are compiled on startup: each template is processed once by Thymeleaf with
+ * placeholders as variables, its CSS is inlined (see {@link CssInliner}), and the result is split
+ * around the placeholders. Rendering a message then only escapes its variables, like Thymeleaf
+ * does, and concatenates them with the static parts of the template.
+ * </p>
+ *
+ * <p>
+ * Only the templates whose Thymeleaf attributes output a variable ({@code th:text},
+ * {@code th:href}... with a {@code ${variable}} expression) can be compiled. The others, such as
+ * templates with conditions or loops, are processed by Thymeleaf for every message.
+ * </p>
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EmailTemplateRenderer {
+
+  private static final String TEMPLATE_LOCATION = "classpath:templates/%s.html";
+  private static final Pattern THYMELEAF_ATTRIBUTE = Pattern.compile(
+    "\\bth:([\\w-]+)\\s*=\\s*\"([^\"]*)\""
+  );
+  private static final Set<String> OUTPUT_ATTRIBUTES = Set.of(
+    "text",
+    "href",
+    "src",
+    "alt",
+    "title",
+    "value"
+  );
+  private static final Pattern VARIABLE_EXPRESSION = Pattern.compile("\\$\\{(\\w+)}");
+  private static final String PLACEHOLDER = "%%EMAIL_VARIABLE{%s}%%";
+  private static final Pattern PLACEHOLDERS = Pattern.compile("%EMAIL_VARIABLE\\{(\\w+)}%");
+
+  private final ITemplateEngine templateEngine;
+
+  private final ResourcePatternResolver resourcePatternResolver =
+    new PathMatchingResourcePatternResolver();
+  private final Map<String, Function<Map<String, Object>, String>> templates =
+    new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void compileTemplates() throws IOException {
+    for (Resource resource : resourcePatternResolver.getResources(
+      TEMPLATE_LOCATION.formatted("*")
+    )) {
+      String templateName = resource.getFilename().replaceFirst("\\.html$", "");
+
+      try {
+        templates.put(templateName, compile(templateName));
+      } catch (RuntimeException e) {
+        log.error("Error compiling email template {}: {}", templateName, e.getMessage());
+      }
+    }
+  }
+
+  public boolean exists(String templateName) {
+    return (
+      templates.containsKey(templateName) ||
+      resourcePatternResolver.getResource(TEMPLATE_LOCATION.formatted(templateName)).exists()
+    );
+  }
+
+  public String render(String templateName, Map<String, Object> variables) {
+    return templates.computeIfAbsent(templateName, this::compile).apply(variables);
+  }
+
+  private Function<Map<String, Object>, String> compile(String templateName) {
+    Set<String> variables = findOutputVariables(templateName);
+
+    if (variables == null) {
+      log.info("Email template {} cannot be compiled, it is processed per message", templateName);
+      return values -> CssInliner.inline(process(templateName, values));
+    }
+
+    Map<String, Object> placeholders = new HashMap<>();
+    variables.forEach(variable -> placeholders.put(variable, PLACEHOLDER.formatted(variable)));
+
+    String html = CssInliner.inline(process(templateName, placeholders));
+    List<String> parts = new ArrayList<>();
+    List<String> partVariables = new ArrayList<>();
+    Matcher matcher = PLACEHOLDERS.matcher(html);
+    int position = 0;
+
+    while (matcher.find()) {
+      parts.add(html.substring(position, matcher.start()));
+      partVariables.add(matcher.group(1));
+      position = matcher.end();
+    }
+
+    parts.add(html.substring(position));
+
+    return new CompiledTemplate(parts, partVariables, html.length())::render;
+  }
+
+  /**
+   * @return the variables output by the template, or {@code null} if the template uses Thymeleaf
+   *         attributes that cannot be compiled
+   */
+  private Set<String> findOutputVariables(String templateName) {
+    String source;
+
+    try {
+      source = resourcePatternResolver
+        .getResource(TEMPLATE_LOCATION.formatted(templateName))
+        .getContentAsString(StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    Set<String> variables = new HashSet<>();
+    Matcher attributes = THYMELEAF_ATTRIBUTE.matcher(source);
+
+    while (attributes.find()) {
+      Matcher expression = VARIABLE_EXPRESSION.matcher(attributes.group(2));
+
+      if (!OUTPUT_ATTRIBUTES.contains(attributes.group(1)) || !expression.matches()) {
+        return null;
+      }
+
+      variables.add(expression.group(1));
+    }
+
+    // Inlined expressions, such as [[${variable}]], are not supported
+    return source.contains("[[") || source.contains("[(") ? null : variables;
+  }
+
+  private String process(String templateName, Map<String, Object> variables) {
+    Context context = new Context();
+    context.setVariables(variables);
+
+    return templateEngine.process(templateName, context);
+  }
+
+  /**
+   * The static parts of a template, between which the variables are written.
+   *
+   * @param parts one more part than there are variables
+   */
+  private record CompiledTemplate(List<String> parts, List<String> variables, int length) {
+    String render(Map<String, Object> values) {
+      StringBuilder html = new StringBuilder(length + 256);
+
+      for (int i = 0; i < variables.size(); i++) {
+        Object value = values.get(variables.get(i));
+        html.append(parts.get(i));
+
+        if (value != null) {
+          html.append(HtmlEscape.escapeHtml4Xml(value.toString()));
+        }
+      }
+
+      return html.append(parts.get(parts.size() - 1)).toString();
+    }
+  }
+}
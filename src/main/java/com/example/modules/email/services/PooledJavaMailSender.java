@@ -0,0 +1,225 @@
+package com.example.modules.email.services;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * A {@link JavaMailSenderImpl} that keeps its SMTP connections open between messages, instead of
+ * connecting, running {@code STARTTLS} and authenticating for every message.
+ *
+ * <ul>
+ *   <li>At most {@code poolSize} messages are sent at the same time, each over its own
+ *       connection. The other senders wait for a connection.</li>
+ *   <li>The messages of a batch ({@link #send(MimeMessage...)}) are sent over the same
+ *       connection.</li>
+ *   <li>A connection is closed after {@code maxMessagesPerConnection} messages, as most servers
+ *       limit them, or when it has been idle for longer than {@code maxIdleTime}, before the
+ *       server closes it.</li>
+ *   <li>An idle connection is checked with a {@code NOOP} before it is used again, so that a
+ *       connection closed by the server is replaced before a message is sent over it.</li>
+ *   <li>A message that fails because of the connection is not sent again, as the server may
+ *       already have received it: it is reported as failed, and the following messages are sent
+ *       over a new connection.</li>
+ * </ul>
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+  private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+  private final int maxMessagesPerConnection;
+  private final Duration maxIdleTime;
+  private final Semaphore permits;
+  private final BlockingDeque<PooledTransport> idleTransports = new LinkedBlockingDeque<>();
+
+  public PooledJavaMailSender(int poolSize, int maxMessagesPerConnection, Duration maxIdleTime) {
+    this.maxMessagesPerConnection = maxMessagesPerConnection;
+    this.maxIdleTime = maxIdleTime;
+    this.permits = new Semaphore(poolSize, true);
+  }
+
+  @Override
+  protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages)
+    throws MailException {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MailSendException("Interrupted while waiting for a mail server connection", e);
+    }
+
+    Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+    PooledTransport transport = null;
+
+    try {
+      for (int i = 0; i < mimeMessages.length; i++) {
+        Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+
+        try {
+          prepareMessage(mimeMessages[i]);
+        } catch (MessagingException e) {
+          // The message cannot be built, the connection has not been used
+          failedMessages.put(original, e);
+          continue;
+        }
+
+        if (transport == null || transport.messageCount() >= maxMessagesPerConnection) {
+          close(transport);
+          transport = borrowTransport(mimeMessages, originalMessages, i, failedMessages);
+        }
+
+        try {
+          sendMessage(transport, mimeMessages[i]);
+        } catch (SendFailedException e) {
+          // The recipients were rejected, the connection can still be used
+          failedMessages.put(original, e);
+        } catch (MessagingException e) {
+          // Not sent again: the connection may have failed after the server received the message
+          log.warn("Mail server connection failed: {}", e.getMessage());
+          failedMessages.put(original, e);
+          close(transport);
+          transport = null;
+        }
+      }
+    } finally {
+      if (transport != null) {
+        idleTransports.push(transport.idle());
+      }
+      permits.release();
+    }
+
+    if (!failedMessages.isEmpty()) {
+      throw new MailSendException(failedMessages);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    for (PooledTransport transport; (transport = idleTransports.poll()) != null;) {
+      close(transport);
+    }
+  }
+
+  /** @return an idle connection, or a new one if there is none that can still be used */
+  private PooledTransport borrowTransport(
+    MimeMessage[] mimeMessages,
+    Object[] originalMessages,
+    int index,
+    Map<Object, Exception> failedMessages
+  ) {
+    // The most recently used connection is the least likely to have been closed by the server
+    for (PooledTransport transport; (transport = idleTransports.poll()) != null;) {
+      if (transport.isUsable(maxIdleTime) && transport.isConnected()) {
+        return transport;
+      }
+      close(transport);
+    }
+
+    try {
+      return connect();
+    } catch (AuthenticationFailedException e) {
+      throw new MailAuthenticationException(e);
+    } catch (MessagingException e) {
+      for (int i = index; i < mimeMessages.length; i++) {
+        failedMessages.put(originalMessages != null ? originalMessages[i] : mimeMessages[i], e);
+      }
+      throw new MailSendException("Mail server connection failed", e, failedMessages);
+    }
+  }
+
+  private PooledTransport connect() throws MessagingException {
+    return new PooledTransport(connectTransport());
+  }
+
+  /** Prepares a message to be sent the way {@link JavaMailSenderImpl} does. */
+  private static void prepareMessage(MimeMessage mimeMessage) throws MessagingException {
+    if (mimeMessage.getSentDate() == null) {
+      mimeMessage.setSentDate(new Date());
+    }
+
+    String messageId = mimeMessage.getMessageID();
+    mimeMessage.saveChanges();
+
+    if (messageId != null) {
+      // Preserve explicitly specified message id
+      mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+    }
+  }
+
+  private static void sendMessage(PooledTransport transport, MimeMessage mimeMessage)
+    throws MessagingException {
+    Address[] addresses = mimeMessage.getAllRecipients();
+    transport.send(mimeMessage, addresses != null ? addresses : new Address[0]);
+  }
+
+  private static void close(PooledTransport transport) {
+    if (transport == null) {
+      return;
+    }
+
+    try {
+      transport.transport().close();
+    } catch (MessagingException e) {
+      log.debug("Error closing mail server connection: {}", e.getMessage());
+    }
+  }
+
+  private static final class PooledTransport {
+
+    private final Transport transport;
+    private int messageCount;
+    private long idleSince;
+
+    PooledTransport(Transport transport) {
+      this.transport = transport;
+    }
+
+    Transport transport() {
+      return transport;
+    }
+
+    int messageCount() {
+      return messageCount;
+    }
+
+    void send(MimeMessage message, Address[] addresses) throws MessagingException {
+      transport.sendMessage(message, addresses);
+      messageCount++;
+    }
+
+    PooledTransport idle() {
+      idleSince = System.nanoTime();
+      return this;
+    }
+
+    /** Does not contact the server: a connection idle for too long is replaced right away. */
+    boolean isUsable(Duration maxIdleTime) {
+      return System.nanoTime() - idleSince < maxIdleTime.toNanos();
+    }
+
+    /**
+     * Sends a {@code NOOP} to SMTP servers, once per borrowed connection rather than once per
+     * message.
+     */
+    boolean isConnected() {
+      return transport.isConnected();
+    }
+  }
+}
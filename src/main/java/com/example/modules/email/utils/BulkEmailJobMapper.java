@@ -0,0 +1,11 @@
+package com.example.modules.email.utils;
+
+import com.example.modules.email.dtos.BulkEmailJobDTO;
+import com.example.modules.email.entities.BulkEmailJob;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public abstract class BulkEmailJobMapper {
+
+  public abstract BulkEmailJobDTO toBulkEmailJobDTO(BulkEmailJob job);
+}
@@ -0,0 +1,396 @@
+package com.example.modules.email.utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.attoparser.ParseException;
+import org.attoparser.config.ParseConfiguration;
+import org.attoparser.dom.DOMMarkupParser;
+import org.attoparser.dom.DOMWriter;
+import org.attoparser.dom.Element;
+import org.attoparser.dom.INestableNode;
+import org.attoparser.dom.INode;
+import org.attoparser.dom.Text;
+
+/**
+ * Moves the rules of the {@code <style>} elements of an HTML document to the {@code style}
+ * attributes of the elements they match, as many email clients ignore {@code <style>} elements.
+ *
+ * <p>
+ * Selectors made of element names, classes and IDs, combined with descendant combinators (e.g.
+ * {@code table td} or {@code .email-body p}), are inlined by specificity, then by order. Rules
+ * that cannot be inlined, such as pseudo-classes and at-rules, stay in the {@code <style>}
+ * element. The declarations of an existing {@code style} attribute take precedence, unless the
+ * inlined ones are {@code !important}.
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CssInliner {
+
+  private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+  private static final Pattern SIMPLE_SELECTOR = Pattern.compile(
+    "([a-zA-Z][\\w-]*)?((?:[.#][\\w-]+)*)"
+  );
+  private static final Pattern SELECTOR_PART = Pattern.compile("[.#][\\w-]+");
+  private static final Set<String> VOID_ELEMENTS = Set.of(
+    "area",
+    "base",
+    "br",
+    "col",
+    "embed",
+    "hr",
+    "img",
+    "input",
+    "link",
+    "meta",
+    "source",
+    "track",
+    "wbr"
+  );
+
+  public static String inline(String html) {
+    try {
+      INestableNode document = new DOMMarkupParser(ParseConfiguration.htmlConfiguration()).parse(
+        html
+      );
+      List<Rule> rules = new ArrayList<>();
+
+      for (Element style : findElements(document, "style")) {
+        String remaining = parseRules(getText(style), rules);
+
+        if (remaining.isBlank()) {
+          style.getParent().removeChild(style);
+        } else {
+          style.clearChildren();
+          style.addChild(new Text(remaining));
+        }
+      }
+
+      // Stable: rules of the same specificity keep their order
+      rules.sort(Comparator.comparingInt(Rule::specificity));
+      applyRules(document, new ArrayList<>(), rules);
+
+      StringWriter writer = new StringWriter(html.length());
+      write(document, writer);
+      return writer.toString();
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Could not parse the HTML document", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Adds the rules that can be inlined to {@code rules}.
+   *
+   * @return the rules that cannot be inlined, as CSS
+   */
+  private static String parseRules(String css, List<Rule> rules) {
+    String source = COMMENT.matcher(css).replaceAll("");
+    StringBuilder remaining = new StringBuilder();
+    int position = 0;
+
+    while (position < source.length()) {
+      int open = source.indexOf('{', position);
+
+      if (open < 0) {
+        break;
+      }
+
+      int close = findClosingBrace(source, open);
+      String prelude = source.substring(position, open).trim();
+      String block = source.substring(open + 1, close);
+      position = close + 1;
+
+      List<List<SimpleSelector>> selectors = prelude.startsWith("@")
+        ? null
+        : parseSelectorList(prelude);
+
+      if (selectors == null) {
+        remaining.append(prelude).append(" {").append(block).append("}\n");
+        continue;
+      }
+
+      Map<String, String> declarations = parseDeclarations(block);
+
+      for (List<SimpleSelector> selector : selectors) {
+        rules.add(new Rule(selector, getSpecificity(selector), declarations));
+      }
+    }
+
+    return remaining.toString();
+  }
+
+  private static int findClosingBrace(String source, int open) {
+    int depth = 0;
+
+    for (int i = open; i < source.length(); i++) {
+      if (source.charAt(i) == '{') {
+        depth++;
+      } else if (source.charAt(i) == '}' && --depth == 0) {
+        return i;
+      }
+    }
+
+    return source.length() - 1;
+  }
+
+  /** @return the selectors, or {@code null} if any of them cannot be inlined */
+  private static List<List<SimpleSelector>> parseSelectorList(String prelude) {
+    List<List<SimpleSelector>> selectors = new ArrayList<>();
+
+    for (String selector : prelude.split(",")) {
+      List<SimpleSelector> parts = new ArrayList<>();
+
+      for (String part : selector.trim().split("\\s+")) {
+        Matcher matcher = SIMPLE_SELECTOR.matcher(part);
+
+        if (part.isEmpty() || !matcher.matches()) {
+          return null;
+        }
+
+        List<String> classes = new ArrayList<>();
+        String id = null;
+        Matcher qualifiers = SELECTOR_PART.matcher(matcher.group(2));
+
+        while (qualifiers.find()) {
+          String qualifier = qualifiers.group();
+
+          if (qualifier.startsWith(".")) {
+            classes.add(qualifier.substring(1));
+          } else {
+            id = qualifier.substring(1);
+          }
+        }
+
+        parts.add(new SimpleSelector(matcher.group(1), id, classes));
+      }
+
+      selectors.add(parts);
+    }
+
+    return selectors;
+  }
+
+  private static int getSpecificity(List<SimpleSelector> selector) {
+    int specificity = 0;
+
+    for (SimpleSelector part : selector) {
+      specificity += (part.id() != null ? 100 : 0) + 10 * part.classes().size();
+      specificity += part.elementName() != null ? 1 : 0;
+    }
+
+    return specificity;
+  }
+
+  private static Map<String, String> parseDeclarations(String block) {
+    Map<String, String> declarations = new LinkedHashMap<>();
+
+    for (String declaration : block.split(";")) {
+      int colon = declaration.indexOf(':');
+
+      if (colon > 0) {
+        declarations.put(
+          declaration.substring(0, colon).trim().toLowerCase(),
+          declaration.substring(colon + 1).trim()
+        );
+      }
+    }
+
+    return declarations;
+  }
+
+  private static void applyRules(INestableNode node, List<Element> ancestors, List<Rule> rules) {
+    for (INode child : node.getChildren()) {
+      if (!(child instanceof Element element)) {
+        continue;
+      }
+
+      Map<String, String> declarations = new LinkedHashMap<>();
+
+      for (Rule rule : rules) {
+        if (matches(rule.selector(), element, ancestors)) {
+          rule.declarations().forEach((property, value) -> merge(declarations, property, value));
+        }
+      }
+
+      if (!declarations.isEmpty()) {
+        if (element.hasAttribute("style")) {
+          parseDeclarations(element.getAttributeValue("style")).forEach((property, value) ->
+            merge(declarations, property, value)
+          );
+        }
+
+        element.addAttribute("style", toStyle(declarations));
+      }
+
+      ancestors.add(element);
+      applyRules(element, ancestors, rules);
+      ancestors.remove(ancestors.size() - 1);
+    }
+  }
+
+  private static void merge(Map<String, String> declarations, String property, String value) {
+    String current = declarations.get(property);
+
+    if (current == null || !isImportant(current) || isImportant(value)) {
+      // Moved to the end, to keep the order of the cascade
+      declarations.remove(property);
+      declarations.put(property, value);
+    }
+  }
+
+  private static boolean isImportant(String value) {
+    return value.endsWith("!important");
+  }
+
+  private static String toStyle(Map<String, String> declarations) {
+    StringBuilder style = new StringBuilder();
+
+    declarations.forEach((property, value) -> {
+      if (!style.isEmpty()) {
+        style.append("; ");
+      }
+      style.append(property).append(": ").append(value);
+    });
+
+    return style.toString();
+  }
+
+  private static boolean matches(
+    List<SimpleSelector> selector,
+    Element element,
+    List<Element> ancestors
+  ) {
+    int part = selector.size() - 1;
+
+    if (!selector.get(part).matches(element)) {
+      return false;
+    }
+
+    // Descendant combinators: the other parts match ancestors, from the closest one
+    part--;
+
+    for (int i = ancestors.size() - 1; i >= 0 && part >= 0; i--) {
+      if (selector.get(part).matches(ancestors.get(i))) {
+        part--;
+      }
+    }
+
+    return part < 0;
+  }
+
+  private static List<Element> findElements(INestableNode node, String elementName) {
+    List<Element> elements = new ArrayList<>();
+
+    for (INode child : node.getChildren()) {
+      if (child instanceof Element element) {
+        if (element.elementNameMatches(elementName)) {
+          elements.add(element);
+        }
+        elements.addAll(findElements(element, elementName));
+      }
+    }
+
+    return elements;
+  }
+
+  private static String getText(Element element) {
+    StringBuilder text = new StringBuilder();
+
+    for (Text child : element.getChildrenOfType(Text.class)) {
+      text.append(child.getContent());
+    }
+
+    return text.toString();
+  }
+
+  /**
+   * Writes the document as HTML. {@link DOMWriter} writes empty elements as self-closing tags,
+   * which only void elements can be in HTML.
+   */
+  private static void write(INode node, Writer writer) throws IOException {
+    if (!(node instanceof INestableNode nestable)) {
+      DOMWriter.write(node, writer);
+      return;
+    }
+
+    if (!(node instanceof Element element)) {
+      for (INode child : nestable.getChildren()) {
+        write(child, writer);
+      }
+      return;
+    }
+
+    writer.write('<');
+    writer.write(element.getElementName());
+
+    for (Map.Entry<String, String> attribute : element.getAttributeMap().entrySet()) {
+      writer.write(' ');
+      writer.write(attribute.getKey());
+
+      if (attribute.getValue() != null) {
+        writer.write("=\"");
+        writer.write(attribute.getValue().replace("\"", "&quot;"));
+        writer.write('"');
+      }
+    }
+
+    if (VOID_ELEMENTS.contains(element.getElementName().toLowerCase())) {
+      writer.write(" />");
+      return;
+    }
+
+    writer.write('>');
+
+    for (INode child : element.getChildren()) {
+      write(child, writer);
+    }
+
+    writer.write("</");
+    writer.write(element.getElementName());
+    writer.write('>');
+  }
+
+  private record SimpleSelector(String elementName, String id, List<String> classes) {
+    boolean matches(Element element) {
+      if (elementName != null && !element.elementNameMatches(elementName)) {
+        return false;
+      }
+
+      if (id != null && !id.equals(element.getAttributeValue("id"))) {
+        return false;
+      }
+
+      if (classes.isEmpty()) {
+        return true;
+      }
+
+      String classAttribute = element.getAttributeValue("class");
+
+      if (classAttribute == null) {
+        return false;
+      }
+
+      List<String> elementClasses = List.of(classAttribute.trim().split("\\s+"));
+      return elementClasses.containsAll(classes);
+    }
+  }
+
+  private record Rule(
+    List<SimpleSelector> selector,
+    int specificity,
+    Map<String, String> declarations
+  ) {}
+}
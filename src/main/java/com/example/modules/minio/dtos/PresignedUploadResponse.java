@@ -0,0 +1,36 @@
+package com.example.modules.minio.dtos;
+
+import com.example.base.utils.SwaggerExamples;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadResponse {
+
+  @Schema(description = "The file name in MinIO", example = "folder/filename.ext")
+  private String fileName;
+
+  @Schema(
+    description = "The URL to post the multipart/form-data upload form to",
+    example = SwaggerExamples.URL
+  )
+  private String url;
+
+  @Schema(
+    description = "The fields of the upload form, which must be followed by the file field"
+  )
+  private Map<String, String> fields;
+
+  @Schema(
+    description = "The timestamp after which the upload is rejected",
+    example = SwaggerExamples.TIMESTAMP
+  )
+  private String expiresAt;
+}
@@ -0,0 +1,45 @@
+package com.example.modules.minio.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A file of the content-addressed folder of the bucket, named after the SHA-256 hash of its
+ * content, and shared by every upload of that content. It is deleted by the
+ * {@link com.example.modules.minio.services.ContentFileService} once nothing references it.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "content_files")
+public class ContentFile {
+
+  @Id
+  private String fileName;
+
+  @Column(nullable = false)
+  private Long size;
+
+  @Column
+  private String contentType;
+
+  /** The number of entities referencing the file, such as users whose avatar it is. */
+  @Column(nullable = false)
+  private Long referenceCount;
+
+  @Column(nullable = false)
+  private Instant createdTimestamp;
+
+  /** When the reference count last changed. */
+  @Column(nullable = false)
+  private Instant updatedTimestamp;
+}
@@ -0,0 +1,76 @@
+package com.example.modules.minio.repositories;
+
+import com.example.modules.minio.entities.ContentFile;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContentFilesRepository extends JpaRepository<ContentFile, String> {
+  /**
+   * Creates the row of the file, with no reference, or marks it as referenced now, so that the
+   * file is not purged before {@code minio.content.purge-min-age} seconds. Meant to be committed
+   * before the file is uploaded: the file then always has a row, and is purged if the transaction
+   * that references it is rolled back.
+   */
+  @Modifying
+  @Query(
+    nativeQuery = true,
+    value = """
+    INSERT INTO content_files (
+      file_name, size, content_type, reference_count, created_timestamp, updated_timestamp
+    )
+    VALUES (:fileName, :size, :contentType, 0, now(), now())
+    ON CONFLICT (file_name) DO UPDATE
+    SET updated_timestamp = now()
+    """
+  )
+  void register(String fileName, long size, String contentType);
+
+  /**
+   * Adds a reference to the file, creating its row if needed. The row stays locked until the end
+   * of the transaction, so that the file cannot be purged meanwhile.
+   */
+  @Modifying
+  @Query(
+    nativeQuery = true,
+    value = """
+    INSERT INTO content_files (
+      file_name, size, content_type, reference_count, created_timestamp, updated_timestamp
+    )
+    VALUES (:fileName, :size, :contentType, 1, now(), now())
+    ON CONFLICT (file_name) DO UPDATE
+    SET reference_count = content_files.reference_count + 1, updated_timestamp = now()
+    """
+  )
+  void acquire(String fileName, long size, String contentType);
+
+  @Modifying
+  @Query(
+    """
+    UPDATE ContentFile f
+    SET f.referenceCount = f.referenceCount - 1, f.updatedTimestamp = CURRENT_TIMESTAMP
+    WHERE f.fileName = :fileName AND f.referenceCount > 0
+    """
+  )
+  int release(String fileName);
+
+  /**
+   * Locks files that have not been referenced since {@code before}. The files locked by another
+   * purge are skipped.
+   */
+  @Query(
+    nativeQuery = true,
+    value = """
+    SELECT * FROM content_files
+    WHERE reference_count = 0 AND updated_timestamp < :before
+    ORDER BY updated_timestamp
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+    """
+  )
+  List<ContentFile> lockPurgeable(Instant before, int limit);
+}
@@ -0,0 +1,215 @@
+package com.example.modules.minio.services;
+
+import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.entities.ContentFile;
+import com.example.modules.minio.repositories.ContentFilesRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.errors.MinioException;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Stores uploads in the content-addressed folder of the bucket
+ * ({@link MinioService#CONTENT_FOLDER}), where each content is stored once, however many times it
+ * is uploaded.
+ *
+ * <p>
+ * The references to each file are counted in {@link ContentFile}. A file that has not been
+ * referenced for {@code minio.content.purge-min-age} seconds is deleted, with the files derived
+ * from it (such as its thumbnails, named {@code <file name>-<suffix>}), by a purge that runs every
+ * {@code minio.content.purge-interval} milliseconds.
+ * </p>
+ *
+ * <p>
+ * The row of a file is committed before the file is uploaded, so that an upload whose
+ * transaction is rolled back leaves a file with no reference, which is purged, rather than a file
+ * with no row.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ContentFileService {
+
+  private static final int PURGE_BATCH_SIZE = 100;
+  private static final int DELETE_BATCH_SIZE = 1000;
+
+  @Value("${minio.content.purge-interval:3600000}")
+  private Long PURGE_INTERVAL;
+
+  @Value("${minio.content.purge-min-age:86400}")
+  private Long PURGE_MIN_AGE;
+
+  private final MinioService minioService;
+  private final StorageUrlResolver storageUrlResolver;
+  private final ContentFilesRepository contentFilesRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate newTransactionTemplate;
+  private final Counter storedCounter;
+  private final Counter deduplicatedCounter;
+  private final Counter deduplicatedBytesCounter;
+
+  private ScheduledExecutorService scheduler;
+
+  public ContentFileService(
+    MinioService minioService,
+    StorageUrlResolver storageUrlResolver,
+    ContentFilesRepository contentFilesRepository,
+    MeterRegistry meterRegistry,
+    PlatformTransactionManager transactionManager
+  ) {
+    this.minioService = minioService;
+    this.storageUrlResolver = storageUrlResolver;
+    this.contentFilesRepository = contentFilesRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.newTransactionTemplate.setPropagationBehavior(
+      TransactionDefinition.PROPAGATION_REQUIRES_NEW
+    );
+    this.storedCounter = Counter.builder("storage.content.uploads")
+      .tag("result", "stored")
+      .register(meterRegistry);
+    this.deduplicatedCounter = Counter.builder("storage.content.uploads")
+      .tag("result", "deduplicated")
+      .register(meterRegistry);
+    this.deduplicatedBytesCounter = Counter.builder("storage.content.deduplicated_bytes")
+      .description("Size of the uploads whose content was already stored")
+      .baseUnit("bytes")
+      .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofVirtual().name("content-file-purger").factory()
+    );
+    scheduler.scheduleWithFixedDelay(
+      this::purgeAll,
+      PURGE_INTERVAL,
+      PURGE_INTERVAL,
+      TimeUnit.MILLISECONDS
+    );
+  }
+
+  @PreDestroy
+  void stop() {
+    scheduler.shutdownNow();
+  }
+
+  public static boolean isContentFile(String fileName) {
+    return fileName != null && fileName.startsWith(MinioService.CONTENT_FOLDER + "/");
+  }
+
+  /**
+   * Stores a file under the hash of its content, and adds a reference to it. The file is only
+   * uploaded if its content is not stored yet.
+   *
+   * @param file the multipart file to store
+   * @return the name of the stored file and its URL
+   */
+  @Transactional
+  public MinioFileResponse store(MultipartFile file)
+    throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
+    String fileName = minioService.generateContentFileName(file);
+
+    // Committed whatever the caller does, so that the file is purged if it is never referenced
+    newTransactionTemplate.executeWithoutResult(status ->
+      contentFilesRepository.register(fileName, file.getSize(), file.getContentType())
+    );
+
+    // Before checking the file: its row stays locked, so the file cannot be purged meanwhile
+    contentFilesRepository.acquire(fileName, file.getSize(), file.getContentType());
+
+    if (minioService.findFile(fileName).isPresent()) {
+      deduplicatedCounter.increment();
+      deduplicatedBytesCounter.increment(file.getSize());
+    } else {
+      minioService.putFile(file, fileName);
+      storedCounter.increment();
+    }
+
+    return MinioFileResponse.builder()
+      .fileName(fileName)
+      .url(storageUrlResolver.resolve(fileName))
+      .build();
+  }
+
+  /** Removes a reference to a file, if it is a content-addressed file. */
+  @Transactional
+  public void release(String fileName) {
+    if (isContentFile(fileName)) {
+      contentFilesRepository.release(fileName);
+    }
+  }
+
+  void purgeAll() {
+    try {
+      while (Boolean.TRUE.equals(transactionTemplate.execute(status -> purge()))) {
+        // Until there are no more files to purge
+      }
+    } catch (RuntimeException e) {
+      log.error("Error purging the unreferenced content files", e);
+    }
+  }
+
+  /**
+   * Deletes a batch of unreferenced files, with the files derived from them. The rows are deleted
+   * last: if the files cannot be deleted, the transaction is rolled back and they are purged again.
+   *
+   * @return whether there may be more files to purge
+   */
+  boolean purge() {
+    List<ContentFile> contentFiles = contentFilesRepository.lockPurgeable(
+      Instant.now().minusSeconds(PURGE_MIN_AGE),
+      PURGE_BATCH_SIZE
+    );
+    List<String> fileNames = new ArrayList<>();
+
+    try {
+      for (ContentFile contentFile : contentFiles) {
+        for (Item item : minioService.listFiles(contentFile.getFileName(), null, 1000)) {
+          fileNames.add(item.objectName());
+        }
+      }
+
+      for (int i = 0; i < fileNames.size(); i += DELETE_BATCH_SIZE) {
+        int end = Math.min(i + DELETE_BATCH_SIZE, fileNames.size());
+
+        if (!minioService.deleteFiles(fileNames.subList(i, end)).isEmpty()) {
+          throw new IllegalStateException("Some content files could not be deleted");
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (MinioException | InvalidKeyException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Could not delete the unreferenced content files", e);
+    }
+
+    contentFilesRepository.deleteAllInBatch(contentFiles);
+
+    if (!contentFiles.isEmpty()) {
+      log.info("Purged {} unreferenced content files", contentFiles.size());
+    }
+
+    return contentFiles.size() == PURGE_BATCH_SIZE;
+  }
+}
@@ -1,19 +1,45 @@
 package com.example.modules.minio.services;
 
 import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.dtos.PresignedUploadResponse;
+import io.minio.GetObjectArgs;
 import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.ListObjectsArgs;
 import io.minio.MinioClient;
+import io.minio.PostPolicy;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
 import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
 import io.minio.errors.ErrorResponseException;
 import io.minio.errors.MinioException;
 import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.Normalizer;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +52,10 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor
 public class MinioService {
 
+  public static final String CONTENT_FOLDER = "content";
+
+  private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
   @Value("${minio.bucket}")
   private String bucket;
 
@@ -47,29 +77,192 @@ public class MinioService {
    */
   public MinioFileResponse uploadFile(MultipartFile file, String folder)
     throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
-    String timestamp = Instant.now().toString();
-    String uniqueId = UUID.randomUUID().toString();
-    String originalName = this.sanitizeFileName(file.getOriginalFilename());
+    String savedFileName = this.generateFileName(file.getOriginalFilename(), folder);
 
-    String savedFileName = folder == null || folder.isEmpty()
-      ? "%s-%s-%s".formatted(timestamp, uniqueId, originalName)
-      : "%s/%s-%s-%s".formatted(folder, timestamp, uniqueId, originalName);
+    this.putFile(file, savedFileName);
+
+    return MinioFileResponse.builder()
+      .fileName(savedFileName)
+      .url(this.generatePresignedUrl(savedFileName))
+      .build();
+  }
 
+  /**
+   * Uploads a file to MinIO storage under the given name, replacing any file of that name.
+   *
+   * @param file the multipart file to upload
+   * @param fileName the name of the file in the bucket
+   * @throws MinioException if there's an error communicating with MinIO server
+   * @throws InvalidKeyException if the MinIO credentials are invalid
+   * @throws IOException if there's an I/O error reading the file
+   * @throws NoSuchAlgorithmException if required cryptographic algorithm is not available
+   */
+  public void putFile(MultipartFile file, String fileName)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
     minioClient.putObject(
       PutObjectArgs.builder()
         .bucket(bucket)
         .stream(file.getInputStream(), file.getSize(), -1) // Part size is auto detected
-        .object(savedFileName)
+        .object(fileName)
         .contentType(file.getContentType())
         .build()
     );
+  }
 
-    return MinioFileResponse.builder()
-      .fileName(savedFileName)
-      .url(this.generatePresignedUrl(savedFileName))
+  /**
+   * Generates the name of a file in the content-addressed folder ({@value #CONTENT_FOLDER}): the
+   * SHA-256 hash of its content. Files with the same content have the same name.
+   *
+   * The content is streamed through the digest, it is not buffered.
+   *
+   * @param file the multipart file, whose content is read
+   * @return the name of the file in the bucket
+   * @throws IOException if there's an I/O error reading the file
+   * @throws NoSuchAlgorithmException if the SHA-256 algorithm is not available
+   */
+  public String generateContentFileName(MultipartFile file)
+    throws IOException, NoSuchAlgorithmException {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+    try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+      input.transferTo(OutputStream.nullOutputStream());
+    }
+
+    return "%s/%s".formatted(CONTENT_FOLDER, HexFormat.of().formatHex(digest.digest()));
+  }
+
+  /**
+   * Uploads content under a name that is never reused, such as a name generated by
+   * {@link #generateFileName}. The file is served with a {@code Cache-Control} header that lets
+   * clients and proxies cache it forever.
+   *
+   * @param fileName the name of the file in the bucket
+   * @param content the content of the file
+   * @param contentType the content type of the file
+   * @throws MinioException if there's an error communicating with MinIO server
+   * @throws InvalidKeyException if the MinIO credentials are invalid
+   * @throws IOException if there's an I/O error during the upload
+   * @throws NoSuchAlgorithmException if required cryptographic algorithm is not available
+   */
+  public void uploadImmutableFile(String fileName, byte[] content, String contentType)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    minioClient.putObject(
+      PutObjectArgs.builder()
+        .bucket(bucket)
+        .stream(new ByteArrayInputStream(content), content.length, -1)
+        .object(fileName)
+        .contentType(contentType)
+        .headers(Map.of("Cache-Control", IMMUTABLE_CACHE_CONTROL))
+        .build()
+    );
+  }
+
+  /**
+   * Downloads a file from the MinIO bucket. The content is streamed: the returned stream must be
+   * closed to release the connection.
+   *
+   * @param fileName the name of the file in the bucket
+   * @return the content of the file
+   * @throws MinioException if an error occurs while communicating with the MinIO server
+   * @throws InvalidKeyException if the provided credentials or bucket configuration is invalid
+   * @throws IOException if an I/O error occurs during the operation
+   * @throws NoSuchAlgorithmException if the required cryptographic algorithm is not available
+   */
+  public InputStream downloadFile(String fileName)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    return this.minioClient.getObject(
+      GetObjectArgs.builder().bucket(bucket).object(fileName).build()
+    );
+  }
+
+  /**
+   * Generates a unique name for a file to be saved in the bucket.
+   *
+   * @param originalName the name of the file on the client, sanitized before use
+   * @param folder the folder path where the file should be stored (can be null or empty for root)
+   * @return the name of the file in the bucket
+   */
+  public String generateFileName(String originalName, String folder) {
+    String timestamp = Instant.now().toString();
+    String uniqueId = UUID.randomUUID().toString();
+    String sanitizedName = this.sanitizeFileName(originalName);
+
+    return folder == null || folder.isEmpty()
+      ? "%s-%s-%s".formatted(timestamp, uniqueId, sanitizedName)
+      : "%s/%s-%s-%s".formatted(folder, timestamp, uniqueId, sanitizedName);
+  }
+
+  /**
+   * Generates a presigned POST policy, with which a client uploads a file directly to the bucket:
+   * the file never passes through the application.
+   *
+   * The client posts a {@code multipart/form-data} form to the URL of the response, with the
+   * fields of the response followed by a {@code file} field. MinIO rejects the upload if the file
+   * does not have the given name and content type, or is larger than {@code maxSize}.
+   *
+   * @param fileName the name of the file in the bucket, see {@link #generateFileName}
+   * @param contentType the content type of the file
+   * @param maxSize the maximum size of the file, in bytes
+   * @param expiry how long the policy can be used
+   * @return the URL and the form fields of the upload
+   * @throws MinioException if an error occurs while communicating with the MinIO server
+   * @throws InvalidKeyException if the provided credentials or bucket configuration is invalid
+   * @throws IOException if an I/O error occurs during the operation
+   * @throws NoSuchAlgorithmException if the required cryptographic algorithm is not available
+   */
+  public PresignedUploadResponse generatePresignedUpload(
+    String fileName,
+    String contentType,
+    long maxSize,
+    Duration expiry
+  ) throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    ZonedDateTime expiresAt = ZonedDateTime.now(ZoneOffset.UTC).plus(expiry);
+    PostPolicy policy = new PostPolicy(bucket, expiresAt);
+    policy.addEqualsCondition("key", fileName);
+    policy.addEqualsCondition("Content-Type", contentType);
+    policy.addContentLengthRangeCondition(1, maxSize);
+
+    Map<String, String> fields = new LinkedHashMap<>(
+      this.minioClient.getPresignedPostFormData(policy)
+    );
+    fields.put("key", fileName);
+    fields.put("Content-Type", contentType);
+
+    return PresignedUploadResponse.builder()
+      .fileName(fileName)
+      // The public endpoint is the URL of the bucket
+      .url(publicEndpoint)
+      .fields(fields)
+      .expiresAt(expiresAt.toInstant().toString())
       .build();
   }
 
+  /**
+   * Gets the metadata of a file in the MinIO bucket.
+   *
+   * @param fileName the name of the file in the bucket
+   * @return the metadata of the file, or an empty {@link Optional} if there is no such file
+   * @throws MinioException if an error occurs while communicating with the MinIO server
+   * @throws InvalidKeyException if the provided credentials or bucket configuration is invalid
+   * @throws IOException if an I/O error occurs during the operation
+   * @throws NoSuchAlgorithmException if the required cryptographic algorithm is not available
+   */
+  public Optional<StatObjectResponse> findFile(String fileName)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    try {
+      return Optional.of(
+        this.minioClient.statObject(
+          StatObjectArgs.builder().bucket(bucket).object(fileName).build()
+        )
+      );
+    } catch (ErrorResponseException e) {
+      if ("NoSuchKey".equals(e.errorResponse().code())) {
+        return Optional.empty();
+      }
+      throw e;
+    }
+  }
+
   /**
    * Generates a presigned URL for accessing a file in the MinIO bucket.
    *
@@ -117,6 +310,69 @@ public class MinioService {
     );
   }
 
+  /**
+   * Lists a page of the files of the MinIO bucket, in the order of their names (by UTF-8 bytes).
+   *
+   * @param prefix the prefix of the names of the files
+   * @param startAfter the name after which the page starts, or {@code null} for the first page
+   * @param pageSize the maximum number of files of the page, at most 1000
+   * @return the files of the page, which is the last one if it holds less than {@code pageSize}
+   *         files
+   * @throws MinioException if an error occurs while communicating with the MinIO server
+   * @throws InvalidKeyException if the provided credentials or bucket configuration is invalid
+   * @throws IOException if an I/O error occurs during the operation
+   * @throws NoSuchAlgorithmException if the required cryptographic algorithm is not available
+   */
+  public List<Item> listFiles(String prefix, String startAfter, int pageSize)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    List<Item> items = new ArrayList<>(pageSize);
+    Iterator<Result<Item>> results = this.minioClient.listObjects(
+      ListObjectsArgs.builder()
+        .bucket(bucket)
+        .prefix(prefix)
+        .startAfter(startAfter)
+        .maxKeys(pageSize)
+        .recursive(true)
+        .build()
+    ).iterator();
+
+    // The results are fetched lazily: stopping at the end of the page sends a single request
+    while (items.size() < pageSize && results.hasNext()) {
+      items.add(results.next().get());
+    }
+
+    return items;
+  }
+
+  /**
+   * Deletes files from the MinIO bucket with a single request.
+   *
+   * @param fileNames the names of the files to delete, at most 1000
+   * @return the names of the files that could not be deleted
+   * @throws MinioException if an error occurs while communicating with the MinIO server
+   * @throws InvalidKeyException if the provided credentials or bucket configuration is invalid
+   * @throws IOException if an I/O error occurs during the operation
+   * @throws NoSuchAlgorithmException if the required cryptographic algorithm is not available
+   */
+  public List<String> deleteFiles(Collection<String> fileNames)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    List<String> failedFileNames = new ArrayList<>();
+
+    // The request is only sent once the results are iterated
+    for (Result<DeleteError> result : this.minioClient.removeObjects(
+      RemoveObjectsArgs.builder()
+        .bucket(bucket)
+        .objects(fileNames.stream().map(DeleteObject::new).toList())
+        .build()
+    )) {
+      DeleteError error = result.get();
+      log.warn("Could not delete file {}: {}", error.objectName(), error.message());
+      failedFileNames.add(error.objectName());
+    }
+
+    return failedFileNames;
+  }
+
   /**
    * Checks if a file exists in the configured MinIO bucket.
    *
@@ -0,0 +1,89 @@
+package com.example.modules.minio.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.minio.S3Escaper;
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves the public URLs of the files in the MinIO bucket ({@code minio.public_endpoint}
+ * followed by the file name), which are the URLs {@link MinioService#generatePresignedUrl} returns
+ * without signing them.
+ *
+ * <p>
+ * A URL is built by concatenation. The file name is only escaped, like MinIO does, when it has
+ * characters that are not allowed in a URL path, which the names of uploaded files seldom have.
+ * The last {@code minio.url-cache.max-size} URLs are kept in memory.
+ * </p>
+ */
+@Service
+public class StorageUrlResolver {
+
+  private static final Pattern UNESCAPED_PATH = Pattern.compile("[A-Za-z0-9._~/-]*");
+
+  @Value("${minio.public_endpoint}")
+  private String publicEndpoint;
+
+  @Value("${minio.url-cache.max-size:10000}")
+  private Long URL_CACHE_MAX_SIZE;
+
+  private String urlPrefix;
+  private Cache<String, String> urls;
+
+  @PostConstruct
+  void init() {
+    urlPrefix = publicEndpoint.endsWith("/") ? publicEndpoint : publicEndpoint + "/";
+    urls = Caffeine.newBuilder().maximumSize(URL_CACHE_MAX_SIZE).build();
+  }
+
+  /** @return the public URL of the file, or {@code null} if the file name is blank */
+  public String resolve(String fileName) {
+    if (fileName == null || fileName.isBlank()) {
+      return null;
+    }
+
+    return urls.get(fileName, this::buildUrl);
+  }
+
+  /**
+   * Resolves the URLs of several files at once, such as the avatars of the authors of a page of
+   * posts. Each file is resolved once, however many times it is listed.
+   *
+   * @return the public URL of each file whose name is not blank
+   */
+  public Map<String, String> resolveAll(Collection<String> fileNames) {
+    Set<String> keys = new HashSet<>();
+
+    for (String fileName : fileNames) {
+      if (fileName != null && !fileName.isBlank()) {
+        keys.add(fileName);
+      }
+    }
+
+    return urls.getAll(keys, this::buildUrls);
+  }
+
+  private Map<String, String> buildUrls(Set<? extends String> fileNames) {
+    Map<String, String> built = new HashMap<>(fileNames.size() * 2);
+
+    for (String fileName : fileNames) {
+      built.put(fileName, buildUrl(fileName));
+    }
+
+    return built;
+  }
+
+  private String buildUrl(String fileName) {
+    return urlPrefix.concat(
+      UNESCAPED_PATH.matcher(fileName).matches() ? fileName : S3Escaper.encodePath(fileName)
+    );
+  }
+}
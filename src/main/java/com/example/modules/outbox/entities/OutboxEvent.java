@@ -0,0 +1,51 @@
+package com.example.modules.outbox.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An event waiting to be published to a Redis stream. It is saved in the transaction of the change
+ * it describes, then published and deleted by the
+ * {@link com.example.modules.outbox.services.OutboxRelay}.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+  /** Sequential, so that events are published in the order they were saved. */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private String streamKey;
+
+  @Column(nullable = false)
+  private String type;
+
+  /** The event, as JSON. */
+  @Column(nullable = false, columnDefinition = "text")
+  private String payload;
+
+  @Column(nullable = false)
+  private Instant createdTimestamp;
+
+  /**
+   * Until when a relay is publishing the event, or {@code null} if no relay is. Another relay can
+   * claim the event once this has passed, e.g. when the first one stopped before deleting it.
+   */
+  private Instant claimedUntil;
+}
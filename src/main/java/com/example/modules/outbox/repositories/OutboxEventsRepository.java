@@ -0,0 +1,34 @@
+package com.example.modules.outbox.repositories;
+
+import com.example.modules.outbox.entities.OutboxEvent;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventsRepository extends JpaRepository<OutboxEvent, Long> {
+  /**
+   * Locks the oldest events that no relay has claimed, or whose claim has expired, until the end
+   * of the transaction. Events locked by another transaction are skipped, so that several
+   * instances claim different events at the same time.
+   */
+  @Query(
+    nativeQuery = true,
+    value = """
+    SELECT * FROM outbox_events
+    WHERE claimed_until IS NULL OR claimed_until < :now
+    ORDER BY id
+    LIMIT :limit
+    FOR UPDATE SKIP LOCKED
+    """
+  )
+  List<OutboxEvent> lockClaimable(Instant now, int limit);
+
+  /** Claims the events until {@code claimedUntil}, or releases them if it is {@code null}. */
+  @Modifying
+  @Query("UPDATE OutboxEvent e SET e.claimedUntil = :claimedUntil WHERE e.id IN :ids")
+  int claim(List<Long> ids, Instant claimedUntil);
+}
@@ -0,0 +1,253 @@
+package com.example.modules.outbox.services;
+
+import com.example.modules.outbox.entities.OutboxEvent;
+import com.example.modules.outbox.repositories.OutboxEventsRepository;
+import com.example.modules.redis.codecs.StreamEnvelope;
+import com.example.modules.redis.publishers.RedisStreamPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Publishes the {@link OutboxEvent}s to their Redis streams.
+ *
+ * <p>
+ * Every {@code outbox.relay.interval} milliseconds, and right after an event is committed, the
+ * relay relays the oldest {@code outbox.relay.batch-size} events in three steps, so that no
+ * database lock or connection is held while it waits for Redis:
+ * </p>
+ *
+ * <ol>
+ *   <li>It locks the events with {@code FOR UPDATE SKIP LOCKED}, claims them for
+ *   {@code outbox.relay.claim-duration} milliseconds and commits.</li>
+ *   <li>It publishes them in a single pipeline, outside of any transaction.</li>
+ *   <li>It deletes the ones that Redis has accepted and releases the others, in a second short
+ *   transaction.</li>
+ * </ol>
+ *
+ * <p>
+ * Several instances can relay at the same time, each with its own events. The relay goes on with
+ * the next batch until the outbox is empty or Redis fails.
+ * </p>
+ *
+ * <p>
+ * Events are published at least once: the events of a relay that stops before deleting them are
+ * published again once their claim expires, so the claim must outlast
+ * {@code outbox.relay.publish-timeout}. An event that fails is published again after the events
+ * that follow it.
+ * </p>
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+  private static final String OUTBOX_EVENT_ID = "outbox:%d";
+
+  @Value("${outbox.relay.interval:1000}")
+  private Long INTERVAL;
+
+  @Value("${outbox.relay.batch-size:100}")
+  private Integer BATCH_SIZE;
+
+  @Value("${outbox.relay.publish-timeout:5000}")
+  private Long PUBLISH_TIMEOUT;
+
+  @Value("${outbox.relay.claim-duration:60000}")
+  private Long CLAIM_DURATION;
+
+  private final OutboxEventsRepository outboxEventsRepository;
+  private final RedisStreamPublisher redisStreamPublisher;
+  private final TransactionTemplate transactionTemplate;
+
+  private final AtomicLong lag = new AtomicLong();
+  private final Counter relayedCounter;
+  private final Counter failureCounter;
+  private final Timer batchTimer;
+
+  private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+  private ScheduledExecutorService scheduler;
+
+  public OutboxRelay(
+    OutboxEventsRepository outboxEventsRepository,
+    RedisStreamPublisher redisStreamPublisher,
+    PlatformTransactionManager transactionManager,
+    MeterRegistry meterRegistry
+  ) {
+    this.outboxEventsRepository = outboxEventsRepository;
+    this.redisStreamPublisher = redisStreamPublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+    TimeGauge.builder("outbox.relay.lag", lag, TimeUnit.MILLISECONDS, AtomicLong::get)
+      .description("Age of the oldest event of the last batch relayed")
+      .register(meterRegistry);
+    relayedCounter = Counter.builder("outbox.relay.events")
+      .description("Number of events published to their streams")
+      .tag("result", "success")
+      .register(meterRegistry);
+    failureCounter = Counter.builder("outbox.relay.events")
+      .description("Number of events published to their streams")
+      .tag("result", "failure")
+      .register(meterRegistry);
+    batchTimer = Timer.builder("outbox.relay.batches")
+      .description("Time spent relaying a batch of events")
+      .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofVirtual().name("outbox-relay").factory()
+    );
+    scheduler.scheduleWithFixedDelay(this::relayAll, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    // The events left are relayed by the other instances, or after the restart
+    scheduler.shutdown();
+    scheduler.awaitTermination(PUBLISH_TIMEOUT, TimeUnit.MILLISECONDS);
+  }
+
+  /** Relays the events now instead of at the next poll. Concurrent calls are coalesced. */
+  public void wakeUp() {
+    if (!wakeUpPending.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      scheduler.execute(() -> {
+        wakeUpPending.set(false);
+        relayAll();
+      });
+    } catch (RejectedExecutionException e) {
+      // Stopping: the events are relayed later
+      wakeUpPending.set(false);
+    }
+  }
+
+  void relayAll() {
+    try {
+      while (batchTimer.record(this::relayBatch) == BATCH_SIZE) {
+        // A full batch: there may be more events
+      }
+    } catch (RuntimeException e) {
+      log.error("Error relaying the outbox events: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * @return the number of events relayed, or 0 if some of them failed, so that the relay waits
+   *         for the next poll before trying again
+   */
+  int relayBatch() {
+    List<OutboxEvent> events = claimBatch();
+
+    if (events.isEmpty()) {
+      lag.set(0);
+      return 0;
+    }
+
+    lag.set(Duration.between(events.get(0).getCreatedTimestamp(), Instant.now()).toMillis());
+
+    List<CompletableFuture<RecordId>> futures = new ArrayList<>(events.size());
+
+    for (OutboxEvent event : events) {
+      futures.add(
+        redisStreamPublisher.send(
+          event.getStreamKey(),
+          StreamEnvelope.of(
+            // Identifies the event when it is published more than once
+            OUTBOX_EVENT_ID.formatted(event.getId()),
+            StreamEnvelope.JSON,
+            event.getType(),
+            event.getPayload().getBytes(StandardCharsets.UTF_8)
+          )
+        )
+      );
+    }
+
+    List<Long> publishedIds = awaitPublished(events, futures);
+    List<Long> failedIds = events
+      .stream()
+      .map(OutboxEvent::getId)
+      .filter(id -> !publishedIds.contains(id))
+      .toList();
+
+    transactionTemplate.executeWithoutResult(status -> {
+      if (!publishedIds.isEmpty()) {
+        outboxEventsRepository.deleteAllByIdInBatch(publishedIds);
+      }
+      if (!failedIds.isEmpty()) {
+        // Retried at the next poll rather than when the claim expires
+        outboxEventsRepository.claim(failedIds, null);
+      }
+    });
+    relayedCounter.increment(publishedIds.size());
+    failureCounter.increment(failedIds.size());
+
+    return failedIds.isEmpty() ? events.size() : 0;
+  }
+
+  private List<OutboxEvent> claimBatch() {
+    List<OutboxEvent> events = transactionTemplate.execute(status -> {
+      Instant now = Instant.now();
+      List<OutboxEvent> claimable = outboxEventsRepository.lockClaimable(now, BATCH_SIZE);
+
+      if (!claimable.isEmpty()) {
+        outboxEventsRepository.claim(
+          claimable.stream().map(OutboxEvent::getId).toList(),
+          now.plusMillis(CLAIM_DURATION)
+        );
+      }
+
+      return claimable;
+    });
+
+    return events == null ? List.of() : events;
+  }
+
+  private List<Long> awaitPublished(
+    List<OutboxEvent> events,
+    List<CompletableFuture<RecordId>> futures
+  ) {
+    List<Long> publishedIds = new ArrayList<>(events.size());
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PUBLISH_TIMEOUT);
+
+    for (int i = 0; i < events.size(); i++) {
+      try {
+        futures.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        publishedIds.add(events.get(i).getId());
+      } catch (ExecutionException | TimeoutException e) {
+        log.warn("Error relaying outbox event {}: {}", events.get(i).getId(), e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    return publishedIds;
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.modules.outbox.services;
+
+import com.example.modules.outbox.entities.OutboxEvent;
+import com.example.modules.outbox.repositories.OutboxEventsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+  private final OutboxEventsRepository outboxEventsRepository;
+  private final OutboxRelay outboxRelay;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Saves an event to be published to a stream, in the current transaction: the event is published
+   * if and only if the transaction commits, even if Redis is unavailable at that time.
+   *
+   * @throws org.springframework.transaction.IllegalTransactionStateException if there is no
+   *         current transaction
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void publish(String streamKey, Object event) {
+    String payload;
+
+    try {
+      payload = objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Could not serialize the event", e);
+    }
+
+    outboxEventsRepository.save(
+      OutboxEvent.builder()
+        .streamKey(streamKey)
+        .type(event.getClass().getSimpleName())
+        .payload(payload)
+        .createdTimestamp(Instant.now())
+        .build()
+    );
+
+    // Publishes the event right after the commit, instead of at the next poll of the relay
+    TransactionSynchronizationManager.registerSynchronization(
+      new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          outboxRelay.wakeUp();
+        }
+      }
+    );
+  }
+}
@@ -13,9 +13,14 @@ import com.example.modules.posts.entities.Post;
 import com.example.modules.posts.repositories.PostsRepository;
 import com.example.modules.posts.utils.PostMapper;
 import com.example.modules.posts.utils.PostsSpecification;
+import com.example.modules.redis.configs.CacheConfig;
 import com.example.modules.users.entities.User;
+import com.example.modules.users.services.UsersService;
 import java.time.Instant;
+import java.util.Objects;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
@@ -25,10 +30,12 @@ public class PostsService {
 
   private final PostsRepository postsRepository;
   private final PostMapper postMapper;
+  private final CacheManager cacheManager;
+  private final UsersService usersService;
 
   public Page<PostResponseDTO> findAllPublicPosts(PostsSearchDTO postsSearchDTO) {
-    return postsRepository
-      .findAll(
+    return postMapper.toPostResponseDTOPage(
+      postsRepository.findAll(
         PostsSpecification.builder()
           .containsTitle(postsSearchDTO.getTitle())
           .ownedBy(postsSearchDTO.getUser())
@@ -37,44 +44,52 @@ public class PostsService {
           .build(),
         postsSearchDTO.toPageRequest()
       )
-      .map(postMapper::toPostResponseDTO);
+    );
   }
 
   public Page<PostResponseDTO> findAllPostsOfCurrentUser(
     MePostsSearchDTO postsSearchDTO,
     User currentUser
   ) {
-    return postsRepository
-      .findAll(
+    return postMapper.toPostResponseDTOPage(
+      postsRepository.findAll(
         PostsSpecification.builder()
           .containsTitle(postsSearchDTO.getName())
           .ownedBy(currentUser.getId())
           .build(),
         postsSearchDTO.toPageRequest()
       )
-      .map(postMapper::toPostResponseDTO);
+    );
   }
 
-  @SuppressWarnings("null")
+  /**
+   * Posts are cached regardless of the current user, so their visibility is checked after they
+   * are read from the cache, with the same rules as the searches: anonymous users only see public
+   * posts that are not deleted, logged in users also see their own posts.
+   *
+   * <p>
+   * The cached posts only hold the ID of their author, whose profile is read from the cache of
+   * the profiles, which is kept up to date when a profile changes.
+   * </p>
+   */
   public PostResponseDTO findPostById(String id, User currentUser) {
-    return postMapper.toPostResponseDTO(
-      postsRepository
-        .findOne(
-          PostsSpecification.builder()
-            .withId(id)
-            .<PostsSpecification>conditionally(
-              currentUser == null,
-              spec -> spec.publicOnly().notDeleted(),
-              spec -> spec.publicOrOwnedBy(currentUser.getId())
-            )
-            .build()
-        )
-        .orElseThrow(() -> new AppException(POST_NOT_FOUND))
+    PostResponseDTO post = getPostsCache().get(id, () ->
+      postsRepository.findById(id).map(postMapper::toCachedPostResponseDTO).orElse(null)
     );
+
+    if (post == null || !isVisibleTo(post, currentUser)) {
+      throw new AppException(POST_NOT_FOUND);
+    }
+
+    if (post.getUser() == null) {
+      return post;
+    }
+
+    return postMapper.withUser(post, usersService.getProfile(post.getUser().getId()));
   }
 
   public PostResponseDTO createPost(CreatePostDTO createPostDTO, User currentUser) {
-    return postMapper.toPostResponseDTO(
+    return cachePost(
       postsRepository.save(
         Post.builder()
           .user(currentUser)
@@ -94,7 +109,7 @@ public class PostsService {
       .orElseThrow(() -> new AppException(POST_NOT_FOUND));
 
     ObjectUtils.assign(post, updatePostDTO);
-    return postMapper.toPostResponseDTO(postsRepository.save(post));
+    return cachePost(postsRepository.save(post));
   }
 
   public void deletePost(String id, User currentUser) {
@@ -106,6 +121,7 @@ public class PostsService {
 
     post.setDeletedTimestamp(Instant.now());
     postsRepository.save(post);
+    getPostsCache().evict(id);
   }
 
   public PostResponseDTO restorePost(String id, User currentUser) {
@@ -116,6 +132,29 @@ public class PostsService {
       .orElseThrow(() -> new AppException(POST_NOT_FOUND));
 
     post.setDeletedTimestamp(null);
-    return postMapper.toPostResponseDTO(postsRepository.save(post));
+    return cachePost(postsRepository.save(post));
+  }
+
+  private boolean isVisibleTo(PostResponseDTO post, User currentUser) {
+    if (currentUser == null) {
+      return Boolean.TRUE.equals(post.getIsPublic()) && post.getDeletedTimestamp() == null;
+    }
+
+    return (
+      Boolean.TRUE.equals(post.getIsPublic()) ||
+      (post.getUser() != null && currentUser.getId().equals(post.getUser().getId()))
+    );
+  }
+
+  private PostResponseDTO cachePost(Post post) {
+    if (post.getId() != null) {
+      getPostsCache().put(post.getId(), postMapper.toCachedPostResponseDTO(post));
+    }
+
+    return postMapper.toPostResponseDTO(post);
+  }
+
+  private Cache getPostsCache() {
+    return Objects.requireNonNull(cacheManager.getCache(CacheConfig.POSTS_CACHE));
   }
 }
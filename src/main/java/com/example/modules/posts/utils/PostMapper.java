@@ -1,16 +1,98 @@
 package com.example.modules.posts.utils;
 
+import com.example.modules.minio.services.StorageUrlResolver;
 import com.example.modules.posts.dtos.PostResponseDTO;
 import com.example.modules.posts.entities.Post;
+import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.utils.UserMapper;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 
-@Mapper(componentModel = "spring", uses = UserMapper.class)
+@Mapper(componentModel = "spring")
 public abstract class PostMapper {
 
+  @Autowired
+  protected UserMapper userMapper;
+
+  @Autowired
+  protected StorageUrlResolver storageUrlResolver;
+
   @Named("toPostResponseDTO")
-  @Mapping(source = "user", target = "user", qualifiedByName = "toUserProfileDTO")
+  @Mapping(target = "user", expression = "java(userMapper.toUserProfileDTO(post.getUser()))")
   public abstract PostResponseDTO toPostResponseDTO(Post post);
+
+  @Named("toPostResponseDTOWithoutUser")
+  @Mapping(target = "user", ignore = true)
+  public abstract PostResponseDTO toPostResponseDTOWithoutUser(Post post);
+
+  /**
+   * Maps a post to be cached. Its author is only referenced by ID, and mapped with
+   * {@link #withUser} whenever the post is read, so that the cache never holds a stale profile.
+   */
+  @Named("toCachedPostResponseDTO")
+  public PostResponseDTO toCachedPostResponseDTO(Post post) {
+    PostResponseDTO postResponseDTO = toPostResponseDTOWithoutUser(post);
+
+    if (postResponseDTO != null && post.getUser() != null) {
+      postResponseDTO.setUser(UserProfileDTO.builder().id(post.getUser().getId()).build());
+    }
+
+    return postResponseDTO;
+  }
+
+  /** Returns a copy of a post with the given author, leaving the post itself unchanged. */
+  public PostResponseDTO withUser(PostResponseDTO post, UserProfileDTO user) {
+    PostResponseDTO postResponseDTO = copy(post);
+    postResponseDTO.setUser(user);
+
+    return postResponseDTO;
+  }
+
+  @Named("copy")
+  @Mapping(target = "user", ignore = true)
+  protected abstract PostResponseDTO copy(PostResponseDTO post);
+
+  /**
+   * Maps a page of posts. The avatar URLs of the authors are resolved in one batch, and each
+   * author is mapped once, however many posts of the page they wrote.
+   */
+  public Page<PostResponseDTO> toPostResponseDTOPage(Page<Post> posts) {
+    Map<String, String> urls = storageUrlResolver.resolveAll(
+      posts
+        .stream()
+        .map(Post::getUser)
+        .filter(user -> user != null)
+        .flatMap(user ->
+          Stream.concat(
+            Stream.of(user.getAvatar()),
+            user.getAvatarVariants() != null
+              ? user.getAvatarVariants().values().stream()
+              : Stream.empty()
+          )
+        )
+        .toList()
+    );
+
+    Map<String, UserProfileDTO> authors = new HashMap<>();
+
+    return posts.map(post -> {
+      PostResponseDTO postResponseDTO = toPostResponseDTOWithoutUser(post);
+
+      if (post.getUser() != null) {
+        postResponseDTO.setUser(
+          authors.computeIfAbsent(post.getUser().getId(), id ->
+            userMapper.toUserProfileDTO(post.getUser(), urls)
+          )
+        );
+      }
+
+      return postResponseDTO;
+    });
+  }
 }
@@ -0,0 +1,379 @@
+package com.example.modules.redis.caches;
+
+import com.example.modules.redis.codecs.RedisValueCodec;
+import com.example.modules.redis.services.RedisService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.lang.NonNull;
+
+/**
+ * {@link Cache} with a bounded in-memory tier (L1) in front of Redis (L2).
+ *
+ * <ul>
+ *   <li>Values are read from L1, then from Redis, and are only loaded when both miss.</li>
+ *   <li>Concurrent misses of the same key on an instance share a single load (single flight).</li>
+ *   <li>A value may be reloaded before it expires, with a probability that grows as the expiration
+ *       gets closer and with the time the value took to load (XFetch). Popular keys are then
+ *       refreshed by a single caller instead of expiring for every caller at once.</li>
+ *   <li>Writes and evictions are published so that the other instances drop their L1 copy.</li>
+ *   <li>A loaded value is not cached if the key was written or evicted while it was loading, as
+ *       it may have been read before the change.</li>
+ * </ul>
+ *
+ * <p>
+ * {@code null} values are not cached. Redis errors are logged and handled as misses, so the cache
+ * never fails a request that the underlying loader could serve.
+ * </p>
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+  private static final String KEY_PREFIX = "cache:%s:";
+  private static final int CLEAR_BATCH_SIZE = 1000;
+  private static final int VERSION_STRIPES = 1024;
+
+  private final String name;
+  private final Class<?> valueType;
+  private final Duration expiration;
+  private final double earlyRefreshBeta;
+  private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+  private final RedisValueCodec codec;
+  private final RedisService redisService;
+  private final Consumer<String> invalidationPublisher;
+
+  private final com.github.benmanes.caffeine.cache.Cache<String, Entry> localCache;
+  private final Map<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+  /**
+   * Versions of the keys, bumped whenever a key is written or evicted. Keys share a fixed number of
+   * versions, so a change to a key may at worst keep the value loaded for another key uncached.
+   */
+  private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+  private final Counter localHitCounter;
+  private final Counter remoteHitCounter;
+  private final Counter missCounter;
+  private final Counter earlyRefreshCounter;
+  private final Timer loadSuccessTimer;
+  private final Timer loadFailureTimer;
+
+  /**
+   * @param invalidationPublisher publishes the keys (or {@code null} for the whole cache) whose L1
+   *        copy must be dropped by the other instances
+   */
+  public TwoTierCache(
+    TwoTierCacheSpec spec,
+    long localMaxSize,
+    Duration localExpiration,
+    double earlyRefreshBeta,
+    RedisTemplate<String, byte[]> binaryRedisTemplate,
+    RedisValueCodec codec,
+    RedisService redisService,
+    Consumer<String> invalidationPublisher,
+    MeterRegistry meterRegistry
+  ) {
+    this.name = spec.name();
+    this.valueType = spec.valueType();
+    this.expiration = spec.expiration();
+    this.earlyRefreshBeta = earlyRefreshBeta;
+    this.binaryRedisTemplate = binaryRedisTemplate;
+    this.codec = codec;
+    this.redisService = redisService;
+    this.invalidationPublisher = invalidationPublisher;
+    this.localCache = Caffeine.newBuilder()
+      .maximumSize(localMaxSize)
+      .expireAfterWrite(localExpiration.compareTo(expiration) < 0 ? localExpiration : expiration)
+      .build();
+
+    localHitCounter = Counter.builder("cache.gets")
+      .tags("cache", name, "result", "hit", "tier", "local")
+      .register(meterRegistry);
+    remoteHitCounter = Counter.builder("cache.gets")
+      .tags("cache", name, "result", "hit", "tier", "remote")
+      .register(meterRegistry);
+    missCounter = Counter.builder("cache.gets")
+      .tags("cache", name, "result", "miss", "tier", "none")
+      .register(meterRegistry);
+    earlyRefreshCounter = Counter.builder("cache.early_refreshes")
+      .description("Number of values reloaded before their expiration")
+      .tag("cache", name)
+      .register(meterRegistry);
+    loadSuccessTimer = Timer.builder("cache.loads")
+      .tags("cache", name, "result", "success")
+      .register(meterRegistry);
+    loadFailureTimer = Timer.builder("cache.loads")
+      .tags("cache", name, "result", "failure")
+      .register(meterRegistry);
+  }
+
+  @Override
+  @NonNull
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  @NonNull
+  public Object getNativeCache() {
+    return localCache;
+  }
+
+  @Override
+  public ValueWrapper get(@NonNull Object key) {
+    Entry entry = lookup(String.valueOf(key));
+
+    // A caller chosen for an early refresh gets a miss, and caches the value it loads
+    if (entry == null || shouldRefreshEarly(entry)) {
+      return null;
+    }
+
+    return new SimpleValueWrapper(entry.value());
+  }
+
+  @Override
+  public <T> T get(@NonNull Object key, Class<T> type) {
+    ValueWrapper wrapper = get(key);
+    return wrapper == null ? null : type.cast(wrapper.get());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+    String cacheKey = String.valueOf(key);
+    Entry entry = lookup(cacheKey);
+
+    if (entry != null && !shouldRefreshEarly(entry)) {
+      return (T) entry.value();
+    }
+
+    CompletableFuture<Object> load = new CompletableFuture<>();
+    CompletableFuture<Object> ongoingLoad = loads.putIfAbsent(cacheKey, load);
+
+    if (ongoingLoad != null) {
+      // The value is already being refreshed by another caller: the current one is still valid
+      if (entry != null) {
+        return (T) entry.value();
+      }
+
+      return (T) await(key, valueLoader, ongoingLoad);
+    }
+
+    try {
+      T value = load(cacheKey, valueLoader);
+      load.complete(value);
+      return value;
+    } catch (Exception e) {
+      load.completeExceptionally(e);
+      throw new ValueRetrievalException(key, valueLoader, e);
+    } finally {
+      loads.remove(cacheKey, load);
+    }
+  }
+
+  @Override
+  public void put(@NonNull Object key, Object value) {
+    String cacheKey = String.valueOf(key);
+
+    if (value == null) {
+      evict(cacheKey);
+      return;
+    }
+
+    bumpVersion(cacheKey);
+    store(cacheKey, value, 0);
+    invalidationPublisher.accept(cacheKey);
+  }
+
+  @Override
+  public void evict(@NonNull Object key) {
+    String cacheKey = String.valueOf(key);
+
+    bumpVersion(cacheKey);
+    localCache.invalidate(cacheKey);
+    try {
+      binaryRedisTemplate.delete(redisKey(cacheKey));
+    } catch (RuntimeException e) {
+      log.error("Error evicting {} from cache {}: {}", cacheKey, name, e.getMessage());
+    }
+    invalidationPublisher.accept(cacheKey);
+  }
+
+  @Override
+  public void clear() {
+    bumpAllVersions();
+    localCache.invalidateAll();
+    try {
+      redisService.deleteByPattern(KEY_PREFIX.formatted(name) + "*", CLEAR_BATCH_SIZE);
+    } catch (RuntimeException e) {
+      log.error("Error clearing cache {}: {}", name, e.getMessage());
+    }
+    invalidationPublisher.accept(null);
+  }
+
+  /** Drops the L1 copy of a key, after it has been changed by another instance. */
+  void evictLocal(String key) {
+    bumpVersion(key);
+    localCache.invalidate(key);
+  }
+
+  /** Drops every L1 copy, after the cache has been cleared by another instance. */
+  void clearLocal() {
+    bumpAllVersions();
+    localCache.invalidateAll();
+  }
+
+  private Entry lookup(String key) {
+    long now = System.currentTimeMillis();
+    Entry entry = localCache.getIfPresent(key);
+
+    if (entry != null && entry.expiresAt() > now) {
+      localHitCounter.increment();
+      return entry;
+    }
+
+    try {
+      entry = decode(binaryRedisTemplate.opsForValue().get(redisKey(key)));
+    } catch (RuntimeException e) {
+      log.error("Error reading {} from cache {}: {}", key, name, e.getMessage());
+      entry = null;
+    }
+
+    if (entry != null && entry.expiresAt() > now) {
+      localCache.put(key, entry);
+      remoteHitCounter.increment();
+      return entry;
+    }
+
+    missCounter.increment();
+    return null;
+  }
+
+  private <T> T load(String key, Callable<T> valueLoader) throws Exception {
+    long version = versions.get(versionIndex(key));
+    long start = System.nanoTime();
+    T value;
+
+    try {
+      value = valueLoader.call();
+    } catch (Exception e) {
+      loadFailureTimer.record(Duration.ofNanos(System.nanoTime() - start));
+      throw e;
+    }
+
+    Duration loadTime = Duration.ofNanos(System.nanoTime() - start);
+    loadSuccessTimer.record(loadTime);
+
+    // A value written or evicted during the load is newer than the one read by the loader
+    if (value != null && versions.get(versionIndex(key)) == version) {
+      store(key, value, loadTime.toMillis());
+    }
+
+    return value;
+  }
+
+  private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      throw new ValueRetrievalException(key, valueLoader, e.getCause());
+    }
+  }
+
+  private void store(String key, Object value, long loadTimeMillis) {
+    Entry entry = new Entry(
+      value,
+      System.currentTimeMillis() + expiration.toMillis(),
+      loadTimeMillis
+    );
+
+    localCache.put(key, entry);
+    try {
+      binaryRedisTemplate.opsForValue().set(redisKey(key), encode(entry), expiration);
+    } catch (RuntimeException e) {
+      log.error("Error writing {} to cache {}: {}", key, name, e.getMessage());
+    }
+  }
+
+  private boolean shouldRefreshEarly(Entry entry) {
+    if (entry.loadTimeMillis() <= 0) {
+      return false;
+    }
+
+    // XFetch: -log(random) is exponentially distributed, so most callers are far from the
+    // expiration, and the slower the load, the earlier a refresh starts
+    double random = ThreadLocalRandom.current().nextDouble();
+    double gap = -entry.loadTimeMillis() * earlyRefreshBeta * Math.log(random);
+    boolean refresh = System.currentTimeMillis() + gap >= entry.expiresAt();
+
+    if (refresh) {
+      earlyRefreshCounter.increment();
+    }
+
+    return refresh;
+  }
+
+  private void bumpVersion(String key) {
+    versions.incrementAndGet(versionIndex(key));
+  }
+
+  private void bumpAllVersions() {
+    for (int i = 0; i < VERSION_STRIPES; i++) {
+      versions.incrementAndGet(i);
+    }
+  }
+
+  private static int versionIndex(String key) {
+    return Math.floorMod(key.hashCode(), VERSION_STRIPES);
+  }
+
+  private String redisKey(String key) {
+    return KEY_PREFIX.formatted(name) + key;
+  }
+
+  private byte[] encode(Entry entry) {
+    byte[] value = codec.encode(entry.value());
+
+    return ByteBuffer.allocate(16 + value.length)
+      .putLong(entry.expiresAt())
+      .putLong(entry.loadTimeMillis())
+      .put(value)
+      .array();
+  }
+
+  private Entry decode(byte[] bytes) {
+    if (bytes == null || bytes.length < 16) {
+      return null;
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    long expiresAt = buffer.getLong();
+    long loadTimeMillis = buffer.getLong();
+    Object value = codec.decode(Arrays.copyOfRange(bytes, 16, bytes.length), valueType);
+
+    return value == null ? null : new Entry(value, expiresAt, loadTimeMillis);
+  }
+
+  /**
+   * @param expiresAt the epoch millisecond after which the value is no longer served
+   * @param loadTimeMillis how long the value took to load, or {@code 0} if it was not loaded by
+   *        the cache
+   */
+  private record Entry(Object value, long expiresAt, long loadTimeMillis) {}
+}
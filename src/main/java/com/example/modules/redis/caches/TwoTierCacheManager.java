@@ -0,0 +1,122 @@
+package com.example.modules.redis.caches;
+
+import com.example.modules.redis.codecs.RedisValueCodec;
+import com.example.modules.redis.services.RedisService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Manages the {@link TwoTierCache}s declared by {@link TwoTierCacheSpec}s, and keeps their
+ * in-memory tier consistent across the instances of the application.
+ *
+ * <p>
+ * Every write or eviction is published on a Redis channel as {@code <instance>|<cache>|<key>}
+ * ({@code <instance>|<cache>} when a cache is cleared). The other instances drop their in-memory
+ * copy and read the new value from Redis on the next access. If a message is lost, the in-memory
+ * copy stays stale for at most {@code cache.local.expiration}.
+ * </p>
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractCacheManager implements MessageListener {
+
+  public static final String INVALIDATION_CHANNEL = "channel:cache_invalidation";
+
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final List<TwoTierCacheSpec> specs;
+  private final long localMaxSize;
+  private final Duration localExpiration;
+  private final double earlyRefreshBeta;
+  private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisValueCodec codec;
+  private final RedisService redisService;
+  private final MeterRegistry meterRegistry;
+
+  public TwoTierCacheManager(
+    List<TwoTierCacheSpec> specs,
+    long localMaxSize,
+    Duration localExpiration,
+    double earlyRefreshBeta,
+    RedisTemplate<String, byte[]> binaryRedisTemplate,
+    StringRedisTemplate stringRedisTemplate,
+    RedisValueCodec codec,
+    RedisService redisService,
+    MeterRegistry meterRegistry
+  ) {
+    this.specs = specs;
+    this.localMaxSize = localMaxSize;
+    this.localExpiration = localExpiration;
+    this.earlyRefreshBeta = earlyRefreshBeta;
+    this.binaryRedisTemplate = binaryRedisTemplate;
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.codec = codec;
+    this.redisService = redisService;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  @NonNull
+  protected Collection<? extends Cache> loadCaches() {
+    return specs
+      .stream()
+      .map(spec ->
+        new TwoTierCache(
+          spec,
+          localMaxSize,
+          localExpiration,
+          earlyRefreshBeta,
+          binaryRedisTemplate,
+          codec,
+          redisService,
+          key -> publishInvalidation(spec.name(), key),
+          meterRegistry
+        )
+      )
+      .toList();
+  }
+
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    String[] parts = body.split("\\|", 3);
+
+    if (parts.length < 2) {
+      log.warn("Ignoring malformed cache invalidation message: {}", body);
+      return;
+    }
+
+    if (instanceId.equals(parts[0]) || !(getCache(parts[1]) instanceof TwoTierCache cache)) {
+      return;
+    }
+
+    if (parts.length == 2) {
+      cache.clearLocal();
+    } else {
+      cache.evictLocal(parts[2]);
+    }
+  }
+
+  private void publishInvalidation(String cacheName, @Nullable String key) {
+    String message = instanceId + "|" + cacheName + (key == null ? "" : "|" + key);
+
+    try {
+      stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+    } catch (RuntimeException e) {
+      log.error("Error publishing the invalidation of cache {}: {}", cacheName, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.example.modules.redis.caches;
+
+import java.time.Duration;
+
+/**
+ * Declares a cache of the {@link TwoTierCacheManager}.
+ *
+ * @param name the name of the cache
+ * @param valueType the type of the cached values, used to decode the values stored in Redis
+ * @param expiration how long a value stays cached after it has been loaded
+ */
+public record TwoTierCacheSpec(String name, Class<?> valueType, Duration expiration) {}
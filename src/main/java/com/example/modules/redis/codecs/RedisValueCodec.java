@@ -0,0 +1,14 @@
+package com.example.modules.redis.codecs;
+
+/**
+ * Converts the values stored in Redis to and from bytes. Values are decoded directly to the
+ * requested type, without going through an intermediate representation.
+ */
+public interface RedisValueCodec {
+  byte[] encode(Object value);
+
+  /**
+   * @return the decoded value, or {@code null} if {@code bytes} is {@code null} or empty
+   */
+  <T> T decode(byte[] bytes, Class<T> type);
+}
@@ -0,0 +1,127 @@
+package com.example.modules.redis.codecs;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact binary codec for Redis values.
+ *
+ * <ul>
+ *   <li>Integers are stored as decimal strings, like Redis does, so that they can be incremented
+ *       with {@code INCR}.</li>
+ *   <li>Strings, booleans, instants and byte arrays are stored as a one-byte tag followed by their
+ *       raw value.</li>
+ *   <li>Other objects are stored as Smile (binary JSON), which starts with the {@code :)\n}
+ *       header.</li>
+ * </ul>
+ *
+ * <p>
+ * Values written as JSON by the previous serializer are still decoded: the tags are control
+ * characters and Smile starts with {@code :}, neither of which can start a JSON document.
+ * </p>
+ */
+@Component
+public class SmileRedisValueCodec implements RedisValueCodec {
+
+  private static final byte STRING_TAG = 0x01;
+  private static final byte INSTANT_TAG = 0x02;
+  private static final byte BOOLEAN_TAG = 0x03;
+  private static final byte BYTES_TAG = 0x04;
+
+  private final ObjectMapper jsonMapper;
+  private final ObjectMapper smileMapper;
+  private final ObjectReader legacyJsonReader;
+
+  public SmileRedisValueCodec(ObjectMapper objectMapper) {
+    this.jsonMapper = objectMapper;
+    this.smileMapper = objectMapper.copyWith(new SmileFactory());
+    // Values written by GenericJackson2JsonRedisSerializer may contain an `@class` property
+    this.legacyJsonReader = objectMapper
+      .reader()
+      .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  @Override
+  public byte[] encode(Object value) {
+    if (value == null) {
+      return new byte[0];
+    }
+
+    if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+      return value.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    if (value instanceof String string) {
+      return tagged(STRING_TAG, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    if (value instanceof Boolean bool) {
+      return new byte[] { BOOLEAN_TAG, (byte) (bool ? 1 : 0) };
+    }
+
+    if (value instanceof Instant instant) {
+      return ByteBuffer.allocate(13)
+        .put(INSTANT_TAG)
+        .putLong(instant.getEpochSecond())
+        .putInt(instant.getNano())
+        .array();
+    }
+
+    if (value instanceof byte[] bytes) {
+      return tagged(BYTES_TAG, bytes);
+    }
+
+    try {
+      return smileMapper.writeValueAsBytes(value);
+    } catch (IOException e) {
+      throw new SerializationException("Could not encode " + value.getClass().getName(), e);
+    }
+  }
+
+  @Override
+  public <T> T decode(byte[] bytes, Class<T> type) {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+
+    try {
+      return switch (bytes[0]) {
+        case STRING_TAG -> as(new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8), type);
+        case INSTANT_TAG -> {
+          ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 12);
+          yield as(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()), type);
+        }
+        case BOOLEAN_TAG -> as(bytes[1] != 0, type);
+        case BYTES_TAG -> as(Arrays.copyOfRange(bytes, 1, bytes.length), type);
+        case ':' -> smileMapper.readValue(bytes, type);
+        default -> legacyJsonReader.readValue(bytes, type);
+      };
+    } catch (IOException e) {
+      throw new SerializationException("Could not decode value as " + type.getName(), e);
+    }
+  }
+
+  private <T> T as(Object value, Class<T> type) {
+    if (type.isInstance(value)) {
+      return type.cast(value);
+    }
+
+    return jsonMapper.convertValue(value, type);
+  }
+
+  private static byte[] tagged(byte tag, byte[] value) {
+    byte[] bytes = new byte[value.length + 1];
+    bytes[0] = tag;
+    System.arraycopy(value, 0, bytes, 1, value.length);
+    return bytes;
+  }
+}
@@ -0,0 +1,104 @@
+package com.example.modules.redis.codecs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fields of a stream message.
+ *
+ * <ul>
+ *   <li>{@code v}: the version of the envelope, so that its layout can change while messages of
+ *       the previous version are still in the streams.</li>
+ *   <li>{@code id}: identifies the event, which may be published more than once, so that the
+ *       listeners process it once. Optional.</li>
+ *   <li>{@code content_type}: how the body is encoded, {@link #JSON} or {@link #SMILE}.</li>
+ *   <li>{@code type}: the type of the message.</li>
+ *   <li>{@code body}: the message, encoded once.</li>
+ * </ul>
+ *
+ * <p>
+ * Messages published before the envelope only have a {@code payload} field, holding JSON that
+ * may have been encoded twice. They are read as version {@value #LEGACY_VERSION}.
+ * </p>
+ */
+public record StreamEnvelope(
+  int version,
+  String id,
+  String contentType,
+  String type,
+  byte[] body
+) {
+  public static final int CURRENT_VERSION = 1;
+  public static final int LEGACY_VERSION = 0;
+
+  public static final String JSON = "application/json";
+  public static final String SMILE = "application/x-jackson-smile";
+
+  private static final String VERSION_FIELD = "v";
+  private static final String ID_FIELD = "id";
+  private static final String CONTENT_TYPE_FIELD = "content_type";
+  private static final String TYPE_FIELD = "type";
+  private static final String BODY_FIELD = "body";
+  private static final String LEGACY_PAYLOAD_FIELD = "payload";
+
+  public static StreamEnvelope of(String id, String contentType, String type, byte[] body) {
+    return new StreamEnvelope(CURRENT_VERSION, id, contentType, type, body);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the fields are neither an envelope nor a legacy message
+   */
+  public static StreamEnvelope fromFields(Map<String, byte[]> fields) {
+    byte[] version = fields.get(VERSION_FIELD);
+
+    if (version == null) {
+      byte[] payload = fields.get(LEGACY_PAYLOAD_FIELD);
+
+      if (payload == null) {
+        throw new IllegalArgumentException("The message is missing the 'v' and 'payload' fields");
+      }
+
+      return new StreamEnvelope(LEGACY_VERSION, null, JSON, null, payload);
+    }
+
+    byte[] body = fields.get(BODY_FIELD);
+
+    if (body == null) {
+      throw new IllegalArgumentException("The message is missing the 'body' field");
+    }
+
+    return new StreamEnvelope(
+      Integer.parseInt(asString(version)),
+      fields.containsKey(ID_FIELD) ? asString(fields.get(ID_FIELD)) : null,
+      fields.containsKey(CONTENT_TYPE_FIELD) ? asString(fields.get(CONTENT_TYPE_FIELD)) : JSON,
+      fields.containsKey(TYPE_FIELD) ? asString(fields.get(TYPE_FIELD)) : null,
+      body
+    );
+  }
+
+  public Map<String, byte[]> toFields() {
+    Map<String, byte[]> fields = new HashMap<>();
+    fields.put(VERSION_FIELD, asBytes(Integer.toString(version)));
+    fields.put(CONTENT_TYPE_FIELD, asBytes(contentType));
+    fields.put(BODY_FIELD, body);
+
+    if (id != null) {
+      fields.put(ID_FIELD, asBytes(id));
+    }
+
+    if (type != null) {
+      fields.put(TYPE_FIELD, asBytes(type));
+    }
+
+    return fields;
+  }
+
+  private static String asString(byte[] bytes) {
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] asBytes(String string) {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+}
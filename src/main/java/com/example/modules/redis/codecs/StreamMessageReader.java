@@ -0,0 +1,55 @@
+package com.example.modules.redis.codecs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+
+/**
+ * Decodes the bodies of {@link StreamEnvelope}s to a type. The readers are built once, so that
+ * Jackson does not look up the deserializer of the type for every message.
+ */
+public class StreamMessageReader<T> {
+
+  private final ObjectReader jsonReader;
+  private final ObjectReader smileReader;
+  private final ObjectReader legacyPayloadReader;
+
+  public StreamMessageReader(ObjectMapper objectMapper, Class<T> type) {
+    this.jsonReader = objectMapper.readerFor(type);
+    this.smileReader = objectMapper.copyWith(new SmileFactory()).readerFor(type);
+    this.legacyPayloadReader = objectMapper.readerFor(String.class);
+  }
+
+  /**
+   * @throws IOException if the body cannot be decoded
+   * @throws IllegalArgumentException if the content type or the version is not supported
+   */
+  public T read(StreamEnvelope envelope) throws IOException {
+    if (envelope.version() == StreamEnvelope.LEGACY_VERSION) {
+      return readLegacy(envelope.body());
+    }
+
+    if (envelope.version() > StreamEnvelope.CURRENT_VERSION) {
+      throw new IllegalArgumentException("Unsupported envelope version " + envelope.version());
+    }
+
+    return switch (envelope.contentType()) {
+      case StreamEnvelope.JSON -> jsonReader.readValue(envelope.body());
+      case StreamEnvelope.SMILE -> smileReader.readValue(envelope.body());
+      default -> throw new IllegalArgumentException(
+        "Unsupported content type " + envelope.contentType()
+      );
+    };
+  }
+
+  /** The payloads of legacy messages may be JSON documents encoded again as JSON strings. */
+  private T readLegacy(byte[] payload) throws IOException {
+    if (payload.length > 0 && payload[0] == '"') {
+      String unwrapped = legacyPayloadReader.readValue(payload);
+      return jsonReader.readValue(unwrapped);
+    }
+
+    return jsonReader.readValue(payload);
+  }
+}
@@ -0,0 +1,86 @@
+package com.example.modules.redis.configs;
+
+import com.example.modules.posts.dtos.PostResponseDTO;
+import com.example.modules.redis.caches.TwoTierCacheManager;
+import com.example.modules.redis.caches.TwoTierCacheSpec;
+import com.example.modules.redis.codecs.RedisValueCodec;
+import com.example.modules.redis.services.RedisService;
+import com.example.modules.users.dtos.UserProfileDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Declares the application caches, backed by an in-memory tier and Redis (see
+ * {@link TwoTierCacheManager}).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  public static final String POSTS_CACHE = "posts";
+  public static final String USER_PROFILES_CACHE = "user_profiles";
+
+  @Value("${cache.local.max-size:10000}")
+  private Long LOCAL_MAX_SIZE;
+
+  @Value("${cache.local.expiration:60}")
+  private Long LOCAL_EXPIRATION;
+
+  @Value("${cache.early-refresh.beta:1.0}")
+  private Double EARLY_REFRESH_BETA;
+
+  @Value("${cache.posts.expiration:300}")
+  private Long POSTS_EXPIRATION;
+
+  @Value("${cache.user-profiles.expiration:300}")
+  private Long USER_PROFILES_EXPIRATION;
+
+  @Bean
+  TwoTierCacheManager cacheManager(
+    RedisTemplate<String, byte[]> binaryRedisTemplate,
+    StringRedisTemplate stringRedisTemplate,
+    RedisValueCodec codec,
+    RedisService redisService,
+    MeterRegistry meterRegistry,
+    RedisMessageListenerContainer redisMessageListenerContainer
+  ) {
+    TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+      List.of(
+        new TwoTierCacheSpec(
+          POSTS_CACHE,
+          PostResponseDTO.class,
+          Duration.ofSeconds(POSTS_EXPIRATION)
+        ),
+        new TwoTierCacheSpec(
+          USER_PROFILES_CACHE,
+          UserProfileDTO.class,
+          Duration.ofSeconds(USER_PROFILES_EXPIRATION)
+        )
+      ),
+      LOCAL_MAX_SIZE,
+      Duration.ofSeconds(LOCAL_EXPIRATION),
+      EARLY_REFRESH_BETA,
+      binaryRedisTemplate,
+      stringRedisTemplate,
+      codec,
+      redisService,
+      meterRegistry
+    );
+
+    redisMessageListenerContainer.addMessageListener(
+      cacheManager,
+      new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL)
+    );
+
+    return cacheManager;
+  }
+}
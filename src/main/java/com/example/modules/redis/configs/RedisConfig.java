@@ -8,7 +8,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
@@ -53,4 +55,30 @@ public class RedisConfig {
 
     return template;
   }
+
+  /**
+   * Template whose values are raw bytes, for the services that encode their values themselves
+   * (see {@link com.example.modules.redis.codecs.RedisValueCodec}).
+   */
+  @Bean
+  RedisTemplate<String, byte[]> binaryRedisTemplate() {
+    RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+    StringRedisSerializer keySerializer = new StringRedisSerializer();
+
+    template.setConnectionFactory(jedisConnectionFactory());
+    template.setKeySerializer(keySerializer);
+    template.setHashKeySerializer(keySerializer);
+    template.setValueSerializer(RedisSerializer.byteArray());
+    template.setHashValueSerializer(RedisSerializer.byteArray());
+
+    return template;
+  }
+
+  @Bean
+  RedisMessageListenerContainer redisMessageListenerContainer() {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(jedisConnectionFactory());
+
+    return container;
+  }
 }
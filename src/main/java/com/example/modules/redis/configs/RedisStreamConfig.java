@@ -1,25 +1,26 @@
 package com.example.modules.redis.configs;
 
 import com.example.modules.redis.listeners.RedisStreamListener;
+import com.example.modules.redis.listeners.RedisStreamWorker;
+import com.example.modules.redis.listeners.RedisStreamWorkers;
+import com.example.modules.redis.listeners.StreamConsumerOptions;
+import com.example.modules.redis.listeners.StreamRetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.stream.Consumer;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.connection.stream.ReadOffset;
-import org.springframework.data.redis.connection.stream.StreamOffset;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.stream.StreamListener;
-import org.springframework.data.redis.stream.StreamMessageListenerContainer;
-import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
-import org.springframework.data.redis.stream.Subscription;
 
 @Configuration
 @Slf4j
@@ -27,40 +28,99 @@ import org.springframework.data.redis.stream.Subscription;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class RedisStreamConfig {
 
-  RedisConnectionFactory redisConnectionFactory;
-  RedisTemplate<String, Object> redisTemplate;
-  List<RedisStreamListener<?>> listeners;
+  @Value("${redis.stream.consumer.count:2}")
+  Integer CONSUMER_COUNT;
 
-  @Bean
-  Subscription subscription() {
-    StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options =
-      StreamMessageListenerContainerOptions.builder().pollTimeout(Duration.ofSeconds(1)).build();
+  @Value("${redis.stream.consumer.batch-size:10}")
+  Integer BATCH_SIZE;
 
-    StreamMessageListenerContainer<String, MapRecord<String, String, String>> container =
-      StreamMessageListenerContainer.create(redisConnectionFactory, options);
+  @Value("${redis.stream.consumer.concurrency:16}")
+  Integer CONCURRENCY;
 
-    for (RedisStreamListener<?> listener : listeners) {
-      String streamKey = listener.getStreamKey();
-      String group = listener.getConsumerGroup();
+  @Value("${redis.stream.consumer.ack-interval:100}")
+  Long ACK_INTERVAL;
+
+  @Value("${redis.stream.consumer.name:${HOSTNAME:}}")
+  String CONSUMER_NAME;
+
+  @Value("${redis.stream.reclaim.interval:5}")
+  Long RECLAIM_INTERVAL;
+
+  @Value("${redis.stream.trim.interval:60}")
+  Long TRIM_INTERVAL;
+
+  @Value("${redis.stream.dead-letter.max-length:10000}")
+  Long DEAD_LETTER_MAX_LENGTH;
+
+  @Value("${redis.stream.retry.max-attempts:5}")
+  Integer RETRY_MAX_ATTEMPTS;
+
+  @Value("${redis.stream.retry.initial-backoff:10}")
+  Long RETRY_INITIAL_BACKOFF;
 
-      createConsumerGroupIfNotExists(streamKey, group);
+  @Value("${redis.stream.retry.max-backoff:600}")
+  Long RETRY_MAX_BACKOFF;
 
-      StreamListener<String, MapRecord<String, String, String>> typedListener = (StreamListener<
-        String,
-        MapRecord<String, String, String>
-      >) listener;
+  RedisConnectionFactory redisConnectionFactory;
+  RedisTemplate<String, Object> redisTemplate;
+  RedisTemplate<String, byte[]> binaryRedisTemplate;
+  List<RedisStreamListener<?>> listeners;
+  MeterRegistry meterRegistry;
 
-      container.receive(
-        Consumer.from(group, "worker-" + UUID.randomUUID()),
-        StreamOffset.create(streamKey, ReadOffset.lastConsumed()),
-        typedListener
+  @Bean(initMethod = "start", destroyMethod = "stop")
+  RedisStreamWorkers redisStreamWorkers() {
+    StreamConsumerOptions defaults = new StreamConsumerOptions(
+      CONSUMER_COUNT,
+      BATCH_SIZE,
+      CONCURRENCY
+    );
+    StreamRetryPolicy retryPolicy = new StreamRetryPolicy(
+      RETRY_MAX_ATTEMPTS,
+      Duration.ofSeconds(RETRY_INITIAL_BACKOFF),
+      Duration.ofSeconds(RETRY_MAX_BACKOFF)
+    );
+    String consumerName = getConsumerName();
+    List<RedisStreamWorker> workers = new ArrayList<>();
+
+    for (RedisStreamListener<?> listener : listeners) {
+      createConsumerGroupIfNotExists(listener.getStreamKey(), listener.getConsumerGroup());
+      workers.add(
+        new RedisStreamWorker(
+          listener,
+          listener.getConsumerOptions(defaults),
+          retryPolicy,
+          DEAD_LETTER_MAX_LENGTH,
+          consumerName,
+          redisConnectionFactory,
+          binaryRedisTemplate,
+          meterRegistry
+        )
       );
+    }
+
+    return new RedisStreamWorkers(
+      workers,
+      Duration.ofMillis(ACK_INTERVAL),
+      Duration.ofSeconds(RECLAIM_INTERVAL),
+      Duration.ofSeconds(TRIM_INTERVAL)
+    );
+  }
 
-      log.info("Registered listener for stream: {}", streamKey);
+  /**
+   * The consumers must keep the same names when the instance restarts, so they are named after
+   * the host (the pod name on Kubernetes) unless a name is configured.
+   */
+  private String getConsumerName() {
+    if (!CONSUMER_NAME.isBlank()) {
+      return CONSUMER_NAME;
     }
 
-    container.start();
-    return null;
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      log.warn("Cannot resolve the host name, stream consumers are named after a random ID");
+      return "worker-" + UUID.randomUUID();
+    }
   }
 
   private void createConsumerGroupIfNotExists(String streamKey, String group) {
@@ -1,65 +1,258 @@
 package com.example.modules.redis.listeners;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.example.modules.redis.codecs.StreamEnvelope;
+import com.example.modules.redis.codecs.StreamMessageReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.stream.StreamListener;
 
 @Slf4j
 @RequiredArgsConstructor
 public abstract class RedisStreamListener<T>
-  implements StreamListener<String, MapRecord<String, String, String>> {
+  implements StreamListener<String, MapRecord<String, String, byte[]>> {
+
+  private static final String DEDUP_KEY = "stream:dedup:%s:%s";
+  private static final String PROCESSING = "processing";
+  private static final String PROCESSED = "processed";
+
+  @Value("${redis.stream.dedup.window:86400}")
+  private Long DEDUP_WINDOW;
+
+  @Value("${redis.stream.dedup.lease:60}")
+  private Long DEDUP_LEASE;
 
   private final StringRedisTemplate redisTemplate;
   private final ObjectMapper objectMapper;
 
+  private final RedisScript<Long> renewLeaseScript = RedisScript.of(
+    new ClassPathResource("scripts/renew_lease.lua"),
+    Long.class
+  );
+
+  private final RedisScript<Long> releaseLeaseScript = RedisScript.of(
+    new ClassPathResource("scripts/release_lease.lua"),
+    Long.class
+  );
+
+  /** The value of each lease held by this instance, by dedup key. */
+  private final Map<String, String> leases = new ConcurrentHashMap<>();
+
+  private volatile StreamMessageReader<T> reader;
+
   public abstract String getStreamKey();
 
   public abstract String getConsumerGroup();
 
   public abstract Class<T> getTargetType();
 
+  /**
+   * How the stream is consumed. By default, the stream is consumed with the application-wide
+   * options ({@code redis.stream.consumer.*}).
+   */
+  public StreamConsumerOptions getConsumerOptions(StreamConsumerOptions defaults) {
+    return defaults;
+  }
+
   @Override
-  public void onMessage(MapRecord<String, String, String> message) {
-    String streamKey = getStreamKey();
-    String consumerGroup = getConsumerGroup();
+  public void onMessage(MapRecord<String, String, byte[]> message) {
+    if (handle(message)) {
+      ack(getStreamKey(), getConsumerGroup(), message.getId());
+    }
+  }
+
+  /**
+   * Decodes and processes a message, without acknowledging it.
+   *
+   * <p>
+   * A message that is not an envelope is skipped. A message whose version or content type is not
+   * supported fails instead, so that it is retried, possibly by an instance that is more recent.
+   * </p>
+   *
+   * <p>
+   * Messages are processed once within the dedup window (see {@link #getDedupWindow()}), even when
+   * they are delivered or published again. Before processing a message, the listener takes a lease
+   * on its ID with {@code SET NX}, and turns it into a marker that lasts for the window once the
+   * message is processed. The lease lasts {@link #getDedupLease()}, and is renewed by
+   * {@link #renewLeases()} for as long as the message is processed. A message whose marker exists
+   * is acknowledged without being processed. A message leased by another consumer stays pending,
+   * to be checked again when it is reclaimed.
+   * </p>
+   *
+   * @return whether the message must be acknowledged, which is the case when it has been
+   *         processed or can never be
+   */
+  public boolean handle(MapRecord<String, String, byte[]> message) {
     RecordId recordId = message.getId();
+    StreamEnvelope envelope;
+
+    try {
+      envelope = StreamEnvelope.fromFields(message.getValue());
+    } catch (IllegalArgumentException e) {
+      log.warn("Message {} is skipped: {}", recordId, e.getMessage());
+      return true; // Ack để bỏ qua message lỗi
+    }
+
+    // Events published more than once have the same envelope ID, but not the same record ID
+    String dedupKey = DEDUP_KEY.formatted(
+      getConsumerGroup(),
+      envelope.id() != null ? envelope.id() : recordId.getValue()
+    );
+    Duration dedupWindow = getDedupWindow();
+    boolean deduplicated = dedupWindow.isPositive();
 
     try {
-      Map<String, String> body = message.getValue();
-      String jsonPayload = body.get("payload");
+      T dto = getReader().read(envelope);
 
-      if (jsonPayload == null) {
-        log.warn("Message {} body is missing 'payload' key", recordId);
-        ack(streamKey, consumerGroup, recordId); // Ack để bỏ qua message lỗi
-        return;
+      if (deduplicated && !acquireLease(dedupKey)) {
+        boolean processed = PROCESSED.equals(redisTemplate.opsForValue().get(dedupKey));
+        log.info(
+          "Message {} is {}, it is not processed again",
+          recordId,
+          processed ? "already processed" : "being processed by another consumer"
+        );
+        return processed;
       }
 
-      if (jsonPayload.startsWith("\"")) {
-        try {
-          jsonPayload = objectMapper.readValue(jsonPayload, String.class);
-        } catch (JsonProcessingException e) {
-          log.warn("Failed to unwrap double-encoded JSON: {}", e.getMessage());
+      try {
+        process(recordId.getValue(), dto);
+      } catch (Exception e) {
+        if (deduplicated) {
+          releaseLease(dedupKey);
         }
+        throw e;
+      } finally {
+        leases.remove(dedupKey);
       }
-
-      T dto = objectMapper.readValue(jsonPayload, getTargetType());
-
-      process(recordId.getValue(), dto);
-
-      ack(streamKey, consumerGroup, recordId);
     } catch (Exception e) {
       log.error(
         "Failed to process message {}. It will be retired later. Error: {}",
         message.getId(),
         e.getMessage()
       );
+      return false;
     }
+
+    if (deduplicated) {
+      try {
+        redisTemplate.opsForValue().set(dedupKey, PROCESSED, dedupWindow);
+      } catch (RuntimeException e) {
+        // The lease expires, and the message would be processed again if it were redelivered
+        log.error("Error marking message {} as processed: {}", recordId, e.getMessage());
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Called by the worker before a message that failed {@link StreamRetryPolicy#maxAttempts()}
+   * times is moved to the dead-letter stream. If it throws, the message stays pending, and is
+   * moved by a later reclaim, so {@link #deadLettered} may be called more than once.
+   */
+  public void onDeadLetter(MapRecord<String, String, byte[]> message) {
+    T dto;
+
+    try {
+      dto = getReader().read(StreamEnvelope.fromFields(message.getValue()));
+    } catch (IllegalArgumentException | IOException e) {
+      log.warn("Dead letter {} is not decoded: {}", message.getId(), e.getMessage());
+      return;
+    }
+
+    deadLettered(message.getId().getValue(), dto);
+  }
+
+  /**
+   * Handles a message that is given up on, e.g. to record that it failed where its outcome is
+   * awaited. Nothing is done by default.
+   */
+  protected void deadLettered(String messageId, T dto) {}
+
+  /**
+   * How long the processed messages are remembered, {@code redis.stream.dedup.window} seconds by
+   * default. A listener whose processing is idempotent may return {@link Duration#ZERO} to skip
+   * the deduplication.
+   */
+  protected Duration getDedupWindow() {
+    return Duration.ofSeconds(DEDUP_WINDOW);
+  }
+
+  /**
+   * How long a message can be processed without its lease being renewed before another consumer
+   * may process it too, {@code redis.stream.dedup.lease} seconds by default. It must be longer
+   * than the interval at which the leases are renewed.
+   */
+  protected Duration getDedupLease() {
+    return Duration.ofSeconds(DEDUP_LEASE);
+  }
+
+  /**
+   * Extends the leases of the messages being processed by this instance, so that a message whose
+   * processing outlasts its lease is not processed by another consumer in the meantime.
+   */
+  public void renewLeases() {
+    long leaseMillis = getDedupLease().toMillis();
+
+    leases.forEach((dedupKey, lease) -> {
+      try {
+        redisTemplate.execute(
+          renewLeaseScript,
+          List.of(dedupKey),
+          lease,
+          Long.toString(leaseMillis)
+        );
+      } catch (RuntimeException e) {
+        log.error("Error renewing the lease {}: {}", dedupKey, e.getMessage());
+      }
+    });
+  }
+
+  private boolean acquireLease(String dedupKey) {
+    // The value identifies the holder, so that a lease taken over by another consumer is not
+    // renewed by this one
+    String lease = PROCESSING + ":" + UUID.randomUUID();
+
+    if (
+      Boolean.TRUE.equals(
+        redisTemplate.opsForValue().setIfAbsent(dedupKey, lease, getDedupLease())
+      )
+    ) {
+      leases.put(dedupKey, lease);
+      return true;
+    }
+
+    return false;
+  }
+
+  private void releaseLease(String dedupKey) {
+    String lease = leases.get(dedupKey);
+
+    // A lease that expired may have been taken over by another consumer, which still holds it
+    if (lease != null) {
+      redisTemplate.execute(releaseLeaseScript, List.of(dedupKey), lease);
+    }
+  }
+
+  private StreamMessageReader<T> getReader() {
+    // Building the reader twice on concurrent first messages is harmless
+    if (reader == null) {
+      reader = new StreamMessageReader<>(objectMapper, getTargetType());
+    }
+
+    return reader;
   }
 
   private void ack(String streamKey, String group, RecordId recordId) {
@@ -0,0 +1,464 @@
+package com.example.modules.redis.listeners;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo.XInfoConsumer;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
+
+/**
+ * Consumes the stream of a {@link RedisStreamListener} with several consumers of its group.
+ *
+ * <ul>
+ *   <li>Each consumer reads up to {@link StreamConsumerOptions#batchSize()} messages per
+ *       {@code XREADGROUP}.</li>
+ *   <li>Messages are processed on virtual threads, at most
+ *       {@link StreamConsumerOptions#concurrency()} at a time. When the limit is reached, the
+ *       consumers stop reading until a message is done.</li>
+ *   <li>Processed messages are acknowledged together by a single {@code XACK} every
+ *       {@code ackInterval}. A message processed but not yet acknowledged when the instance
+ *       crashes is delivered again, as is any message that failed.</li>
+ * </ul>
+ *
+ * <p>
+ * Failed messages stay in the pending entries list (PEL) of the group. {@link #reclaim()}
+ * periodically claims the ones that have been pending for longer than their backoff (see
+ * {@link StreamRetryPolicy}), whichever consumer they were delivered to, and processes them again.
+ * After {@link StreamRetryPolicy#maxAttempts()} deliveries, a message is moved to the
+ * {@code <stream>:dlq} stream instead, once {@link RedisStreamListener#onDeadLetter} has let the
+ * listener handle it. The dead-letter stream keeps about the last {@code deadLetterMaxLength}
+ * messages. The consumers are named after the instance
+ * ({@code <name>-<index>}), so a restarted instance keeps the same consumers and the group does
+ * not accumulate consumers.
+ * </p>
+ *
+ * <p>
+ * A message that is still being processed is not a failed message, however long it takes. Every
+ * {@link #reclaim()} first resets the idle time of the messages this instance is processing, with
+ * an {@code XCLAIM ... JUSTID} that does not count as a delivery, and renews their dedup leases
+ * (see {@link RedisStreamListener#renewLeases()}). As long as the reclaim interval is shorter than
+ * the initial backoff, no instance claims them, and they are never dead-lettered while they run.
+ * </p>
+ *
+ * <p>
+ * Acknowledged messages are not deleted one by one. {@link #trim()} periodically drops the entries
+ * that every group of the stream has acknowledged, with an {@code XTRIM MINID}.
+ * </p>
+ */
+@Slf4j
+public class RedisStreamWorker
+  implements StreamListener<String, MapRecord<String, String, byte[]>> {
+
+  public static final String DEAD_LETTER_STREAM = "%s:dlq";
+
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+  private static final int RECLAIM_BATCH_SIZE = 100;
+  private static final Duration STALE_CONSUMER_IDLE_TIME = Duration.ofHours(1);
+
+  private final RedisScript<Long> trimStreamScript = RedisScript.of(
+    new ClassPathResource("scripts/trim_stream.lua"),
+    Long.class
+  );
+
+  private final RedisStreamListener<?> listener;
+  private final StreamConsumerOptions options;
+  private final StreamRetryPolicy retryPolicy;
+  private final long deadLetterMaxLength;
+  private final String consumerName;
+  private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+  private final StreamMessageListenerContainer<String, MapRecord<String, String, byte[]>> container;
+  private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+  private final Semaphore permits;
+  private final ConcurrentLinkedQueue<RecordId> pendingAcks = new ConcurrentLinkedQueue<>();
+  private final Set<RecordId> inFlight = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong pendingCount = new AtomicLong();
+  private final Counter redeliveryCounter;
+  private final Counter deadLetterCounter;
+
+  /**
+   * @param deadLetterMaxLength the approximate number of messages kept by the dead-letter stream
+   * @param consumerName the name of the instance, which prefixes the names of its consumers
+   */
+  public RedisStreamWorker(
+    RedisStreamListener<?> listener,
+    StreamConsumerOptions options,
+    StreamRetryPolicy retryPolicy,
+    long deadLetterMaxLength,
+    String consumerName,
+    RedisConnectionFactory redisConnectionFactory,
+    RedisTemplate<String, byte[]> binaryRedisTemplate,
+    MeterRegistry meterRegistry
+  ) {
+    this.listener = listener;
+    this.options = options;
+    this.retryPolicy = retryPolicy;
+    this.deadLetterMaxLength = deadLetterMaxLength;
+    this.consumerName = consumerName;
+    this.binaryRedisTemplate = binaryRedisTemplate;
+    this.permits = new Semaphore(options.concurrency());
+
+    Gauge.builder("redis.stream.pending", pendingCount, AtomicLong::get)
+      .description("Number of messages delivered to the group but not acknowledged yet")
+      .tag("stream", listener.getStreamKey())
+      .register(meterRegistry);
+    redeliveryCounter = Counter.builder("redis.stream.redeliveries")
+      .description("Number of failed messages claimed to be processed again")
+      .tag("stream", listener.getStreamKey())
+      .register(meterRegistry);
+    deadLetterCounter = Counter.builder("redis.stream.dead_letters")
+      .description("Number of messages moved to the dead-letter stream")
+      .tag("stream", listener.getStreamKey())
+      .register(meterRegistry);
+
+    this.container = StreamMessageListenerContainer.create(
+      redisConnectionFactory,
+      StreamMessageListenerContainerOptions.builder()
+        // The bodies of the messages may be binary (see StreamEnvelope)
+        .<String, byte[]>hashValueSerializer(RedisSerializer.byteArray())
+        .pollTimeout(POLL_TIMEOUT)
+        .batchSize(options.batchSize())
+        // The read loops mostly wait on Redis
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .errorHandler(e ->
+          log.error("Error reading stream {}: {}", listener.getStreamKey(), e.getMessage())
+        )
+        .build()
+    );
+  }
+
+  public void start() {
+    for (int i = 0; i < options.consumerCount(); i++) {
+      container.receive(
+        Consumer.from(listener.getConsumerGroup(), getConsumerName(i)),
+        StreamOffset.create(listener.getStreamKey(), ReadOffset.lastConsumed()),
+        this
+      );
+    }
+
+    container.start();
+    log.info(
+      "Registered {} consumers for stream: {}",
+      options.consumerCount(),
+      listener.getStreamKey()
+    );
+  }
+
+  /**
+   * Stops reading the stream, waits for the messages being processed and acknowledges them.
+   */
+  public void stop() {
+    container.stop();
+    handlers.shutdown();
+
+    try {
+      if (!handlers.awaitTermination(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+        log.warn("Messages of stream {} still processed at shutdown", listener.getStreamKey());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    flushAcks();
+  }
+
+  @Override
+  public void onMessage(MapRecord<String, String, byte[]> message) {
+    dispatch(message);
+  }
+
+  /**
+   * Keeps the messages being processed alive, claims the failed messages whose backoff has
+   * elapsed, processes them again or moves them to the dead-letter stream, and removes the
+   * consumers of stopped instances.
+   */
+  public void reclaim() {
+    String streamKey = listener.getStreamKey();
+    String group = listener.getConsumerGroup();
+
+    try {
+      keepInFlightMessagesAlive(streamKey, group);
+      pendingCount.set(
+        binaryRedisTemplate.opsForStream().pending(streamKey, group).getTotalPendingMessages()
+      );
+
+      if (pendingCount.get() > 0) {
+        claimRetriableMessages(streamKey, group);
+      }
+
+      removeStaleConsumers(streamKey, group);
+    } catch (RuntimeException e) {
+      log.error("Error reclaiming pending messages of stream {}: {}", streamKey, e.getMessage());
+    }
+  }
+
+  /**
+   * Drops the entries of the stream that every consumer group has acknowledged. An entry that a
+   * group has not read yet, or that is pending, is kept with every entry after it.
+   */
+  public void trim() {
+    String streamKey = listener.getStreamKey();
+
+    try {
+      Long trimmed = binaryRedisTemplate.execute(trimStreamScript, List.of(streamKey));
+      log.debug("Trimmed {} entries of stream {}", trimmed, streamKey);
+    } catch (RuntimeException e) {
+      log.error("Error trimming stream {}: {}", streamKey, e.getMessage());
+    }
+  }
+
+  /**
+   * Resets the idle time of the messages being processed by this instance, without incrementing
+   * their delivery count, and renews their dedup leases.
+   */
+  private void keepInFlightMessagesAlive(String streamKey, String group) {
+    listener.renewLeases();
+
+    if (inFlight.isEmpty()) {
+      return;
+    }
+
+    XClaimOptions claimOptions = XClaimOptions.minIdle(Duration.ZERO).ids(
+      inFlight.toArray(RecordId[]::new)
+    );
+
+    binaryRedisTemplate.execute((RedisCallback<List<RecordId>>) connection ->
+      connection
+        .streamCommands()
+        .xClaimJustId(
+          streamKey.getBytes(StandardCharsets.UTF_8),
+          group,
+          getConsumerName(0),
+          claimOptions
+        )
+    );
+  }
+
+  private void claimRetriableMessages(String streamKey, String group) {
+    PendingMessages pendingMessages = binaryRedisTemplate
+      .opsForStream()
+      .pending(streamKey, group, Range.unbounded(), RECLAIM_BATCH_SIZE);
+    Map<RecordId, Long> deliveryCounts = new HashMap<>();
+    int retries = 0;
+
+    for (PendingMessage pendingMessage : pendingMessages) {
+      Duration backoff = retryPolicy.backoff(pendingMessage.getTotalDeliveryCount());
+
+      if (
+        inFlight.contains(pendingMessage.getId()) ||
+        pendingMessage.getElapsedTimeSinceLastDelivery().compareTo(backoff) < 0
+      ) {
+        continue;
+      }
+
+      // Messages are only claimed for a retry if they can be processed right away: the reclaim
+      // thread never waits for a permit, and a claim counts as a delivery
+      if (pendingMessage.getTotalDeliveryCount() >= retryPolicy.maxAttempts()) {
+        deliveryCounts.put(pendingMessage.getId(), pendingMessage.getTotalDeliveryCount());
+      } else if (permits.tryAcquire()) {
+        deliveryCounts.put(pendingMessage.getId(), pendingMessage.getTotalDeliveryCount());
+        retries++;
+      }
+    }
+
+    if (deliveryCounts.isEmpty()) {
+      return;
+    }
+
+    try {
+      // Every backoff is at least the initial one, and a message claimed by another instance in
+      // the meantime has been idle for less than that, so it is not claimed twice
+      List<MapRecord<String, Object, Object>> claimed = binaryRedisTemplate
+        .opsForStream()
+        .claim(
+          streamKey,
+          group,
+          getConsumerName(0),
+          retryPolicy.initialBackoff(),
+          deliveryCounts.keySet().toArray(RecordId[]::new)
+        );
+
+      for (MapRecord<String, Object, Object> record : claimed) {
+        MapRecord<String, String, byte[]> message = StreamRecords.newRecord()
+          .in(streamKey)
+          .withId(record.getId())
+          .ofMap(toFields(record.getValue()));
+
+        if (deliveryCounts.get(record.getId()) >= retryPolicy.maxAttempts()) {
+          deadLetter(message, deliveryCounts.get(record.getId()));
+        } else {
+          redeliveryCounter.increment();
+          retries--;
+          execute(message);
+        }
+      }
+    } finally {
+      // The permits of the messages claimed by another instance in the meantime
+      permits.release(retries);
+    }
+  }
+
+  private void deadLetter(MapRecord<String, String, byte[]> message, long deliveryCount) {
+    try {
+      listener.onDeadLetter(message);
+    } catch (RuntimeException e) {
+      // The message stays pending, and is moved by a later reclaim
+      log.error(
+        "Error handling the dead letter {} of stream {}: {}",
+        message.getId(),
+        message.getStream(),
+        e.getMessage()
+      );
+      return;
+    }
+
+    Map<String, byte[]> fields = new HashMap<>(message.getValue());
+    fields.put("original_id", asBytes(message.getId().getValue()));
+    fields.put("group", asBytes(listener.getConsumerGroup()));
+    fields.put("deliveries", asBytes(Long.toString(deliveryCount)));
+
+    binaryRedisTemplate
+      .opsForStream()
+      .add(
+        DEAD_LETTER_STREAM.formatted(message.getStream()),
+        fields,
+        XAddOptions.maxlen(deadLetterMaxLength).approximateTrimming(true)
+      );
+    pendingAcks.add(message.getId());
+    deadLetterCounter.increment();
+
+    log.warn(
+      "Moved message {} of stream {} to the dead-letter stream after {} deliveries",
+      message.getId(),
+      message.getStream(),
+      deliveryCount
+    );
+  }
+
+  /** Removes the consumers left by previous instances once they have nothing pending. */
+  private void removeStaleConsumers(String streamKey, String group) {
+    for (XInfoConsumer consumer : binaryRedisTemplate.opsForStream().consumers(streamKey, group)) {
+      boolean isOwn = consumer.consumerName().startsWith(consumerName + "-");
+
+      if (
+        !isOwn &&
+        consumer.pendingCount() == 0 &&
+        consumer.idleTime().compareTo(STALE_CONSUMER_IDLE_TIME) > 0
+      ) {
+        binaryRedisTemplate
+          .opsForStream()
+          .deleteConsumer(streamKey, Consumer.from(group, consumer.consumerName()));
+      }
+    }
+  }
+
+  private void dispatch(MapRecord<String, String, byte[]> message) {
+    // Blocks the consumer, which stops reading the stream until a message is done
+    permits.acquireUninterruptibly();
+    execute(message);
+  }
+
+  /** Processes a message on a virtual thread, once a permit has been acquired for it. */
+  private void execute(MapRecord<String, String, byte[]> message) {
+    RecordId recordId = message.getId();
+    inFlight.add(recordId);
+
+    try {
+      handlers.execute(() -> {
+        try {
+          if (listener.handle(message)) {
+            pendingAcks.add(recordId);
+          }
+        } finally {
+          inFlight.remove(recordId);
+          permits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Stopping: the message stays pending and will be delivered again
+      inFlight.remove(recordId);
+      permits.release();
+    }
+  }
+
+  private String getConsumerName(int index) {
+    return consumerName + "-" + index;
+  }
+
+  private static Map<String, byte[]> toFields(Map<Object, Object> values) {
+    Map<String, byte[]> fields = new HashMap<>();
+    values.forEach((field, value) -> fields.put((String) field, (byte[]) value));
+    return fields;
+  }
+
+  private static byte[] asBytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /** Acknowledges the messages processed since the last call with a single {@code XACK}. */
+  public void flushAcks() {
+    List<RecordId> recordIds = new ArrayList<>();
+
+    for (RecordId recordId; (recordId = pendingAcks.poll()) != null;) {
+      recordIds.add(recordId);
+    }
+
+    if (recordIds.isEmpty()) {
+      return;
+    }
+
+    try {
+      binaryRedisTemplate
+        .opsForStream()
+        .acknowledge(
+          listener.getStreamKey(),
+          listener.getConsumerGroup(),
+          recordIds.toArray(RecordId[]::new)
+        );
+    } catch (RuntimeException e) {
+      // The messages stay pending and will be delivered again
+      log.error(
+        "Error acknowledging {} messages of stream {}: {}",
+        recordIds.size(),
+        listener.getStreamKey(),
+        e.getMessage()
+      );
+    }
+  }
+}
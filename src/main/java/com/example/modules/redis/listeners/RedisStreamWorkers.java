@@ -0,0 +1,56 @@
+package com.example.modules.redis.listeners;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Starts and stops the {@link RedisStreamWorker}s. Periodically acknowledges the messages they have
+ * processed, reclaims the messages that failed, and trims the acknowledged messages.
+ */
+@RequiredArgsConstructor
+public class RedisStreamWorkers {
+
+  private final List<RedisStreamWorker> workers;
+  private final Duration ackInterval;
+  private final Duration reclaimInterval;
+  private final Duration trimInterval;
+
+  private ScheduledExecutorService scheduler;
+
+  public void start() {
+    workers.forEach(RedisStreamWorker::start);
+
+    // Two threads, so that a slow reclaim or trim does not delay the acknowledgements
+    scheduler = Executors.newScheduledThreadPool(
+      2,
+      Thread.ofVirtual().name("redis-stream-scheduler-", 0).factory()
+    );
+    scheduler.scheduleWithFixedDelay(
+      () -> workers.forEach(RedisStreamWorker::flushAcks),
+      ackInterval.toMillis(),
+      ackInterval.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+    scheduler.scheduleWithFixedDelay(
+      () -> workers.forEach(RedisStreamWorker::reclaim),
+      reclaimInterval.toMillis(),
+      reclaimInterval.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+    scheduler.scheduleWithFixedDelay(
+      () -> workers.forEach(RedisStreamWorker::trim),
+      trimInterval.toMillis(),
+      trimInterval.toMillis(),
+      TimeUnit.MILLISECONDS
+    );
+  }
+
+  public void stop() {
+    scheduler.shutdownNow();
+    workers.forEach(RedisStreamWorker::stop);
+  }
+}
@@ -0,0 +1,10 @@
+package com.example.modules.redis.listeners;
+
+/**
+ * How a {@link RedisStreamListener} consumes its stream.
+ *
+ * @param consumerCount the number of consumers of the group reading the stream on each instance
+ * @param batchSize the maximum number of messages read by each {@code XREADGROUP}
+ * @param concurrency the maximum number of messages processed at the same time on each instance
+ */
+public record StreamConsumerOptions(int consumerCount, int batchSize, int concurrency) {}
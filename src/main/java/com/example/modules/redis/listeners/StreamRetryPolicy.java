@@ -0,0 +1,21 @@
+package com.example.modules.redis.listeners;
+
+import java.time.Duration;
+
+/**
+ * When the failed messages of a stream are delivered again.
+ *
+ * @param maxAttempts the number of deliveries after which a message is moved to the dead-letter
+ *        stream
+ * @param initialBackoff how long a message stays pending after its first delivery
+ * @param maxBackoff the upper bound of the backoff, which doubles after every delivery
+ */
+public record StreamRetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+  /** @return how long a message delivered {@code deliveryCount} times stays pending */
+  public Duration backoff(long deliveryCount) {
+    int exponent = (int) Math.min(Math.max(deliveryCount - 1, 0), 30);
+    Duration backoff = initialBackoff.multipliedBy(1L << exponent);
+
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+}
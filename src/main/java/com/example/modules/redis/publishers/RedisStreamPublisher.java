@@ -1,38 +1,252 @@
 package com.example.modules.redis.publishers;
 
+import com.example.modules.redis.codecs.StreamEnvelope;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import lombok.AccessLevel;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
-import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.ByteRecord;
 import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.connection.stream.StreamRecords;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+/**
+ * Publishes events to Redis streams, without blocking the caller on Redis.
+ *
+ * <p>
+ * Events are serialized once, on the caller thread, into a {@link StreamEnvelope}, and buffered in
+ * memory. A background thread sends them in batches, with all the {@code XADD} commands of a batch
+ * in a single pipeline: a batch is sent once it holds {@code redis.stream.publisher.batch-size}
+ * events, or {@code redis.stream.publisher.linger} milliseconds after its first event. Streams
+ * are only trimmed on {@code XADD} if they are given a {@link StreamRetention}, by
+ * {@link #setRetention}. Otherwise, their consumers trim the entries they have acknowledged.
+ * </p>
+ *
+ * <p>
+ * The buffer is bounded: when it is full, events are rejected instead of using more memory. The
+ * events still buffered when the application stops are sent before it exits.
+ * </p>
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
 public class RedisStreamPublisher {
 
-  RedisTemplate<String, Object> redisTemplate;
-  ObjectMapper objectMapper;
+  @Value("${redis.stream.publisher.buffer-capacity:10000}")
+  private Integer BUFFER_CAPACITY;
 
-  public void send(String streamKey, Object object) {
-    try {
-      String jsonPayload = objectMapper.writeValueAsString(object);
+  @Value("${redis.stream.publisher.batch-size:100}")
+  private Integer BATCH_SIZE;
+
+  @Value("${redis.stream.publisher.linger:5}")
+  private Long LINGER;
+
+  @Value("${redis.stream.publisher.content-type:" + StreamEnvelope.JSON + "}")
+  private String CONTENT_TYPE;
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final ObjectMapper objectMapper;
+
+  private final Map<String, StreamRetention> retentions = new ConcurrentHashMap<>();
 
-      MapRecord<String, String, String> record = StreamRecords.newRecord()
-        .ofStrings(Map.of("payload", jsonPayload))
-        .withStreamKey(streamKey);
+  private ObjectWriter bodyWriter;
+  private BlockingQueue<PendingRecord> buffer;
+  private Thread flusher;
+  private volatile boolean running;
 
-      RecordId recordId = redisTemplate.opsForStream().add(record);
-      log.info("Pushed JSON to stream [{}]: id={}", streamKey, recordId);
+  @PostConstruct
+  void init() {
+    bodyWriter = switch (CONTENT_TYPE) {
+      case StreamEnvelope.JSON -> objectMapper.writer();
+      case StreamEnvelope.SMILE -> objectMapper.copyWith(new SmileFactory()).writer();
+      default -> throw new IllegalStateException("Unsupported content type " + CONTENT_TYPE);
+    };
+    buffer = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    running = true;
+    flusher = Thread.ofPlatform().name("redis-stream-publisher").daemon().start(this::run);
+  }
+
+  @PreDestroy
+  void destroy() throws InterruptedException {
+    running = false;
+    flusher.join(Duration.ofSeconds(10));
+
+    if (!buffer.isEmpty()) {
+      log.warn("{} stream records were not sent before shutdown", buffer.size());
+    }
+  }
+
+  /**
+   * Makes every {@code XADD} to a stream trim it. By default, streams are only trimmed of the
+   * entries that their consumer groups have acknowledged: a retention drops the oldest entries
+   * whether or not they have been consumed, so it only suits streams whose entries may be lost
+   * (see {@link StreamRetention}).
+   */
+  public void setRetention(String streamKey, StreamRetention retention) {
+    retentions.put(streamKey, retention);
+  }
+
+  /**
+   * Queues an event to be added to a stream, in a {@link StreamEnvelope} with a random ID, whose
+   * body is encoded as {@code redis.stream.publisher.content-type} and whose type is the simple
+   * name of the class of the event.
+   *
+   * @return a future completed with the ID of the record once it is in Redis, or completed
+   *         exceptionally if the event could not be serialized, buffered or sent
+   */
+  public CompletableFuture<RecordId> send(String streamKey, Object object) {
+    StreamEnvelope envelope;
+
+    try {
+      envelope = StreamEnvelope.of(
+        UUID.randomUUID().toString(),
+        CONTENT_TYPE,
+        object.getClass().getSimpleName(),
+        bodyWriter.writeValueAsBytes(object)
+      );
     } catch (Exception e) {
-      log.error("Error pushing to stream", e);
+      log.error("Error pushing to stream [{}]: {}", streamKey, e.getMessage());
+      return CompletableFuture.failedFuture(e);
+    }
+
+    return send(streamKey, envelope);
+  }
+
+  /** Queues an event that is already encoded to be added to a stream. */
+  public CompletableFuture<RecordId> send(String streamKey, StreamEnvelope envelope) {
+    CompletableFuture<RecordId> future = new CompletableFuture<>();
+    ByteRecord record = StreamRecords.rawBytes(toRawFields(envelope)).withStreamKey(
+      streamKey.getBytes(StandardCharsets.UTF_8)
+    );
+
+    if (!running || !buffer.offer(new PendingRecord(streamKey, record, future))) {
+      log.error("Error pushing to stream [{}]: the buffer is full", streamKey);
+      future.completeExceptionally(
+        new RejectedExecutionException("The stream publisher buffer is full")
+      );
+    }
+
+    return future;
+  }
+
+  private void run() {
+    List<PendingRecord> batch = new ArrayList<>(BATCH_SIZE);
+
+    while (running || !buffer.isEmpty()) {
+      try {
+        collectBatch(batch);
+      } catch (InterruptedException e) {
+        // Send what is left, as the thread cannot wait anymore
+        Thread.currentThread().interrupt();
+        running = false;
+        buffer.drainTo(batch);
+      }
+
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Waits for a first record, then for more records until the batch is full or the linger time
+   * has elapsed.
+   */
+  private void collectBatch(List<PendingRecord> batch) throws InterruptedException {
+    PendingRecord first = buffer.poll(100, TimeUnit.MILLISECONDS);
+
+    if (first == null) {
+      return;
+    }
+
+    batch.add(first);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER);
+
+    while (batch.size() < BATCH_SIZE) {
+      buffer.drainTo(batch, BATCH_SIZE - batch.size());
+
+      long remaining = deadline - System.nanoTime();
+
+      if (batch.size() >= BATCH_SIZE || remaining <= 0 || !running) {
+        return;
+      }
+
+      PendingRecord next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+
+      if (next == null) {
+        return;
+      }
+
+      batch.add(next);
     }
   }
+
+  private void flush(List<PendingRecord> batch) {
+    List<Object> results;
+
+    try {
+      results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        for (PendingRecord pending : batch) {
+          connection
+            .streamCommands()
+            .xAdd(pending.record(), getRetention(pending.streamKey()).toXAddOptions());
+        }
+        return null;
+      });
+    } catch (RuntimeException e) {
+      log.error("Error pushing {} records to streams: {}", batch.size(), e.getMessage());
+      batch.forEach(pending -> pending.future().completeExceptionally(e));
+      return;
+    }
+
+    for (int i = 0; i < batch.size(); i++) {
+      Object result = i < results.size() ? results.get(i) : null;
+
+      if (result instanceof RecordId recordId) {
+        batch.get(i).future().complete(recordId);
+      } else {
+        batch.get(i).future().complete(result == null ? null : RecordId.of(result.toString()));
+      }
+    }
+
+    log.debug("Pushed {} records to streams", batch.size());
+  }
+
+  private static Map<byte[], byte[]> toRawFields(StreamEnvelope envelope) {
+    Map<byte[], byte[]> fields = new HashMap<>();
+    envelope
+      .toFields()
+      .forEach((field, value) -> fields.put(field.getBytes(StandardCharsets.UTF_8), value));
+    return fields;
+  }
+
+  private StreamRetention getRetention(String streamKey) {
+    return retentions.getOrDefault(streamKey, StreamRetention.NONE);
+  }
+
+  private record PendingRecord(
+    String streamKey,
+    ByteRecord record,
+    CompletableFuture<RecordId> future
+  ) {}
 }
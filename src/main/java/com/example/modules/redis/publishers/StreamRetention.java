@@ -0,0 +1,51 @@
+package com.example.modules.redis.publishers;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.RecordId;
+
+/**
+ * How many entries a stream keeps, whether or not they are consumed. The stream is trimmed by every
+ * {@code XADD}, with approximate trimming ({@code ~}) so that Redis only drops whole macro nodes,
+ * which is much cheaper.
+ *
+ * <p>
+ * Trimming ignores the consumer groups: the entries that a group has not read yet, or that are
+ * pending until they are retried or dead-lettered, are dropped like the others once they are past
+ * the limit. A retention trades memory for data loss when consumers are behind or down, so it is
+ * only set for streams whose entries may be lost.
+ * </p>
+ *
+ * @param maxLength the maximum number of entries ({@code MAXLEN ~}), or {@code null}
+ * @param maxAge the maximum age of the entries ({@code MINID ~}), or {@code null}
+ */
+public record StreamRetention(Long maxLength, Duration maxAge) {
+  /**
+   * Does not trim on {@code XADD}. The entries are still dropped once every consumer group has
+   * acknowledged them (see {@link com.example.modules.redis.listeners.RedisStreamWorker#trim()}).
+   */
+  public static final StreamRetention NONE = new StreamRetention(null, null);
+
+  public static StreamRetention ofMaxLength(long maxLength) {
+    return new StreamRetention(maxLength, null);
+  }
+
+  public static StreamRetention ofMaxAge(Duration maxAge) {
+    return new StreamRetention(null, maxAge);
+  }
+
+  XAddOptions toXAddOptions() {
+    if (maxLength != null) {
+      return XAddOptions.maxlen(maxLength).approximateTrimming(true);
+    }
+
+    if (maxAge != null) {
+      // Auto-generated IDs start with the epoch millisecond at which the entry was added
+      long minTimestamp = Instant.now().minus(maxAge).toEpochMilli();
+      return XAddOptions.none().minId(RecordId.of(minTimestamp, 0)).approximateTrimming(true);
+    }
+
+    return XAddOptions.none();
+  }
+}
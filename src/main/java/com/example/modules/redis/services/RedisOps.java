@@ -0,0 +1,37 @@
+package com.example.modules.redis.services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Commands that can be queued in a pipeline with {@link RedisService#pipeline}. The commands are
+ * sent together when the pipeline is executed, so their results are not available while they are
+ * queued: they are returned by {@link RedisService#pipeline}, in the order of the commands, and
+ * decoded to the type given to each command.
+ */
+public interface RedisOps {
+  /** Queues a {@code GET}. Its result is decoded to {@code type}. */
+  RedisOps get(String key, Class<?> type);
+
+  /** Queues a {@code SET}. Its result is a {@link Boolean}. */
+  RedisOps set(String key, Object value);
+
+  /** Queues a {@code SET} with a timeout. Its result is a {@link Boolean}. */
+  RedisOps set(String key, Object value, Duration timeout);
+
+  /** Queues a {@code DEL}. Its result is the number of deleted keys. */
+  RedisOps delete(Collection<String> keys);
+
+  /** Queues an {@code EXPIRE}. Its result is a {@link Boolean}. */
+  RedisOps expire(String key, Duration timeout);
+
+  /** Queues an {@code INCRBY}. Its result is the value after the increment. */
+  RedisOps increment(String key, long delta);
+
+  /** Queues an {@code HGET}. Its result is decoded to {@code type}. */
+  RedisOps hashGet(String key, String hashKey, Class<?> type);
+
+  /** Queues an {@code HSET} of several fields. Its result is {@code null}. */
+  RedisOps hashSetAll(String key, Map<String, ?> entries);
+}
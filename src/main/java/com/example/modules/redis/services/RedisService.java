@@ -1,14 +1,29 @@
 package com.example.modules.redis.services;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.modules.redis.codecs.RedisValueCodec;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 
@@ -17,12 +32,14 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class RedisService {
 
-  private final RedisTemplate<String, Object> redisTemplate;
-  private final ObjectMapper objectMapper;
+  private static final int DEFAULT_SCAN_BATCH_SIZE = 1000;
+
+  private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+  private final RedisValueCodec codec;
 
   public void set(@NonNull String key, @NonNull Object value) {
     try {
-      redisTemplate.opsForValue().set(key, value);
+      binaryRedisTemplate.opsForValue().set(key, codec.encode(value));
       log.debug("Set key: {} with value type: {}", key, value.getClass().getSimpleName());
     } catch (Exception e) {
       log.error("Error setting key {}: {}", key, e.getMessage());
@@ -32,7 +49,7 @@ public class RedisService {
 
   public void set(@NonNull String key, @NonNull Object value, @NonNull Duration timeout) {
     try {
-      redisTemplate.opsForValue().set(key, value, timeout);
+      binaryRedisTemplate.opsForValue().set(key, codec.encode(value), timeout);
       log.debug(
         "Set key: {} with value type: {} and timeout: {}",
         key,
@@ -47,13 +64,13 @@ public class RedisService {
 
   public <T> T get(@NonNull String key, Class<T> type) {
     try {
-      Object value = redisTemplate.opsForValue().get(key);
+      byte[] value = binaryRedisTemplate.opsForValue().get(key);
       if (value == null) {
         log.debug("Key not found: {}", key);
         return null;
       }
 
-      return objectMapper.convertValue(value, type);
+      return codec.decode(value, type);
     } catch (Exception e) {
       log.error("Error getting key {}: {}", key, e.getMessage());
       return null;
@@ -62,7 +79,7 @@ public class RedisService {
 
   public Boolean delete(@NonNull String key) {
     try {
-      Boolean result = redisTemplate.delete(key);
+      Boolean result = binaryRedisTemplate.delete(key);
       log.debug("Deleted key: {} (existed: {})", key, result);
       return result;
     } catch (Exception e) {
@@ -73,7 +90,7 @@ public class RedisService {
 
   public Boolean exists(@NonNull String key) {
     try {
-      return redisTemplate.hasKey(key);
+      return binaryRedisTemplate.hasKey(key);
     } catch (Exception e) {
       log.error("Error checking existence of key {}: {}", key, e.getMessage());
       return false;
@@ -82,17 +99,75 @@ public class RedisService {
 
   public Boolean expire(@NonNull String key, @NonNull Duration timeout) {
     try {
-      return redisTemplate.expire(key, timeout);
+      return binaryRedisTemplate.expire(key, timeout);
     } catch (Exception e) {
       log.error("Error setting expiration for key {}: {}", key, e.getMessage());
       return false;
     }
   }
 
+  // Batch operations
+  /**
+   * Gets the values of several keys in a single round trip ({@code MGET}).
+   *
+   * @return the values, in the order of {@code keys}, with {@code null} for the missing keys
+   */
+  public <T> List<T> multiGet(@NonNull Collection<String> keys, Class<T> type) {
+    if (keys.isEmpty()) {
+      return List.of();
+    }
+
+    try {
+      List<byte[]> values = binaryRedisTemplate.opsForValue().multiGet(keys);
+      if (values == null) {
+        return Collections.nCopies(keys.size(), null);
+      }
+
+      return values
+        .stream()
+        .map(value -> codec.decode(value, type))
+        .collect(Collectors.toList());
+    } catch (Exception e) {
+      log.error("Error getting {} keys: {}", keys.size(), e.getMessage());
+      return Collections.nCopies(keys.size(), null);
+    }
+  }
+
+  /** Sets several keys in a single round trip ({@code MSET}). */
+  public void multiSet(@NonNull Map<String, ?> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    try {
+      Map<String, byte[]> encodedEntries = new LinkedHashMap<>();
+      entries.forEach((key, value) -> encodedEntries.put(key, codec.encode(value)));
+
+      binaryRedisTemplate.opsForValue().multiSet(encodedEntries);
+      log.debug("Set {} keys", entries.size());
+    } catch (Exception e) {
+      log.error("Error setting {} keys: {}", entries.size(), e.getMessage());
+      throw new RuntimeException("Failed to set Redis keys", e);
+    }
+  }
+
+  /**
+   * Sets several keys with the same timeout in a single round trip. {@code MSET} does not support
+   * timeouts, so the {@code SET} commands are pipelined instead.
+   */
+  public void multiSet(@NonNull Map<String, ?> entries, @NonNull Duration timeout) {
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    pipeline(ops -> entries.forEach((key, value) -> ops.set(key, value, timeout)));
+    log.debug("Set {} keys with timeout: {}", entries.size(), timeout);
+  }
+
   // Hash operations
   public void hashSet(@NonNull String key, @NonNull String hashKey, @NonNull Object value) {
     try {
-      redisTemplate.opsForHash().put(key, hashKey, value);
+      binaryRedisTemplate.opsForHash().put(key, hashKey, codec.encode(value));
       log.debug("Set hash key: {}:{}", key, hashKey);
     } catch (Exception e) {
       log.error("Error setting hash key {}:{}: {}", key, hashKey, e.getMessage());
@@ -102,12 +177,12 @@ public class RedisService {
 
   public <T> T hashGet(String key, String hashKey, Class<T> type) {
     try {
-      Object value = redisTemplate.opsForHash().get(key, hashKey);
+      byte[] value = binaryRedisTemplate.<String, byte[]>opsForHash().get(key, hashKey);
       if (value == null) {
         return null;
       }
 
-      return objectMapper.convertValue(value, type);
+      return codec.decode(value, type);
     } catch (Exception e) {
       log.error("Error getting hash key {}:{}: {}", key, hashKey, e.getMessage());
       return null;
@@ -116,20 +191,71 @@ public class RedisService {
 
   public Map<String, Object> hashGetAll(String key) {
     try {
-      Map<Object, Object> entries = redisTemplate.opsForHash().entries(key);
+      Map<String, byte[]> entries = binaryRedisTemplate.<String, byte[]>opsForHash().entries(key);
       return entries
         .entrySet()
         .stream()
-        .collect(Collectors.toMap(e -> String.valueOf(e.getKey()), Map.Entry::getValue));
+        .collect(
+          Collectors.toMap(Map.Entry::getKey, e -> codec.decode(e.getValue(), Object.class))
+        );
     } catch (Exception e) {
       log.error("Error getting all hash entries for key {}: {}", key, e.getMessage());
       return Map.of();
     }
   }
 
+  /**
+   * Gets several fields of a hash in a single round trip ({@code HMGET}).
+   *
+   * @return the values of the fields that exist, by field
+   */
+  public <T> Map<String, T> hashMultiGet(String key, Collection<String> hashKeys, Class<T> type) {
+    if (hashKeys.isEmpty()) {
+      return Map.of();
+    }
+
+    try {
+      List<byte[]> values = binaryRedisTemplate
+        .<String, byte[]>opsForHash()
+        .multiGet(key, new ArrayList<>(hashKeys));
+      Map<String, T> result = new LinkedHashMap<>();
+      Iterator<String> hashKeyIterator = hashKeys.iterator();
+
+      for (byte[] value : values) {
+        String hashKey = hashKeyIterator.next();
+        if (value != null) {
+          result.put(hashKey, codec.decode(value, type));
+        }
+      }
+
+      return result;
+    } catch (Exception e) {
+      log.error("Error getting {} hash keys of {}: {}", hashKeys.size(), key, e.getMessage());
+      return Map.of();
+    }
+  }
+
+  /** Sets several fields of a hash in a single round trip. */
+  public void hashSetAll(@NonNull String key, @NonNull Map<String, ?> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+
+    try {
+      Map<String, byte[]> encodedEntries = new LinkedHashMap<>();
+      entries.forEach((hashKey, value) -> encodedEntries.put(hashKey, codec.encode(value)));
+
+      binaryRedisTemplate.opsForHash().putAll(key, encodedEntries);
+      log.debug("Set {} hash keys of {}", entries.size(), key);
+    } catch (Exception e) {
+      log.error("Error setting {} hash keys of {}: {}", entries.size(), key, e.getMessage());
+      throw new RuntimeException("Failed to set Redis hash keys", e);
+    }
+  }
+
   public Boolean hashDelete(String key, String hashKey) {
     try {
-      Long result = redisTemplate.opsForHash().delete(key, hashKey);
+      Long result = binaryRedisTemplate.opsForHash().delete(key, hashKey);
       return result > 0;
     } catch (Exception e) {
       log.error("Error deleting hash key {}:{}: {}", key, hashKey, e.getMessage());
@@ -140,7 +266,7 @@ public class RedisService {
   // List operations
   public void listPush(String key, Object value) {
     try {
-      redisTemplate.opsForList().rightPush(key, value);
+      binaryRedisTemplate.opsForList().rightPush(key, codec.encode(value));
       log.debug("Pushed to list key: {}", key);
     } catch (Exception e) {
       log.error("Error pushing to list key {}: {}", key, e.getMessage());
@@ -150,12 +276,12 @@ public class RedisService {
 
   public <T> T listPop(String key, Class<T> type) {
     try {
-      Object value = redisTemplate.opsForList().leftPop(key);
+      byte[] value = binaryRedisTemplate.opsForList().leftPop(key);
       if (value == null) {
         return null;
       }
 
-      return objectMapper.convertValue(value, type);
+      return codec.decode(value, type);
     } catch (Exception e) {
       log.error("Error popping from list key {}: {}", key, e.getMessage());
       return null;
@@ -164,14 +290,14 @@ public class RedisService {
 
   public <T> List<T> listRange(String key, long start, long end, Class<T> type) {
     try {
-      List<Object> values = redisTemplate.opsForList().range(key, start, end);
+      List<byte[]> values = binaryRedisTemplate.opsForList().range(key, start, end);
       if (values == null) {
         return List.of();
       }
 
       return values
         .stream()
-        .map(value -> objectMapper.convertValue(value, type))
+        .map(value -> codec.decode(value, type))
         .collect(Collectors.toList());
     } catch (Exception e) {
       log.error("Error getting list range for key {}: {}", key, e.getMessage());
@@ -182,7 +308,7 @@ public class RedisService {
   // Set operations
   public void setAdd(String key, Object value) {
     try {
-      redisTemplate.opsForSet().add(key, value);
+      binaryRedisTemplate.opsForSet().add(key, codec.encode(value));
       log.debug("Added to set key: {}", key);
     } catch (Exception e) {
       log.error("Error adding to set key {}: {}", key, e.getMessage());
@@ -192,14 +318,14 @@ public class RedisService {
 
   public <T> Set<T> setMembers(String key, Class<T> type) {
     try {
-      Set<Object> values = redisTemplate.opsForSet().members(key);
+      Set<byte[]> values = binaryRedisTemplate.opsForSet().members(key);
       if (values == null) {
         return Set.of();
       }
 
       return values
         .stream()
-        .map(value -> objectMapper.convertValue(value, type))
+        .map(value -> codec.decode(value, type))
         .collect(Collectors.toSet());
     } catch (Exception e) {
       log.error("Error getting set members for key {}: {}", key, e.getMessage());
@@ -209,7 +335,7 @@ public class RedisService {
 
   public Boolean setRemove(String key, Object value) {
     try {
-      Long result = redisTemplate.opsForSet().remove(key, value);
+      Long result = binaryRedisTemplate.opsForSet().remove(key, codec.encode(value));
       return result != null && result > 0;
     } catch (Exception e) {
       log.error("Error removing from set key {}: {}", key, e.getMessage());
@@ -217,13 +343,224 @@ public class RedisService {
     }
   }
 
+  /**
+   * Sends the commands queued by {@code commands} in a single round trip.
+   *
+   * <pre>{@code
+   * List<Object> results = redisService.pipeline(ops ->
+   *   ops.get("user", User.class).increment("counter", 1)
+   * );
+   * User user = (User) results.get(0);
+   * Long counter = (Long) results.get(1);
+   * }</pre>
+   *
+   * @return the result of every command, in the order they were queued, decoded as described by
+   *         {@link RedisOps}
+   */
+  public List<Object> pipeline(@NonNull Consumer<RedisOps> commands) {
+    List<Class<?>> resultTypes = new ArrayList<>();
+
+    try {
+      List<Object> rawResults = binaryRedisTemplate.executePipelined(
+        new SessionCallback<Object>() {
+          @Override
+          @SuppressWarnings("unchecked")
+          public <K, V> Object execute(@NonNull RedisOperations<K, V> operations) {
+            commands.accept(
+              new PipelinedOps((RedisOperations<String, byte[]>) operations, codec, resultTypes)
+            );
+            return null;
+          }
+        }
+      );
+
+      return decodePipelineResults(resultTypes, rawResults);
+    } catch (Exception e) {
+      log.error(
+        "Error executing a pipeline of {} commands: {}",
+        resultTypes.size(),
+        e.getMessage()
+      );
+      throw new RuntimeException("Failed to execute Redis pipeline", e);
+    }
+  }
+
+  private List<Object> decodePipelineResults(List<Class<?>> resultTypes, List<Object> rawResults) {
+    List<Object> results = new ArrayList<>(resultTypes.size());
+    Iterator<Object> rawResultIterator = rawResults.iterator();
+
+    for (Class<?> resultType : resultTypes) {
+      // Commands that only reply with a status are left out of the pipeline results
+      if (resultType == NoResult.class) {
+        results.add(null);
+        continue;
+      }
+
+      Object rawResult = rawResultIterator.next();
+      results.add(
+        rawResult instanceof byte[] bytes ? codec.decode(bytes, resultType) : rawResult
+      );
+    }
+
+    return results;
+  }
+
   // Utility methods
+  /**
+   * @deprecated Loads every matching key in memory. Use {@link #scan(String, int)} to iterate over
+   *             the keys, or {@link #deleteByPattern} and {@link #expireByPattern} to update them.
+   */
+  @Deprecated
   public Set<String> keys(String pattern) {
-    try {
-      return redisTemplate.keys(pattern);
+    try (Stream<String> keys = scan(pattern, DEFAULT_SCAN_BATCH_SIZE)) {
+      return keys.collect(Collectors.toSet());
     } catch (Exception e) {
       log.error("Error getting keys with pattern {}: {}", pattern, e.getMessage());
       return Set.of();
     }
   }
+
+  /**
+   * Lazily iterates over the keys matching {@code pattern} with {@code SCAN}. Unlike
+   * {@code KEYS}, which blocks Redis until the whole keyspace has been checked, every
+   * {@code SCAN} call only checks about {@code batchSize} keys.
+   *
+   * <p>
+   * The stream holds a Redis connection until it is closed, so it must be used in a
+   * try-with-resources block. A key may be returned more than once.
+   * </p>
+   */
+  public Stream<String> scan(@NonNull String pattern, int batchSize) {
+    Cursor<String> cursor = binaryRedisTemplate.scan(
+      ScanOptions.scanOptions().match(pattern).count(batchSize).build()
+    );
+
+    return StreamSupport.stream(
+      Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL),
+      false
+    ).onClose(cursor::close);
+  }
+
+  /**
+   * Deletes the keys matching {@code pattern}, {@code batchSize} keys at a time. The keys are
+   * deleted with {@code UNLINK}, so their memory is reclaimed in the background.
+   *
+   * @return the number of deleted keys
+   */
+  public long deleteByPattern(@NonNull String pattern, int batchSize) {
+    long deleted = forEachBatch(pattern, batchSize, keys -> {
+      Long count = binaryRedisTemplate.unlink(keys);
+      return count == null ? 0 : count;
+    });
+
+    log.debug("Deleted {} keys matching {}", deleted, pattern);
+    return deleted;
+  }
+
+  /**
+   * Sets the timeout of the keys matching {@code pattern}. The {@code EXPIRE} commands of every
+   * batch of {@code batchSize} keys are pipelined.
+   *
+   * @return the number of updated keys
+   */
+  public long expireByPattern(@NonNull String pattern, @NonNull Duration timeout, int batchSize) {
+    long updated = forEachBatch(pattern, batchSize, keys ->
+      pipeline(ops -> keys.forEach(key -> ops.expire(key, timeout)))
+        .stream()
+        .filter(Boolean.TRUE::equals)
+        .count()
+    );
+
+    log.debug("Set the timeout of {} keys matching {} to {}", updated, pattern, timeout);
+    return updated;
+  }
+
+  private long forEachBatch(String pattern, int batchSize, ToLongFunction<List<String>> action) {
+    long total = 0;
+    List<String> batch = new ArrayList<>(batchSize);
+
+    try (Stream<String> keys = scan(pattern, batchSize)) {
+      Iterator<String> iterator = keys.iterator();
+
+      while (iterator.hasNext()) {
+        batch.add(iterator.next());
+
+        if (batch.size() == batchSize || !iterator.hasNext()) {
+          total += action.applyAsLong(batch);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+    }
+
+    return total;
+  }
+
+  /** Result type of the commands that have no result in a pipeline. */
+  private static final class NoResult {}
+
+  private record PipelinedOps(
+    RedisOperations<String, byte[]> operations,
+    RedisValueCodec codec,
+    List<Class<?>> resultTypes
+  )
+    implements RedisOps {
+    @Override
+    public RedisOps get(String key, Class<?> type) {
+      operations.opsForValue().get(key);
+      resultTypes.add(type);
+      return this;
+    }
+
+    @Override
+    public RedisOps set(String key, Object value) {
+      operations.opsForValue().set(key, codec.encode(value));
+      resultTypes.add(Object.class);
+      return this;
+    }
+
+    @Override
+    public RedisOps set(String key, Object value, Duration timeout) {
+      operations.opsForValue().set(key, codec.encode(value), timeout);
+      resultTypes.add(Object.class);
+      return this;
+    }
+
+    @Override
+    public RedisOps delete(Collection<String> keys) {
+      operations.delete(keys);
+      resultTypes.add(Object.class);
+      return this;
+    }
+
+    @Override
+    public RedisOps expire(String key, Duration timeout) {
+      operations.expire(key, timeout);
+      resultTypes.add(Object.class);
+      return this;
+    }
+
+    @Override
+    public RedisOps increment(String key, long delta) {
+      operations.opsForValue().increment(key, delta);
+      resultTypes.add(Object.class);
+      return this;
+    }
+
+    @Override
+    public RedisOps hashGet(String key, String hashKey, Class<?> type) {
+      operations.opsForHash().get(key, hashKey);
+      resultTypes.add(type);
+      return this;
+    }
+
+    @Override
+    public RedisOps hashSetAll(String key, Map<String, ?> entries) {
+      Map<String, byte[]> encodedEntries = new LinkedHashMap<>();
+      entries.forEach((hashKey, value) -> encodedEntries.put(hashKey, codec.encode(value)));
+
+      operations.opsForHash().putAll(key, encodedEntries);
+      resultTypes.add(NoResult.class);
+      return this;
+    }
+  }
 }
@@ -6,14 +6,16 @@ import com.example.base.annotations.File;
 import com.example.base.dtos.PaginatedSuccessResponseDTO;
 import com.example.base.dtos.SuccessResponseDTO;
 import com.example.modules.auth.annotations.CurrentUser;
+import com.example.modules.minio.dtos.PresignedUploadResponse;
 import com.example.modules.posts.dtos.MePostsSearchDTO;
 import com.example.modules.posts.dtos.PostResponseDTO;
 import com.example.modules.posts.services.PostsService;
+import com.example.modules.users.dtos.CompleteAvatarUploadDTO;
+import com.example.modules.users.dtos.CreateAvatarUploadDTO;
 import com.example.modules.users.dtos.UpdateProfileDTO;
 import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
 import com.example.modules.users.services.UsersService;
-import com.example.modules.users.utils.UserMapper;
 import io.minio.errors.MinioException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -29,6 +31,7 @@ import org.springframework.http.MediaType;
 import org.springframework.util.unit.DataUnit;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestPart;
@@ -43,7 +46,6 @@ public class MeController {
 
   private final PostsService postsService;
   private final UsersService usersService;
-  private final UserMapper userMapper;
 
   @Operation(
     summary = "Get profile of current authenticated user",
@@ -57,7 +59,7 @@ public class MeController {
   public SuccessResponseDTO<UserProfileDTO> getProfileOfCurrentUser(@CurrentUser User currentUser) {
     return SuccessResponseDTO.<UserProfileDTO>builder()
       .message("User profile retrieved successfully")
-      .data(userMapper.toUserProfileDTO(currentUser))
+      .data(usersService.getProfile(currentUser.getId()))
       .build();
   }
 
@@ -103,6 +105,51 @@ public class MeController {
       .build();
   }
 
+  @Operation(
+    summary = "Create an upload of a new avatar of current authenticated user",
+    description = "The avatar is uploaded directly to the storage, as a multipart/form-data POST " +
+    "request to the returned URL with the returned fields, then the upload is completed.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Avatar upload created successfully"),
+      @ApiResponse(responseCode = "401", description = "User is not logged in", content = @Content),
+      @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content),
+    }
+  )
+  @PostMapping("/avatar/upload")
+  public SuccessResponseDTO<PresignedUploadResponse> createUserAvatarUpload(
+    @CurrentUser User currentUser,
+    @RequestBody @Valid CreateAvatarUploadDTO createAvatarUploadDTO
+  ) throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
+    return SuccessResponseDTO.<PresignedUploadResponse>builder()
+      .message("Avatar upload created successfully")
+      .data(usersService.createAvatarUpload(currentUser, createAvatarUploadDTO))
+      .build();
+  }
+
+  @Operation(
+    summary = "Complete an upload of a new avatar of current authenticated user",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "User avatar updated successfully"),
+      @ApiResponse(
+        responseCode = "400",
+        description = "Avatar is not uploaded or is invalid",
+        content = @Content
+      ),
+      @ApiResponse(responseCode = "401", description = "User is not logged in", content = @Content),
+      @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content),
+    }
+  )
+  @PostMapping("/avatar/upload/complete")
+  public SuccessResponseDTO<UserProfileDTO> completeUserAvatarUpload(
+    @CurrentUser User currentUser,
+    @RequestBody @Valid CompleteAvatarUploadDTO completeAvatarUploadDTO
+  ) throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
+    return SuccessResponseDTO.<UserProfileDTO>builder()
+      .message("User avatar updated successfully")
+      .data(usersService.completeAvatarUpload(currentUser, completeAvatarUploadDTO))
+      .build();
+  }
+
   @Operation(
     summary = "Retrieve all posts of the current user (both public & private, both existing & deleted)",
     responses = {
@@ -0,0 +1,17 @@
+package com.example.modules.users.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A new avatar of a user, whose variants are to be generated. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvatarUploadedEventDTO {
+
+  private String userId;
+  private String fileName;
+}
@@ -0,0 +1,22 @@
+package com.example.modules.users.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompleteAvatarUploadDTO {
+
+  @Schema(
+    description = "The file name in MinIO, returned when the upload was created",
+    example = "avatars/01098e6a-c05f-46f4-9c57-95a922bf24dd/avatar.png"
+  )
+  @NotBlank
+  private String fileName;
+}
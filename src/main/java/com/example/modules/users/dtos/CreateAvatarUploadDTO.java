@@ -0,0 +1,27 @@
+package com.example.modules.users.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Length;
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateAvatarUploadDTO {
+
+  @Schema(description = "The name of the image file on the client", example = "avatar.png")
+  @NotBlank
+  @Length(max = 255)
+  private String fileName;
+
+  @Schema(description = "The content type of the image file", example = "image/png")
+  @NotBlank
+  @Pattern(regexp = "image/[\\w.+-]+")
+  private String contentType;
+}
@@ -0,0 +1,17 @@
+package com.example.modules.users.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+/** What is needed to email a user. */
+@Value
+@Builder
+@AllArgsConstructor
+public class UserContactDTO {
+
+  String id;
+  String email;
+  String firstName;
+  String lastName;
+}
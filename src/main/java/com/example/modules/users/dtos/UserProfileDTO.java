@@ -4,6 +4,7 @@ import com.example.base.dtos.EntityDTO;
 import com.example.base.utils.SwaggerExamples;
 import com.example.modules.minio.dtos.MinioFileResponse;
 import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -39,4 +40,11 @@ public class UserProfileDTO extends EntityDTO {
 
   @Schema(description = "The avatar of the user", implementation = MinioFileResponse.class)
   private MinioFileResponse avatar;
+
+  @Schema(
+    description = "The square thumbnails of the avatar of the user, by size in pixels. Empty " +
+    "until they are generated, shortly after the avatar is changed",
+    nullable = true
+  )
+  private Map<Integer, MinioFileResponse> avatarVariants;
 }
@@ -0,0 +1,46 @@
+package com.example.modules.users.dtos;
+
+import com.example.modules.auth.enums.Role;
+import com.example.modules.users.entities.User;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * The state of a user that is needed to authorize its requests.
+ *
+ * <p>
+ * The {@code version} is the last modification time of the account (in epoch milliseconds), so a
+ * snapshot can never be replaced by an older one.
+ * </p>
+ */
+@Value
+@Builder
+@AllArgsConstructor
+public class UserSnapshotDTO {
+
+  String id;
+  Role role;
+  boolean enabled;
+  long version;
+
+  /** Constructor used by JPQL projections. */
+  public UserSnapshotDTO(String id, Role role, Instant deletedTimestamp, Instant updatedTimestamp) {
+    this(
+      id,
+      role,
+      deletedTimestamp == null,
+      updatedTimestamp == null ? 0 : updatedTimestamp.toEpochMilli()
+    );
+  }
+
+  public static UserSnapshotDTO of(User user) {
+    return new UserSnapshotDTO(
+      user.getId(),
+      user.getAccount().getRole(),
+      user.getAccount().getDeletedTimestamp(),
+      user.getAccount().getUpdatedTimestamp()
+    );
+  }
+}
@@ -11,11 +11,14 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import java.util.List;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @SuperBuilder
 @Data
@@ -35,8 +38,13 @@ public class User extends BaseEntity {
   @Column
   private String avatar;
 
+  /** The names of the thumbnails of the avatar, by size, once they are generated. */
+  @JdbcTypeCode(SqlTypes.JSON)
+  @Column(columnDefinition = "jsonb")
+  private Map<Integer, String> avatarVariants;
+
   @OneToOne(cascade = CascadeType.ALL)
-  @JoinColumn(name = "account_id", nullable = false)
+  @JoinColumn(name = "account_id", nullable = false, unique = true)
   private Account account;
 
   @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
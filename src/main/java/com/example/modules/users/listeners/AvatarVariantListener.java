@@ -0,0 +1,73 @@
+package com.example.modules.users.listeners;
+
+import com.example.modules.redis.listeners.RedisStreamListener;
+import com.example.modules.redis.listeners.StreamConsumerOptions;
+import com.example.modules.users.dtos.AvatarUploadedEventDTO;
+import com.example.modules.users.services.AvatarVariantService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.errors.MinioException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class AvatarVariantListener extends RedisStreamListener<AvatarUploadedEventDTO> {
+
+  @Value("${users.avatar.variants.concurrency:2}")
+  private Integer CONCURRENCY;
+
+  private final AvatarVariantService avatarVariantService;
+
+  public AvatarVariantListener(
+    StringRedisTemplate redisTemplate,
+    ObjectMapper objectMapper,
+    AvatarVariantService avatarVariantService
+  ) {
+    super(redisTemplate, objectMapper);
+    this.avatarVariantService = avatarVariantService;
+  }
+
+  @Override
+  public String getStreamKey() {
+    return AvatarVariantService.AVATAR_UPLOADS_STREAM_KEY;
+  }
+
+  @Override
+  public String getConsumerGroup() {
+    return "group:avatar_variant_workers";
+  }
+
+  @Override
+  public Class<AvatarUploadedEventDTO> getTargetType() {
+    return AvatarUploadedEventDTO.class;
+  }
+
+  /**
+   * Decoding and encoding images is CPU and memory intensive: each consumer reads one avatar at a
+   * time, and at most {@code users.avatar.variants.concurrency} avatars are processed at the same
+   * time on each instance.
+   */
+  @Override
+  public StreamConsumerOptions getConsumerOptions(StreamConsumerOptions defaults) {
+    return new StreamConsumerOptions(defaults.consumerCount(), 1, CONCURRENCY);
+  }
+
+  @Override
+  protected void process(String messageId, AvatarUploadedEventDTO dto) {
+    log.info("Generating the variants of avatar: {}", dto.getFileName());
+
+    try {
+      avatarVariantService.generateVariants(dto);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (MinioException | InvalidKeyException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Could not generate the variants of the avatar", e);
+    }
+  }
+}
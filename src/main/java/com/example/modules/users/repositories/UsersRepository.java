@@ -1,16 +1,146 @@
 package com.example.modules.users.repositories;
 
 import com.example.modules.auth.entities.Account;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.users.dtos.UserContactDTO;
+import com.example.modules.users.dtos.UserSnapshotDTO;
 import com.example.modules.users.entities.User;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UsersRepository extends JpaRepository<User, String> {
   Optional<User> findByAccount(Account account);
 
-  @Query("SELECT u FROM User u JOIN u.account a WHERE a.email = :email")
+  @Query("SELECT u FROM User u JOIN FETCH u.account a WHERE a.email = :email")
   Optional<User> findByAccountEmail(String email);
+
+  @Query("SELECT u FROM User u JOIN FETCH u.account WHERE u.id = :id")
+  Optional<User> findWithAccountById(String id);
+
+  /**
+   * Creates the account and the user of a new registration in a single statement. If the email
+   * belongs to a deleted account, the account is restored with the new password instead.
+   *
+   * @param password the hashed password
+   * @return the ID of the registered user, or an empty {@link Optional} if the email belongs to an
+   *         account that is not deleted
+   */
+  @Transactional
+  @Query(
+    nativeQuery = true,
+    value = """
+    WITH account AS (
+      INSERT INTO accounts (id, email, password, role, created_timestamp, updated_timestamp)
+      VALUES (CAST(gen_random_uuid() AS varchar), :email, :password, 'USER', now(), now())
+      ON CONFLICT (email) DO UPDATE
+        SET password = EXCLUDED.password,
+          deleted_timestamp = NULL,
+          updated_timestamp = EXCLUDED.updated_timestamp
+        WHERE accounts.deleted_timestamp IS NOT NULL
+      RETURNING id
+    ),
+    registered_user AS (
+      INSERT INTO users (id, account_id, created_timestamp, updated_timestamp)
+      SELECT CAST(gen_random_uuid() AS varchar), account.id, now(), now() FROM account
+      ON CONFLICT (account_id) DO UPDATE
+        SET deleted_timestamp = NULL,
+          updated_timestamp = EXCLUDED.updated_timestamp
+      RETURNING id
+    )
+    SELECT id FROM registered_user
+    """
+  )
+  Optional<String> register(String email, String password);
+
+  @Query(
+    """
+    SELECT new com.example.modules.users.dtos.UserSnapshotDTO(
+      u.id, a.role, a.deletedTimestamp, a.updatedTimestamp
+    )
+    FROM User u JOIN u.account a
+    WHERE u.id = :id
+    """
+  )
+  Optional<UserSnapshotDTO> findSnapshotById(String id);
+
+  /**
+   * Keyset pagination of the users that can be emailed, by ID: unlike an offset, the cursor
+   * ({@code afterId}) is as fast to seek to at the end of the table as at the start.
+   */
+  @Query(
+    """
+    SELECT u.id FROM User u JOIN u.account a
+    WHERE u.id > :afterId AND a.role IN :roles AND a.deletedTimestamp IS NULL
+    ORDER BY u.id
+    """
+  )
+  List<String> findContactIdsAfter(String afterId, Collection<Role> roles, Limit limit);
+
+  /** @return the users that can be emailed whose ID is in {@code (afterId, lastId]} */
+  @Query(
+    """
+    SELECT new com.example.modules.users.dtos.UserContactDTO(
+      u.id, a.email, u.firstName, u.lastName
+    )
+    FROM User u JOIN u.account a
+    WHERE u.id > :afterId AND u.id <= :lastId AND a.role IN :roles AND a.deletedTimestamp IS NULL
+    ORDER BY u.id
+    """
+  )
+  List<UserContactDTO> findContactsBetween(String afterId, String lastId, Collection<Role> roles);
+
+  /**
+   * Changes the avatar of the user and clears its thumbnails, unless the avatar is no longer
+   * {@code previousAvatar}.
+   *
+   * @return 1 if the avatar was changed, 0 if it had been changed since
+   */
+  @Transactional
+  @Modifying
+  @Query(
+    """
+    UPDATE User u
+    SET u.avatar = :avatar, u.avatarVariants = NULL, u.updatedTimestamp = CURRENT_TIMESTAMP
+    WHERE u.id = :id
+      AND (u.avatar = :previousAvatar OR (u.avatar IS NULL AND :previousAvatar IS NULL))
+    """
+  )
+  int replaceAvatar(String id, String previousAvatar, String avatar);
+
+  /** Sets the thumbnails of the avatar of the user, unless the avatar has been changed since. */
+  @Transactional
+  @Modifying
+  @Query(
+    "UPDATE User u SET u.avatarVariants = :avatarVariants WHERE u.id = :id AND u.avatar = :avatar"
+  )
+  int updateAvatarVariants(String id, String avatar, Map<Integer, String> avatarVariants);
+
+  /**
+   * Lists the names of the files referenced by the users as avatars or avatar thumbnails that come
+   * after {@code afterFileName}, in the order of MinIO listings ({@code COLLATE "C"} orders by
+   * UTF-8 bytes). A name referenced several times is listed as many times.
+   */
+  @Query(
+    nativeQuery = true,
+    value = """
+    SELECT file_name FROM (
+      SELECT avatar AS file_name FROM users WHERE avatar COLLATE "C" > :afterFileName
+      UNION ALL
+      SELECT variant.value FROM users, jsonb_each_text(users.avatar_variants) AS variant
+      WHERE variant.value COLLATE "C" > :afterFileName
+    ) AS avatars
+    ORDER BY file_name COLLATE "C"
+    LIMIT :limit
+    """
+  )
+  List<String> findAvatarFileNamesAfter(String afterFileName, int limit);
 }
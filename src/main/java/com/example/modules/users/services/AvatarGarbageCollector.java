@@ -0,0 +1,334 @@
+package com.example.modules.users.services;
+
+import com.example.modules.minio.services.MinioService;
+import com.example.modules.users.repositories.UsersRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.errors.MinioException;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes the files under {@code avatars/} that no user references, such as the previous avatars
+ * of the users and their thumbnails.
+ *
+ * <p>
+ * Every {@code users.avatar.gc.interval} milliseconds, one instance lists the files page by page,
+ * and merges the listing with the referenced names, read from the database in the same order by
+ * keyset pagination, each page in its own short read-only transaction: neither is held in memory,
+ * and no transaction stays open during the collection. The orphans are deleted in batches of up
+ * to 1000 files, at most {@code users.avatar.gc.max-deletes-per-second} files per second. Files
+ * younger than {@code users.avatar.gc.min-age} seconds are kept, as they may be uploads that are
+ * not referenced yet. In dry-run mode ({@code users.avatar.gc.dry-run}), the orphans are only
+ * logged and counted.
+ * </p>
+ */
+@Service
+@Slf4j
+public class AvatarGarbageCollector {
+
+  public static final String PREFIX = "avatars/";
+
+  private static final String LOCK_KEY = "lock:avatar_gc";
+  private static final int PAGE_SIZE = 1000;
+
+  @Value("${users.avatar.gc.enabled:true}")
+  private Boolean ENABLED;
+
+  @Value("${users.avatar.gc.interval:21600000}")
+  private Long INTERVAL;
+
+  @Value("${users.avatar.gc.min-age:86400}")
+  private Long MIN_AGE;
+
+  @Value("${users.avatar.gc.max-deletes-per-second:500}")
+  private Integer MAX_DELETES_PER_SECOND;
+
+  @Value("${users.avatar.gc.dry-run:false}")
+  private Boolean DRY_RUN;
+
+  private final MinioService minioService;
+  private final UsersRepository usersRepository;
+  private final StringRedisTemplate redisTemplate;
+  private final MeterRegistry meterRegistry;
+  private final TransactionTemplate transactionTemplate;
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private Counter deletedFilesCounter;
+  private Counter reclaimedBytesCounter;
+  private ScheduledExecutorService scheduler;
+
+  public AvatarGarbageCollector(
+    MinioService minioService,
+    UsersRepository usersRepository,
+    StringRedisTemplate redisTemplate,
+    MeterRegistry meterRegistry,
+    PlatformTransactionManager transactionManager
+  ) {
+    this.minioService = minioService;
+    this.usersRepository = usersRepository;
+    this.redisTemplate = redisTemplate;
+    this.meterRegistry = meterRegistry;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  @PostConstruct
+  void start() {
+    deletedFilesCounter = Counter.builder("storage.gc.deleted_files")
+      .description("Number of orphaned files deleted (or found, in dry-run mode)")
+      .tags("prefix", PREFIX, "dry_run", DRY_RUN.toString())
+      .register(meterRegistry);
+    reclaimedBytesCounter = Counter.builder("storage.gc.reclaimed_bytes")
+      .description("Size of the orphaned files deleted (or found, in dry-run mode)")
+      .baseUnit("bytes")
+      .tags("prefix", PREFIX, "dry_run", DRY_RUN.toString())
+      .register(meterRegistry);
+
+    if (!ENABLED) {
+      return;
+    }
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofVirtual().name("avatar-gc").factory()
+    );
+    scheduler.scheduleWithFixedDelay(this::run, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  /** Runs a collection, unless another instance has run one during the last interval. */
+  void run() {
+    // The lock is not released: it expires shortly before the next run of this instance
+    if (
+      !Boolean.TRUE.equals(
+        redisTemplate
+          .opsForValue()
+          .setIfAbsent(LOCK_KEY, instanceId, Duration.ofMillis(INTERVAL * 9 / 10))
+      )
+    ) {
+      return;
+    }
+
+    try {
+      Summary summary = collect();
+      log.info(
+        "Avatar garbage collection{}: {} files listed, {} deleted, {} bytes reclaimed",
+        DRY_RUN ? " (dry run)" : "",
+        summary.listedFiles(),
+        summary.deletedFiles(),
+        summary.reclaimedBytes()
+      );
+    } catch (RuntimeException e) {
+      log.error("Error collecting orphaned avatars", e);
+    }
+  }
+
+  public Summary collect() {
+    try {
+      return collect(new ReferencedFileNames());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (MinioException | InvalidKeyException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Could not collect the orphaned avatars", e);
+    }
+  }
+
+  private Summary collect(Iterator<String> referencedFileNames)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    Instant maxLastModified = Instant.now().minusSeconds(MIN_AGE);
+    Summary summary = new Summary(0, 0, 0);
+    List<Item> orphans = new ArrayList<>(PAGE_SIZE);
+    String referencedFileName = next(referencedFileNames, null);
+    String startAfter = null;
+    List<Item> page;
+
+    do {
+      page = minioService.listFiles(PREFIX, startAfter, PAGE_SIZE);
+
+      for (Item item : page) {
+        String fileName = item.objectName();
+
+        while (referencedFileName != null && compareNames(referencedFileName, fileName) < 0) {
+          referencedFileName = next(referencedFileNames, referencedFileName);
+        }
+
+        if (
+          !fileName.equals(referencedFileName) &&
+          item.lastModified().toInstant().isBefore(maxLastModified)
+        ) {
+          orphans.add(item);
+        }
+
+        if (orphans.size() == PAGE_SIZE) {
+          summary = summary.add(delete(orphans));
+          orphans.clear();
+        }
+      }
+
+      summary = summary.add(new Summary(page.size(), 0, 0));
+      startAfter = page.isEmpty() ? startAfter : page.get(page.size() - 1).objectName();
+    } while (page.size() == PAGE_SIZE);
+
+    return summary.add(delete(orphans));
+  }
+
+  private Summary delete(List<Item> orphans)
+    throws MinioException, InvalidKeyException, IOException, NoSuchAlgorithmException {
+    if (orphans.isEmpty()) {
+      return new Summary(0, 0, 0);
+    }
+
+    long startedAt = System.nanoTime();
+    Set<String> failedFileNames = new HashSet<>();
+
+    if (DRY_RUN) {
+      orphans.forEach(orphan -> log.info("Orphaned avatar file: {}", orphan.objectName()));
+    } else {
+      failedFileNames.addAll(
+        minioService.deleteFiles(orphans.stream().map(Item::objectName).toList())
+      );
+    }
+
+    long deletedFiles = 0;
+    long reclaimedBytes = 0;
+
+    for (Item orphan : orphans) {
+      if (!failedFileNames.contains(orphan.objectName())) {
+        deletedFiles++;
+        reclaimedBytes += orphan.size();
+      }
+    }
+
+    deletedFilesCounter.increment(deletedFiles);
+    reclaimedBytesCounter.increment(reclaimedBytes);
+
+    throttle(orphans.size(), startedAt);
+
+    return new Summary(0, deletedFiles, reclaimedBytes);
+  }
+
+  /** Waits until the deletion of a batch started at {@code startedAt} is within the rate limit. */
+  private void throttle(int batchSize, long startedAt) {
+    long minDuration = TimeUnit.SECONDS.toNanos(batchSize) / MAX_DELETES_PER_SECOND;
+
+    try {
+      TimeUnit.NANOSECONDS.sleep(minDuration - (System.nanoTime() - startedAt));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while collecting the orphaned avatars", e);
+    }
+  }
+
+  /** @return the next referenced name, after checking that the names are in order */
+  private static String next(Iterator<String> fileNames, String previous) {
+    if (!fileNames.hasNext()) {
+      return null;
+    }
+
+    String fileName = fileNames.next();
+
+    // Out of order names would make referenced files look orphaned
+    if (previous != null && compareNames(fileName, previous) < 0) {
+      throw new IllegalStateException("The referenced files are not in the order of the listing");
+    }
+
+    return fileName;
+  }
+
+  /** Orders names by code point, as UTF-8 bytes are, unlike {@link String#compareTo}. */
+  static int compareNames(String a, String b) {
+    int i = 0;
+    int j = 0;
+
+    while (i < a.length() && j < b.length()) {
+      int codePointA = a.codePointAt(i);
+      int codePointB = b.codePointAt(j);
+
+      if (codePointA != codePointB) {
+        return Integer.compare(codePointA, codePointB);
+      }
+
+      i += Character.charCount(codePointA);
+      j += Character.charCount(codePointB);
+    }
+
+    return Integer.compare(a.length() - i, b.length() - j);
+  }
+
+  /** The referenced names, read {@value #PAGE_SIZE} at a time, after the last name read. */
+  private final class ReferencedFileNames implements Iterator<String> {
+
+    private Iterator<String> page = Collections.emptyIterator();
+    private String lastFileName = "";
+    private boolean lastPage;
+
+    @Override
+    public boolean hasNext() {
+      if (!page.hasNext() && !lastPage) {
+        List<String> fileNames = transactionTemplate.execute(status ->
+          usersRepository.findAvatarFileNamesAfter(lastFileName, PAGE_SIZE)
+        );
+
+        lastPage = fileNames.size() < PAGE_SIZE;
+        lastFileName = fileNames.isEmpty() ? lastFileName : fileNames.getLast();
+        page = fileNames.iterator();
+      }
+
+      return page.hasNext();
+    }
+
+    @Override
+    public String next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return page.next();
+    }
+  }
+
+  /**
+   * @param listedFiles the number of files listed under {@link #PREFIX}
+   * @param deletedFiles the number of orphaned files deleted (or found, in dry-run mode)
+   * @param reclaimedBytes the size of the deleted files
+   */
+  public record Summary(long listedFiles, long deletedFiles, long reclaimedBytes) {
+    Summary add(Summary other) {
+      return new Summary(
+        listedFiles + other.listedFiles,
+        deletedFiles + other.deletedFiles,
+        reclaimedBytes + other.reclaimedBytes
+      );
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.example.modules.users.services;
+
+import com.example.modules.minio.services.ContentFileService;
+import com.example.modules.minio.services.MinioService;
+import com.example.modules.redis.configs.CacheConfig;
+import com.example.modules.users.dtos.AvatarUploadedEventDTO;
+import com.example.modules.users.repositories.UsersRepository;
+import com.example.modules.users.utils.ImageThumbnails;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates the thumbnails of the avatars ({@code users.avatar.variants.sizes}), so that clients
+ * do not download the original image to display an icon.
+ *
+ * <p>
+ * A new avatar is published to {@link #AVATAR_UPLOADS_STREAM_KEY}, whose listener calls
+ * {@link #generateVariants}. The thumbnails are stored next to the avatar, under names derived
+ * from its unique name: their content never changes, and they are cached forever by clients.
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AvatarVariantService {
+
+  public static final String AVATAR_UPLOADS_STREAM_KEY = "stream:avatar_uploads";
+
+  @Value("${users.avatar.variants.sizes:64,128,256}")
+  private List<Integer> VARIANT_SIZES;
+
+  @Value("${users.avatar.variants.max-pixels:40000000}")
+  private Long MAX_PIXELS;
+
+  @Value("${users.avatar.variants.quality:0.8}")
+  private Float QUALITY;
+
+  private final MinioService minioService;
+  private final UsersRepository usersRepository;
+  private final CacheManager cacheManager;
+
+  /**
+   * @return the name of the thumbnail of the given size of an avatar. The whole name of the avatar
+   *         is kept, as a dot in it is not always the start of an extension (e.g. the fraction of
+   *         a second of its timestamp), and the thumbnails are served as immutable.
+   */
+  public static String getVariantFileName(String avatarFileName, int size) {
+    return "%s-%d.%s".formatted(avatarFileName, size, ImageThumbnails.EXTENSION);
+  }
+
+  /**
+   * Generates and stores the thumbnails of an avatar, then attaches them to the user, unless the
+   * user has changed their avatar since.
+   *
+   * <p>
+   * An avatar that cannot be decoded, is too large or no longer exists has no thumbnails: the
+   * original is used instead. Other errors are thrown, for the event to be retried.
+   * </p>
+   */
+  public void generateVariants(AvatarUploadedEventDTO event)
+    throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
+    String fileName = event.getFileName();
+    Map<Integer, byte[]> thumbnails;
+
+    try (InputStream input = minioService.downloadFile(fileName)) {
+      thumbnails = ImageThumbnails.create(input, VARIANT_SIZES, MAX_PIXELS, QUALITY);
+    } catch (IllegalArgumentException e) {
+      log.warn("Could not generate the variants of avatar {}: {}", fileName, e.getMessage());
+      return;
+    } catch (ErrorResponseException e) {
+      if ("NoSuchKey".equals(e.errorResponse().code())) {
+        log.info("Avatar {} was deleted before its variants were generated", fileName);
+        return;
+      }
+      throw e;
+    }
+
+    Map<Integer, String> variants = new TreeMap<>();
+
+    for (Map.Entry<Integer, byte[]> thumbnail : thumbnails.entrySet()) {
+      String variantFileName = getVariantFileName(fileName, thumbnail.getKey());
+      minioService.uploadImmutableFile(
+        variantFileName,
+        thumbnail.getValue(),
+        ImageThumbnails.CONTENT_TYPE
+      );
+      variants.put(thumbnail.getKey(), variantFileName);
+    }
+
+    if (usersRepository.updateAvatarVariants(event.getUserId(), fileName, variants) == 0) {
+      log.info("Avatar {} was replaced before its variants were generated", fileName);
+
+      // The variants of a content file may be shared, they are purged with the file
+      if (!ContentFileService.isContentFile(fileName)) {
+        for (String variantFileName : variants.values()) {
+          minioService.deleteFile(variantFileName);
+        }
+      }
+      return;
+    }
+
+    Objects.requireNonNull(cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE)).evict(
+      event.getUserId()
+    );
+  }
+}
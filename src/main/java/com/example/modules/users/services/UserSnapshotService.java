@@ -0,0 +1,118 @@
+package com.example.modules.users.services;
+
+import com.example.modules.users.dtos.UserSnapshotDTO;
+import com.example.modules.users.entities.User;
+import com.example.modules.users.repositories.UsersRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bounded in-memory cache of {@link UserSnapshotDTO}s, used to authorize requests without loading
+ * the {@link User} entity.
+ *
+ * <p>
+ * The code that changes the password or the deletion state of an account calls {@link #evict},
+ * which drops the snapshot on every instance of the application through a Redis channel.
+ * Snapshots also expire after {@code auth.user-snapshot.expiration} seconds: this bounds how long
+ * a change that is not evicted (such as a role changed directly in the database) or a lost
+ * message can go unnoticed.
+ * </p>
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserSnapshotService implements MessageListener {
+
+  private static final String INVALIDATION_CHANNEL = "channel:user_snapshot_invalidation";
+
+  @Value("${auth.user-snapshot.max-size:10000}")
+  private Long MAX_SIZE;
+
+  @Value("${auth.user-snapshot.expiration:30}")
+  private Long EXPIRATION;
+
+  private final UsersRepository usersRepository;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisMessageListenerContainer redisMessageListenerContainer;
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private Cache<String, UserSnapshotDTO> snapshots;
+
+  @PostConstruct
+  void init() {
+    snapshots = Caffeine.newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(Duration.ofSeconds(EXPIRATION))
+      .build();
+
+    redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+  }
+
+  /**
+   * Returns the snapshot of a user, loading it from the database if it is not cached. Users that
+   * do not exist are not cached.
+   */
+  public Optional<UserSnapshotDTO> getSnapshot(String userId) {
+    UserSnapshotDTO snapshot = snapshots.get(userId, id ->
+      usersRepository.findSnapshotById(id).orElse(null)
+    );
+
+    return Optional.ofNullable(snapshot);
+  }
+
+  /**
+   * Caches the current state of a user that has just been loaded or saved, unless a newer
+   * snapshot is already cached.
+   */
+  public void update(User user) {
+    UserSnapshotDTO snapshot = UserSnapshotDTO.of(user);
+
+    snapshots
+      .asMap()
+      .merge(snapshot.getId(), snapshot, (cached, updated) ->
+        updated.getVersion() >= cached.getVersion() ? updated : cached
+      );
+  }
+
+  /** Drops the snapshot of a user on every instance of the application. */
+  public void evict(String userId) {
+    snapshots.invalidate(userId);
+
+    try {
+      stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, instanceId + "|" + userId);
+    } catch (RuntimeException e) {
+      log.error("Error publishing the eviction of user snapshot {}: {}", userId, e.getMessage());
+    }
+  }
+
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    String[] parts = body.split("\\|", 2);
+
+    if (parts.length < 2) {
+      log.warn("Ignoring malformed user snapshot invalidation message: {}", body);
+      return;
+    }
+
+    if (!instanceId.equals(parts[0])) {
+      snapshots.invalidate(parts[1]);
+    }
+  }
+}
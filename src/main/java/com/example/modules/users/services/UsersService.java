@@ -1,20 +1,40 @@
 package com.example.modules.users.services;
 
+import static com.example.base.enums.ErrorCode.AVATAR_CHANGED;
+import static com.example.base.enums.ErrorCode.AVATAR_INVALID;
+import static com.example.base.enums.ErrorCode.AVATAR_NOT_UPLOADED;
+import static com.example.base.enums.ErrorCode.USER_NOT_FOUND;
+
+import com.example.base.exceptions.AppException;
 import com.example.base.utils.ObjectUtils;
 import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.dtos.PresignedUploadResponse;
+import com.example.modules.minio.services.ContentFileService;
 import com.example.modules.minio.services.MinioService;
+import com.example.modules.outbox.services.OutboxService;
+import com.example.modules.redis.configs.CacheConfig;
+import com.example.modules.users.dtos.AvatarUploadedEventDTO;
+import com.example.modules.users.dtos.CompleteAvatarUploadDTO;
+import com.example.modules.users.dtos.CreateAvatarUploadDTO;
 import com.example.modules.users.dtos.UpdateProfileDTO;
 import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
 import com.example.modules.users.repositories.UsersRepository;
 import com.example.modules.users.utils.UserMapper;
+import io.minio.StatObjectResponse;
 import io.minio.errors.MinioException;
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Objects;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
@@ -25,21 +45,136 @@ public class UsersService {
   private final UsersRepository usersRepository;
   private final MinioService minioService;
   private final UserMapper userMapper;
+  private final CacheManager cacheManager;
+  private final OutboxService outboxService;
+  private final ContentFileService contentFileService;
+
+  @Value("${users.avatar.max-size:1048576}")
+  private Long AVATAR_MAX_SIZE;
+
+  @Value("${users.avatar.upload-expiry:600}")
+  private Long AVATAR_UPLOAD_EXPIRY;
+
+  public UserProfileDTO getProfile(String userId) {
+    UserProfileDTO profile = getProfilesCache().get(userId, () ->
+      usersRepository.findWithAccountById(userId).map(userMapper::toUserProfileDTO).orElse(null)
+    );
+
+    if (profile == null) {
+      throw new AppException(USER_NOT_FOUND);
+    }
+
+    return profile;
+  }
 
   public UserProfileDTO updateProfile(User user, UpdateProfileDTO updateProfileDTO) {
     ObjectUtils.assign(user, updateProfileDTO);
     User savedUser = usersRepository.save(user);
 
-    return userMapper.toUserProfileDTO(savedUser);
+    return cacheProfile(userMapper.toUserProfileDTO(savedUser));
   }
 
+  /**
+   * Changes the avatar of the user to an uploaded file. The file is stored under the hash of its
+   * content, so that an image that is already stored, such as the previous avatar of the user, is
+   * not uploaded again.
+   */
+  @Transactional
   public UserProfileDTO updateAvatar(User user, MultipartFile file)
     throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
-    MinioFileResponse payload = minioService.uploadFile(file, "avatars/%s".formatted(user.getId()));
+    MinioFileResponse payload = contentFileService.store(file);
 
-    user.setAvatar(payload.getFileName());
-    User savedUser = usersRepository.save(user);
+    return changeAvatar(user, payload.getFileName());
+  }
+
+  /**
+   * Creates a presigned upload, with which the client uploads its new avatar directly to MinIO.
+   * The avatar is changed by {@link #completeAvatarUpload} once the upload is done.
+   */
+  public PresignedUploadResponse createAvatarUpload(
+    User user,
+    CreateAvatarUploadDTO createAvatarUploadDTO
+  ) throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
+    return minioService.generatePresignedUpload(
+      minioService.generateFileName(
+        createAvatarUploadDTO.getFileName(),
+        getAvatarFolder(user)
+      ),
+      createAvatarUploadDTO.getContentType(),
+      AVATAR_MAX_SIZE,
+      Duration.ofSeconds(AVATAR_UPLOAD_EXPIRY)
+    );
+  }
+
+  /**
+   * Changes the avatar of the user to a file uploaded with {@link #createAvatarUpload}, after
+   * checking that the file is an uploaded image of the user. An invalid file is deleted.
+   */
+  @Transactional
+  public UserProfileDTO completeAvatarUpload(
+    User user,
+    CompleteAvatarUploadDTO completeAvatarUploadDTO
+  ) throws InvalidKeyException, NoSuchAlgorithmException, MinioException, IOException {
+    String fileName = completeAvatarUploadDTO.getFileName();
+
+    if (!fileName.startsWith(getAvatarFolder(user) + "/") || fileName.contains("..")) {
+      throw new AppException(AVATAR_NOT_UPLOADED);
+    }
+
+    StatObjectResponse file = minioService
+      .findFile(fileName)
+      .orElseThrow(() -> new AppException(AVATAR_NOT_UPLOADED));
+
+    // Enforced by the upload policy, unless the file was uploaded in another way
+    if (
+      file.size() > AVATAR_MAX_SIZE ||
+      file.contentType() == null ||
+      !file.contentType().startsWith("image/")
+    ) {
+      minioService.deleteFile(fileName);
+      throw new AppException(AVATAR_INVALID, AVATAR_MAX_SIZE);
+    }
+
+    return changeAvatar(user, fileName);
+  }
+
+  /**
+   * Changes the avatar of the user, whose thumbnails are then generated asynchronously. The avatar
+   * is only changed if it is still the one the user had when the request started, so that the
+   * previous avatar is released by one request only, however many change it at the same time.
+   */
+  private UserProfileDTO changeAvatar(User user, String fileName) {
+    String previousAvatar = user.getAvatar();
+
+    if (usersRepository.replaceAvatar(user.getId(), previousAvatar, fileName) == 0) {
+      throw new AppException(AVATAR_CHANGED);
+    }
+
+    contentFileService.release(previousAvatar);
+    user.setAvatar(fileName);
+    user.setAvatarVariants(null);
+
+    outboxService.publish(
+      AvatarVariantService.AVATAR_UPLOADS_STREAM_KEY,
+      AvatarUploadedEventDTO.builder().userId(user.getId()).fileName(fileName).build()
+    );
+
+    return cacheProfile(userMapper.toUserProfileDTO(user));
+  }
+
+  private static String getAvatarFolder(User user) {
+    return "avatars/%s".formatted(user.getId());
+  }
+
+  private UserProfileDTO cacheProfile(UserProfileDTO profile) {
+    if (profile.getId() != null) {
+      getProfilesCache().put(profile.getId(), profile);
+    }
+
+    return profile;
+  }
 
-    return userMapper.toUserProfileDTO(savedUser);
+  private Cache getProfilesCache() {
+    return Objects.requireNonNull(cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE));
   }
 }
@@ -0,0 +1,160 @@
+package com.example.modules.users.utils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Creates square thumbnails of images, cropped to their center and encoded as progressive JPEG.
+ *
+ * <p>
+ * The memory used does not depend on the resolution of the image: its dimensions are read from
+ * its header before decoding, and only the pixels needed for the largest thumbnail are decoded,
+ * with source subsampling. The decoded image is at most four times as large as the largest
+ * thumbnail on each side, and is then halved progressively, for a smooth downscale.
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ImageThumbnails {
+
+  public static final String CONTENT_TYPE = "image/jpeg";
+  public static final String EXTENSION = "jpg";
+
+  /**
+   * @param input the encoded image, which is not closed
+   * @param sizes the sizes of the thumbnails, in pixels
+   * @param maxPixels the maximum number of pixels of the image
+   * @param quality the quality of the JPEG encoding, between 0 and 1
+   * @return the encoded thumbnails, by size
+   * @throws IllegalArgumentException if the image cannot be decoded, or has more than
+   *         {@code maxPixels} pixels
+   * @throws IOException if the image cannot be read
+   */
+  public static Map<Integer, byte[]> create(
+    InputStream input,
+    Collection<Integer> sizes,
+    long maxPixels,
+    float quality
+  ) throws IOException {
+    try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+
+      if (!readers.hasNext()) {
+        throw new IllegalArgumentException("Unsupported image format");
+      }
+
+      ImageReader reader = readers.next();
+
+      try {
+        reader.setInput(stream, true, true);
+        BufferedImage image = read(reader, Collections.max(sizes), maxPixels);
+        Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+
+        for (int size : sizes) {
+          thumbnails.put(size, encode(scale(image, size), quality));
+        }
+
+        return thumbnails;
+      } catch (IIOException e) {
+        throw new IllegalArgumentException("Could not decode the image", e);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /** Decodes the centered square of the image, subsampled down to at least twice {@code size}. */
+  private static BufferedImage read(ImageReader reader, int size, long maxPixels)
+    throws IOException {
+    int width = reader.getWidth(0);
+    int height = reader.getHeight(0);
+
+    // Decompression bombs: a small file can declare an image of billions of pixels
+    if ((long) width * height > maxPixels) {
+      throw new IllegalArgumentException(
+        "The image has %dx%d pixels, more than %d".formatted(width, height, maxPixels)
+      );
+    }
+
+    int side = Math.min(width, height);
+    int subsampling = Math.max(1, side / (2 * size));
+    ImageReadParam param = reader.getDefaultReadParam();
+    param.setSourceRegion(new Rectangle((width - side) / 2, (height - side) / 2, side, side));
+    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+    return reader.read(0, param);
+  }
+
+  private static BufferedImage scale(BufferedImage image, int size) {
+    BufferedImage scaled = image;
+    int side = image.getWidth();
+
+    do {
+      side = Math.max(size, side / 2);
+      scaled = draw(scaled, side);
+    } while (side > size);
+
+    return scaled;
+  }
+
+  /** Draws the image at the given size, on white, as JPEG has no transparency. */
+  private static BufferedImage draw(BufferedImage image, int size) {
+    BufferedImage result = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = result.createGraphics();
+
+    try {
+      graphics.setRenderingHint(
+        RenderingHints.KEY_INTERPOLATION,
+        RenderingHints.VALUE_INTERPOLATION_BILINEAR
+      );
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.setBackground(Color.WHITE);
+      graphics.clearRect(0, 0, size, size);
+      graphics.drawImage(image, 0, 0, size, size, null);
+    } finally {
+      graphics.dispose();
+    }
+
+    return result;
+  }
+
+  private static byte[] encode(BufferedImage image, float quality) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByMIMEType(CONTENT_TYPE).next();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(quality);
+      param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+      writer.setOutput(stream);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+
+    return output.toByteArray();
+  }
+}
@@ -1,46 +1,93 @@
 package com.example.modules.users.utils;
 
 import com.example.modules.minio.dtos.MinioFileResponse;
-import com.example.modules.minio.services.MinioService;
+import com.example.modules.minio.services.StorageUrlResolver;
 import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
-import lombok.extern.slf4j.Slf4j;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @Mapper(componentModel = "spring")
-@Slf4j
 public abstract class UserMapper {
 
   @Autowired
-  protected MinioService minioService;
+  protected StorageUrlResolver storageUrlResolver;
 
   @Named("toUserProfileDTO")
   @Mapping(source = "account.email", target = "email")
   @Mapping(source = "account.role", target = "role")
   @Mapping(source = "avatar", target = "avatar", qualifiedByName = "mapAvatar")
+  @Mapping(
+    source = "avatarVariants",
+    target = "avatarVariants",
+    qualifiedByName = "mapAvatarVariants"
+  )
   public abstract UserProfileDTO toUserProfileDTO(User user);
 
   @Named("toUserProfileDTOWithoutAvatar")
   @Mapping(source = "account.email", target = "email")
   @Mapping(source = "account.role", target = "role")
   @Mapping(target = "avatar", ignore = true)
+  @Mapping(target = "avatarVariants", ignore = true)
   public abstract UserProfileDTO toUserProfileDTOWithoutAvatar(User user);
 
+  /**
+   * Maps a user with the URLs of its avatar resolved beforehand, e.g. by
+   * {@link StorageUrlResolver#resolveAll}, instead of resolving them again.
+   *
+   * @param urls the URL of each file name
+   */
+  public UserProfileDTO toUserProfileDTO(User user, Map<String, String> urls) {
+    UserProfileDTO userProfileDTO = toUserProfileDTOWithoutAvatar(user);
+
+    if (userProfileDTO == null) {
+      return null;
+    }
+
+    userProfileDTO.setAvatar(toFileResponse(user.getAvatar(), urls::get));
+    userProfileDTO.setAvatarVariants(toFileResponses(user.getAvatarVariants(), urls::get));
+
+    return userProfileDTO;
+  }
+
   @Named("mapAvatar")
   protected MinioFileResponse mapAvatar(String avatarFileName) {
-    if (avatarFileName == null || avatarFileName.trim().isEmpty()) {
+    return toFileResponse(avatarFileName, storageUrlResolver::resolve);
+  }
+
+  @Named("mapAvatarVariants")
+  protected Map<Integer, MinioFileResponse> mapAvatarVariants(Map<Integer, String> avatarVariants) {
+    return toFileResponses(avatarVariants, storageUrlResolver::resolve);
+  }
+
+  private static MinioFileResponse toFileResponse(
+    String fileName,
+    Function<String, String> urlResolver
+  ) {
+    if (fileName == null || fileName.trim().isEmpty()) {
       return null;
     }
 
-    try {
-      String presignedUrl = minioService.generatePresignedUrl(avatarFileName);
-      return MinioFileResponse.builder().fileName(avatarFileName).url(presignedUrl).build();
-    } catch (Exception e) {
-      log.warn("Failed to generate presigned URL for avatar: {}", avatarFileName, e);
-      return null;
+    return MinioFileResponse.builder().fileName(fileName).url(urlResolver.apply(fileName)).build();
+  }
+
+  private static Map<Integer, MinioFileResponse> toFileResponses(
+    Map<Integer, String> fileNames,
+    Function<String, String> urlResolver
+  ) {
+    Map<Integer, MinioFileResponse> fileResponses = new TreeMap<>();
+
+    if (fileNames != null) {
+      fileNames.forEach((size, fileName) ->
+        fileResponses.put(size, toFileResponse(fileName, urlResolver))
+      );
     }
+
+    return fileResponses;
   }
 }
@@ -0,0 +1,12 @@
+-- Releases a lease, unless it has expired or been replaced in the meantime.
+--
+-- KEYS[1] : key of the lease
+-- ARGV[1] : value written by the holder of the lease when it was acquired
+--
+-- Returns 1 when the lease was released, otherwise 0.
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+  return redis.call('DEL', KEYS[1])
+end
+
+return 0
@@ -0,0 +1,13 @@
+-- Extends a lease, unless it has expired or been replaced in the meantime.
+--
+-- KEYS[1] : key of the lease
+-- ARGV[1] : value written by the holder of the lease when it was acquired
+-- ARGV[2] : new time to live of the lease, in milliseconds
+--
+-- Returns 1 when the lease was extended, otherwise 0.
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+  return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+
+return 0
@@ -0,0 +1,50 @@
+-- Atomically takes one token from every bucket in KEYS, or from none of them.
+--
+-- KEYS[i]      : key of the i-th bucket (a hash with the fields `tokens` and `ts`)
+-- ARGV[2i - 1] : capacity of the i-th bucket
+-- ARGV[2i]     : refill rate of the i-th bucket, in tokens per millisecond
+--
+-- Returns a list whose first element is 0 when the tokens were taken, otherwise the number of
+-- milliseconds to wait until every bucket has a token again. The next elements are the number of
+-- milliseconds to wait for each bucket (0 for the buckets that have a token).
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tokens = {}
+local waits = {}
+local retry_after = 0
+
+for i, key in ipairs(KEYS) do
+  local capacity = tonumber(ARGV[2 * i - 1])
+  local rate = tonumber(ARGV[2 * i])
+  local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+  local available = tonumber(bucket[1]) or capacity
+  local last_refill = tonumber(bucket[2]) or now
+
+  available = math.min(capacity, available + math.max(0, now - last_refill) * rate)
+  tokens[i] = available
+  waits[i] = 0
+
+  if available < 1 then
+    waits[i] = math.ceil((1 - available) / rate)
+    retry_after = math.max(retry_after, waits[i])
+  end
+end
+
+for i, key in ipairs(KEYS) do
+  local capacity = tonumber(ARGV[2 * i - 1])
+  local rate = tonumber(ARGV[2 * i])
+  local available = tokens[i]
+
+  if retry_after == 0 then
+    available = available - 1
+  end
+
+  redis.call('HSET', key, 'tokens', tostring(available), 'ts', now)
+  -- A bucket that is not used until it is full again is the same as a missing bucket
+  redis.call('PEXPIRE', key, math.ceil(capacity / rate))
+end
+
+table.insert(waits, 1, retry_after)
+return waits
@@ -0,0 +1,55 @@
+-- Trims the entries of a stream that every consumer group is done with.
+--
+-- KEYS[1] : key of the stream
+--
+-- An entry is kept as long as a group has not read it, or has not acknowledged it: the stream is
+-- trimmed up to the oldest pending entry of each group, or up to the last entry delivered to the
+-- group if none is pending. A stream without groups is not trimmed. The trimming is approximate
+-- (`~`), so a few consumed entries may be kept until their macro node can be dropped whole.
+--
+-- Returns the number of entries deleted.
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+  return 0
+end
+
+local function parse(id)
+  local ms, seq = string.match(id, '^(%d+)-(%d+)$')
+  return tonumber(ms), tonumber(seq)
+end
+
+local function is_before(a, b)
+  local a_ms, a_seq = parse(a)
+  local b_ms, b_seq = parse(b)
+  return a_ms < b_ms or (a_ms == b_ms and a_seq < b_seq)
+end
+
+local min_id = nil
+
+for _, group in ipairs(redis.call('XINFO', 'GROUPS', KEYS[1])) do
+  local name
+  local bound
+
+  for i = 1, #group, 2 do
+    if group[i] == 'name' then
+      name = group[i + 1]
+    elseif group[i] == 'last-delivered-id' then
+      bound = group[i + 1]
+    end
+  end
+
+  local pending = redis.call('XPENDING', KEYS[1], name)
+  if pending[1] > 0 then
+    bound = pending[2]
+  end
+
+  if min_id == nil or is_before(bound, min_id) then
+    min_id = bound
+  end
+end
+
+if min_id == nil then
+  return 0
+end
+
+return redis.call('XTRIM', KEYS[1], 'MINID', '~', min_id)
@@ -5,12 +5,15 @@ import com.example.modules.auth.repositories.AccountsRepository;
 import com.example.modules.users.entities.User;
 import com.example.modules.users.repositories.UsersRepository;
 import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -63,6 +66,15 @@ public class BaseIntegrationTest {
   @Autowired
   protected PasswordEncoder passwordEncoder;
 
+  @Autowired
+  protected CacheManager cacheManager;
+
+  /** Tests reuse the same IDs, so values cached by a test must not be seen by the next ones. */
+  @AfterEach
+  protected void clearCaches() {
+    cacheManager.getCacheNames().stream().map(cacheManager::getCache).forEach(Cache::clear);
+  }
+
   protected Account getAccount() {
     return accountsRepository.findAll().get(0);
   }
@@ -0,0 +1,171 @@
+package com.example.modules.auth.filters;
+
+import static com.example.base.utils.AppRoutes.AUTH_PREFIX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.base.enums.ErrorCode;
+import com.example.base.exceptions.AppException;
+import com.example.base.exceptions.TooManyRequestsException;
+import com.example.modules.auth.services.RateLimitService;
+import com.example.modules.auth.services.RateLimitService.Bucket;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+public class AuthRateLimitFilterTest extends BaseServiceTest {
+
+  private static final String LOGIN_BODY = "{\"email\":\"John@Example.com\",\"password\":\"x\"}";
+
+  @Mock
+  private RateLimitService rateLimitService;
+
+  @Mock
+  private HandlerExceptionResolver handlerExceptionResolver;
+
+  private AuthRateLimitFilter authRateLimitFilter;
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+  private final MockFilterChain filterChain = new MockFilterChain();
+
+  @BeforeEach
+  void setup() {
+    authRateLimitFilter = new AuthRateLimitFilter(
+      true,
+      20L,
+      10.0,
+      5L,
+      1.0,
+      rateLimitService,
+      new ObjectMapper(),
+      handlerExceptionResolver
+    );
+  }
+
+  @Test
+  void doFilter_ShouldLimitByIpAndEmail_AndPassTheBodyToTheController() throws Exception {
+    MockHttpServletRequest request = loginRequest(LOGIN_BODY, true);
+    when(rateLimitService.tryConsume(anyList())).thenReturn(0L);
+
+    authRateLimitFilter.doFilter(request, response, filterChain);
+
+    assertEquals(
+      List.of("login:ip:127.0.0.1", "login:email:john@example.com"),
+      getConsumedBucketKeys()
+    );
+    assertNotNull(filterChain.getRequest());
+    assertEquals(
+      LOGIN_BODY,
+      new String(filterChain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8)
+    );
+  }
+
+  @Test
+  void doFilter_WhenBodyHasNoContentLength_ShouldStillLimitByEmail() throws Exception {
+    MockHttpServletRequest request = loginRequest(LOGIN_BODY, false);
+    when(rateLimitService.tryConsume(anyList())).thenReturn(0L);
+
+    authRateLimitFilter.doFilter(request, response, filterChain);
+
+    assertEquals(
+      List.of("login:ip:127.0.0.1", "login:email:john@example.com"),
+      getConsumedBucketKeys()
+    );
+    assertNotNull(filterChain.getRequest());
+  }
+
+  @Test
+  void doFilter_WhenBodyIsPaddedPastTheLimit_ShouldRejectTheRequest() throws Exception {
+    MockHttpServletRequest request = loginRequest(padded(LOGIN_BODY), true);
+
+    authRateLimitFilter.doFilter(request, response, filterChain);
+
+    assertRequestTooLarge(request);
+  }
+
+  @Test
+  void doFilter_WhenChunkedBodyIsPaddedPastTheLimit_ShouldRejectTheRequest() throws Exception {
+    MockHttpServletRequest request = loginRequest(padded(LOGIN_BODY), false);
+
+    authRateLimitFilter.doFilter(request, response, filterChain);
+
+    assertRequestTooLarge(request);
+  }
+
+  @Test
+  void doFilter_WhenABucketIsEmpty_ShouldRejectTheRequestWithRetryAfter() throws Exception {
+    MockHttpServletRequest request = loginRequest(LOGIN_BODY, true);
+    when(rateLimitService.tryConsume(anyList())).thenReturn(1500L);
+
+    authRateLimitFilter.doFilter(request, response, filterChain);
+
+    ArgumentCaptor<Exception> exception = ArgumentCaptor.forClass(Exception.class);
+    verify(handlerExceptionResolver).resolveException(
+      eq(request),
+      eq(response),
+      isNull(),
+      exception.capture()
+    );
+    assertEquals(2, ((TooManyRequestsException) exception.getValue()).getRetryAfterSeconds());
+    assertNull(filterChain.getRequest());
+  }
+
+  private List<String> getConsumedBucketKeys() {
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<Bucket>> buckets = ArgumentCaptor.forClass(List.class);
+    verify(rateLimitService).tryConsume(buckets.capture());
+
+    return buckets.getValue().stream().map(Bucket::key).toList();
+  }
+
+  private void assertRequestTooLarge(MockHttpServletRequest request) {
+    ArgumentCaptor<Exception> exception = ArgumentCaptor.forClass(Exception.class);
+    verify(handlerExceptionResolver).resolveException(
+      eq(request),
+      eq(response),
+      isNull(),
+      exception.capture()
+    );
+    assertEquals(ErrorCode.REQUEST_TOO_LARGE, ((AppException) exception.getValue()).getErrorCode());
+    verify(rateLimitService, never()).tryConsume(any());
+    assertNull(filterChain.getRequest());
+  }
+
+  private static String padded(String body) {
+    return body.substring(0, body.length() - 1) + " ".repeat(9000) + "}";
+  }
+
+  /**
+   * @param withContentLength whether the body declares its length; without it, the body is read
+   *        like a chunked body
+   */
+  private static MockHttpServletRequest loginRequest(String body, boolean withContentLength) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", AUTH_PREFIX + "/login") {
+      @Override
+      public long getContentLengthLong() {
+        return withContentLength ? super.getContentLengthLong() : -1;
+      }
+    };
+    request.setContentType("application/json");
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+    return request;
+  }
+}
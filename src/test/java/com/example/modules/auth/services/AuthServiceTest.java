@@ -7,8 +7,9 @@ import static com.example.base.enums.ErrorCode.TOKEN_REVOKED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.base.BaseServiceTest;
@@ -19,22 +20,25 @@ import com.example.modules.auth.dtos.LoginRequestDTO;
 import com.example.modules.auth.dtos.RegisterRequestDTO;
 import com.example.modules.auth.entities.Account;
 import com.example.modules.auth.repositories.AccountsRepository;
-import com.example.modules.redis.services.RedisService;
+import com.example.modules.email.dtos.SendEmailEventDTO;
+import com.example.modules.outbox.services.OutboxService;
 import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
 import com.example.modules.users.exceptions.UserNotFoundException;
 import com.example.modules.users.repositories.UsersRepository;
+import com.example.modules.users.services.UserSnapshotService;
 import com.example.modules.users.utils.UserMapper;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
-import java.time.Instant;
 import java.util.Date;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 public class AuthServiceTest extends BaseServiceTest {
@@ -49,7 +53,7 @@ public class AuthServiceTest extends BaseServiceTest {
   private JwtService jwtService;
 
   @Mock
-  private RedisService redisService;
+  private TokenRevocationService tokenRevocationService;
 
   @Mock
   private UserMapper userMapper;
@@ -57,6 +61,12 @@ public class AuthServiceTest extends BaseServiceTest {
   @Mock
   private PasswordEncoder passwordEncoder;
 
+  @Mock
+  private UserSnapshotService userSnapshotService;
+
+  @Mock
+  private OutboxService outboxService;
+
   @InjectMocks
   private AuthService authService;
 
@@ -68,7 +78,6 @@ public class AuthServiceTest extends BaseServiceTest {
       .email(email)
       .password(password)
       .build();
-    Account mockAccount = getMockAccount();
     User mockUser = getMockUser();
     UserProfileDTO userProfileDTO = getMockUserProfile();
     AuthTokenDTO tokenDTO = AuthTokenDTO.builder()
@@ -77,9 +86,8 @@ public class AuthServiceTest extends BaseServiceTest {
       .user(userProfileDTO)
       .build();
 
-    when(accountsRepository.findByEmail(email)).thenReturn(Optional.of(mockAccount));
+    when(usersRepository.findByAccountEmail(email)).thenReturn(Optional.of(mockUser));
     when(passwordEncoder.matches(password, mockUser.getAccount().getPassword())).thenReturn(true);
-    when(usersRepository.findByAccount(mockAccount)).thenReturn(Optional.of(mockUser));
     when(jwtService.generateAccessToken(mockUser)).thenReturn(tokenDTO.getAccessToken());
     when(jwtService.generateRefreshToken(mockUser)).thenReturn(tokenDTO.getRefreshToken());
     when(userMapper.toUserProfileDTO(mockUser)).thenReturn(userProfileDTO);
@@ -92,6 +100,32 @@ public class AuthServiceTest extends BaseServiceTest {
     assertEquals(tokenDTO.getUser(), result.getUser());
   }
 
+  @Test
+  void login_WhenPasswordHashIsOutdated_ShouldRehashPassword() {
+    String email = "test@example.com";
+    String password = "password";
+    LoginRequestDTO loginRequest = LoginRequestDTO.builder()
+      .email(email)
+      .password(password)
+      .build();
+    User mockUser = getMockUser();
+    Account mockAccount = mockUser.getAccount();
+    String outdatedHash = mockAccount.getPassword();
+
+    when(usersRepository.findByAccountEmail(email)).thenReturn(Optional.of(mockUser));
+    when(passwordEncoder.matches(password, outdatedHash)).thenReturn(true);
+    when(passwordEncoder.upgradeEncoding(outdatedHash)).thenReturn(true);
+    when(passwordEncoder.encode(password)).thenReturn("new hash");
+    when(jwtService.generateAccessToken(mockUser)).thenReturn("access token");
+    when(jwtService.generateRefreshToken(mockUser)).thenReturn("refresh token");
+    when(userMapper.toUserProfileDTO(mockUser)).thenReturn(getMockUserProfile());
+
+    authService.login(loginRequest);
+
+    assertEquals("new hash", mockAccount.getPassword());
+    verify(accountsRepository).save(mockAccount);
+  }
+
   @Test
   void login_WhenAccountNotFound_ShouldThrowInvalidCredentialsException() {
     String email = "notfound@example.com";
@@ -102,7 +136,7 @@ public class AuthServiceTest extends BaseServiceTest {
       .password(password)
       .build();
 
-    when(accountsRepository.findByEmail(email)).thenReturn(Optional.empty());
+    when(usersRepository.findByAccountEmail(email)).thenReturn(Optional.empty());
 
     AppException ex = assertThrows(AppException.class, () -> authService.login(loginRequest));
     assertEquals(INVALID_CREDENTIALS, ex.getErrorCode());
@@ -113,15 +147,15 @@ public class AuthServiceTest extends BaseServiceTest {
     String email = "test@example.com";
     String password = "wrongPassword";
 
-    Account mockAccount = getMockAccount();
+    User mockUser = getMockUser();
 
     LoginRequestDTO loginRequest = LoginRequestDTO.builder()
       .email(email)
       .password(password)
       .build();
 
-    when(accountsRepository.findByEmail(email)).thenReturn(Optional.of(mockAccount));
-    when(passwordEncoder.matches(password, mockAccount.getPassword())).thenReturn(false);
+    when(usersRepository.findByAccountEmail(email)).thenReturn(Optional.of(mockUser));
+    when(passwordEncoder.matches(password, mockUser.getAccount().getPassword())).thenReturn(false);
 
     AppException ex = assertThrows(AppException.class, () -> authService.login(loginRequest));
     assertEquals(INVALID_CREDENTIALS, ex.getErrorCode());
@@ -137,7 +171,7 @@ public class AuthServiceTest extends BaseServiceTest {
       .build();
 
     Account savedAccount = Account.builder().email(email).password("encodedPassword").build();
-    User savedUser = User.builder().account(savedAccount).build();
+    User savedUser = User.builder().id("user-123").account(savedAccount).build();
     UserProfileDTO userProfileDTO = getMockUserProfile();
     AuthTokenDTO tokenDTO = AuthTokenDTO.builder()
       .accessToken("access token")
@@ -145,10 +179,11 @@ public class AuthServiceTest extends BaseServiceTest {
       .user(userProfileDTO)
       .build();
 
-    when(accountsRepository.findByEmail(email)).thenReturn(Optional.empty());
     when(passwordEncoder.encode(password)).thenReturn(savedAccount.getPassword());
-    when(accountsRepository.save(any(Account.class))).thenReturn(savedAccount);
-    when(usersRepository.save(any(User.class))).thenReturn(savedUser);
+    when(usersRepository.register(email, savedAccount.getPassword())).thenReturn(
+      Optional.of(savedUser.getId())
+    );
+    when(usersRepository.findWithAccountById(savedUser.getId())).thenReturn(Optional.of(savedUser));
     when(jwtService.generateAccessToken(savedUser)).thenReturn(tokenDTO.getAccessToken());
     when(jwtService.generateRefreshToken(savedUser)).thenReturn(tokenDTO.getRefreshToken());
     when(userMapper.toUserProfileDTO(savedUser)).thenReturn(userProfileDTO);
@@ -170,9 +205,8 @@ public class AuthServiceTest extends BaseServiceTest {
       .password(password)
       .build();
 
-    Account existingAccount = Account.builder().email(email).password("encodedPassword").build();
-
-    when(accountsRepository.findByEmail(email)).thenReturn(Optional.of(existingAccount));
+    when(passwordEncoder.encode(password)).thenReturn("encodedPassword");
+    when(usersRepository.register(email, "encodedPassword")).thenReturn(Optional.empty());
 
     AppException ex = assertThrows(AppException.class, () -> authService.register(registerRequest));
 
@@ -188,13 +222,9 @@ public class AuthServiceTest extends BaseServiceTest {
       .password(password)
       .build();
 
-    Account existingAccount = Account.builder()
-      .email(email)
-      .password("encodedPassword")
-      .deletedTimestamp(Instant.now())
-      .build();
+    // The upsert restores the deleted account and returns its existing user
     Account savedAccount = Account.builder().email(email).password("encodedPassword").build();
-    User savedUser = User.builder().account(savedAccount).build();
+    User savedUser = User.builder().id("existing-user").account(savedAccount).build();
     UserProfileDTO userProfileDTO = getMockUserProfile();
     AuthTokenDTO tokenDTO = AuthTokenDTO.builder()
       .accessToken("access token")
@@ -202,8 +232,11 @@ public class AuthServiceTest extends BaseServiceTest {
       .user(userProfileDTO)
       .build();
 
-    when(accountsRepository.findByEmail(email)).thenReturn(Optional.of(existingAccount));
-    when(usersRepository.save(any(User.class))).thenReturn(savedUser);
+    when(passwordEncoder.encode(password)).thenReturn(savedAccount.getPassword());
+    when(usersRepository.register(email, savedAccount.getPassword())).thenReturn(
+      Optional.of(savedUser.getId())
+    );
+    when(usersRepository.findWithAccountById(savedUser.getId())).thenReturn(Optional.of(savedUser));
     when(jwtService.generateAccessToken(savedUser)).thenReturn(tokenDTO.getAccessToken());
     when(jwtService.generateRefreshToken(savedUser)).thenReturn(tokenDTO.getRefreshToken());
     when(userMapper.toUserProfileDTO(savedUser)).thenReturn(userProfileDTO);
@@ -214,6 +247,7 @@ public class AuthServiceTest extends BaseServiceTest {
     assertEquals(tokenDTO.getAccessToken(), result.getAccessToken());
     assertEquals(tokenDTO.getRefreshToken(), result.getRefreshToken());
     assertEquals(tokenDTO.getUser(), result.getUser());
+    verify(userSnapshotService).evict(savedUser.getId());
   }
 
   @Test
@@ -304,6 +338,7 @@ public class AuthServiceTest extends BaseServiceTest {
     authService.changePassword(mockUser, request);
 
     assertEquals("encodedNewPassword", mockAccount.getPassword());
+    verify(userSnapshotService).evict(mockUser.getId());
   }
 
   @Test
@@ -361,4 +396,24 @@ public class AuthServiceTest extends BaseServiceTest {
 
     assertEquals("encodedNewPassword", mockAccount.getPassword());
   }
+
+  @Test
+  void forgotPassword_WhenUserExists_ShouldSaveTheEmailEventToTheOutbox() {
+    User mockUser = getMockUser();
+    ReflectionTestUtils.setField(authService, "frontendUrl", "http://localhost:3000");
+    ReflectionTestUtils.setField(authService, "RESET_PASSWORD_EXPIRATION", 900L);
+
+    when(usersRepository.findByAccountEmail("test@example.com")).thenReturn(Optional.of(mockUser));
+    when(jwtService.generateResetPasswordToken(mockUser)).thenReturn("resetToken");
+
+    authService.forgotPassword("test@example.com");
+
+    ArgumentCaptor<SendEmailEventDTO> event = ArgumentCaptor.forClass(SendEmailEventDTO.class);
+    verify(outboxService).publish(eq("stream:email_sending"), event.capture());
+    assertEquals("test@example.com", event.getValue().getTo());
+    assertEquals(
+      "http://localhost:3000/reset-password?token=resetToken",
+      event.getValue().getVariables().get("resetLink")
+    );
+  }
 }
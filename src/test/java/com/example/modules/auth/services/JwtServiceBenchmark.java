@@ -0,0 +1,83 @@
+package com.example.modules.auth.services;
+
+import com.example.modules.auth.entities.Account;
+import com.example.modules.users.entities.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the throughput of access token verification when the key and the parser are built on
+ * every call (the previous implementation) with the cached parser of {@link JwtService}.
+ *
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=JwtServiceBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+  private static final String ACCESS_SECRET =
+    "42d9aab082b09baabc0d90152d3b4d62eb70e8d747760a9fddda3f60a9596156f7c3615e83a826859d3fedb6846a38eafa457bbcd37860564717154850941776";
+
+  private JwtService jwtService;
+  private String token;
+
+  @Setup
+  public void setup() {
+    jwtService = new JwtService(null, null);
+    ReflectionTestUtils.setField(jwtService, "ACCESS_SECRET", ACCESS_SECRET);
+    ReflectionTestUtils.setField(jwtService, "REFRESH_SECRET", ACCESS_SECRET + "-refresh");
+    ReflectionTestUtils.setField(jwtService, "RESET_PASSWORD_SECRET", ACCESS_SECRET + "-reset");
+    ReflectionTestUtils.setField(jwtService, "ACCESS_EXPIRATION", 3600L);
+    ReflectionTestUtils.setField(jwtService, "REFRESH_EXPIRATION", 7200L);
+    ReflectionTestUtils.setField(jwtService, "RESET_PASSWORD_EXPIRATION", 900L);
+    jwtService.init();
+
+    User user = User.builder()
+      .id("user-123")
+      .account(Account.builder().email("test@example.com").password("password").build())
+      .build();
+    token = jwtService.generateAccessToken(user);
+  }
+
+  @Benchmark
+  public Jws<Claims> verifyWithPerCallKeyAndParser() throws Exception {
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    byte[] keyBytes = digest.digest(ACCESS_SECRET.getBytes(StandardCharsets.UTF_8));
+
+    return Jwts.parser().verifyWith(Keys.hmacShaKeyFor(keyBytes)).build().parseSignedClaims(token);
+  }
+
+  @Benchmark
+  public Jws<Claims> verifyWithCachedParser() {
+    return jwtService.verifyAccessToken(token);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+  }
+}
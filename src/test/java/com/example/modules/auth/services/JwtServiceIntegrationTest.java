@@ -39,7 +39,7 @@ public class JwtServiceIntegrationTest extends BaseServiceIntegrationTest {
     String key = "user:%s:tokens:invalidated_before".formatted(user.getId());
     Instant invalidatedBefore = Instant.now();
 
-    redisService.set(key, invalidatedBefore);
+    redisService.set(key, invalidatedBefore.toEpochMilli());
 
     Date tokenIssuedAt = Date.from(invalidatedBefore.minusSeconds(10));
     boolean result = jwtService.isTokenInvalidated(user.getId(), tokenIssuedAt);
@@ -53,7 +53,7 @@ public class JwtServiceIntegrationTest extends BaseServiceIntegrationTest {
     String key = "user:%s:tokens:invalidated_before".formatted(user.getId());
     Instant invalidatedBefore = Instant.now();
 
-    redisService.set(key, invalidatedBefore);
+    redisService.set(key, invalidatedBefore.toEpochMilli());
 
     Date tokenIssuedAt = Date.from(invalidatedBefore.plusSeconds(10));
     boolean result = jwtService.isTokenInvalidated(user.getId(), tokenIssuedAt);
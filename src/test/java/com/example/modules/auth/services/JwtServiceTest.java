@@ -2,13 +2,15 @@ package com.example.modules.auth.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 import com.example.base.BaseServiceTest;
-import com.example.modules.redis.services.RedisService;
+import com.example.base.enums.ErrorCode;
+import com.example.base.exceptions.AppException;
 import com.example.modules.users.entities.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
@@ -23,7 +25,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 public class JwtServiceTest extends BaseServiceTest {
 
   @Mock
-  private RedisService redisService;
+  private TokenRevocationService tokenRevocationService;
 
   @InjectMocks
   private JwtService jwtService;
@@ -32,8 +34,11 @@ public class JwtServiceTest extends BaseServiceTest {
     "42d9aab082b09baabc0d90152d3b4d62eb70e8d747760a9fddda3f60a9596156f7c3615e83a826859d3fedb6846a38eafa457bbcd37860564717154850941776";
   private static final String TEST_REFRESH_SECRET =
     "b95b819f39de3074179c9c878943447cfd34b2f8525b8fca5441380d94f69cdb804f3bd56a5be33e688e86bd2bc667a3efefe8ccc56a6a52b36a2e2b39044bfd";
+  private static final String TEST_RESET_PASSWORD_SECRET =
+    "0f7a1b4e6c2d9e8f3a5b7c1d0e2f4a6b8c9d1e3f5a7b9c0d2e4f6a8b0c1d3e5f";
   private static final Long TEST_ACCESS_EXPIRATION = 3600L;
   private static final Long TEST_REFRESH_EXPIRATION = 7200L;
+  private static final Long TEST_RESET_PASSWORD_EXPIRATION = 900L;
 
   @BeforeEach
   void setup() {
@@ -41,15 +46,23 @@ public class JwtServiceTest extends BaseServiceTest {
     ReflectionTestUtils.setField(jwtService, "REFRESH_SECRET", TEST_REFRESH_SECRET);
     ReflectionTestUtils.setField(jwtService, "ACCESS_EXPIRATION", TEST_ACCESS_EXPIRATION);
     ReflectionTestUtils.setField(jwtService, "REFRESH_EXPIRATION", TEST_REFRESH_EXPIRATION);
+    ReflectionTestUtils.setField(jwtService, "RESET_PASSWORD_SECRET", TEST_RESET_PASSWORD_SECRET);
+    ReflectionTestUtils.setField(
+      jwtService,
+      "RESET_PASSWORD_EXPIRATION",
+      TEST_RESET_PASSWORD_EXPIRATION
+    );
+    jwtService.init();
   }
 
   @Test
   void testIsTokenInvalidated_WhenInvalidatedBeforeIsNull_ShouldReturnFalse() {
     String userId = "user123";
     Date tokenIssuedAt = new Date();
-    String key = "user:%s:tokens:invalidated_before".formatted(userId);
 
-    when(redisService.get(key, Instant.class)).thenReturn(null);
+    when(tokenRevocationService.getWatermark(userId)).thenReturn(
+      TokenRevocationService.NO_WATERMARK
+    );
 
     boolean result = jwtService.isTokenInvalidated(userId, tokenIssuedAt);
 
@@ -61,9 +74,10 @@ public class JwtServiceTest extends BaseServiceTest {
     String userId = "user123";
     Instant invalidatedBefore = Instant.now().minusSeconds(60);
     Date tokenIssuedAt = Date.from(Instant.now());
-    String key = "user:%s:tokens:invalidated_before".formatted(userId);
 
-    when(redisService.get(key, Instant.class)).thenReturn(invalidatedBefore);
+    when(tokenRevocationService.getWatermark(userId)).thenReturn(
+      invalidatedBefore.toEpochMilli()
+    );
 
     boolean result = jwtService.isTokenInvalidated(userId, tokenIssuedAt);
 
@@ -75,15 +89,38 @@ public class JwtServiceTest extends BaseServiceTest {
     String userId = "user123";
     Instant invalidatedBefore = Instant.now();
     Date tokenIssuedAt = Date.from(invalidatedBefore.minusSeconds(60));
-    String key = "user:%s:tokens:invalidated_before".formatted(userId);
 
-    when(redisService.get(key, Instant.class)).thenReturn(invalidatedBefore);
+    when(tokenRevocationService.getWatermark(userId)).thenReturn(
+      invalidatedBefore.toEpochMilli()
+    );
 
     boolean result = jwtService.isTokenInvalidated(userId, tokenIssuedAt);
 
     assertTrue(result);
   }
 
+  @Test
+  void testIsTokenInvalidated_WhenRevokedLaterInTheSameSecond_ShouldReturnTrue() {
+    String userId = "user123";
+    Instant issuedAt = Instant.ofEpochMilli(1760000000100L);
+
+    when(tokenRevocationService.getWatermark(userId)).thenReturn(1760000000900L);
+
+    assertTrue(jwtService.isTokenInvalidated(userId, Date.from(issuedAt)));
+  }
+
+  @Test
+  void testGetIssuedAt_ShouldHaveMillisecondPrecision() {
+    Instant before = Instant.now();
+    Claims claims = jwtService.verifyAccessToken(jwtService.generateAccessToken(getMockUser()))
+      .getPayload();
+
+    Date issuedAt = JwtService.getIssuedAt(claims);
+
+    assertTrue(issuedAt.getTime() >= before.toEpochMilli());
+    assertEquals(claims.getIssuedAt().getTime() / 1000, issuedAt.getTime() / 1000);
+  }
+
   @Test
   void testGenerateAccessToken_ShouldContainCorrectClaims() {
     User mockUser = getMockUser();
@@ -194,4 +231,92 @@ public class JwtServiceTest extends BaseServiceTest {
     String invalidToken = "invalid.token.value";
     assertThrows(Exception.class, () -> jwtService.verifyRefreshToken(invalidToken));
   }
+
+  @Test
+  void testGenerateAccessToken_ShouldContainKeyIdHeader() {
+    String token = jwtService.generateAccessToken(getMockUser());
+
+    Jws<Claims> parsed = jwtService.verifyAccessToken(token);
+
+    assertNotNull(parsed.getHeader().getKeyId());
+  }
+
+  @Test
+  void testVerifyAccessToken_WithTokenSignedWithPreviousSecret_ShouldReturnClaims() {
+    User mockUser = getMockUser();
+    String tokenBeforeRotation = jwtService.generateAccessToken(mockUser);
+    String keyIdBeforeRotation = jwtService
+      .verifyAccessToken(tokenBeforeRotation)
+      .getHeader()
+      .getKeyId();
+
+    // Rotation through the configuration: the current secret becomes a previous secret
+    ReflectionTestUtils.setField(jwtService, "ACCESS_SECRET", "new-access-secret");
+    ReflectionTestUtils.setField(
+      jwtService,
+      "ACCESS_PREVIOUS_SECRETS",
+      new String[] { TEST_ACCESS_SECRET }
+    );
+    jwtService.init();
+    String tokenAfterRotation = jwtService.generateAccessToken(mockUser);
+
+    assertEquals(
+      mockUser.getId(),
+      jwtService.verifyAccessToken(tokenBeforeRotation).getPayload().getSubject()
+    );
+    assertEquals(
+      mockUser.getId(),
+      jwtService.verifyAccessToken(tokenAfterRotation).getPayload().getSubject()
+    );
+    assertNotEquals(
+      keyIdBeforeRotation,
+      jwtService.verifyAccessToken(tokenAfterRotation).getHeader().getKeyId()
+    );
+  }
+
+  @Test
+  void testVerifyAccessToken_WithTokenSignedWithRemovedSecret_ShouldThrowTokenInvalid() {
+    String token = jwtService.generateAccessToken(getMockUser());
+
+    ReflectionTestUtils.setField(jwtService, "ACCESS_SECRET", "new-access-secret");
+    jwtService.init();
+
+    AppException exception = assertThrows(AppException.class, () ->
+      jwtService.verifyAccessToken(token)
+    );
+    assertEquals(ErrorCode.TOKEN_INVALID, exception.getErrorCode());
+  }
+
+  @Test
+  void testVerifyAccessToken_WithTokenSignedByUnknownKey_ShouldThrowTokenInvalid() {
+    String refreshToken = jwtService.generateRefreshToken(getMockUser());
+
+    AppException exception = assertThrows(AppException.class, () ->
+      jwtService.verifyAccessToken(refreshToken)
+    );
+    assertEquals(ErrorCode.TOKEN_INVALID, exception.getErrorCode());
+  }
+
+  @Test
+  void testVerifyResetPasswordToken_WithValidToken_ShouldReturnClaims() {
+    User mockUser = getMockUser();
+    String token = jwtService.generateResetPasswordToken(mockUser);
+
+    Jws<Claims> parsed = jwtService.verifyResetPasswordToken(token, mockUser);
+
+    assertEquals(mockUser.getId(), parsed.getPayload().getSubject());
+    assertEquals("reset_password", parsed.getPayload().get("type"));
+  }
+
+  @Test
+  void testVerifyResetPasswordToken_AfterPasswordChanged_ShouldThrowTokenInvalid() {
+    User mockUser = getMockUser();
+    String token = jwtService.generateResetPasswordToken(mockUser);
+    mockUser.getAccount().setPassword("new-password-hash");
+
+    AppException exception = assertThrows(AppException.class, () ->
+      jwtService.verifyResetPasswordToken(token, mockUser)
+    );
+    assertEquals(ErrorCode.TOKEN_INVALID, exception.getErrorCode());
+  }
 }
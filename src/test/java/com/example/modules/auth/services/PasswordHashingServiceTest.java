@@ -0,0 +1,90 @@
+package com.example.modules.auth.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.base.BaseServiceTest;
+import com.example.base.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PasswordHashingServiceTest extends BaseServiceTest {
+
+  private MeterRegistry meterRegistry;
+  private PasswordHashingService passwordHashingService;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    passwordHashingService = new PasswordHashingService(meterRegistry);
+    ReflectionTestUtils.setField(passwordHashingService, "STRENGTH", 5);
+    ReflectionTestUtils.setField(passwordHashingService, "POOL_SIZE", 1);
+    ReflectionTestUtils.setField(passwordHashingService, "QUEUE_CAPACITY", 1);
+    ReflectionTestUtils.setField(passwordHashingService, "RETRY_AFTER", 3L);
+    passwordHashingService.init();
+  }
+
+  @AfterEach
+  void cleanup() {
+    passwordHashingService.shutdown();
+  }
+
+  @Test
+  void encode_ShouldProduceHashThatMatchesRawPassword() {
+    String encoded = passwordHashingService.encode("password@123456");
+
+    assertTrue(passwordHashingService.matches("password@123456", encoded));
+    assertFalse(passwordHashingService.matches("wrong password", encoded));
+    assertEquals(
+      1,
+      meterRegistry.get("auth.password_hashing.duration").tag("operation", "encode").timer().count()
+    );
+  }
+
+  @Test
+  void upgradeEncoding_WhenHashHasLowerStrength_ShouldReturnTrue() {
+    String weakHash = new BCryptPasswordEncoder(4).encode("password@123456");
+    String currentHash = new BCryptPasswordEncoder(5).encode("password@123456");
+
+    assertTrue(passwordHashingService.upgradeEncoding(weakHash));
+    assertFalse(passwordHashingService.upgradeEncoding(currentHash));
+  }
+
+  @Test
+  void encode_WhenPoolIsSaturated_ShouldThrowTooManyRequestsException() throws Exception {
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(
+      passwordHashingService,
+      "executor"
+    );
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    // One task occupies the only thread, another one fills the queue
+    executor.submit(() -> {
+      started.countDown();
+      release.await();
+      return null;
+    });
+    started.await();
+    executor.submit(() -> null);
+
+    try {
+      TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, () ->
+        passwordHashingService.encode("password@123456")
+      );
+      assertEquals(3L, exception.getRetryAfterSeconds());
+      assertEquals(1, meterRegistry.get("auth.password_hashing.rejected").counter().count());
+    } finally {
+      release.countDown();
+    }
+  }
+}
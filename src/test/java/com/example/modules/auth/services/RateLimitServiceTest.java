@@ -0,0 +1,101 @@
+package com.example.modules.auth.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.auth.services.RateLimitService.Bucket;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RateLimitServiceTest extends BaseServiceTest {
+
+  private static final Bucket IP_BUCKET = new Bucket("login:ip:127.0.0.1", 20, 10);
+  private static final Bucket EMAIL_BUCKET = new Bucket("login:email:test@example.com", 5, 1);
+
+  @Mock
+  private StringRedisTemplate stringRedisTemplate;
+
+  @InjectMocks
+  private RateLimitService rateLimitService;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(rateLimitService, "LOCAL_CACHE_MAX_SIZE", 100L);
+    rateLimitService.init();
+  }
+
+  @Test
+  void tryConsume_WhenBucketsHaveTokens_ShouldAllowTheRequest() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+      .thenReturn(List.of(0L, 0L, 0L));
+
+    assertEquals(0L, rateLimitService.tryConsume(List.of(IP_BUCKET, EMAIL_BUCKET)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void tryConsume_ShouldPrefixKeysAndPassRefillRatesPerMillisecond() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+      .thenReturn(List.of(0L, 0L));
+
+    rateLimitService.tryConsume(List.of(EMAIL_BUCKET));
+
+    verify(stringRedisTemplate).execute(
+      any(RedisScript.class),
+      eq(List.of("rate_limit:login:email:test@example.com")),
+      eq("5"),
+      eq(Double.toString(1 / 60_000d))
+    );
+  }
+
+  @Test
+  void tryConsume_WhenBucketIsEmpty_ShouldRejectLaterRequestsWithoutCallingRedis() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+      .thenReturn(List.of(30_000L, 0L, 30_000L));
+
+    assertEquals(30_000L, rateLimitService.tryConsume(List.of(IP_BUCKET, EMAIL_BUCKET)));
+
+    long retryAfter = rateLimitService.tryConsume(List.of(IP_BUCKET, EMAIL_BUCKET));
+    assertTrue(retryAfter > 0 && retryAfter <= 30_000L);
+
+    verify(stringRedisTemplate, times(1)).execute(
+      any(RedisScript.class),
+      anyList(),
+      any(Object[].class)
+    );
+  }
+
+  @Test
+  void tryConsume_WhenOnlyOneBucketIsEmpty_ShouldStillCallRedisForTheOtherBuckets() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+      .thenReturn(List.of(30_000L, 0L, 30_000L), List.of(0L, 0L));
+
+    rateLimitService.tryConsume(List.of(IP_BUCKET, EMAIL_BUCKET));
+
+    // Another email from the same IP is only limited by the IP bucket
+    assertEquals(0L, rateLimitService.tryConsume(List.of(IP_BUCKET)));
+  }
+
+  @Test
+  void tryConsume_WhenRedisFails_ShouldAllowTheRequest() {
+    when(
+      stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))
+    ).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+    assertEquals(0L, rateLimitService.tryConsume(List.of(IP_BUCKET, EMAIL_BUCKET)));
+  }
+}
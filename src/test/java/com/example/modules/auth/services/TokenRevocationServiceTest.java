@@ -0,0 +1,135 @@
+package com.example.modules.auth.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TokenRevocationServiceTest extends BaseServiceTest {
+
+  private static final String USER_ID = "user-123";
+  private static final String KEY = "user:user-123:tokens:invalidated_before";
+
+  @Mock
+  private StringRedisTemplate stringRedisTemplate;
+
+  @Mock
+  private ValueOperations<String, String> valueOperations;
+
+  @Mock
+  private RedisMessageListenerContainer redisMessageListenerContainer;
+
+  @InjectMocks
+  private TokenRevocationService tokenRevocationService;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(tokenRevocationService, "REFRESH_EXPIRATION", 7200L);
+    ReflectionTestUtils.setField(tokenRevocationService, "LOCAL_CACHE_MAX_SIZE", 100L);
+    ReflectionTestUtils.setField(tokenRevocationService, "LOCAL_CACHE_EXPIRATION", 60L);
+    tokenRevocationService.init();
+
+    lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+  }
+
+  @Test
+  void getWatermark_WhenNoWatermarkExists_ShouldCacheTheMiss() {
+    when(valueOperations.get(KEY)).thenReturn(null);
+
+    assertEquals(TokenRevocationService.NO_WATERMARK, tokenRevocationService.getWatermark(USER_ID));
+    assertEquals(TokenRevocationService.NO_WATERMARK, tokenRevocationService.getWatermark(USER_ID));
+
+    verify(valueOperations, times(1)).get(KEY);
+  }
+
+  @Test
+  void getWatermark_ShouldParseEpochMillis() {
+    when(valueOperations.get(KEY)).thenReturn("1760000000000");
+
+    assertEquals(1760000000000L, tokenRevocationService.getWatermark(USER_ID));
+  }
+
+  @Test
+  void getWatermark_WhenWatermarkIsLegacyJsonInstant_ShouldRoundUpToTheNextMillisecond() {
+    when(valueOperations.get(KEY)).thenReturn("1760000000.250000001");
+
+    assertEquals(1760000000251L, tokenRevocationService.getWatermark(USER_ID));
+  }
+
+  @Test
+  void getWatermark_WhenRedisFails_ShouldNotCacheTheResult() {
+    when(valueOperations.get(KEY))
+      .thenThrow(new RuntimeException("Connection refused"))
+      .thenReturn("1760000000000");
+
+    assertEquals(TokenRevocationService.NO_WATERMARK, tokenRevocationService.getWatermark(USER_ID));
+    assertEquals(1760000000000L, tokenRevocationService.getWatermark(USER_ID));
+  }
+
+  @Test
+  void revokeAll_ShouldStoreWatermarkWithExpirationAndNotifyOtherInstances() {
+    long before = Instant.now().toEpochMilli();
+
+    tokenRevocationService.revokeAll(USER_ID);
+
+    ArgumentCaptor<String> watermark = ArgumentCaptor.forClass(String.class);
+    verify(valueOperations).set(eq(KEY), watermark.capture(), eq(Duration.ofSeconds(7200)));
+    verify(stringRedisTemplate).convertAndSend(
+      "channel:token_revocation",
+      USER_ID + ":" + watermark.getValue()
+    );
+    assertTrue(Long.parseLong(watermark.getValue()) >= before);
+    assertEquals(
+      Long.parseLong(watermark.getValue()),
+      tokenRevocationService.getWatermark(USER_ID)
+    );
+    verify(valueOperations, never()).get(anyString());
+  }
+
+  @Test
+  void onMessage_ShouldNeverLowerTheCachedWatermark() {
+    tokenRevocationService.onMessage(message(USER_ID + ":1760000100"), null);
+    tokenRevocationService.onMessage(message(USER_ID + ":1760000000"), null);
+
+    assertEquals(1760000100L, tokenRevocationService.getWatermark(USER_ID));
+    verify(valueOperations, never()).get(anyString());
+  }
+
+  @Test
+  void onMessage_WhenTheMissIsCached_ShouldRaiseTheCachedWatermark() {
+    when(valueOperations.get(KEY)).thenReturn(null);
+    tokenRevocationService.getWatermark(USER_ID);
+
+    tokenRevocationService.onMessage(message(USER_ID + ":1760000100"), null);
+
+    assertEquals(1760000100L, tokenRevocationService.getWatermark(USER_ID));
+    verify(valueOperations, times(1)).get(KEY);
+  }
+
+  private static DefaultMessage message(String body) {
+    return new DefaultMessage(
+      "channel:token_revocation".getBytes(StandardCharsets.UTF_8),
+      body.getBytes(StandardCharsets.UTF_8)
+    );
+  }
+}
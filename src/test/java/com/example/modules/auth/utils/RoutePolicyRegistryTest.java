@@ -0,0 +1,153 @@
+package com.example.modules.auth.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.auth.annotations.AllowRoles;
+import com.example.modules.auth.annotations.OptionalAuth;
+import com.example.modules.auth.annotations.Public;
+import com.example.modules.auth.enums.Role;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+public class RoutePolicyRegistryTest extends BaseServiceTest {
+
+  @Mock
+  private RequestMappingHandlerMapping handlerMapping;
+
+  @InjectMocks
+  private RoutePolicyRegistry routePolicyRegistry;
+
+  @BeforeEach
+  void setup() throws Exception {
+    Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+    handlerMethods.put(mapping("/api/v1/posts", RequestMethod.GET), handler("findAllPosts"));
+    handlerMethods.put(mapping("/api/v1/posts/{id}", RequestMethod.GET), handler("findPost"));
+    handlerMethods.put(mapping("/api/v1/posts/me", RequestMethod.GET), handler("findMyPosts"));
+    handlerMethods.put(mapping("/api/v1/posts", RequestMethod.POST), handler("createPost"));
+    handlerMethods.put(mapping("/api/v1/admin/**"), handler("admin"));
+    handlerMethods.put(
+      mapping("/api/v1/reports", RequestMethod.GET).mutate().params("format=csv").build(),
+      handler("exportReport")
+    );
+    handlerMethods.put(
+      mapping("/api/v1/reports", RequestMethod.GET).mutate().params("format=pdf").build(),
+      handler("printReport")
+    );
+
+    when(handlerMapping.getHandlerMethods()).thenReturn(handlerMethods);
+    routePolicyRegistry.refresh();
+  }
+
+  @Test
+  void resolve_WhenRouteIsPublic_ShouldReturnPublicPolicy() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("GET", "/api/v1/posts"));
+
+    assertTrue(policy.isPublic());
+  }
+
+  @Test
+  void resolve_WhenRouteIsOptionalAuth_ShouldReturnOptionalAuthPolicy() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("GET", "/api/v1/posts/abc"));
+
+    assertFalse(policy.isPublic());
+    assertTrue(policy.isOptionalAuth());
+  }
+
+  @Test
+  void resolve_WhenSeveralPatternsMatch_ShouldUseMostSpecificPattern() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("GET", "/api/v1/posts/me"));
+
+    assertEquals(RoutePolicy.AUTHENTICATED, policy);
+  }
+
+  @Test
+  void resolve_ShouldDistinguishHttpMethods() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("POST", "/api/v1/posts"));
+
+    assertEquals(RoutePolicy.AUTHENTICATED, policy);
+  }
+
+  @Test
+  void resolve_WhenRouteHasAllowRoles_ShouldOnlyAllowThoseRoles() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("DELETE", "/api/v1/admin/users/1"));
+
+    assertEquals(Set.of(Role.ADMIN.getValue()), policy.allowedRoles());
+    assertTrue(policy.isRoleAllowed(Role.ADMIN.getValue()));
+    assertFalse(policy.isRoleAllowed(Role.USER.getValue()));
+  }
+
+  @Test
+  void resolve_WhenHandlersOfSameRouteAllowDisjointRoles_ShouldAllowNoRole() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("GET", "/api/v1/reports"));
+
+    assertEquals(Set.of(), policy.allowedRoles());
+    assertFalse(policy.isRoleAllowed(Role.ADMIN.getValue()));
+    assertFalse(policy.isRoleAllowed(Role.USER.getValue()));
+  }
+
+  @Test
+  void resolve_WhenRouteIsWhitelisted_ShouldReturnPublicPolicy() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("GET", "/api/v1/docs/index.html"));
+
+    assertEquals(RoutePolicy.PUBLIC, policy);
+  }
+
+  @Test
+  void resolve_WhenNoRouteMatches_ShouldRequireAuthentication() {
+    RoutePolicy policy = routePolicyRegistry.resolve(request("GET", "/api/v1/unknown"));
+
+    assertEquals(RoutePolicy.AUTHENTICATED, policy);
+  }
+
+  private static RequestMappingInfo mapping(String path, RequestMethod... methods) {
+    RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+    config.setPatternParser(PathPatternParser.defaultInstance);
+
+    return RequestMappingInfo.paths(path).methods(methods).options(config).build();
+  }
+
+  private static HandlerMethod handler(String methodName) throws NoSuchMethodException {
+    return new HandlerMethod(new TestController(), TestController.class.getMethod(methodName));
+  }
+
+  private static MockHttpServletRequest request(String method, String path) {
+    return new MockHttpServletRequest(method, path);
+  }
+
+  static class TestController {
+
+    @Public
+    public void findAllPosts() {}
+
+    @OptionalAuth
+    public void findPost() {}
+
+    public void findMyPosts() {}
+
+    public void createPost() {}
+
+    @AllowRoles(Role.ADMIN)
+    public void admin() {}
+
+    @AllowRoles(Role.ADMIN)
+    public void exportReport() {}
+
+    @AllowRoles(Role.USER)
+    public void printReport() {}
+  }
+}
@@ -0,0 +1,309 @@
+package com.example.modules.email.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.base.enums.ErrorCode;
+import com.example.base.exceptions.AppException;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.email.dtos.BulkEmailChunkEventDTO;
+import com.example.modules.email.dtos.CreateBulkEmailDTO;
+import com.example.modules.email.entities.BulkEmailJob;
+import com.example.modules.email.enums.BulkEmailJobStatus;
+import com.example.modules.email.repositories.BulkEmailJobsRepository;
+import com.example.modules.email.utils.BulkEmailJobMapper;
+import com.example.modules.outbox.services.OutboxService;
+import com.example.modules.users.dtos.UserContactDTO;
+import com.example.modules.users.repositories.UsersRepository;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BulkEmailServiceTest extends BaseServiceTest {
+
+  private static final String PROGRESS_KEY = "bulk_email:job-1:chunk:c:progress";
+
+  @Mock
+  private BulkEmailJobsRepository bulkEmailJobsRepository;
+
+  @Mock
+  private UsersRepository usersRepository;
+
+  @Mock
+  private OutboxService outboxService;
+
+  @Mock
+  private EmailService emailService;
+
+  @Mock
+  private EmailTemplateRenderer emailTemplateRenderer;
+
+  @Mock
+  private BulkEmailJobMapper bulkEmailJobMapper;
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private HashOperations<String, Object, Object> hashOperations;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private BulkEmailService bulkEmailService;
+
+  @BeforeEach
+  void setup() {
+    bulkEmailService = new BulkEmailService(
+      bulkEmailJobsRepository,
+      usersRepository,
+      outboxService,
+      emailService,
+      emailTemplateRenderer,
+      bulkEmailJobMapper,
+      redisTemplate,
+      transactionManager
+    );
+    ReflectionTestUtils.setField(bulkEmailService, "CHUNK_SIZE", 2);
+    ReflectionTestUtils.setField(bulkEmailService, "MAX_PENDING_CHUNKS", 2);
+  }
+
+  @Test
+  void createJob_WhenTemplateDoesNotExist_ShouldThrowException() {
+    when(emailTemplateRenderer.exists("unknown")).thenReturn(false);
+
+    AppException exception = assertThrows(AppException.class, () ->
+      bulkEmailService.createJob(
+        CreateBulkEmailDTO.builder().templateName("unknown").subject("Subject").build()
+      )
+    );
+
+    assertEquals(ErrorCode.EMAIL_TEMPLATE_NOT_FOUND, exception.getErrorCode());
+    verify(bulkEmailJobsRepository, never()).save(any());
+  }
+
+  @Test
+  void dispatch_ShouldPublishChunksAfterTheCursorUntilTheMaxPendingChunks() {
+    BulkEmailJob job = getJob(Role.USER);
+    when(bulkEmailJobsRepository.lockDispatchable(eq(2), anyInt())).thenReturn(List.of(job));
+    when(
+      usersRepository.findContactIdsAfter("", EnumSet.of(Role.USER), Limit.of(2))
+    ).thenReturn(List.of("a", "b"));
+    when(
+      usersRepository.findContactIdsAfter("b", EnumSet.of(Role.USER), Limit.of(2))
+    ).thenReturn(List.of("c", "d"));
+
+    assertEquals(2, bulkEmailService.dispatch());
+
+    ArgumentCaptor<BulkEmailChunkEventDTO> chunks = ArgumentCaptor.forClass(
+      BulkEmailChunkEventDTO.class
+    );
+    verify(outboxService, times(2)).publish(
+      eq(BulkEmailService.CHUNKS_STREAM_KEY),
+      chunks.capture()
+    );
+    assertEquals("", chunks.getAllValues().get(0).getAfterUserId());
+    assertEquals("b", chunks.getAllValues().get(0).getLastUserId());
+    assertEquals("b", chunks.getAllValues().get(1).getAfterUserId());
+    assertEquals("d", chunks.getAllValues().get(1).getLastUserId());
+    assertEquals("d", job.getLastDispatchedUserId());
+    assertEquals(2, job.getDispatchedChunks());
+    assertEquals(BulkEmailJobStatus.RUNNING, job.getStatus());
+  }
+
+  @Test
+  void dispatch_WhenNoRecipientsAreLeft_ShouldMarkTheJobAsDispatched() {
+    BulkEmailJob job = getJob(null);
+    job.setLastDispatchedUserId("b");
+    job.setDispatchedChunks(1);
+    when(bulkEmailJobsRepository.lockDispatchable(eq(2), anyInt())).thenReturn(List.of(job));
+    when(
+      usersRepository.findContactIdsAfter("b", EnumSet.allOf(Role.class), Limit.of(2))
+    ).thenReturn(List.of("c"));
+
+    assertEquals(1, bulkEmailService.dispatch());
+
+    assertEquals("c", job.getLastDispatchedUserId());
+    assertEquals(BulkEmailJobStatus.DISPATCHED, job.getStatus());
+  }
+
+  @Test
+  void dispatch_WhenEveryChunkIsSent_ShouldCompleteTheJob() {
+    BulkEmailJob job = getJob(null);
+    job.setLastDispatchedUserId("b");
+    job.setDispatchedChunks(1);
+    job.setCompletedChunks(1);
+    when(bulkEmailJobsRepository.lockDispatchable(eq(2), anyInt())).thenReturn(List.of(job));
+    when(
+      usersRepository.findContactIdsAfter("b", EnumSet.allOf(Role.class), Limit.of(2))
+    ).thenReturn(List.of());
+
+    assertEquals(0, bulkEmailService.dispatch());
+
+    assertEquals(BulkEmailJobStatus.COMPLETED, job.getStatus());
+    verify(outboxService, never()).publish(anyString(), any());
+  }
+
+  @Test
+  void sendChunk_ShouldSendTheEmailsOfTheRecipientsAndRecordTheProgress() {
+    BulkEmailJob job = getJob(Role.USER);
+    when(bulkEmailJobsRepository.findById("job-1")).thenReturn(Optional.of(job));
+    when(usersRepository.findContactsBetween("a", "c", EnumSet.of(Role.USER))).thenReturn(
+      List.of(
+        new UserContactDTO("b", "b@example.com", "John", "Doe"),
+        new UserContactDTO("c", "c@example.com", "Jane", "Doe")
+      )
+    );
+    when(emailService.sendHtmlEmails(eq("Subject"), eq("newsletter"), anyMap())).thenReturn(1);
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(Map.of());
+
+    bulkEmailService.sendChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<String, Map<String, Object>>> variables = ArgumentCaptor.forClass(
+      Map.class
+    );
+    verify(emailService).sendHtmlEmails(eq("Subject"), eq("newsletter"), variables.capture());
+    assertEquals(
+      List.of("b@example.com", "c@example.com"),
+      List.copyOf(variables.getValue().keySet())
+    );
+    assertEquals("Jane Doe", variables.getValue().get("c@example.com").get("username"));
+    assertEquals("May", variables.getValue().get("c@example.com").get("month"));
+    verify(bulkEmailJobsRepository).recordChunk("job-1", 1, 1);
+    verify(hashOperations).putAll(
+      PROGRESS_KEY,
+      Map.of("cursor", "c", "sent", "1", "failed", "1")
+    );
+    verify(hashOperations).put(PROGRESS_KEY, "recorded", "true");
+    verify(redisTemplate, never()).delete(PROGRESS_KEY);
+  }
+
+  @Test
+  void sendChunk_WhenTheChunkWasPartlySent_ShouldOnlySendToTheRemainingRecipients() {
+    when(bulkEmailJobsRepository.findById("job-1")).thenReturn(Optional.of(getJob(Role.USER)));
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(
+      Map.of("cursor", "b", "sent", "1", "failed", "0")
+    );
+    when(usersRepository.findContactsBetween("b", "c", EnumSet.of(Role.USER))).thenReturn(
+      List.of(new UserContactDTO("c", "c@example.com", "Jane", "Doe"))
+    );
+
+    bulkEmailService.sendChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Map<String, Map<String, Object>>> variables = ArgumentCaptor.forClass(
+      Map.class
+    );
+    verify(emailService).sendHtmlEmails(eq("Subject"), eq("newsletter"), variables.capture());
+    assertEquals(List.of("c@example.com"), List.copyOf(variables.getValue().keySet()));
+    verify(bulkEmailJobsRepository).recordChunk("job-1", 2, 0);
+  }
+
+  @Test
+  void sendChunk_WhenTheChunkWasSentButNotRecorded_ShouldOnlyRecordIt() {
+    when(bulkEmailJobsRepository.findById("job-1")).thenReturn(Optional.of(getJob(Role.USER)));
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(
+      Map.of("cursor", "c", "sent", "1", "failed", "1")
+    );
+    when(usersRepository.findContactsBetween("c", "c", EnumSet.of(Role.USER))).thenReturn(
+      List.of()
+    );
+
+    bulkEmailService.sendChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    verify(emailService, never()).sendHtmlEmails(anyString(), anyString(), anyMap());
+    verify(bulkEmailJobsRepository).recordChunk("job-1", 1, 1);
+    verify(hashOperations).put(PROGRESS_KEY, "recorded", "true");
+  }
+
+  @Test
+  void sendChunk_WhenTheChunkWasRecorded_ShouldNeitherSendNorRecordItAgain() {
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(
+      Map.of("cursor", "c", "sent", "1", "failed", "1", "recorded", "true")
+    );
+
+    bulkEmailService.sendChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    verify(emailService, never()).sendHtmlEmails(anyString(), anyString(), anyMap());
+    verify(bulkEmailJobsRepository, never()).recordChunk(anyString(), anyLong(), anyLong());
+  }
+
+  @Test
+  void sendChunk_WhenJobIsCancelled_ShouldSkipTheChunk() {
+    BulkEmailJob job = getJob(null);
+    job.setStatus(BulkEmailJobStatus.CANCELLED);
+    when(bulkEmailJobsRepository.findById("job-1")).thenReturn(Optional.of(job));
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(Map.of());
+
+    bulkEmailService.sendChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    verify(emailService, never()).sendHtmlEmails(anyString(), anyString(), anyMap());
+    verify(bulkEmailJobsRepository).recordChunk("job-1", 0, 0);
+    verify(hashOperations).put(PROGRESS_KEY, "recorded", "true");
+  }
+
+  @Test
+  void recordFailedChunk_ShouldCountTheRecipientsNotSentYetAsFailed() {
+    when(bulkEmailJobsRepository.findById("job-1")).thenReturn(Optional.of(getJob(Role.USER)));
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(
+      Map.of("cursor", "b", "sent", "1", "failed", "0")
+    );
+    when(usersRepository.findContactsBetween("b", "c", EnumSet.of(Role.USER))).thenReturn(
+      List.of(new UserContactDTO("c", "c@example.com", "Jane", "Doe"))
+    );
+
+    bulkEmailService.recordFailedChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    verify(emailService, never()).sendHtmlEmails(anyString(), anyString(), anyMap());
+    verify(bulkEmailJobsRepository).recordChunk("job-1", 1, 1);
+    verify(hashOperations).put(PROGRESS_KEY, "recorded", "true");
+  }
+
+  @Test
+  void recordFailedChunk_WhenTheChunkWasRecorded_ShouldNotRecordItAgain() {
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.entries(PROGRESS_KEY)).thenReturn(Map.of("recorded", "true"));
+
+    bulkEmailService.recordFailedChunk(new BulkEmailChunkEventDTO("job-1", "a", "c"));
+
+    verify(bulkEmailJobsRepository, never()).recordChunk(anyString(), anyLong(), anyLong());
+  }
+
+  private BulkEmailJob getJob(Role role) {
+    return BulkEmailJob.builder()
+      .id("job-1")
+      .templateName("newsletter")
+      .subject("Subject")
+      .variables(Map.of("month", "May"))
+      .role(role)
+      .build();
+  }
+}
@@ -0,0 +1,68 @@
+package com.example.modules.email.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.email.utils.CssInliner;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+public class EmailTemplateRendererTest extends BaseServiceTest {
+
+  private static final Map<String, Object> VARIABLES = Map.of(
+    "username",
+    "John <Doe> & \"Co\"",
+    "resetLink",
+    "http://localhost:3000/reset-password?token=abc&lang=en",
+    "expirationTime",
+    15L
+  );
+
+  private SpringTemplateEngine templateEngine;
+  private EmailTemplateRenderer renderer;
+
+  @BeforeEach
+  void setup() throws Exception {
+    templateEngine = createTemplateEngine();
+    renderer = new EmailTemplateRenderer(templateEngine);
+    renderer.compileTemplates();
+  }
+
+  @Test
+  void render_ShouldRenderLikeThymeleafWithTheCssInlined() {
+    Context context = new Context();
+    context.setVariables(VARIABLES);
+    String expected = CssInliner.inline(templateEngine.process("forgot-password", context));
+
+    String html = renderer.render("forgot-password", VARIABLES);
+
+    assertEquals(expected, html);
+    assertTrue(html.contains("<strong>John &lt;Doe&gt; &amp; &quot;Co&quot;</strong>"));
+    assertTrue(
+      html.contains("href=\"http://localhost:3000/reset-password?token=abc&amp;lang=en\"")
+    );
+    assertTrue(html.contains("<strong>15</strong>"));
+    // The rules with pseudo-classes stay in the <style> element
+    assertTrue(html.contains(".button:hover"));
+    assertFalse(html.contains(".email-header {"));
+  }
+
+  static SpringTemplateEngine createTemplateEngine() {
+    ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+    resolver.setPrefix("templates/");
+    resolver.setSuffix(".html");
+    resolver.setTemplateMode(TemplateMode.HTML);
+    resolver.setCharacterEncoding("UTF-8");
+
+    SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+    templateEngine.setTemplateResolver(resolver);
+    return templateEngine;
+  }
+}
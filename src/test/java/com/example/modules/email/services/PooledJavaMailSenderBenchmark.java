@@ -0,0 +1,177 @@
+package com.example.modules.email.services;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+/**
+ * Measures the number of emails sent per second by 8 threads, with the {@link JavaMailSenderImpl}
+ * of Spring Boot ({@code poolSize = 0}, a connection per message) and with
+ * {@link PooledJavaMailSender}, to a local SMTP server.
+ *
+ * <p>
+ * The server waits {@value #CONNECTION_SETUP_MILLIS} ms before greeting a client, for the
+ * {@code STARTTLS} and authentication of a real server, and {@value #ROUND_TRIP_MILLIS} ms before
+ * each reply, for the network round trip.
+ * </p>
+ *
+ * <p>
+ * Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PooledJavaMailSenderBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class PooledJavaMailSenderBenchmark {
+
+  private static final long CONNECTION_SETUP_MILLIS = 20;
+  private static final long ROUND_TRIP_MILLIS = 1;
+
+  @Param({ "0", "1", "4", "8" })
+  public int poolSize;
+
+  private SmtpServer server;
+  private JavaMailSenderImpl sender;
+
+  @Setup
+  public void setup() throws IOException {
+    server = new SmtpServer();
+    sender = poolSize == 0
+      ? new JavaMailSenderImpl()
+      : new PooledJavaMailSender(poolSize, 100, Duration.ofSeconds(30));
+    sender.setHost("localhost");
+    sender.setPort(server.getPort());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    if (sender instanceof PooledJavaMailSender pooledSender) {
+      pooledSender.destroy();
+    }
+    server.close();
+  }
+
+  @Benchmark
+  public void send() throws MessagingException {
+    MimeMessage message = sender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+    helper.setFrom("noreply@example.com");
+    helper.setTo("user@example.com");
+    helper.setSubject("Reset your password");
+    helper.setText("<p>Hello</p>", true);
+
+    sender.send(message);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+      new OptionsBuilder().include(PooledJavaMailSenderBenchmark.class.getSimpleName()).build()
+    ).run();
+  }
+
+  /** A minimal SMTP server, which accepts every message and discards it. */
+  private static final class SmtpServer {
+
+    private final ServerSocket serverSocket = new ServerSocket(0);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    SmtpServer() throws IOException {
+      executor.execute(() -> {
+        while (!serverSocket.isClosed()) {
+          try {
+            Socket socket = serverSocket.accept();
+            executor.execute(() -> handle(socket));
+          } catch (IOException e) {
+            // Closed
+          }
+        }
+      });
+    }
+
+    int getPort() {
+      return serverSocket.getLocalPort();
+    }
+
+    void close() throws IOException {
+      serverSocket.close();
+      executor.shutdownNow();
+    }
+
+    private void handle(Socket socket) {
+      try (
+        socket;
+        BufferedReader reader = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)
+        )
+      ) {
+        OutputStream output = socket.getOutputStream();
+        Thread.sleep(CONNECTION_SETUP_MILLIS);
+        reply(output, "220 localhost ESMTP");
+
+        for (String line; (line = reader.readLine()) != null;) {
+          String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+
+          switch (command) {
+            case "EHLO" -> reply(output, "250-localhost\r\n250 8BITMIME");
+            case "DATA" -> {
+              reply(output, "354 End data with <CR><LF>.<CR><LF>");
+              while ((line = reader.readLine()) != null && !line.equals(".")) {
+                // Discarded
+              }
+              reply(output, "250 OK");
+            }
+            case "QUIT" -> {
+              reply(output, "221 Bye");
+              return;
+            }
+            default -> reply(output, "250 OK");
+          }
+        }
+      } catch (IOException e) {
+        // Disconnected
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private static void reply(OutputStream output, String reply)
+      throws IOException, InterruptedException {
+      Thread.sleep(ROUND_TRIP_MILLIS);
+      output.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+      output.flush();
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.example.modules.email.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.mail.MailSendException;
+
+public class PooledJavaMailSenderTest extends BaseServiceTest {
+
+  @Mock
+  private Transport firstTransport;
+
+  @Mock
+  private Transport secondTransport;
+
+  private final Session session = Session.getInstance(new Properties());
+  private Deque<Transport> transports;
+  private int connections;
+
+  @BeforeEach
+  void setup() {
+    transports = new ArrayDeque<>();
+    connections = 0;
+  }
+
+  @Test
+  void send_ShouldReuseTheConnectionForTheFollowingMessages() throws Exception {
+    when(firstTransport.isConnected()).thenReturn(true);
+    transports.add(firstTransport);
+    PooledJavaMailSender sender = createSender(100, Duration.ofSeconds(30));
+
+    sender.send(createMessage("a@example.com"));
+    sender.send(createMessage("b@example.com"), createMessage("c@example.com"));
+
+    assertEquals(1, connections);
+    verify(firstTransport, times(3)).sendMessage(any(MimeMessage.class), any(Address[].class));
+    verify(firstTransport, never()).close();
+
+    sender.destroy();
+
+    verify(firstTransport).close();
+  }
+
+  @Test
+  void send_ShouldReconnectAfterTheMaxMessagesPerConnection() throws Exception {
+    transports.add(firstTransport);
+    transports.add(secondTransport);
+    PooledJavaMailSender sender = createSender(2, Duration.ofSeconds(30));
+
+    sender.send(
+      createMessage("a@example.com"),
+      createMessage("b@example.com"),
+      createMessage("c@example.com")
+    );
+
+    assertEquals(2, connections);
+    verify(firstTransport, times(2)).sendMessage(any(MimeMessage.class), any(Address[].class));
+    verify(firstTransport).close();
+    verify(secondTransport).sendMessage(any(MimeMessage.class), any(Address[].class));
+  }
+
+  @Test
+  void send_ShouldReconnectWhenTheConnectionWasIdleForTooLong() throws Exception {
+    transports.add(firstTransport);
+    transports.add(secondTransport);
+    PooledJavaMailSender sender = createSender(100, Duration.ZERO);
+
+    sender.send(createMessage("a@example.com"));
+    sender.send(createMessage("b@example.com"));
+
+    assertEquals(2, connections);
+    verify(firstTransport).close();
+    verify(secondTransport).sendMessage(any(MimeMessage.class), any(Address[].class));
+  }
+
+  @Test
+  void send_WhenTheIdleConnectionWasClosedByTheServer_ShouldSendOverANewConnection()
+    throws Exception {
+    MimeMessage message = createMessage("b@example.com");
+    when(firstTransport.isConnected()).thenReturn(false);
+    transports.add(firstTransport);
+    transports.add(secondTransport);
+    PooledJavaMailSender sender = createSender(100, Duration.ofSeconds(30));
+
+    sender.send(createMessage("a@example.com"));
+    sender.send(message);
+
+    assertEquals(2, connections);
+    verify(firstTransport).close();
+    verify(firstTransport, never()).sendMessage(eq(message), any(Address[].class));
+    verify(secondTransport).sendMessage(eq(message), any(Address[].class));
+  }
+
+  @Test
+  void send_WhenTheConnectionFailsWhileSending_ShouldNotSendTheMessageAgain() throws Exception {
+    MimeMessage failed = createMessage("a@example.com");
+    MimeMessage following = createMessage("b@example.com");
+    doThrow(new MessagingException("IOException while sending message"))
+      .when(firstTransport)
+      .sendMessage(eq(failed), any(Address[].class));
+    transports.add(firstTransport);
+    transports.add(secondTransport);
+    PooledJavaMailSender sender = createSender(100, Duration.ofSeconds(30));
+
+    MailSendException exception = assertThrows(MailSendException.class, () ->
+      sender.send(failed, following)
+    );
+
+    assertEquals(1, exception.getFailedMessages().size());
+    assertTrue(exception.getFailedMessages().containsKey(failed));
+    assertEquals(2, connections);
+    verify(firstTransport).close();
+    verify(secondTransport, never()).sendMessage(eq(failed), any(Address[].class));
+    verify(secondTransport).sendMessage(eq(following), any(Address[].class));
+  }
+
+  @Test
+  void send_WhenRecipientsAreRejected_ShouldKeepTheConnectionAndReportTheMessage()
+    throws Exception {
+    MimeMessage rejected = createMessage("rejected@example.com");
+    MimeMessage accepted = createMessage("b@example.com");
+    doThrow(new SendFailedException("Invalid recipient"))
+      .when(firstTransport)
+      .sendMessage(eq(rejected), any(Address[].class));
+    transports.add(firstTransport);
+    PooledJavaMailSender sender = createSender(100, Duration.ofSeconds(30));
+
+    MailSendException exception = assertThrows(MailSendException.class, () ->
+      sender.send(rejected, accepted)
+    );
+
+    assertEquals(1, exception.getFailedMessages().size());
+    assertEquals(1, connections);
+    verify(firstTransport).sendMessage(eq(accepted), any(Address[].class));
+    verify(firstTransport, never()).close();
+  }
+
+  private PooledJavaMailSender createSender(int maxMessagesPerConnection, Duration maxIdleTime) {
+    PooledJavaMailSender sender = new PooledJavaMailSender(
+      2,
+      maxMessagesPerConnection,
+      maxIdleTime
+    ) {
+      @Override
+      protected Transport connectTransport() {
+        connections++;
+        return transports.remove();
+      }
+    };
+    sender.setSession(session);
+    return sender;
+  }
+
+  private MimeMessage createMessage(String recipient) throws MessagingException {
+    MimeMessage message = new MimeMessage(session);
+    message.setFrom(new InternetAddress("noreply@example.com"));
+    message.setRecipient(MimeMessage.RecipientType.TO, new InternetAddress(recipient));
+    message.setSubject("Test");
+    message.setText("Test");
+    return message;
+  }
+}
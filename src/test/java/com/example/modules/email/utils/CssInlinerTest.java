@@ -0,0 +1,56 @@
+package com.example.modules.email.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.base.BaseServiceTest;
+import org.junit.jupiter.api.Test;
+
+public class CssInlinerTest extends BaseServiceTest {
+
+  @Test
+  void inline_ShouldMoveTheMatchingRulesToTheStyleAttributes() {
+    String html = """
+      <html><head><style>
+        p { margin: 0; color: red }
+        .box p { color: blue }
+        table td { vertical-align: top }
+      </style></head>
+      <body><div class="box"><p style="margin: 4px">A</p></div><p>B</p><br />\
+      <table><tr><td></td></tr></table></body></html>""";
+
+    assertEquals(
+      """
+      <html><head></head>
+      <body><div class="box"><p style="color: blue; margin: 4px">A</p></div>\
+      <p style="margin: 0; color: red">B</p><br />\
+      <table><tr><td style="vertical-align: top"></td></tr></table></body></html>""",
+      CssInliner.inline(html)
+    );
+  }
+
+  @Test
+  void inline_WhenRulesCannotBeInlined_ShouldKeepThemInTheStyleElement() {
+    String html = """
+      <html><head><style>a { color: red } a:hover { color: blue }</style></head>\
+      <body><a href="#">A</a></body></html>""";
+
+    assertEquals(
+      """
+      <html><head><style>a:hover { color: blue }
+      </style></head><body><a href="#" style="color: red">A</a></body></html>""",
+      CssInliner.inline(html)
+    );
+  }
+
+  @Test
+  void inline_ShouldApplyImportantDeclarationsOverTheStyleAttribute() {
+    String html = """
+      <style>.button { color: white !important }</style>\
+      <a class="button" style="color: black">A</a>""";
+
+    assertEquals(
+      "<a class=\"button\" style=\"color: white !important\">A</a>",
+      CssInliner.inline(html)
+    );
+  }
+}
@@ -0,0 +1,155 @@
+package com.example.modules.minio.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.entities.ContentFile;
+import com.example.modules.minio.repositories.ContentFilesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+public class ContentFileServiceTest extends BaseServiceTest {
+
+  private static final String FILE_NAME = "content/abc";
+
+  @Mock
+  private MinioService minioService;
+
+  @Mock
+  private StorageUrlResolver storageUrlResolver;
+
+  @Mock
+  private ContentFilesRepository contentFilesRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final MockMultipartFile file = new MockMultipartFile(
+    "file",
+    "avatar.png",
+    "image/png",
+    "content".getBytes()
+  );
+
+  private ContentFileService contentFileService;
+
+  @BeforeEach
+  void setup() {
+    contentFileService = new ContentFileService(
+      minioService,
+      storageUrlResolver,
+      contentFilesRepository,
+      meterRegistry,
+      transactionManager
+    );
+    ReflectionTestUtils.setField(contentFileService, "PURGE_MIN_AGE", 3600L);
+  }
+
+  @Test
+  void store_WhenContentIsNotStored_ShouldUploadIt() throws Exception {
+    when(minioService.generateContentFileName(file)).thenReturn(FILE_NAME);
+    when(minioService.findFile(FILE_NAME)).thenReturn(Optional.empty());
+    when(storageUrlResolver.resolve(FILE_NAME)).thenReturn("http://minio.local/content/abc");
+
+    MinioFileResponse result = contentFileService.store(file);
+
+    assertEquals(FILE_NAME, result.getFileName());
+    assertEquals("http://minio.local/content/abc", result.getUrl());
+    verify(contentFilesRepository).acquire(FILE_NAME, 7, "image/png");
+    verify(minioService).putFile(file, FILE_NAME);
+  }
+
+  @Test
+  void store_ShouldCommitTheRowOfTheFileBeforeUploadingIt() throws Exception {
+    when(minioService.generateContentFileName(file)).thenReturn(FILE_NAME);
+    when(minioService.findFile(FILE_NAME)).thenReturn(Optional.empty());
+
+    contentFileService.store(file);
+
+    InOrder inOrder = inOrder(contentFilesRepository, transactionManager, minioService);
+    inOrder.verify(transactionManager).getTransaction(
+      argThat(definition ->
+        definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+      )
+    );
+    inOrder.verify(contentFilesRepository).register(FILE_NAME, 7, "image/png");
+    inOrder.verify(transactionManager).commit(any());
+    inOrder.verify(contentFilesRepository).acquire(FILE_NAME, 7, "image/png");
+    inOrder.verify(minioService).putFile(file, FILE_NAME);
+  }
+
+  @Test
+  void store_WhenContentIsStored_ShouldNotUploadIt() throws Exception {
+    when(minioService.generateContentFileName(file)).thenReturn(FILE_NAME);
+    when(minioService.findFile(FILE_NAME)).thenReturn(Optional.of(mock(StatObjectResponse.class)));
+
+    contentFileService.store(file);
+
+    verify(contentFilesRepository).acquire(FILE_NAME, 7, "image/png");
+    verify(minioService, never()).putFile(any(), anyString());
+    assertEquals(7, meterRegistry.get("storage.content.deduplicated_bytes").counter().count());
+  }
+
+  @Test
+  void release_ShouldOnlyReleaseContentFiles() {
+    contentFileService.release(FILE_NAME);
+    contentFileService.release("avatars/user-123/avatar.png");
+    contentFileService.release(null);
+
+    verify(contentFilesRepository).release(FILE_NAME);
+    verify(contentFilesRepository, never()).release("avatars/user-123/avatar.png");
+  }
+
+  @Test
+  void purge_ShouldDeleteTheFilesAndTheirDerivedFilesThenTheRows() throws Exception {
+    List<ContentFile> contentFiles = List.of(ContentFile.builder().fileName(FILE_NAME).build());
+    Item original = mock(Item.class);
+    Item thumbnail = mock(Item.class);
+    when(original.objectName()).thenReturn(FILE_NAME);
+    when(thumbnail.objectName()).thenReturn(FILE_NAME + "-64.jpg");
+    when(contentFilesRepository.lockPurgeable(any(), any(Integer.class))).thenReturn(contentFiles);
+    when(minioService.listFiles(FILE_NAME, null, 1000)).thenReturn(List.of(original, thumbnail));
+    when(minioService.deleteFiles(List.of(FILE_NAME, FILE_NAME + "-64.jpg"))).thenReturn(List.of());
+
+    assertFalse(contentFileService.purge());
+    verify(contentFilesRepository).deleteAllInBatch(contentFiles);
+  }
+
+  @Test
+  void purge_WhenFilesCannotBeDeleted_ShouldKeepTheRows() throws Exception {
+    List<ContentFile> contentFiles = List.of(ContentFile.builder().fileName(FILE_NAME).build());
+    Item original = mock(Item.class);
+    when(original.objectName()).thenReturn(FILE_NAME);
+    when(contentFilesRepository.lockPurgeable(any(), any(Integer.class))).thenReturn(contentFiles);
+    when(minioService.listFiles(FILE_NAME, null, 1000)).thenReturn(List.of(original));
+    when(minioService.deleteFiles(List.of(FILE_NAME))).thenReturn(List.of(FILE_NAME));
+
+    assertThrows(IllegalStateException.class, () -> contentFileService.purge());
+    verify(contentFilesRepository, never()).deleteAllInBatch(any());
+  }
+}
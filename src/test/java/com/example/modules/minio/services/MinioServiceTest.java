@@ -15,17 +15,33 @@ import static org.mockito.Mockito.when;
 
 import com.example.base.BaseServiceTest;
 import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.dtos.PresignedUploadResponse;
 import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
+import io.minio.ListObjectsArgs;
+import io.minio.PostPolicy;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
 import io.minio.errors.ErrorResponseException;
 import io.minio.errors.MinioException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
 import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -193,4 +209,88 @@ public class MinioServiceTest extends BaseServiceTest {
 
     assertThrows(MinioException.class, () -> minioService.deleteFile(fileName));
   }
+
+  @Test
+  void generatePresignedUpload_shouldReturnFormFieldsWithFileNameAndContentType()
+    throws Exception {
+    ReflectionTestUtils.setField(minioService, "publicEndpoint", "http://localhost/test-bucket");
+    ArgumentCaptor<PostPolicy> policy = ArgumentCaptor.forClass(PostPolicy.class);
+    when(minioClient.getPresignedPostFormData(policy.capture())).thenReturn(
+      Map.of("policy", "encoded-policy", "x-amz-signature", "signature")
+    );
+
+    PresignedUploadResponse result = minioService.generatePresignedUpload(
+      "avatars/file.png",
+      "image/png",
+      1024,
+      Duration.ofMinutes(10)
+    );
+
+    assertEquals("avatars/file.png", result.getFileName());
+    assertEquals("http://localhost/test-bucket", result.getUrl());
+    assertEquals("avatars/file.png", result.getFields().get("key"));
+    assertEquals("image/png", result.getFields().get("Content-Type"));
+    assertEquals("signature", result.getFields().get("x-amz-signature"));
+    assertEquals("test-bucket", policy.getValue().bucket());
+  }
+
+  @Test
+  void findFile_shouldReturnMetadataOfExistingFile() throws Exception {
+    StatObjectResponse stat = mock(StatObjectResponse.class);
+    when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat);
+
+    assertEquals(Optional.of(stat), minioService.findFile("file.txt"));
+  }
+
+  @Test
+  void findFile_shouldReturnEmptyForMissingFile() throws Exception {
+    assertEquals(Optional.empty(), findFileWithError("NoSuchKey"));
+  }
+
+  @Test
+  void findFile_shouldThrowExceptionOnOtherErrors() throws Exception {
+    assertThrows(ErrorResponseException.class, () -> findFileWithError("AccessDenied"));
+  }
+
+  @Test
+  void listFiles_shouldReturnAtMostOnePage() throws Exception {
+    Item first = mock(Item.class);
+    Item second = mock(Item.class);
+    when(minioClient.listObjects(any(ListObjectsArgs.class))).thenReturn(
+      List.of(new Result<>(first), new Result<>(second))
+    );
+
+    assertEquals(List.of(first), minioService.listFiles("avatars/", null, 1));
+  }
+
+  @Test
+  void deleteFiles_shouldReturnTheFilesThatCouldNotBeDeleted() throws Exception {
+    DeleteError error = mock(DeleteError.class);
+    when(error.objectName()).thenReturn("b.png");
+    when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(
+      List.of(new Result<>(error))
+    );
+
+    assertEquals(List.of("b.png"), minioService.deleteFiles(List.of("a.png", "b.png")));
+  }
+
+  @Test
+  void generateContentFileName_shouldReturnTheSha256OfTheContent() throws Exception {
+    MultipartFile file = new MockMultipartFile("file", "a.txt", "text/plain", "abc".getBytes());
+
+    assertEquals(
+      "content/ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+      minioService.generateContentFileName(file)
+    );
+  }
+
+  private Optional<StatObjectResponse> findFileWithError(String code) throws Exception {
+    ErrorResponse errorResponse = mock(ErrorResponse.class);
+    ErrorResponseException err = mock(ErrorResponseException.class);
+    when(errorResponse.code()).thenReturn(code);
+    when(err.errorResponse()).thenReturn(errorResponse);
+    when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(err);
+
+    return minioService.findFile("file.txt");
+  }
 }
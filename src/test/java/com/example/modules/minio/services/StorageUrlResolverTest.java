@@ -0,0 +1,79 @@
+package com.example.modules.minio.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.example.base.BaseServiceTest;
+import io.minio.MinioClient;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class StorageUrlResolverTest extends BaseServiceTest {
+
+  private static final String PUBLIC_ENDPOINT = "http://cdn.example.com/test-bucket";
+
+  private MinioService minioService;
+  private StorageUrlResolver storageUrlResolver;
+
+  @BeforeEach
+  void setup() {
+    // With a region, presigned URLs are built without calling the server
+    MinioClient minioClient = MinioClient.builder()
+      .endpoint("http://localhost:9000")
+      .credentials("access-key", "secret-key")
+      .region("us-east-1")
+      .build();
+    minioService = new MinioService(minioClient);
+    ReflectionTestUtils.setField(minioService, "bucket", "test-bucket");
+    ReflectionTestUtils.setField(minioService, "publicEndpoint", PUBLIC_ENDPOINT);
+
+    storageUrlResolver = new StorageUrlResolver();
+    ReflectionTestUtils.setField(storageUrlResolver, "publicEndpoint", PUBLIC_ENDPOINT);
+    ReflectionTestUtils.setField(storageUrlResolver, "URL_CACHE_MAX_SIZE", 100L);
+    storageUrlResolver.init();
+  }
+
+  @Test
+  void resolve_ShouldReturnThePresignedUrlWithoutItsSignature() throws Exception {
+    for (String fileName : List.of(
+      "avatar.png",
+      "avatars/2025-01-01T00:00:00.123Z-01098e6a-c05f-46f4-9c57-95a922bf24dd-me.png",
+      "avatars/my file (1).png",
+      "a+b=c&d~e.png"
+    )) {
+      assertEquals(
+        minioService.generatePresignedUrl(fileName),
+        storageUrlResolver.resolve(fileName)
+      );
+    }
+  }
+
+  @Test
+  void resolve_ShouldReturnTheSameUrlForTheSameFile() {
+    assertSame(storageUrlResolver.resolve("avatar.png"), storageUrlResolver.resolve("avatar.png"));
+  }
+
+  @Test
+  void resolve_WhenFileNameIsBlank_ShouldReturnNull() {
+    assertNull(storageUrlResolver.resolve(null));
+    assertNull(storageUrlResolver.resolve("  "));
+  }
+
+  @Test
+  void resolveAll_ShouldResolveEachFileOnce() {
+    Map<String, String> urls = storageUrlResolver.resolveAll(
+      Arrays.asList("a.png", "b.png", "a.png", null, "")
+    );
+
+    assertEquals(
+      Map.of("a.png", PUBLIC_ENDPOINT + "/a.png", "b.png", PUBLIC_ENDPOINT + "/b.png"),
+      urls
+    );
+    assertSame(urls.get("a.png"), storageUrlResolver.resolve("a.png"));
+  }
+}
@@ -0,0 +1,147 @@
+package com.example.modules.outbox.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.outbox.entities.OutboxEvent;
+import com.example.modules.outbox.repositories.OutboxEventsRepository;
+import com.example.modules.redis.codecs.StreamEnvelope;
+import com.example.modules.redis.publishers.RedisStreamPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class OutboxRelayTest extends BaseServiceTest {
+
+  @Mock
+  private OutboxEventsRepository outboxEventsRepository;
+
+  @Mock
+  private RedisStreamPublisher redisStreamPublisher;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private MeterRegistry meterRegistry;
+  private OutboxRelay outboxRelay;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    outboxRelay = new OutboxRelay(
+      outboxEventsRepository,
+      redisStreamPublisher,
+      transactionManager,
+      meterRegistry
+    );
+    ReflectionTestUtils.setField(outboxRelay, "BATCH_SIZE", 2);
+    ReflectionTestUtils.setField(outboxRelay, "PUBLISH_TIMEOUT", 1000L);
+    ReflectionTestUtils.setField(outboxRelay, "CLAIM_DURATION", 60000L);
+  }
+
+  @Test
+  void relayBatch_ShouldClaimTheEventsAndCommitBeforePublishingThem() {
+    when(outboxEventsRepository.lockClaimable(any(Instant.class), eq(2))).thenReturn(
+      List.of(getEvent(1L, "{\"n\":1}"))
+    );
+    when(redisStreamPublisher.send(eq("stream:test"), any(StreamEnvelope.class))).thenReturn(
+      CompletableFuture.completedFuture(RecordId.of("1-0"))
+    );
+
+    assertEquals(1, outboxRelay.relayBatch());
+
+    InOrder inOrder = inOrder(outboxEventsRepository, transactionManager, redisStreamPublisher);
+    ArgumentCaptor<Instant> claimedUntil = ArgumentCaptor.forClass(Instant.class);
+    inOrder.verify(outboxEventsRepository).claim(eq(List.of(1L)), claimedUntil.capture());
+    inOrder.verify(transactionManager).commit(any());
+    inOrder.verify(redisStreamPublisher).send(eq("stream:test"), any(StreamEnvelope.class));
+    inOrder.verify(outboxEventsRepository).deleteAllByIdInBatch(List.of(1L));
+    inOrder.verify(transactionManager).commit(any());
+    assertTrue(claimedUntil.getValue().isAfter(Instant.now().plusSeconds(50)));
+  }
+
+  @Test
+  void relayBatch_ShouldPublishTheLockedEventsAndDeleteThem() {
+    when(outboxEventsRepository.lockClaimable(any(Instant.class), eq(2))).thenReturn(
+      List.of(getEvent(1L, "{\"n\":1}"), getEvent(2L, "{\"n\":2}"))
+    );
+    when(redisStreamPublisher.send(eq("stream:test"), any(StreamEnvelope.class))).thenReturn(
+      CompletableFuture.completedFuture(RecordId.of("1-0"))
+    );
+
+    assertEquals(2, outboxRelay.relayBatch());
+
+    ArgumentCaptor<StreamEnvelope> envelope = ArgumentCaptor.forClass(StreamEnvelope.class);
+    verify(redisStreamPublisher, times(2)).send(
+      eq("stream:test"),
+      envelope.capture()
+    );
+    assertEquals("TestEvent", envelope.getAllValues().get(0).type());
+    assertEquals(
+      "{\"n\":1}",
+      new String(envelope.getAllValues().get(0).body(), StandardCharsets.UTF_8)
+    );
+    verify(outboxEventsRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    assertEquals(
+      2,
+      meterRegistry.get("outbox.relay.events").tag("result", "success").counter().count()
+    );
+  }
+
+  @Test
+  void relayBatch_WhenSomeEventsFail_ShouldOnlyDeleteThePublishedOnes() {
+    when(outboxEventsRepository.lockClaimable(any(Instant.class), eq(2))).thenReturn(
+      List.of(getEvent(1L, "{\"n\":1}"), getEvent(2L, "{\"n\":2}"))
+    );
+    when(redisStreamPublisher.send(eq("stream:test"), any(StreamEnvelope.class))).thenReturn(
+      CompletableFuture.failedFuture(new RedisConnectionFailureException("Connection refused")),
+      CompletableFuture.completedFuture(RecordId.of("2-0"))
+    );
+
+    assertEquals(0, outboxRelay.relayBatch());
+
+    verify(outboxEventsRepository).deleteAllByIdInBatch(List.of(2L));
+    verify(outboxEventsRepository).claim(List.of(1L), null);
+    assertEquals(
+      1,
+      meterRegistry.get("outbox.relay.events").tag("result", "failure").counter().count()
+    );
+  }
+
+  @Test
+  void relayBatch_WhenOutboxIsEmpty_ShouldResetTheLag() {
+    when(outboxEventsRepository.lockClaimable(any(Instant.class), eq(2))).thenReturn(List.of());
+
+    assertEquals(0, outboxRelay.relayBatch());
+    assertEquals(0, meterRegistry.get("outbox.relay.lag").timeGauge().value());
+  }
+
+  private static OutboxEvent getEvent(Long id, String payload) {
+    return OutboxEvent.builder()
+      .id(id)
+      .streamKey("stream:test")
+      .type("TestEvent")
+      .payload(payload)
+      .createdTimestamp(Instant.now())
+      .build();
+  }
+}
@@ -2,6 +2,7 @@ package com.example.modules.posts.services;
 
 import static com.example.base.enums.ErrorCode.POST_NOT_FOUND;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,13 +22,19 @@ import com.example.modules.posts.dtos.UpdatePostDTO;
 import com.example.modules.posts.entities.Post;
 import com.example.modules.posts.repositories.PostsRepository;
 import com.example.modules.posts.utils.PostMapper;
+import com.example.modules.redis.configs.CacheConfig;
+import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
+import com.example.modules.users.services.UsersService;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -41,6 +48,12 @@ public class PostsServiceTest extends BaseServiceTest {
   @Mock
   private PostMapper postMapper;
 
+  @Mock
+  private UsersService usersService;
+
+  @Spy
+  private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
   @InjectMocks
   private PostsService postsService;
 
@@ -58,7 +71,9 @@ public class PostsServiceTest extends BaseServiceTest {
     when(postsRepository.findAll(any(Specification.class), eq(pageRequest))).thenReturn(postPage);
 
     PostResponseDTO responseDTO = PostResponseDTO.builder().title(post.getTitle()).build();
-    when(postMapper.toPostResponseDTO(post)).thenReturn(responseDTO);
+    when(postMapper.toPostResponseDTOPage(postPage)).thenReturn(
+      new PageImpl<>(List.of(responseDTO))
+    );
 
     Page<PostResponseDTO> result = postsService.findAllPublicPosts(searchDTO);
 
@@ -77,6 +92,7 @@ public class PostsServiceTest extends BaseServiceTest {
 
     Page<Post> postPage = new PageImpl<>(List.of());
     when(postsRepository.findAll(any(Specification.class), eq(pageRequest))).thenReturn(postPage);
+    when(postMapper.toPostResponseDTOPage(postPage)).thenReturn(new PageImpl<>(List.of()));
 
     Page<PostResponseDTO> result = postsService.findAllPublicPosts(searchDTO);
 
@@ -87,16 +103,20 @@ public class PostsServiceTest extends BaseServiceTest {
   void findPostById_WhenPublicAndNoUser_ShouldReturnMappedPost() {
     String postId = "post-id";
     Post post = Post.builder().id(postId).title("Public Post").build();
-    PostResponseDTO responseDTO = PostResponseDTO.builder().title("Public Post").build();
+    PostResponseDTO responseDTO = PostResponseDTO.builder()
+      .title("Public Post")
+      .isPublic(true)
+      .build();
 
-    when(postsRepository.findOne(any(Specification.class))).thenReturn(Optional.of(post));
-    when(postMapper.toPostResponseDTO(post)).thenReturn(responseDTO);
+    when(postsRepository.findById(postId)).thenReturn(Optional.of(post));
+    when(postMapper.toCachedPostResponseDTO(post)).thenReturn(responseDTO);
 
     PostResponseDTO result = postsService.findPostById(postId, null);
 
     assertEquals(responseDTO, result);
-    verify(postsRepository).findOne(any(Specification.class));
-    verify(postMapper).toPostResponseDTO(post);
+    verify(postsRepository).findById(postId);
+    verify(postMapper).toCachedPostResponseDTO(post);
+    verifyNoInteractions(usersService);
   }
 
   @Test
@@ -105,34 +125,121 @@ public class PostsServiceTest extends BaseServiceTest {
     User user = mock(User.class);
     when(user.getId()).thenReturn("user-id");
     Post post = Post.builder().id(postId).title("User's Post").user(user).build();
-    PostResponseDTO responseDTO = PostResponseDTO.builder().title("User's Post").build();
+    PostResponseDTO cachedDTO = PostResponseDTO.builder()
+      .title("User's Post")
+      .isPublic(false)
+      .user(UserProfileDTO.builder().id("user-id").build())
+      .build();
+    UserProfileDTO profile = UserProfileDTO.builder().id("user-id").firstName("First").build();
+    PostResponseDTO responseDTO = PostResponseDTO.builder()
+      .title("User's Post")
+      .isPublic(false)
+      .user(profile)
+      .build();
 
-    when(postsRepository.findOne(any(Specification.class))).thenReturn(Optional.of(post));
-    when(postMapper.toPostResponseDTO(post)).thenReturn(responseDTO);
+    when(postsRepository.findById(postId)).thenReturn(Optional.of(post));
+    when(postMapper.toCachedPostResponseDTO(post)).thenReturn(cachedDTO);
+    when(usersService.getProfile("user-id")).thenReturn(profile);
+    when(postMapper.withUser(cachedDTO, profile)).thenReturn(responseDTO);
 
     PostResponseDTO result = postsService.findPostById(postId, user);
 
     assertEquals(responseDTO, result);
-    verify(postsRepository).findOne(any(Specification.class));
-    verify(postMapper).toPostResponseDTO(post);
+    verify(postsRepository).findById(postId);
+    verify(postMapper).toCachedPostResponseDTO(post);
   }
 
   @Test
   void findPostById_WhenPostNotFound_ShouldThrowException() {
     String postId = "missing-id";
     User user = mock(User.class);
-    when(user.getId()).thenReturn("user-id");
 
-    when(postsRepository.findOne(any(Specification.class))).thenReturn(Optional.empty());
+    when(postsRepository.findById(postId)).thenReturn(Optional.empty());
 
     AppException ex = assertThrows(AppException.class, () ->
       postsService.findPostById(postId, user)
     );
     assertEquals(POST_NOT_FOUND, ex.getErrorCode());
-    verify(postsRepository).findOne(any(Specification.class));
+    verify(postsRepository).findById(postId);
     verifyNoInteractions(postMapper);
   }
 
+  @Test
+  void findPostById_WhenPostIsPrivateAndNotOwned_ShouldThrowException() {
+    String postId = "post-id";
+    User user = mock(User.class);
+    when(user.getId()).thenReturn("user-id");
+    Post post = Post.builder().id(postId).build();
+
+    when(postsRepository.findById(postId)).thenReturn(Optional.of(post));
+    when(postMapper.toCachedPostResponseDTO(post)).thenReturn(
+      PostResponseDTO.builder()
+        .isPublic(false)
+        .user(UserProfileDTO.builder().id("other-user-id").build())
+        .build()
+    );
+
+    AppException ex = assertThrows(AppException.class, () ->
+      postsService.findPostById(postId, user)
+    );
+    assertEquals(POST_NOT_FOUND, ex.getErrorCode());
+  }
+
+  @Test
+  void findPostById_WhenPostIsDeletedAndNoUser_ShouldThrowException() {
+    String postId = "post-id";
+    Post post = Post.builder().id(postId).build();
+
+    when(postsRepository.findById(postId)).thenReturn(Optional.of(post));
+    when(postMapper.toCachedPostResponseDTO(post)).thenReturn(
+      PostResponseDTO.builder().isPublic(true).deletedTimestamp("2025-01-01T00:00:00Z").build()
+    );
+
+    AppException ex = assertThrows(AppException.class, () ->
+      postsService.findPostById(postId, null)
+    );
+    assertEquals(POST_NOT_FOUND, ex.getErrorCode());
+  }
+
+  @Test
+  void findPostById_WhenPostIsCached_ShouldNotQueryTheRepository() {
+    String postId = "post-id";
+    Post post = Post.builder().id(postId).build();
+    PostResponseDTO responseDTO = PostResponseDTO.builder().id(postId).isPublic(true).build();
+
+    when(postsRepository.findById(postId)).thenReturn(Optional.of(post));
+    when(postMapper.toCachedPostResponseDTO(post)).thenReturn(responseDTO);
+
+    postsService.findPostById(postId, null);
+    PostResponseDTO result = postsService.findPostById(postId, null);
+
+    assertEquals(responseDTO, result);
+    verify(postsRepository, times(1)).findById(postId);
+  }
+
+  @Test
+  void findPostById_WhenAuthorProfileChanged_ShouldReturnTheCurrentProfile() {
+    String postId = "post-id";
+    PostResponseDTO cachedDTO = PostResponseDTO.builder()
+      .id(postId)
+      .isPublic(true)
+      .user(UserProfileDTO.builder().id("user-id").build())
+      .build();
+    UserProfileDTO oldProfile = UserProfileDTO.builder().id("user-id").firstName("Old").build();
+    UserProfileDTO newProfile = UserProfileDTO.builder().id("user-id").firstName("New").build();
+    PostResponseDTO oldDTO = PostResponseDTO.builder().id(postId).user(oldProfile).build();
+    PostResponseDTO newDTO = PostResponseDTO.builder().id(postId).user(newProfile).build();
+
+    cacheManager.getCache(CacheConfig.POSTS_CACHE).put(postId, cachedDTO);
+    when(usersService.getProfile("user-id")).thenReturn(oldProfile, newProfile);
+    when(postMapper.withUser(cachedDTO, oldProfile)).thenReturn(oldDTO);
+    when(postMapper.withUser(cachedDTO, newProfile)).thenReturn(newDTO);
+
+    assertEquals(oldDTO, postsService.findPostById(postId, null));
+    assertEquals(newDTO, postsService.findPostById(postId, null));
+    verifyNoInteractions(postsRepository);
+  }
+
   @Test
   void createPost_ShouldSaveAndReturnMappedPost() {
     CreatePostDTO createPostDTO = mock(CreatePostDTO.class);
@@ -204,7 +311,9 @@ public class PostsServiceTest extends BaseServiceTest {
     // Simulate ObjectUtils.assign by manually updating the post
     // (since ObjectUtils.assign is not mocked, we assume it works as expected)
     when(postsRepository.save(existingPost)).thenReturn(updatedPost);
+    PostResponseDTO cachedDTO = PostResponseDTO.builder().title("Updated Title").build();
     when(postMapper.toPostResponseDTO(updatedPost)).thenReturn(responseDTO);
+    when(postMapper.toCachedPostResponseDTO(updatedPost)).thenReturn(cachedDTO);
 
     PostResponseDTO result = postsService.updatePost(postId, updatePostDTO, currentUser);
 
@@ -212,6 +321,7 @@ public class PostsServiceTest extends BaseServiceTest {
     verify(postsRepository).save(existingPost);
     verify(postMapper).toPostResponseDTO(updatedPost);
     assertEquals(responseDTO, result);
+    assertEquals(cachedDTO, cacheManager.getCache(CacheConfig.POSTS_CACHE).get(postId).get());
   }
 
   @Test
@@ -242,12 +352,16 @@ public class PostsServiceTest extends BaseServiceTest {
 
     when(postsRepository.findOne(any(Specification.class))).thenReturn(Optional.of(existingPost));
     when(postsRepository.save(existingPost)).thenReturn(existingPost);
+    cacheManager
+      .getCache(CacheConfig.POSTS_CACHE)
+      .put(postId, PostResponseDTO.builder().id(postId).build());
 
     postsService.deletePost(postId, currentUser);
 
     verify(postsRepository).findOne(any(Specification.class));
     verify(postsRepository).save(existingPost);
     assertTrue(existingPost.getDeletedTimestamp() != null);
+    assertNull(cacheManager.getCache(CacheConfig.POSTS_CACHE).get(postId));
   }
 
   @Test
@@ -285,6 +399,7 @@ public class PostsServiceTest extends BaseServiceTest {
     when(postsRepository.findOne(any(Specification.class))).thenReturn(Optional.of(deletedPost));
     when(postsRepository.save(deletedPost)).thenReturn(restoredPost);
     when(postMapper.toPostResponseDTO(restoredPost)).thenReturn(responseDTO);
+    when(postMapper.toCachedPostResponseDTO(restoredPost)).thenReturn(responseDTO);
 
     PostResponseDTO result = postsService.restorePost(postId, currentUser);
 
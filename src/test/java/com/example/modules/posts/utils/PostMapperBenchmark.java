@@ -0,0 +1,148 @@
+package com.example.modules.posts.utils;
+
+import com.example.modules.auth.entities.Account;
+import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.services.MinioService;
+import com.example.modules.minio.services.StorageUrlResolver;
+import com.example.modules.posts.dtos.PostResponseDTO;
+import com.example.modules.posts.entities.Post;
+import com.example.modules.users.dtos.UserProfileDTO;
+import com.example.modules.users.entities.User;
+import com.example.modules.users.utils.UserMapper;
+import io.minio.MinioClient;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the mapping time of a page of 100 posts written by 20 authors, with the avatar URLs
+ * presigned by MinIO for each post (the previous implementation of {@link UserMapper}), and with
+ * {@link PostMapper#toPostResponseDTOPage}.
+ *
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PostMapperBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostMapperBenchmark {
+
+  private static final String BUCKET = "bucket";
+  private static final String PUBLIC_ENDPOINT = "http://localhost:9000/bucket";
+
+  private MinioService minioService;
+  private UserMapper userMapper;
+  private PostMapper postMapper;
+  private Page<Post> posts;
+
+  @Setup
+  public void setup() {
+    // With a region, presigned URLs are built without calling the server
+    MinioClient minioClient = MinioClient.builder()
+      .endpoint("http://localhost:9000")
+      .credentials("minioadmin", "minioadmin")
+      .region("us-east-1")
+      .build();
+    minioService = new MinioService(minioClient);
+    ReflectionTestUtils.setField(minioService, "bucket", BUCKET);
+    ReflectionTestUtils.setField(minioService, "publicEndpoint", PUBLIC_ENDPOINT);
+
+    StorageUrlResolver storageUrlResolver = new StorageUrlResolver();
+    ReflectionTestUtils.setField(storageUrlResolver, "publicEndpoint", PUBLIC_ENDPOINT);
+    ReflectionTestUtils.setField(storageUrlResolver, "URL_CACHE_MAX_SIZE", 10000L);
+    ReflectionTestUtils.invokeMethod(storageUrlResolver, "init");
+
+    userMapper = Mappers.getMapper(UserMapper.class);
+    ReflectionTestUtils.setField(userMapper, "storageUrlResolver", storageUrlResolver);
+    postMapper = Mappers.getMapper(PostMapper.class);
+    postMapper.userMapper = userMapper;
+    postMapper.storageUrlResolver = storageUrlResolver;
+
+    List<User> authors = new ArrayList<>();
+
+    for (int i = 0; i < 20; i++) {
+      authors.add(
+        User.builder()
+          .id("user-" + i)
+          .firstName("John")
+          .lastName("Doe")
+          .avatar("avatars/2025-01-01T00:00:00Z-%d-avatar.png".formatted(i))
+          .account(Account.builder().email("user-%d@example.com".formatted(i)).build())
+          .createdTimestamp(Instant.now())
+          .updatedTimestamp(Instant.now())
+          .build()
+      );
+    }
+
+    List<Post> content = new ArrayList<>();
+
+    for (int i = 0; i < 100; i++) {
+      content.add(
+        Post.builder()
+          .id("post-" + i)
+          .title("Title")
+          .content("Content")
+          .isPublic(true)
+          .user(authors.get(i % authors.size()))
+          .createdTimestamp(Instant.now())
+          .updatedTimestamp(Instant.now())
+          .build()
+      );
+    }
+
+    posts = new PageImpl<>(content);
+  }
+
+  @Benchmark
+  public Page<PostResponseDTO> mapWithPresignedUrls() {
+    return posts.map(post -> {
+      PostResponseDTO postResponseDTO = postMapper.toPostResponseDTOWithoutUser(post);
+      UserProfileDTO user = userMapper.toUserProfileDTOWithoutAvatar(post.getUser());
+
+      try {
+        user.setAvatar(
+          MinioFileResponse.builder()
+            .fileName(post.getUser().getAvatar())
+            .url(minioService.generatePresignedUrl(post.getUser().getAvatar()))
+            .build()
+        );
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+
+      postResponseDTO.setUser(user);
+      return postResponseDTO;
+    });
+  }
+
+  @Benchmark
+  public Page<PostResponseDTO> mapPage() {
+    return postMapper.toPostResponseDTOPage(posts);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PostMapperBenchmark.class.getSimpleName()).build()).run();
+  }
+}
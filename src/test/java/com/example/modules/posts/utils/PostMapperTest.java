@@ -0,0 +1,71 @@
+package com.example.modules.posts.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.minio.services.StorageUrlResolver;
+import com.example.modules.posts.dtos.PostResponseDTO;
+import com.example.modules.posts.entities.Post;
+import com.example.modules.users.dtos.UserProfileDTO;
+import com.example.modules.users.entities.User;
+import com.example.modules.users.utils.UserMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+public class PostMapperTest extends BaseServiceTest {
+
+  private UserMapper userMapper;
+  private StorageUrlResolver storageUrlResolver;
+  private PostMapper postMapper;
+
+  @BeforeEach
+  void setup() {
+    userMapper = mock(UserMapper.class);
+    storageUrlResolver = mock(StorageUrlResolver.class);
+    postMapper = Mappers.getMapper(PostMapper.class);
+    postMapper.userMapper = userMapper;
+    postMapper.storageUrlResolver = storageUrlResolver;
+  }
+
+  @Test
+  void toPostResponseDTOPage_ShouldMapEachAuthorOnce() {
+    User author = getMockUser();
+    author.setAvatar("avatar.png");
+    User otherAuthor = User.builder().id("user-456").build();
+    Page<Post> posts = new PageImpl<>(
+      List.of(
+        Post.builder().id("post-1").user(author).build(),
+        Post.builder().id("post-2").user(otherAuthor).build(),
+        Post.builder().id("post-3").user(author).build()
+      )
+    );
+    UserProfileDTO authorProfile = getMockUserProfile();
+    UserProfileDTO otherAuthorProfile = UserProfileDTO.builder().id("user-456").build();
+    Map<String, String> urls = Map.of("avatar.png", "http://minio.local/avatar.png");
+    when(
+      storageUrlResolver.resolveAll(Arrays.asList("avatar.png", null, "avatar.png"))
+    ).thenReturn(urls);
+    when(userMapper.toUserProfileDTO(author, urls)).thenReturn(authorProfile);
+    when(userMapper.toUserProfileDTO(otherAuthor, urls)).thenReturn(otherAuthorProfile);
+
+    Page<PostResponseDTO> page = postMapper.toPostResponseDTOPage(posts);
+
+    assertEquals(3, page.getNumberOfElements());
+    assertEquals("post-3", page.getContent().get(2).getId());
+    assertSame(authorProfile, page.getContent().get(0).getUser());
+    assertSame(authorProfile, page.getContent().get(2).getUser());
+    assertSame(otherAuthorProfile, page.getContent().get(1).getUser());
+    verify(userMapper, times(1)).toUserProfileDTO(author, urls);
+  }
+}
@@ -0,0 +1,240 @@
+package com.example.modules.redis.caches;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.redis.codecs.SmileRedisValueCodec;
+import com.example.modules.redis.services.RedisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+public class TwoTierCacheTest extends BaseServiceTest {
+
+  private static final String CACHE_NAME = "items";
+
+  @Mock
+  private RedisTemplate<String, byte[]> binaryRedisTemplate;
+
+  @Mock
+  private ValueOperations<String, byte[]> valueOperations;
+
+  @Mock
+  private StringRedisTemplate stringRedisTemplate;
+
+  @Mock
+  private RedisService redisService;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private TwoTierCacheManager cacheManager;
+  private Cache cache;
+
+  @BeforeEach
+  void setup() {
+    cacheManager = new TwoTierCacheManager(
+      List.of(new TwoTierCacheSpec(CACHE_NAME, Item.class, Duration.ofMinutes(5))),
+      100,
+      Duration.ofMinutes(1),
+      1.0,
+      binaryRedisTemplate,
+      stringRedisTemplate,
+      new SmileRedisValueCodec(new ObjectMapper()),
+      redisService,
+      meterRegistry
+    );
+    cacheManager.initializeCaches();
+    cache = cacheManager.getCache(CACHE_NAME);
+  }
+
+  @Test
+  void get_WithLoader_WhenKeyIsMissedConcurrently_ShouldLoadTheValueOnce() throws Exception {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      Future<Item> first = executor.submit(() ->
+        cache.get("key", () -> {
+          loads.incrementAndGet();
+          loading.countDown();
+          release.await();
+          return new Item("value");
+        })
+      );
+      loading.await(5, TimeUnit.SECONDS);
+
+      List<Future<Item>> others = List.of(
+        executor.submit(() -> cache.get("key", () -> new Item("other " + loads.incrementAndGet()))),
+        executor.submit(() -> cache.get("key", () -> new Item("other " + loads.incrementAndGet())))
+      );
+
+      // Give the other callers the time to join the ongoing load
+      Thread.sleep(100);
+      release.countDown();
+
+      assertEquals(new Item("value"), first.get(5, TimeUnit.SECONDS));
+      for (Future<Item> other : others) {
+        assertEquals(new Item("value"), other.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void get_WithLoader_WhenKeyIsEvictedDuringTheLoad_ShouldNotCacheTheLoadedValue() {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    Item loaded = cache.get("key", () -> {
+      cache.evict("key");
+      return new Item("stale");
+    });
+
+    assertEquals(new Item("stale"), loaded);
+    assertNull(cache.get("key"));
+    verify(valueOperations, times(0)).set(anyString(), any(byte[].class), any(Duration.class));
+  }
+
+  @Test
+  void get_WithLoader_WhenKeyIsPutDuringTheLoad_ShouldKeepThePutValue() {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    cache.get("key", () -> {
+      cache.put("key", new Item("new"));
+      return new Item("stale");
+    });
+
+    assertEquals(new Item("new"), cache.get("key", Item.class));
+    verify(valueOperations, times(1)).set(anyString(), any(byte[].class), any(Duration.class));
+  }
+
+  @Test
+  void get_WithLoader_WhenLoaderFails_ShouldWrapTheErrorAndRecordTheFailure() {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    assertThrows(Cache.ValueRetrievalException.class, () ->
+      cache.get("key", () -> {
+        throw new IllegalStateException("Database is down");
+      })
+    );
+    assertEquals(
+      1,
+      meterRegistry
+        .get("cache.loads")
+        .tags("cache", CACHE_NAME, "result", "failure")
+        .timer()
+        .count()
+    );
+  }
+
+  @Test
+  void get_WhenRedisFails_ShouldLoadTheValue() {
+    when(binaryRedisTemplate.opsForValue()).thenThrow(new RuntimeException("Connection refused"));
+
+    assertEquals(new Item("value"), cache.get("key", () -> new Item("value")));
+    // The value is still cached in memory
+    assertEquals(new Item("value"), cache.get("key", Item.class));
+  }
+
+  @Test
+  @SuppressWarnings("null")
+  void get_WhenValueWasCachedByAnotherInstance_ShouldReadItFromRedis() {
+    ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    cache.put("key", new Item("value"));
+    verify(valueOperations).set(eq("cache:items:key"), written.capture(), any(Duration.class));
+
+    // Drop the in-memory copy, as another instance would not have it
+    cacheManager.onMessage(invalidation("other-instance|items|key"), null);
+    when(valueOperations.get("cache:items:key")).thenReturn(written.getValue());
+
+    assertEquals(new Item("value"), cache.get("key").get());
+    assertEquals(
+      1,
+      meterRegistry
+        .get("cache.gets")
+        .tags("cache", CACHE_NAME, "result", "hit", "tier", "remote")
+        .counter()
+        .count()
+    );
+  }
+
+  @Test
+  void put_ShouldPublishTheInvalidationOfTheKey() {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    cache.put("key", new Item("value"));
+
+    ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+    verify(stringRedisTemplate).convertAndSend(
+      eq(TwoTierCacheManager.INVALIDATION_CHANNEL),
+      message.capture()
+    );
+    assertEquals("items|key", message.getValue().substring(message.getValue().indexOf('|') + 1));
+  }
+
+  @Test
+  void onMessage_WhenMessageWasPublishedByThisInstance_ShouldKeepTheLocalCopy() {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+
+    cache.put("key", new Item("value"));
+    verify(stringRedisTemplate).convertAndSend(anyString(), message.capture());
+    cacheManager.onMessage(invalidation(message.getValue()), null);
+
+    assertEquals(new Item("value"), cache.get("key", Item.class));
+    verify(valueOperations, times(0)).get(anyString());
+  }
+
+  @Test
+  void onMessage_WhenCacheWasClearedByAnotherInstance_ShouldDropEveryLocalCopy() {
+    when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    cache.put("a", new Item("a"));
+    cache.put("b", new Item("b"));
+    cacheManager.onMessage(invalidation("other-instance|items"), null);
+
+    assertNull(cache.get("a"));
+    assertNull(cache.get("b"));
+  }
+
+  private static DefaultMessage invalidation(String body) {
+    return new DefaultMessage(
+      TwoTierCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+      body.getBytes(StandardCharsets.UTF_8)
+    );
+  }
+
+  record Item(String name) {}
+}
@@ -0,0 +1,105 @@
+package com.example.modules.redis.codecs;
+
+import com.example.modules.users.dtos.UserProfileDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+/**
+ * Compares the decoding time of Redis values written by {@link GenericJackson2JsonRedisSerializer}
+ * and converted to the requested type (the previous implementation of {@code RedisService}) with
+ * {@link SmileRedisValueCodec}. The size of the encoded values is printed during the setup.
+ *
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RedisValueCodecBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisValueCodecBenchmark {
+
+  private ObjectMapper objectMapper;
+  private GenericJackson2JsonRedisSerializer jsonSerializer;
+  private SmileRedisValueCodec codec;
+
+  private byte[] profileJson;
+  private byte[] profileCodec;
+  private byte[] instantJson;
+  private byte[] instantCodec;
+
+  @Setup
+  public void setup() {
+    objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    codec = new SmileRedisValueCodec(objectMapper);
+
+    Instant instant = Instant.ofEpochSecond(1760000000L, 123456789);
+    UserProfileDTO profile = UserProfileDTO.builder()
+      .id("2f1b8c9e-6a4d-4f3b-9e2a-7c5d1e8f0a3b")
+      .email("john.doe@example.com")
+      .firstName("John")
+      .lastName("Doe")
+      .role("USER")
+      .createdTimestamp(instant.toString())
+      .updatedTimestamp(instant.toString())
+      .build();
+
+    profileJson = jsonSerializer.serialize(profile);
+    profileCodec = codec.encode(profile);
+    instantJson = jsonSerializer.serialize(instant);
+    instantCodec = codec.encode(instant);
+
+    System.out.printf(
+      "%nBytes per value: profile %d (JSON) -> %d (codec), instant %d (JSON) -> %d (codec)%n",
+      profileJson.length,
+      profileCodec.length,
+      instantJson.length,
+      instantCodec.length
+    );
+  }
+
+  @Benchmark
+  public UserProfileDTO decodeProfileFromJson() {
+    return objectMapper.convertValue(jsonSerializer.deserialize(profileJson), UserProfileDTO.class);
+  }
+
+  @Benchmark
+  public UserProfileDTO decodeProfileWithCodec() {
+    return codec.decode(profileCodec, UserProfileDTO.class);
+  }
+
+  @Benchmark
+  public Instant decodeInstantFromJson() {
+    return objectMapper.convertValue(jsonSerializer.deserialize(instantJson), Instant.class);
+  }
+
+  @Benchmark
+  public Instant decodeInstantWithCodec() {
+    return codec.decode(instantCodec, Instant.class);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+      new OptionsBuilder().include(RedisValueCodecBenchmark.class.getSimpleName()).build()
+    ).run();
+  }
+}
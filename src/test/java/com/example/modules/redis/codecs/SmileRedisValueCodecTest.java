@@ -0,0 +1,78 @@
+package com.example.modules.redis.codecs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.users.dtos.UserProfileDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+public class SmileRedisValueCodecTest extends BaseServiceTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+  private final SmileRedisValueCodec codec = new SmileRedisValueCodec(objectMapper);
+
+  @Test
+  void decode_ShouldReturnTheEncodedValues() {
+    Instant instant = Instant.ofEpochSecond(1760000000L, 123456789);
+    UserProfileDTO profile = getMockUserProfile();
+
+    assertEquals("text", codec.decode(codec.encode("text"), String.class));
+    assertEquals(42L, codec.decode(codec.encode(42L), Long.class));
+    assertEquals(true, codec.decode(codec.encode(true), Boolean.class));
+    assertEquals(instant, codec.decode(codec.encode(instant), Instant.class));
+    assertArrayEquals(
+      new byte[] { 1, 2 },
+      codec.decode(codec.encode(new byte[] { 1, 2 }), byte[].class)
+    );
+    assertEquals(profile, codec.decode(codec.encode(profile), UserProfileDTO.class));
+  }
+
+  @Test
+  void encode_WhenValueIsAnInteger_ShouldWriteADecimalStringThatRedisCanIncrement() {
+    assertArrayEquals("-42".getBytes(StandardCharsets.US_ASCII), codec.encode(-42L));
+  }
+
+  @Test
+  void decode_WhenValueIsNullOrEmpty_ShouldReturnNull() {
+    assertNull(codec.decode(null, String.class));
+    assertNull(codec.decode(new byte[0], String.class));
+  }
+
+  @Test
+  void decode_WhenValueWasWrittenAsJson_ShouldStillDecodeIt() {
+    GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer(
+      objectMapper
+    );
+    Instant instant = Instant.ofEpochSecond(1760000000L, 123456789);
+    UserProfileDTO profile = getMockUserProfile();
+
+    assertEquals("text", codec.decode(legacySerializer.serialize("text"), String.class));
+    assertEquals(instant, codec.decode(legacySerializer.serialize(instant), Instant.class));
+    assertEquals(profile, codec.decode(legacySerializer.serialize(profile), UserProfileDTO.class));
+
+    byte[] typedJson = """
+      {"@class": "com.example.modules.users.dtos.UserProfileDTO", "id": "user-123"}
+      """.getBytes(StandardCharsets.UTF_8);
+    assertEquals("user-123", codec.decode(typedJson, UserProfileDTO.class).getId());
+  }
+
+  @Test
+  void encode_ShouldBeSmallerThanJson() {
+    GenericJackson2JsonRedisSerializer legacySerializer = new GenericJackson2JsonRedisSerializer(
+      objectMapper
+    );
+    Instant instant = Instant.ofEpochSecond(1760000000L, 123456789);
+    UserProfileDTO profile = getMockUserProfile();
+
+    assertTrue(codec.encode(instant).length < legacySerializer.serialize(instant).length);
+    assertTrue(codec.encode(profile).length < legacySerializer.serialize(profile).length);
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.modules.redis.codecs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.email.dtos.SendEmailEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class StreamMessageReaderTest extends BaseServiceTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final StreamMessageReader<SendEmailEventDTO> reader = new StreamMessageReader<>(
+    objectMapper,
+    SendEmailEventDTO.class
+  );
+
+  @Test
+  void read_ShouldDecodeJsonAndSmileBodies() throws Exception {
+    SendEmailEventDTO event = getEvent();
+    StreamEnvelope json = StreamEnvelope.of(
+      "event-1",
+      StreamEnvelope.JSON,
+      "SendEmailEventDTO",
+      objectMapper.writeValueAsBytes(event)
+    );
+    StreamEnvelope smile = StreamEnvelope.of(
+      null,
+      StreamEnvelope.SMILE,
+      "SendEmailEventDTO",
+      objectMapper.copyWith(new SmileFactory()).writeValueAsBytes(event)
+    );
+
+    assertEquals("event-1", StreamEnvelope.fromFields(json.toFields()).id());
+    assertEquals(event, reader.read(StreamEnvelope.fromFields(json.toFields())));
+    assertEquals(event, reader.read(StreamEnvelope.fromFields(smile.toFields())));
+  }
+
+  @Test
+  void read_WhenMessageIsLegacy_ShouldDecodeThePayloadEncodedOnceOrTwice() throws Exception {
+    SendEmailEventDTO event = getEvent();
+    String payload = objectMapper.writeValueAsString(event);
+    String doubleEncodedPayload = objectMapper.writeValueAsString(payload);
+
+    assertEquals(event, reader.read(StreamEnvelope.fromFields(legacyFields(payload))));
+    assertEquals(event, reader.read(StreamEnvelope.fromFields(legacyFields(doubleEncodedPayload))));
+  }
+
+  @Test
+  void read_WhenVersionOrContentTypeIsNotSupported_ShouldThrowIllegalArgumentException() {
+    byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+
+    StreamEnvelope nextVersion = new StreamEnvelope(
+      StreamEnvelope.CURRENT_VERSION + 1,
+      null,
+      StreamEnvelope.JSON,
+      null,
+      body
+    );
+
+    assertThrows(IllegalArgumentException.class, () -> reader.read(nextVersion));
+    assertThrows(IllegalArgumentException.class, () ->
+      reader.read(StreamEnvelope.of(null, "application/xml", null, body))
+    );
+  }
+
+  @Test
+  void fromFields_WhenFieldsAreMissing_ShouldThrowIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class, () -> StreamEnvelope.fromFields(Map.of()));
+    assertThrows(IllegalArgumentException.class, () ->
+      StreamEnvelope.fromFields(Map.of("v", "1".getBytes(StandardCharsets.UTF_8)))
+    );
+  }
+
+  private static Map<String, byte[]> legacyFields(String payload) {
+    return Map.of("payload", payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static SendEmailEventDTO getEvent() {
+    return SendEmailEventDTO.builder()
+      .to("test@example.com")
+      .subject("Reset password")
+      .templateName("forgot-password")
+      .variables(Map.of("username", "Test User"))
+      .build();
+  }
+}
@@ -0,0 +1,207 @@
+package com.example.modules.redis.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.redis.codecs.StreamEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RedisStreamListenerTest extends BaseServiceTest {
+
+  private static final String DEDUP_KEY = "stream:dedup:group:test:event-1";
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private ValueOperations<String, String> valueOperations;
+
+  private TestListener listener;
+
+  @BeforeEach
+  void setup() {
+    listener = new TestListener(redisTemplate);
+    ReflectionTestUtils.setField(listener, "DEDUP_WINDOW", 3600L);
+    ReflectionTestUtils.setField(listener, "DEDUP_LEASE", 60L);
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+  }
+
+  @Test
+  void handle_WhenMessageIsNew_ShouldProcessItAndMarkItAsProcessed() {
+    when(
+      valueOperations.setIfAbsent(
+        eq(DEDUP_KEY),
+        startsWith("processing:"),
+        eq(Duration.ofSeconds(60))
+      )
+    ).thenReturn(true);
+
+    assertTrue(listener.handle(message("1-0")));
+
+    assertEquals(List.of("hello"), listener.processed);
+    verify(valueOperations).set(DEDUP_KEY, "processed", Duration.ofHours(1));
+  }
+
+  @Test
+  void handle_WhenMessageWasProcessed_ShouldAcknowledgeItWithoutProcessingIt() {
+    when(
+      valueOperations.setIfAbsent(
+        eq(DEDUP_KEY),
+        startsWith("processing:"),
+        eq(Duration.ofSeconds(60))
+      )
+    ).thenReturn(false);
+    when(valueOperations.get(DEDUP_KEY)).thenReturn("processed");
+
+    // Published again by the outbox, under another record ID
+    assertTrue(listener.handle(message("2-0")));
+
+    assertTrue(listener.processed.isEmpty());
+  }
+
+  @Test
+  void handle_WhenMessageIsBeingProcessedElsewhere_ShouldLeaveItPending() {
+    when(
+      valueOperations.setIfAbsent(
+        eq(DEDUP_KEY),
+        startsWith("processing:"),
+        eq(Duration.ofSeconds(60))
+      )
+    ).thenReturn(false);
+    when(valueOperations.get(DEDUP_KEY)).thenReturn("processing");
+
+    assertFalse(listener.handle(message("1-0")));
+
+    assertTrue(listener.processed.isEmpty());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void handle_WhenProcessingFails_ShouldReleaseTheLeaseItHolds() {
+    ArgumentCaptor<String> lease = ArgumentCaptor.forClass(String.class);
+    when(
+      valueOperations.setIfAbsent(eq(DEDUP_KEY), lease.capture(), eq(Duration.ofSeconds(60)))
+    ).thenReturn(true);
+    listener.failing = true;
+
+    assertFalse(listener.handle(message("1-0")));
+
+    // Released only if the key still holds the lease, not one taken over by another consumer
+    verify(redisTemplate).execute(
+      any(RedisScript.class),
+      eq(List.of(DEDUP_KEY)),
+      eq(lease.getValue())
+    );
+    verify(redisTemplate, never()).delete(DEDUP_KEY);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void renewLeases_ShouldOnlyRenewTheLeasesOfTheMessagesBeingProcessed() {
+    ArgumentCaptor<String> lease = ArgumentCaptor.forClass(String.class);
+    when(
+      valueOperations.setIfAbsent(eq(DEDUP_KEY), lease.capture(), eq(Duration.ofSeconds(60)))
+    ).thenReturn(true);
+    listener.onProcess = () -> listener.renewLeases();
+
+    assertTrue(listener.handle(message("1-0")));
+    listener.renewLeases();
+
+    verify(redisTemplate).execute(
+      any(RedisScript.class),
+      eq(List.of(DEDUP_KEY)),
+      eq(lease.getValue()),
+      eq("60000")
+    );
+  }
+
+  @Test
+  void onDeadLetter_ShouldHandTheDecodedMessageToTheListener() {
+    listener.onDeadLetter(message("1-0"));
+
+    assertEquals(List.of("hello"), listener.deadLettered);
+    assertTrue(listener.processed.isEmpty());
+  }
+
+  private static MapRecord<String, String, byte[]> message(String id) {
+    StreamEnvelope envelope = StreamEnvelope.of(
+      "event-1",
+      StreamEnvelope.JSON,
+      "String",
+      "\"hello\"".getBytes(StandardCharsets.UTF_8)
+    );
+
+    return StreamRecords.newRecord()
+      .in("stream:test")
+      .withId(RecordId.of(id))
+      .ofMap(envelope.toFields());
+  }
+
+  private static class TestListener extends RedisStreamListener<String> {
+
+    private final List<String> processed = new ArrayList<>();
+    private final List<String> deadLettered = new ArrayList<>();
+    private boolean failing;
+    private Runnable onProcess = () -> {};
+
+    TestListener(StringRedisTemplate redisTemplate) {
+      super(redisTemplate, new ObjectMapper());
+    }
+
+    @Override
+    public String getStreamKey() {
+      return "stream:test";
+    }
+
+    @Override
+    public String getConsumerGroup() {
+      return "group:test";
+    }
+
+    @Override
+    public Class<String> getTargetType() {
+      return String.class;
+    }
+
+    @Override
+    protected void process(String messageId, String dto) {
+      onProcess.run();
+
+      if (failing) {
+        throw new IllegalStateException("Processing failed");
+      }
+
+      processed.add(dto);
+    }
+
+    @Override
+    protected void deadLettered(String messageId, String dto) {
+      deadLettered.add(dto);
+    }
+  }
+}
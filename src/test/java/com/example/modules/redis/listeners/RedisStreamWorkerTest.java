@@ -0,0 +1,395 @@
+package com.example.modules.redis.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo.XInfoConsumers;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+public class RedisStreamWorkerTest extends BaseServiceTest {
+
+  private static final String STREAM_KEY = "stream:test";
+  private static final String GROUP = "group:test";
+
+  @Mock
+  private RedisStreamListener<Object> listener;
+
+  @Mock
+  private RedisConnectionFactory redisConnectionFactory;
+
+  @Mock
+  private RedisTemplate<String, byte[]> binaryRedisTemplate;
+
+  @Mock
+  private StreamOperations<String, Object, Object> streamOperations;
+
+  private RedisStreamWorker worker;
+
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setup() {
+    lenient().when(listener.getStreamKey()).thenReturn(STREAM_KEY);
+    lenient().when(listener.getConsumerGroup()).thenReturn(GROUP);
+    meterRegistry = new SimpleMeterRegistry();
+    worker = new RedisStreamWorker(
+      listener,
+      new StreamConsumerOptions(1, 10, 2),
+      new StreamRetryPolicy(3, Duration.ofSeconds(10), Duration.ofMinutes(10)),
+      1000,
+      "node",
+      redisConnectionFactory,
+      binaryRedisTemplate,
+      meterRegistry
+    );
+  }
+
+  @Test
+  void onMessage_ShouldProcessMessagesConcurrentlyUpToTheLimit() throws Exception {
+    AtomicInteger processing = new AtomicInteger();
+    AtomicInteger maxProcessing = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+
+    when(listener.handle(any())).thenAnswer(invocation -> {
+      maxProcessing.accumulateAndGet(processing.incrementAndGet(), Math::max);
+      started.countDown();
+      release.await();
+      processing.decrementAndGet();
+      return false;
+    });
+
+    worker.onMessage(message("1-0"));
+    worker.onMessage(message("2-0"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // The third message waits for one of the first two
+    ExecutorService consumer = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> third = consumer.submit(() -> worker.onMessage(message("3-0")));
+      Thread.sleep(100);
+      assertFalse(third.isDone());
+
+      release.countDown();
+      third.get(5, TimeUnit.SECONDS);
+    } finally {
+      consumer.shutdownNow();
+    }
+
+    worker.stop();
+    assertEquals(2, maxProcessing.get());
+    verify(listener, times(3)).handle(any());
+  }
+
+  @Test
+  void flushAcks_ShouldAcknowledgeTheProcessedMessagesWithASingleCommand() {
+    // The second message fails, so it must stay pending
+    when(listener.handle(any())).thenAnswer(
+      invocation -> !invocation.<MapRecord<String, String, byte[]>>getArgument(0).getId().equals(
+        RecordId.of("2-0")
+      )
+    );
+    when(binaryRedisTemplate.opsForStream()).thenReturn(streamOperations);
+    List<RecordId[]> acknowledged = new ArrayList<>();
+    when(
+      streamOperations.acknowledge(eq(STREAM_KEY), eq(GROUP), any(RecordId[].class))
+    ).thenAnswer(invocation -> {
+      acknowledged.add((RecordId[]) invocation.getRawArguments()[2]);
+      return 2L;
+    });
+
+    worker.onMessage(message("1-0"));
+    worker.onMessage(message("2-0"));
+    worker.onMessage(message("3-0"));
+    // Waits for the messages being processed, then flushes the acknowledgements
+    worker.stop();
+
+    assertEquals(1, acknowledged.size());
+    assertEquals(
+      Set.of(RecordId.of("1-0"), RecordId.of("3-0")),
+      Set.of(acknowledged.get(0))
+    );
+  }
+
+  @Test
+  void reclaim_ShouldRedeliverOnlyTheMessagesWhoseBackoffHasElapsed() {
+    when(listener.handle(any())).thenReturn(true);
+    when(binaryRedisTemplate.opsForStream()).thenReturn(streamOperations);
+    stubPendingMessages(
+      // Delivered once: 10 seconds of backoff
+      pendingMessage("1-0", Duration.ofSeconds(11), 1),
+      // Delivered twice: 20 seconds of backoff
+      pendingMessage("2-0", Duration.ofSeconds(11), 2)
+    );
+    when(
+      streamOperations.claim(
+        eq(STREAM_KEY),
+        eq(GROUP),
+        eq("node-0"),
+        eq(Duration.ofSeconds(10)),
+        any(RecordId[].class)
+      )
+    ).thenAnswer(invocation -> {
+      assertArrayEquals(
+        new RecordId[] { RecordId.of("1-0") },
+        (RecordId[]) invocation.getRawArguments()[4]
+      );
+      return List.of(claimedMessage("1-0"));
+    });
+
+    worker.reclaim();
+    worker.stop();
+
+    verify(listener).handle(any());
+    verify(streamOperations).acknowledge(STREAM_KEY, GROUP, RecordId.of("1-0"));
+    assertEquals(2, meterRegistry.get("redis.stream.pending").gauge().value());
+    assertEquals(1, meterRegistry.get("redis.stream.redeliveries").counter().count());
+  }
+
+  @Test
+  void reclaim_ShouldMoveTheMessagesDeliveredTooManyTimesToTheDeadLetterStream() {
+    when(binaryRedisTemplate.opsForStream()).thenReturn(streamOperations);
+    stubPendingMessages(pendingMessage("1-0", Duration.ofMinutes(1), 3));
+    when(
+      streamOperations.claim(
+        eq(STREAM_KEY),
+        eq(GROUP),
+        eq("node-0"),
+        eq(Duration.ofSeconds(10)),
+        any(RecordId[].class)
+      )
+    ).thenReturn(List.of(claimedMessage("1-0")));
+
+    worker.reclaim();
+    worker.flushAcks();
+
+    verify(listener, never()).handle(any());
+    verify(listener).onDeadLetter(any());
+    ArgumentCaptor<Map<String, byte[]>> fields = ArgumentCaptor.captor();
+    verify(streamOperations).add(
+      eq("stream:test:dlq"),
+      fields.capture(),
+      eq(XAddOptions.maxlen(1000).approximateTrimming(true))
+    );
+    assertEquals(
+      Map.of("payload", "{}", "original_id", "1-0", "group", GROUP, "deliveries", "3"),
+      asStrings(fields.getValue())
+    );
+    verify(streamOperations).acknowledge(STREAM_KEY, GROUP, RecordId.of("1-0"));
+    assertEquals(1, meterRegistry.get("redis.stream.dead_letters").counter().count());
+  }
+
+  @Test
+  void reclaim_WhenTheListenerFailsToHandleADeadLetter_ShouldLeaveItPending() {
+    when(binaryRedisTemplate.opsForStream()).thenReturn(streamOperations);
+    stubPendingMessages(pendingMessage("1-0", Duration.ofMinutes(1), 3));
+    when(
+      streamOperations.claim(
+        eq(STREAM_KEY),
+        eq(GROUP),
+        eq("node-0"),
+        eq(Duration.ofSeconds(10)),
+        any(RecordId[].class)
+      )
+    ).thenReturn(List.of(claimedMessage("1-0")));
+    doThrow(new RuntimeException("Database is down")).when(listener).onDeadLetter(any());
+
+    worker.reclaim();
+    worker.flushAcks();
+
+    verify(streamOperations, never()).add(
+      eq("stream:test:dlq"),
+      any(Map.class),
+      any(XAddOptions.class)
+    );
+    verify(streamOperations, never()).acknowledge(eq(STREAM_KEY), eq(GROUP), any(RecordId.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void reclaim_ShouldKeepTheMessagesBeingProcessedAliveInsteadOfClaimingThem() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(listener.handle(any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return false;
+    });
+    when(binaryRedisTemplate.opsForStream()).thenReturn(streamOperations);
+    stubPendingMessages(pendingMessage("1-0", Duration.ofSeconds(11), 1));
+    ArgumentCaptor<RedisCallback<List<RecordId>>> heartbeat = ArgumentCaptor.captor();
+    when(binaryRedisTemplate.execute(heartbeat.capture())).thenReturn(List.of());
+
+    worker.onMessage(message("1-0"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    worker.reclaim();
+    release.countDown();
+    worker.stop();
+
+    verify(streamOperations, never()).claim(
+      any(),
+      any(),
+      any(),
+      any(Duration.class),
+      any(RecordId[].class)
+    );
+    verify(listener).renewLeases();
+
+    RedisConnection connection = mock(RedisConnection.class);
+    RedisStreamCommands streamCommands = mock(RedisStreamCommands.class);
+    when(connection.streamCommands()).thenReturn(streamCommands);
+    heartbeat.getValue().doInRedis(connection);
+    ArgumentCaptor<XClaimOptions> claimOptions = ArgumentCaptor.forClass(XClaimOptions.class);
+    verify(streamCommands).xClaimJustId(
+      eq(STREAM_KEY.getBytes(StandardCharsets.UTF_8)),
+      eq(GROUP),
+      eq("node-0"),
+      claimOptions.capture()
+    );
+    assertEquals(List.of(RecordId.of("1-0")), claimOptions.getValue().getIds());
+    assertEquals(Duration.ZERO, claimOptions.getValue().getMinIdleTime());
+  }
+
+  @Test
+  void reclaim_WhenNoPermitIsAvailable_ShouldNotWaitNorClaimRetries() throws Exception {
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+    when(listener.handle(any())).thenAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return false;
+    });
+    when(binaryRedisTemplate.opsForStream()).thenReturn(streamOperations);
+    when(binaryRedisTemplate.execute(any(RedisCallback.class))).thenReturn(List.of());
+    stubPendingMessages(pendingMessage("3-0", Duration.ofSeconds(11), 1));
+
+    worker.onMessage(message("1-0"));
+    worker.onMessage(message("2-0"));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    ExecutorService reclaimer = Executors.newSingleThreadExecutor();
+    try {
+      reclaimer.submit(worker::reclaim).get(5, TimeUnit.SECONDS);
+    } finally {
+      reclaimer.shutdownNow();
+      release.countDown();
+      worker.stop();
+    }
+
+    verify(streamOperations, never()).claim(
+      any(),
+      any(),
+      any(),
+      any(Duration.class),
+      any(RecordId[].class)
+    );
+    verify(listener, times(2)).handle(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void trim_ShouldTrimTheStreamUpToWhatEveryGroupHasAcknowledged() {
+    worker.trim();
+
+    verify(binaryRedisTemplate).execute(any(RedisScript.class), eq(List.of(STREAM_KEY)));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void trim_WhenRedisFails_ShouldNotThrow() {
+    when(binaryRedisTemplate.execute(any(RedisScript.class), eq(List.of(STREAM_KEY)))).thenThrow(
+      new RuntimeException("Connection refused")
+    );
+
+    worker.trim();
+  }
+
+  private void stubPendingMessages(PendingMessage... messages) {
+    when(streamOperations.pending(STREAM_KEY, GROUP)).thenReturn(
+      new PendingMessagesSummary(GROUP, messages.length, Range.unbounded(), Map.of())
+    );
+    when(
+      streamOperations.pending(eq(STREAM_KEY), eq(GROUP), any(Range.class), anyLong())
+    ).thenReturn(new PendingMessages(GROUP, List.of(messages)));
+    when(streamOperations.consumers(STREAM_KEY, GROUP)).thenReturn(
+      new XInfoConsumers(GROUP, List.of())
+    );
+  }
+
+  private static PendingMessage pendingMessage(String id, Duration idle, long deliveryCount) {
+    return new PendingMessage(
+      RecordId.of(id),
+      Consumer.from(GROUP, "other-0"),
+      idle,
+      deliveryCount
+    );
+  }
+
+  private static MapRecord<String, Object, Object> claimedMessage(String id) {
+    return StreamRecords.newRecord()
+      .in(STREAM_KEY)
+      .withId(RecordId.of(id))
+      .ofMap(Map.<Object, Object>of("payload", "{}".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static MapRecord<String, String, byte[]> message(String id) {
+    return StreamRecords.newRecord()
+      .in(STREAM_KEY)
+      .withId(RecordId.of(id))
+      .ofMap(Map.of("payload", "{}".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static Map<String, String> asStrings(Map<String, byte[]> fields) {
+    Map<String, String> strings = new HashMap<>();
+    fields.forEach((field, value) -> strings.put(field, new String(value, StandardCharsets.UTF_8)));
+    return strings;
+  }
+}
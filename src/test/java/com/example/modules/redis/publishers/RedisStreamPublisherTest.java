@@ -0,0 +1,212 @@
+package com.example.modules.redis.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.redis.codecs.StreamEnvelope;
+import com.example.modules.redis.codecs.StreamMessageReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RedisStreamPublisherTest extends BaseServiceTest {
+
+  @Mock
+  private StringRedisTemplate stringRedisTemplate;
+
+  @Mock
+  private RedisConnection connection;
+
+  @Mock
+  private RedisStreamCommands streamCommands;
+
+  private RedisStreamPublisher publisher;
+
+  @BeforeEach
+  void setup() {
+    publisher = new RedisStreamPublisher(stringRedisTemplate, new ObjectMapper());
+    ReflectionTestUtils.setField(publisher, "BUFFER_CAPACITY", 100);
+    ReflectionTestUtils.setField(publisher, "BATCH_SIZE", 3);
+    ReflectionTestUtils.setField(publisher, "LINGER", 1000L);
+    ReflectionTestUtils.setField(publisher, "CONTENT_TYPE", StreamEnvelope.JSON);
+  }
+
+  @AfterEach
+  void cleanup() throws InterruptedException {
+    if (ReflectionTestUtils.getField(publisher, "flusher") != null) {
+      publisher.destroy();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void send_ShouldPipelineABatchOfRecordsAndCompleteTheirFutures() throws Exception {
+    List<XAddOptions> options = mockPipeline();
+    publisher.init();
+
+    List<CompletableFuture<RecordId>> futures = List.of(
+      publisher.send("stream:test", Map.of("n", 1)),
+      publisher.send("stream:test", Map.of("n", 2)),
+      publisher.send("stream:test", Map.of("n", 3))
+    );
+
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(RecordId.of(i + 1, 0), futures.get(i).get(5, TimeUnit.SECONDS));
+    }
+    verify(stringRedisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+
+    ArgumentCaptor<ByteRecord> record = ArgumentCaptor.forClass(ByteRecord.class);
+    verify(streamCommands, times(3)).xAdd(record.capture(), any(XAddOptions.class));
+    StreamEnvelope envelope = toEnvelope(record.getAllValues().get(0));
+    assertEquals(StreamEnvelope.CURRENT_VERSION, envelope.version());
+    assertEquals(StreamEnvelope.JSON, envelope.contentType());
+    assertEquals("{\"n\":1}", new String(envelope.body(), StandardCharsets.UTF_8));
+    assertFalse(options.get(0).hasMaxlen());
+    assertFalse(options.get(0).hasMinId());
+  }
+
+  @Test
+  void send_WhenContentTypeIsSmile_ShouldWriteABinaryBody() throws Exception {
+    mockPipeline();
+    ReflectionTestUtils.setField(publisher, "LINGER", 1L);
+    ReflectionTestUtils.setField(publisher, "CONTENT_TYPE", StreamEnvelope.SMILE);
+    publisher.init();
+
+    publisher.send("stream:test", new TestEvent(1)).get(5, TimeUnit.SECONDS);
+
+    ArgumentCaptor<ByteRecord> record = ArgumentCaptor.forClass(ByteRecord.class);
+    verify(streamCommands).xAdd(record.capture(), any(XAddOptions.class));
+    StreamEnvelope envelope = toEnvelope(record.getValue());
+    assertEquals(StreamEnvelope.SMILE, envelope.contentType());
+    assertEquals("TestEvent", envelope.type());
+    assertEquals(
+      new TestEvent(1),
+      new StreamMessageReader<>(new ObjectMapper(), TestEvent.class).read(envelope)
+    );
+  }
+
+  @Test
+  void send_WhenStreamHasAMaxLength_ShouldTrimByLength() throws Exception {
+    List<XAddOptions> options = mockPipeline();
+    ReflectionTestUtils.setField(publisher, "LINGER", 1L);
+    publisher.setRetention("stream:test", StreamRetention.ofMaxLength(1000));
+    publisher.init();
+
+    publisher.send("stream:test", Map.of("n", 1)).get(5, TimeUnit.SECONDS);
+
+    assertEquals(1000L, options.get(0).getMaxlen());
+    assertTrue(options.get(0).isApproximateTrimming());
+  }
+
+  @Test
+  void send_WhenStreamHasARetention_ShouldTrimByAge() throws Exception {
+    List<XAddOptions> options = mockPipeline();
+    ReflectionTestUtils.setField(publisher, "LINGER", 1L);
+    publisher.setRetention("stream:test", StreamRetention.ofMaxAge(Duration.ofHours(1)));
+    publisher.init();
+
+    publisher.send("stream:test", Map.of("n", 1)).get(5, TimeUnit.SECONDS);
+
+    assertTrue(options.get(0).hasMinId());
+    assertTrue(options.get(0).isApproximateTrimming());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void send_WhenRedisFails_ShouldFailTheFutures() {
+    ReflectionTestUtils.setField(publisher, "LINGER", 1L);
+    when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenThrow(
+      new RedisConnectionFailureException("Connection refused")
+    );
+    publisher.init();
+
+    ExecutionException ex = assertThrows(ExecutionException.class, () ->
+      publisher.send("stream:test", Map.of("n", 1)).get(5, TimeUnit.SECONDS)
+    );
+    assertInstanceOf(RedisConnectionFailureException.class, ex.getCause());
+  }
+
+  @Test
+  void send_WhenBufferIsFull_ShouldRejectTheEvent() {
+    ArrayBlockingQueue<Object> fullBuffer = new ArrayBlockingQueue<>(1);
+    fullBuffer.add(new Object());
+    ReflectionTestUtils.setField(publisher, "bodyWriter", new ObjectMapper().writer());
+    ReflectionTestUtils.setField(publisher, "buffer", fullBuffer);
+    ReflectionTestUtils.setField(publisher, "running", true);
+
+    CompletableFuture<RecordId> future = publisher.send("stream:test", Map.of("n", 1));
+
+    ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+    assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+  }
+
+  private static StreamEnvelope toEnvelope(ByteRecord record) {
+    Map<String, byte[]> fields = new HashMap<>();
+    record
+      .getValue()
+      .forEach((field, value) -> fields.put(new String(field, StandardCharsets.UTF_8), value));
+    return StreamEnvelope.fromFields(fields);
+  }
+
+  /**
+   * Makes the pipelines return a record ID per {@code XADD}, and collects the options of the
+   * {@code XADD} commands.
+   */
+  @SuppressWarnings("unchecked")
+  private List<XAddOptions> mockPipeline() {
+    List<XAddOptions> options = new ArrayList<>();
+
+    when(connection.streamCommands()).thenReturn(streamCommands);
+    when(streamCommands.xAdd(any(ByteRecord.class), any(XAddOptions.class))).thenAnswer(
+      invocation -> {
+        options.add(invocation.getArgument(1));
+        return null;
+      }
+    );
+    when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+      int start = options.size();
+      invocation.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+
+      List<Object> results = new ArrayList<>();
+      for (int i = start; i < options.size(); i++) {
+        results.add(RecordId.of(i + 1, 0));
+      }
+      return results;
+    });
+
+    return options;
+  }
+
+  record TestEvent(int n) {}
+}
@@ -0,0 +1,135 @@
+package com.example.modules.redis.services;
+
+import com.example.modules.redis.codecs.SmileRedisValueCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.testcontainers.RedisContainer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * Compares the throughput (in keys per second) of reading and writing {@value #BATCH_SIZE} keys
+ * one command at a time with the batched and pipelined operations of {@link RedisService}.
+ *
+ * <p>
+ * A Redis container is started for the benchmark. Every command pays a real network round trip,
+ * so the results depend on the latency between the JVM and Redis, as in production.
+ * </p>
+ *
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RedisServiceBenchmark}
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisServiceBenchmark {
+
+  private static final int BATCH_SIZE = 50;
+
+  private RedisContainer redis;
+  private JedisConnectionFactory connectionFactory;
+  private RedisService redisService;
+  private List<String> keys;
+  private Map<String, Object> entries;
+
+  @Setup
+  public void setup() {
+    redis = new RedisContainer("redis:7.0-alpine");
+    redis.start();
+
+    connectionFactory = new JedisConnectionFactory(
+      new RedisStandaloneConfiguration(redis.getHost(), redis.getRedisPort())
+    );
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+
+    RedisTemplate<String, byte[]> redisTemplate = new RedisTemplate<>();
+    redisTemplate.setConnectionFactory(connectionFactory);
+    redisTemplate.setKeySerializer(new StringRedisSerializer());
+    redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+    redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+    redisTemplate.setHashValueSerializer(RedisSerializer.byteArray());
+    redisTemplate.afterPropertiesSet();
+
+    redisService = new RedisService(redisTemplate, new SmileRedisValueCodec(new ObjectMapper()));
+    keys = new ArrayList<>(BATCH_SIZE);
+    entries = new LinkedHashMap<>();
+
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      String key = "benchmark:key:" + i;
+      keys.add(key);
+      entries.put(key, Map.of("id", i, "name", "value " + i));
+    }
+
+    redisService.multiSet(entries);
+  }
+
+  @TearDown
+  public void tearDown() {
+    connectionFactory.destroy();
+    redis.stop();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<Object> getOneByOne() {
+    List<Object> values = new ArrayList<>(BATCH_SIZE);
+    for (String key : keys) {
+      values.add(redisService.get(key, Map.class));
+    }
+
+    return values;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  @SuppressWarnings("rawtypes")
+  public List<Map> multiGet() {
+    return redisService.multiGet(keys, Map.class);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void setOneByOneWithTimeout() {
+    entries.forEach((key, value) -> redisService.set(key, value, Duration.ofMinutes(5)));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void multiSetWithTimeout() {
+    redisService.multiSet(entries, Duration.ofMinutes(5));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+      new OptionsBuilder().include(RedisServiceBenchmark.class.getSimpleName()).build()
+    ).run();
+  }
+}
@@ -0,0 +1,179 @@
+package com.example.modules.redis.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.redis.codecs.RedisValueCodec;
+import com.example.modules.redis.codecs.SmileRedisValueCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+
+public class RedisServiceTest extends BaseServiceTest {
+
+  @Mock
+  private RedisTemplate<String, byte[]> redisTemplate;
+
+  @Mock
+  private RedisOperations<String, byte[]> pipelinedOperations;
+
+  @Mock
+  private ValueOperations<String, byte[]> valueOperations;
+
+  @Mock
+  private HashOperations<String, Object, Object> hashOperations;
+
+  private final RedisValueCodec codec = new SmileRedisValueCodec(new ObjectMapper());
+
+  private RedisService redisService;
+
+  @BeforeEach
+  void setup() {
+    redisService = new RedisService(redisTemplate, codec);
+  }
+
+  @Test
+  void multiGet_ShouldDecodeValuesAndKeepMissingKeysAsNull() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.multiGet(List.of("a", "b", "c"))).thenReturn(
+      Arrays.asList(codec.encode(new Item("first")), null, codec.encode(new Item("third")))
+    );
+
+    List<Item> result = redisService.multiGet(List.of("a", "b", "c"), Item.class);
+
+    assertEquals(3, result.size());
+    assertEquals("first", result.get(0).name());
+    assertNull(result.get(1));
+    assertEquals("third", result.get(2).name());
+  }
+
+  @Test
+  void multiGet_WhenRedisFails_ShouldReturnMisses() {
+    when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("Connection refused"));
+
+    assertEquals(Arrays.asList(null, null), redisService.multiGet(List.of("a", "b"), Item.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void pipeline_ShouldReturnResultsInCommandOrderIncludingCommandsWithoutResult() {
+    when(pipelinedOperations.opsForValue()).thenReturn(valueOperations);
+    when(pipelinedOperations.<Object, Object>opsForHash()).thenReturn(hashOperations);
+    when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+      invocation.<SessionCallback<Object>>getArgument(0).execute(pipelinedOperations);
+      // The reply of HMSET is a status, which is not part of the pipeline results
+      return Arrays.asList(codec.encode(new Item("first")), 42L, null);
+    });
+
+    List<Object> results = redisService.pipeline(ops ->
+      ops
+        .get("a", Item.class)
+        .hashSetAll("h", Map.of("field", "value"))
+        .increment("counter", 1)
+        .get("missing", Item.class)
+    );
+
+    assertEquals(4, results.size());
+    assertEquals(new Item("first"), results.get(0));
+    assertNull(results.get(1));
+    assertEquals(42L, results.get(2));
+    assertNull(results.get(3));
+    verify(hashOperations).putAll(eq("h"), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void multiSet_WithTimeout_ShouldPipelineSetCommands() {
+    when(pipelinedOperations.opsForValue()).thenReturn(valueOperations);
+    when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+      invocation.<SessionCallback<Object>>getArgument(0).execute(pipelinedOperations);
+      return List.of(true, true);
+    });
+
+    redisService.multiSet(Map.of("a", 1, "b", 2), Duration.ofMinutes(1));
+
+    verify(valueOperations).set(eq("a"), eq(codec.encode(1)), eq(Duration.ofMinutes(1)));
+    verify(valueOperations).set(eq("b"), eq(codec.encode(2)), eq(Duration.ofMinutes(1)));
+  }
+
+  @Test
+  void scan_ShouldStreamTheKeysAndCloseTheCursor() {
+    Cursor<String> cursor = mockCursor("a", "b", "c");
+    when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+
+    try (Stream<String> keys = redisService.scan("prefix:*", 100)) {
+      assertEquals(List.of("a", "b", "c"), keys.toList());
+    }
+
+    verify(cursor).close();
+  }
+
+  @Test
+  void deleteByPattern_ShouldUnlinkTheKeysInBatches() {
+    Cursor<String> cursor = mockCursor("a", "b", "c", "d", "e");
+    when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+    when(redisTemplate.unlink(anyCollection())).thenAnswer(invocation ->
+      (long) invocation.<Collection<String>>getArgument(0).size()
+    );
+
+    assertEquals(5L, redisService.deleteByPattern("prefix:*", 2));
+
+    verify(redisTemplate).unlink(List.of("a", "b"));
+    verify(redisTemplate).unlink(List.of("c", "d"));
+    verify(redisTemplate).unlink(List.of("e"));
+    verify(cursor).close();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void expireByPattern_ShouldPipelineTheExpireCommandsOfEveryBatch() {
+    Cursor<String> cursor = mockCursor("a", "b", "c");
+    when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+    when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+      invocation.<SessionCallback<Object>>getArgument(0).execute(pipelinedOperations);
+      return List.of(true, false, true);
+    });
+
+    assertEquals(2L, redisService.expireByPattern("prefix:*", Duration.ofMinutes(1), 10));
+
+    verify(pipelinedOperations).expire("a", Duration.ofMinutes(1));
+    verify(pipelinedOperations).expire("b", Duration.ofMinutes(1));
+    verify(pipelinedOperations).expire("c", Duration.ofMinutes(1));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Cursor<String> mockCursor(String... keys) {
+    // Default methods such as forEachRemaining must go through hasNext and next
+    Cursor<String> cursor = mock(Cursor.class, CALLS_REAL_METHODS);
+    Iterator<String> iterator = List.of(keys).iterator();
+
+    when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+    when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    return cursor;
+  }
+
+  record Item(String name) {}
+}
@@ -0,0 +1,185 @@
+package com.example.modules.users.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.minio.services.MinioService;
+import com.example.modules.users.repositories.UsersRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.messages.Item;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class AvatarGarbageCollectorTest extends BaseServiceTest {
+
+  @Mock
+  private MinioService minioService;
+
+  @Mock
+  private UsersRepository usersRepository;
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private AvatarGarbageCollector avatarGarbageCollector;
+
+  @BeforeEach
+  void setup() {
+    avatarGarbageCollector = new AvatarGarbageCollector(
+      minioService,
+      usersRepository,
+      redisTemplate,
+      meterRegistry,
+      transactionManager
+    );
+    ReflectionTestUtils.setField(avatarGarbageCollector, "ENABLED", false);
+    ReflectionTestUtils.setField(avatarGarbageCollector, "MIN_AGE", 3600L);
+    ReflectionTestUtils.setField(avatarGarbageCollector, "MAX_DELETES_PER_SECOND", 1_000_000);
+    ReflectionTestUtils.setField(avatarGarbageCollector, "DRY_RUN", false);
+    avatarGarbageCollector.start();
+  }
+
+  @Test
+  void collect_ShouldDeleteTheOldFilesThatAreNotReferenced() throws Exception {
+    List<Item> page = List.of(
+      item("avatars/u1/a.png", 10, 2),
+      item("avatars/u1/b.png", 20, 2),
+      item("avatars/u1/c.png", 40, 0),
+      item("avatars/u2/d.png", 80, 2),
+      item("avatars/u3/e.png", 160, 2)
+    );
+    when(minioService.listFiles(AvatarGarbageCollector.PREFIX, null, 1000)).thenReturn(page);
+    when(usersRepository.findAvatarFileNamesAfter("", 1000)).thenReturn(
+      List.of("avatars/u1/a.png", "avatars/u1/a.png", "avatars/u2/d.png", "avatars/u4/f.png")
+    );
+    when(minioService.deleteFiles(List.of("avatars/u1/b.png", "avatars/u3/e.png"))).thenReturn(
+      List.of("avatars/u3/e.png")
+    );
+
+    AvatarGarbageCollector.Summary summary = avatarGarbageCollector.collect();
+
+    assertEquals(new AvatarGarbageCollector.Summary(5, 1, 20), summary);
+    assertEquals(1, meterRegistry.get("storage.gc.deleted_files").counter().count());
+    assertEquals(20, meterRegistry.get("storage.gc.reclaimed_bytes").counter().count());
+  }
+
+  @Test
+  void collect_WhenDryRun_ShouldOnlyCountTheOrphanedFiles() throws Exception {
+    ReflectionTestUtils.setField(avatarGarbageCollector, "DRY_RUN", true);
+    List<Item> page = List.of(item("avatars/u1/a.png", 10, 2), item("avatars/u1/b.png", 20, 2));
+    when(minioService.listFiles(AvatarGarbageCollector.PREFIX, null, 1000)).thenReturn(page);
+    when(usersRepository.findAvatarFileNamesAfter("", 1000)).thenReturn(
+      List.of("avatars/u1/b.png")
+    );
+
+    AvatarGarbageCollector.Summary summary = avatarGarbageCollector.collect();
+
+    assertEquals(new AvatarGarbageCollector.Summary(2, 1, 10), summary);
+    verify(minioService, never()).deleteFiles(any());
+  }
+
+  @Test
+  void collect_ShouldListAndDeleteByPagesOfAThousandFiles() throws Exception {
+    List<Item> firstPage = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      firstPage.add(item("avatars/u1/%04d.png".formatted(i), 1, 2));
+    }
+
+    List<Item> lastPage = List.of(item("avatars/u2/a.png", 1, 2));
+    when(minioService.listFiles(AvatarGarbageCollector.PREFIX, null, 1000)).thenReturn(firstPage);
+    when(
+      minioService.listFiles(AvatarGarbageCollector.PREFIX, "avatars/u1/0999.png", 1000)
+    ).thenReturn(lastPage);
+    when(usersRepository.findAvatarFileNamesAfter("", 1000)).thenReturn(List.of());
+
+    AvatarGarbageCollector.Summary summary = avatarGarbageCollector.collect();
+
+    assertEquals(new AvatarGarbageCollector.Summary(1001, 1001, 1001), summary);
+    verify(minioService).deleteFiles(firstPage.stream().map(Item::objectName).toList());
+    verify(minioService).deleteFiles(List.of("avatars/u2/a.png"));
+  }
+
+  @Test
+  void collect_ShouldReadTheReferencedFilesByPagesAfterTheLastName() throws Exception {
+    List<Item> page = new ArrayList<>();
+    List<String> firstReferencedPage = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      page.add(item("avatars/u1/%04d.png".formatted(i), 1, 2));
+      firstReferencedPage.add("avatars/u1/%04d.png".formatted(i));
+    }
+
+    page.add(item("avatars/u2/a.png", 1, 2));
+    page.add(item("avatars/u2/b.png", 1, 2));
+    when(minioService.listFiles(AvatarGarbageCollector.PREFIX, null, 1000)).thenReturn(
+      page.subList(0, 1000)
+    );
+    when(
+      minioService.listFiles(AvatarGarbageCollector.PREFIX, "avatars/u1/0999.png", 1000)
+    ).thenReturn(page.subList(1000, 1002));
+    when(usersRepository.findAvatarFileNamesAfter("", 1000)).thenReturn(firstReferencedPage);
+    when(usersRepository.findAvatarFileNamesAfter("avatars/u1/0999.png", 1000)).thenReturn(
+      List.of("avatars/u2/b.png")
+    );
+
+    AvatarGarbageCollector.Summary summary = avatarGarbageCollector.collect();
+
+    assertEquals(new AvatarGarbageCollector.Summary(1002, 1, 1), summary);
+    verify(minioService).deleteFiles(List.of("avatars/u2/a.png"));
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  void collect_WhenReferencedFilesAreNotInOrder_ShouldNotDeleteAnything() throws Exception {
+    List<Item> page = List.of(item("avatars/u2/a.png", 10, 2));
+    when(minioService.listFiles(AvatarGarbageCollector.PREFIX, null, 1000)).thenReturn(page);
+    when(usersRepository.findAvatarFileNamesAfter("", 1000)).thenReturn(
+      List.of("avatars/u1/b.png", "avatars/u1/a.png", "avatars/u2/a.png")
+    );
+
+    assertThrows(IllegalStateException.class, () -> avatarGarbageCollector.collect());
+    verify(minioService, never()).deleteFiles(any());
+  }
+
+  @Test
+  void compareNames_ShouldOrderByCodePoint() {
+    // U+1F600 is encoded as surrogates, which String#compareTo orders before U+FFFD
+    assertTrue(AvatarGarbageCollector.compareNames("a😀", "a�") > 0);
+    assertTrue(AvatarGarbageCollector.compareNames("a", "ab") < 0);
+    assertEquals(0, AvatarGarbageCollector.compareNames("ab", "ab"));
+  }
+
+  private static Item item(String objectName, long size, int ageInHours) {
+    Item item = mock(Item.class);
+    lenient().when(item.objectName()).thenReturn(objectName);
+    lenient().when(item.size()).thenReturn(size);
+    lenient()
+      .when(item.lastModified())
+      .thenReturn(ZonedDateTime.now().minusHours(ageInHours).minusMinutes(1));
+
+    return item;
+  }
+}
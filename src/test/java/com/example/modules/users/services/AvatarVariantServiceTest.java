@@ -0,0 +1,143 @@
+package com.example.modules.users.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.minio.services.MinioService;
+import com.example.modules.redis.configs.CacheConfig;
+import com.example.modules.users.dtos.AvatarUploadedEventDTO;
+import com.example.modules.users.repositories.UsersRepository;
+import com.example.modules.users.utils.ImageThumbnails;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AvatarVariantServiceTest extends BaseServiceTest {
+
+  private static final String FILE_NAME = "avatars/user-123/2025-avatar.png";
+  private static final Map<Integer, String> VARIANTS = Map.of(
+    64,
+    "avatars/user-123/2025-avatar.png-64.jpg",
+    128,
+    "avatars/user-123/2025-avatar.png-128.jpg"
+  );
+
+  @Mock
+  private MinioService minioService;
+
+  @Mock
+  private UsersRepository usersRepository;
+
+  @Spy
+  private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+  @InjectMocks
+  private AvatarVariantService avatarVariantService;
+
+  private final AvatarUploadedEventDTO event = AvatarUploadedEventDTO.builder()
+    .userId("user-123")
+    .fileName(FILE_NAME)
+    .build();
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(avatarVariantService, "VARIANT_SIZES", List.of(64, 128));
+    ReflectionTestUtils.setField(avatarVariantService, "MAX_PIXELS", 1_000_000L);
+    ReflectionTestUtils.setField(avatarVariantService, "QUALITY", 0.8f);
+  }
+
+  @Test
+  void generateVariants_ShouldStoreThumbnailsAndAttachThemToTheUser() throws Exception {
+    cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE).put("user-123", "stale profile");
+    when(minioService.downloadFile(FILE_NAME)).thenReturn(
+      new ByteArrayInputStream(encodePng(500, 400))
+    );
+    when(usersRepository.updateAvatarVariants("user-123", FILE_NAME, VARIANTS)).thenReturn(1);
+
+    avatarVariantService.generateVariants(event);
+
+    for (String variantFileName : VARIANTS.values()) {
+      verify(minioService).uploadImmutableFile(
+        eq(variantFileName),
+        any(),
+        eq(ImageThumbnails.CONTENT_TYPE)
+      );
+    }
+    assertNull(cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE).get("user-123"));
+  }
+
+  @Test
+  void generateVariants_WhenAvatarWasReplaced_ShouldDeleteThumbnails() throws Exception {
+    cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE).put("user-123", "profile");
+    when(minioService.downloadFile(FILE_NAME)).thenReturn(
+      new ByteArrayInputStream(encodePng(100, 100))
+    );
+    when(usersRepository.updateAvatarVariants("user-123", FILE_NAME, VARIANTS)).thenReturn(0);
+
+    avatarVariantService.generateVariants(event);
+
+    for (String variantFileName : VARIANTS.values()) {
+      verify(minioService).deleteFile(variantFileName);
+    }
+    assertNotNull(cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE).get("user-123"));
+  }
+
+  @Test
+  void generateVariants_WhenAvatarIsTooLarge_ShouldNotStoreThumbnails() throws Exception {
+    when(minioService.downloadFile(FILE_NAME)).thenReturn(
+      new ByteArrayInputStream(encodePng(2000, 1000))
+    );
+
+    avatarVariantService.generateVariants(event);
+
+    verify(minioService, never()).uploadImmutableFile(anyString(), any(), anyString());
+    verify(usersRepository, never()).updateAvatarVariants(anyString(), anyString(), any());
+  }
+
+  @Test
+  void getVariantFileName_ShouldAppendTheSizeToTheWholeName() {
+    assertEquals(
+      "a/b.c/img.png-64.jpg",
+      AvatarVariantService.getVariantFileName("a/b.c/img.png", 64)
+    );
+    assertEquals("a/b.c/img-64.jpg", AvatarVariantService.getVariantFileName("a/b.c/img", 64));
+  }
+
+  @Test
+  void getVariantFileName_WhenTheNameHasNoExtension_ShouldKeepItsTimestampWhole() {
+    String first = "avatars/user-1/2026-10-17T01:02:03.123Z-0b6f0e1c-photo";
+    String second = "avatars/user-1/2026-10-17T01:02:03.456Z-5d1e7a2b-photo";
+
+    assertEquals(first + "-64.jpg", AvatarVariantService.getVariantFileName(first, 64));
+    assertNotEquals(
+      AvatarVariantService.getVariantFileName(first, 64),
+      AvatarVariantService.getVariantFileName(second, 64)
+    );
+  }
+
+  private static byte[] encodePng(int width, int height) throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+    return output.toByteArray();
+  }
+}
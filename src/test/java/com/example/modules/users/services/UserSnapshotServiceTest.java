@@ -0,0 +1,138 @@
+package com.example.modules.users.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.base.BaseServiceTest;
+import com.example.modules.auth.enums.Role;
+import com.example.modules.users.dtos.UserSnapshotDTO;
+import com.example.modules.users.entities.User;
+import com.example.modules.users.repositories.UsersRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class UserSnapshotServiceTest extends BaseServiceTest {
+
+  @Mock
+  private UsersRepository usersRepository;
+
+  @Mock
+  private StringRedisTemplate stringRedisTemplate;
+
+  @Mock
+  private RedisMessageListenerContainer redisMessageListenerContainer;
+
+  @InjectMocks
+  private UserSnapshotService userSnapshotService;
+
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(userSnapshotService, "MAX_SIZE", 100L);
+    ReflectionTestUtils.setField(userSnapshotService, "EXPIRATION", 30L);
+    userSnapshotService.init();
+  }
+
+  @Test
+  void getSnapshot_ShouldLoadSnapshotOnlyOnce() {
+    UserSnapshotDTO snapshot = new UserSnapshotDTO("user-123", Role.USER, true, 1);
+    when(usersRepository.findSnapshotById("user-123")).thenReturn(Optional.of(snapshot));
+
+    assertEquals(Optional.of(snapshot), userSnapshotService.getSnapshot("user-123"));
+    assertEquals(Optional.of(snapshot), userSnapshotService.getSnapshot("user-123"));
+
+    verify(usersRepository, times(1)).findSnapshotById("user-123");
+  }
+
+  @Test
+  void getSnapshot_WhenUserDoesNotExist_ShouldReturnEmpty() {
+    when(usersRepository.findSnapshotById("user-123")).thenReturn(Optional.empty());
+
+    assertTrue(userSnapshotService.getSnapshot("user-123").isEmpty());
+  }
+
+  @Test
+  void update_ShouldCacheSnapshotOfUser() {
+    User user = getMockUser();
+    user.getAccount().setRole(Role.ADMIN);
+
+    userSnapshotService.update(user);
+    UserSnapshotDTO snapshot = userSnapshotService.getSnapshot(user.getId()).orElseThrow();
+
+    assertEquals(Role.ADMIN, snapshot.getRole());
+    assertTrue(snapshot.isEnabled());
+    verify(usersRepository, never()).findSnapshotById(user.getId());
+  }
+
+  @Test
+  void update_WhenCachedSnapshotIsNewer_ShouldKeepCachedSnapshot() {
+    User user = getMockUser();
+    Instant now = Instant.now();
+    user.getAccount().setUpdatedTimestamp(now);
+    user.getAccount().setDeletedTimestamp(now);
+    userSnapshotService.update(user);
+
+    User staleUser = getMockUser();
+    staleUser.getAccount().setUpdatedTimestamp(now.minusSeconds(60));
+    userSnapshotService.update(staleUser);
+
+    assertFalse(userSnapshotService.getSnapshot(user.getId()).orElseThrow().isEnabled());
+  }
+
+  @Test
+  void evict_ShouldReloadSnapshot() {
+    userSnapshotService.update(getMockUser());
+    when(usersRepository.findSnapshotById("user-123")).thenReturn(Optional.empty());
+
+    userSnapshotService.evict("user-123");
+
+    assertTrue(userSnapshotService.getSnapshot("user-123").isEmpty());
+    verify(stringRedisTemplate).convertAndSend(
+      eq("channel:user_snapshot_invalidation"),
+      endsWith("|user-123")
+    );
+  }
+
+  @Test
+  void onMessage_WhenPublishedByAnotherInstance_ShouldEvictSnapshot() {
+    userSnapshotService.update(getMockUser());
+    when(usersRepository.findSnapshotById("user-123")).thenReturn(Optional.empty());
+
+    userSnapshotService.onMessage(message("other-instance|user-123"), null);
+
+    assertTrue(userSnapshotService.getSnapshot("user-123").isEmpty());
+  }
+
+  @Test
+  void onMessage_WhenPublishedByThisInstance_ShouldKeepSnapshot() {
+    userSnapshotService.update(getMockUser());
+    String instanceId = (String) ReflectionTestUtils.getField(userSnapshotService, "instanceId");
+
+    userSnapshotService.onMessage(message(instanceId + "|user-123"), null);
+
+    assertTrue(userSnapshotService.getSnapshot("user-123").isPresent());
+    verify(usersRepository, never()).findSnapshotById("user-123");
+  }
+
+  private static DefaultMessage message(String body) {
+    return new DefaultMessage(
+      "channel:user_snapshot_invalidation".getBytes(StandardCharsets.UTF_8),
+      body.getBytes(StandardCharsets.UTF_8)
+    );
+  }
+}
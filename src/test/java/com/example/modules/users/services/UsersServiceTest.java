@@ -2,23 +2,46 @@ package com.example.modules.users.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.example.base.BaseServiceTest;
+import com.example.base.enums.ErrorCode;
+import com.example.base.exceptions.AppException;
 import com.example.modules.minio.dtos.MinioFileResponse;
+import com.example.modules.minio.dtos.PresignedUploadResponse;
+import com.example.modules.minio.services.ContentFileService;
 import com.example.modules.minio.services.MinioService;
+import com.example.modules.outbox.services.OutboxService;
+import com.example.modules.redis.configs.CacheConfig;
+import com.example.modules.users.dtos.AvatarUploadedEventDTO;
+import com.example.modules.users.dtos.CompleteAvatarUploadDTO;
+import com.example.modules.users.dtos.CreateAvatarUploadDTO;
 import com.example.modules.users.dtos.UpdateProfileDTO;
 import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
 import com.example.modules.users.repositories.UsersRepository;
 import com.example.modules.users.utils.UserMapper;
+import io.minio.StatObjectResponse;
 import io.minio.errors.MinioException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 public class UsersServiceTest extends BaseServiceTest {
@@ -32,9 +55,45 @@ public class UsersServiceTest extends BaseServiceTest {
   @Mock
   private UserMapper userMapper;
 
+  @Mock
+  private OutboxService outboxService;
+
+  @Mock
+  private ContentFileService contentFileService;
+
+  @Spy
+  private CacheManager cacheManager = new ConcurrentMapCacheManager();
+
   @InjectMocks
   private UsersService usersService;
 
+  @BeforeEach
+  void setup() {
+    ReflectionTestUtils.setField(usersService, "AVATAR_MAX_SIZE", 1024L);
+    ReflectionTestUtils.setField(usersService, "AVATAR_UPLOAD_EXPIRY", 600L);
+  }
+
+  @Test
+  void getProfile_ShouldLoadTheProfileOnceAndThenReturnTheCachedOne() {
+    User mockUser = getMockUser();
+    UserProfileDTO userProfileDTO = getMockUserProfile();
+
+    when(usersRepository.findWithAccountById(mockUser.getId())).thenReturn(Optional.of(mockUser));
+    when(userMapper.toUserProfileDTO(mockUser)).thenReturn(userProfileDTO);
+
+    assertEquals(userProfileDTO, usersService.getProfile(mockUser.getId()));
+    assertEquals(userProfileDTO, usersService.getProfile(mockUser.getId()));
+    verify(usersRepository, times(1)).findWithAccountById(mockUser.getId());
+  }
+
+  @Test
+  void getProfile_WhenUserDoesNotExist_ShouldThrowException() {
+    when(usersRepository.findWithAccountById("missing-id")).thenReturn(Optional.empty());
+
+    AppException ex = assertThrows(AppException.class, () -> usersService.getProfile("missing-id"));
+    assertEquals(ErrorCode.USER_NOT_FOUND, ex.getErrorCode());
+  }
+
   @Test
   void updateProfile_ShouldAssignFieldsAndReturnUserProfileDTO() {
     UpdateProfileDTO updateProfileDTO = UpdateProfileDTO.builder()
@@ -55,6 +114,10 @@ public class UsersServiceTest extends BaseServiceTest {
     verify(usersRepository).save(mockUser);
     verify(userMapper).toUserProfileDTO(mockUser);
     assertEquals(userProfileDTO, result);
+    assertEquals(
+      userProfileDTO,
+      cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE).get(mockUser.getId()).get()
+    );
   }
 
   @Test
@@ -88,26 +151,54 @@ public class UsersServiceTest extends BaseServiceTest {
       .url("url")
       .build();
 
-    User savedUser = getMockUser();
-    savedUser.setAvatar("avatars/%s".formatted(mockUser.getId()));
-
     UserProfileDTO userProfileDTO = getMockUserProfile();
     userProfileDTO.setAvatar(minioFileResponse);
 
-    when(minioService.uploadFile(mockFile, "avatars/%s".formatted(mockUser.getId()))).thenReturn(
-      minioFileResponse
-    );
-    when(usersRepository.save(mockUser)).thenReturn(savedUser);
-    when(userMapper.toUserProfileDTO(savedUser)).thenReturn(userProfileDTO);
+    when(contentFileService.store(mockFile)).thenReturn(minioFileResponse);
+    when(usersRepository.replaceAvatar(mockUser.getId(), null, "avatar_123.png")).thenReturn(1);
+    when(userMapper.toUserProfileDTO(mockUser)).thenReturn(userProfileDTO);
 
     UserProfileDTO result = usersService.updateAvatar(mockUser, mockFile);
 
-    verify(minioService).uploadFile(mockFile, "avatars/%s".formatted(mockUser.getId()));
-    verify(usersRepository).save(mockUser);
-    verify(userMapper).toUserProfileDTO(savedUser);
+    verify(contentFileService).store(mockFile);
+    verify(contentFileService).release(null);
+    verify(userMapper).toUserProfileDTO(mockUser);
+    verify(outboxService).publish(
+      AvatarVariantService.AVATAR_UPLOADS_STREAM_KEY,
+      AvatarUploadedEventDTO.builder().userId(mockUser.getId()).fileName("avatar_123.png").build()
+    );
+    assertEquals("avatar_123.png", mockUser.getAvatar());
     assertEquals(userProfileDTO, result);
   }
 
+  @Test
+  void updateAvatar_WhenTheAvatarWasChangedMeanwhile_ShouldNotReleaseThePreviousOne()
+    throws Exception {
+    User mockUser = getMockUser();
+    mockUser.setAvatar("content/previous");
+    MultipartFile mockFile = new MockMultipartFile(
+      "avatar",
+      "avatar.png",
+      "image/png",
+      "content".getBytes()
+    );
+
+    when(contentFileService.store(mockFile)).thenReturn(
+      MinioFileResponse.builder().fileName("content/new").url("url").build()
+    );
+    when(
+      usersRepository.replaceAvatar(mockUser.getId(), "content/previous", "content/new")
+    ).thenReturn(0);
+
+    AppException ex = assertThrows(AppException.class, () ->
+      usersService.updateAvatar(mockUser, mockFile)
+    );
+
+    assertEquals(ErrorCode.AVATAR_CHANGED, ex.getErrorCode());
+    verify(contentFileService, never()).release(any());
+    verify(outboxService, never()).publish(any(), any());
+  }
+
   @Test
   void updateAvatar_ShouldThrowException_WhenMinioServiceFails() throws Exception {
     User mockUser = getMockUser();
@@ -119,10 +210,125 @@ public class UsersServiceTest extends BaseServiceTest {
       "content".getBytes()
     );
 
-    when(minioService.uploadFile(mockFile, "avatars/%s".formatted(mockUser.getId()))).thenThrow(
-      new MinioException("Minio error")
-    );
+    when(contentFileService.store(mockFile)).thenThrow(new MinioException("Minio error"));
 
     assertThrows(MinioException.class, () -> usersService.updateAvatar(mockUser, mockFile));
   }
+
+  @Test
+  void createAvatarUpload_ShouldReturnPresignedUploadInFolderOfUser() throws Exception {
+    User mockUser = getMockUser();
+    String fileName = "avatars/user-123/2025-avatar.png";
+    PresignedUploadResponse upload = PresignedUploadResponse.builder()
+      .fileName(fileName)
+      .build();
+
+    when(minioService.generateFileName("avatar.png", "avatars/user-123")).thenReturn(fileName);
+    when(
+      minioService.generatePresignedUpload(fileName, "image/png", 1024L, Duration.ofSeconds(600))
+    ).thenReturn(upload);
+
+    PresignedUploadResponse result = usersService.createAvatarUpload(
+      mockUser,
+      CreateAvatarUploadDTO.builder().fileName("avatar.png").contentType("image/png").build()
+    );
+
+    assertEquals(upload, result);
+  }
+
+  @Test
+  void completeAvatarUpload_ShouldUpdateAvatarAndReturnUserProfileDTO() throws Exception {
+    User mockUser = getMockUser();
+    mockUser.setAvatar("content/previous");
+    String fileName = "avatars/user-123/2025-avatar.png";
+    UserProfileDTO userProfileDTO = getMockUserProfile();
+
+    StatObjectResponse file = mockUploadedFile(512, "image/png");
+    when(minioService.findFile(fileName)).thenReturn(Optional.of(file));
+    when(usersRepository.replaceAvatar(mockUser.getId(), "content/previous", fileName)).thenReturn(
+      1
+    );
+    when(userMapper.toUserProfileDTO(mockUser)).thenReturn(userProfileDTO);
+
+    UserProfileDTO result = usersService.completeAvatarUpload(
+      mockUser,
+      CompleteAvatarUploadDTO.builder().fileName(fileName).build()
+    );
+
+    assertEquals(fileName, mockUser.getAvatar());
+    assertEquals(userProfileDTO, result);
+    verify(contentFileService).release("content/previous");
+    verify(outboxService).publish(
+      AvatarVariantService.AVATAR_UPLOADS_STREAM_KEY,
+      AvatarUploadedEventDTO.builder().userId(mockUser.getId()).fileName(fileName).build()
+    );
+    assertEquals(
+      userProfileDTO,
+      cacheManager.getCache(CacheConfig.USER_PROFILES_CACHE).get(mockUser.getId()).get()
+    );
+  }
+
+  @Test
+  void completeAvatarUpload_WhenFileIsNotUploaded_ShouldThrowException() throws Exception {
+    User mockUser = getMockUser();
+    String fileName = "avatars/user-123/2025-avatar.png";
+
+    when(minioService.findFile(fileName)).thenReturn(Optional.empty());
+
+    AppException ex = assertThrows(AppException.class, () ->
+      usersService.completeAvatarUpload(
+        mockUser,
+        CompleteAvatarUploadDTO.builder().fileName(fileName).build()
+      )
+    );
+    assertEquals(ErrorCode.AVATAR_NOT_UPLOADED, ex.getErrorCode());
+    verify(usersRepository, never()).save(any());
+  }
+
+  @Test
+  void completeAvatarUpload_WhenFileIsNotInFolderOfUser_ShouldThrowException() throws Exception {
+    User mockUser = getMockUser();
+
+    AppException ex = assertThrows(AppException.class, () ->
+      usersService.completeAvatarUpload(
+        mockUser,
+        CompleteAvatarUploadDTO.builder().fileName("avatars/other-user/avatar.png").build()
+      )
+    );
+    assertEquals(ErrorCode.AVATAR_NOT_UPLOADED, ex.getErrorCode());
+    verify(minioService, never()).findFile(any());
+  }
+
+  @Test
+  void completeAvatarUpload_WhenFileIsInvalid_ShouldDeleteFileAndThrowException()
+    throws Exception {
+    User mockUser = getMockUser();
+    String fileName = "avatars/user-123/2025-avatar.png";
+
+    for (StatObjectResponse file : List.of(
+      mockUploadedFile(2048, "image/png"),
+      mockUploadedFile(512, "text/html")
+    )) {
+      when(minioService.findFile(fileName)).thenReturn(Optional.of(file));
+
+      AppException ex = assertThrows(AppException.class, () ->
+        usersService.completeAvatarUpload(
+          mockUser,
+          CompleteAvatarUploadDTO.builder().fileName(fileName).build()
+        )
+      );
+      assertEquals(ErrorCode.AVATAR_INVALID, ex.getErrorCode());
+    }
+
+    verify(minioService, times(2)).deleteFile(fileName);
+    verify(usersRepository, never()).save(any());
+  }
+
+  private StatObjectResponse mockUploadedFile(long size, String contentType) {
+    StatObjectResponse file = mock(StatObjectResponse.class);
+    lenient().when(file.size()).thenReturn(size);
+    lenient().when(file.contentType()).thenReturn(contentType);
+
+    return file;
+  }
 }
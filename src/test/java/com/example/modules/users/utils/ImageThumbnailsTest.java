@@ -0,0 +1,76 @@
+package com.example.modules.users.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.base.BaseServiceTest;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+public class ImageThumbnailsTest extends BaseServiceTest {
+
+  @Test
+  void create_ShouldCreateSquareJpegThumbnailsOfTheCenterOfTheImage() throws Exception {
+    // Red on the sides, which are cropped, and blue in the center
+    BufferedImage image = new BufferedImage(3000, 1000, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.RED);
+    graphics.fillRect(0, 0, 3000, 1000);
+    graphics.setColor(Color.BLUE);
+    graphics.fillRect(1000, 0, 1000, 1000);
+    graphics.dispose();
+
+    Map<Integer, byte[]> thumbnails = ImageThumbnails.create(
+      new ByteArrayInputStream(encode(image, "png")),
+      List.of(64, 256),
+      10_000_000,
+      0.8f
+    );
+
+    assertEquals(List.of(64, 256), List.copyOf(thumbnails.keySet()));
+
+    for (Map.Entry<Integer, byte[]> thumbnail : thumbnails.entrySet()) {
+      BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(thumbnail.getValue()));
+      int size = thumbnail.getKey();
+
+      assertEquals(size, decoded.getWidth());
+      assertEquals(size, decoded.getHeight());
+
+      Color corner = new Color(decoded.getRGB(0, 0));
+      assertTrue(corner.getBlue() > 200 && corner.getRed() < 50);
+    }
+  }
+
+  @Test
+  void create_WhenImageHasTooManyPixels_ShouldThrowException() throws Exception {
+    byte[] image = encode(new BufferedImage(2000, 2000, BufferedImage.TYPE_INT_RGB), "png");
+
+    assertThrows(IllegalArgumentException.class, () ->
+      ImageThumbnails.create(new ByteArrayInputStream(image), List.of(64), 1_000_000, 0.8f)
+    );
+  }
+
+  @Test
+  void create_WhenContentIsNotAnImage_ShouldThrowException() {
+    byte[] content = "<html></html>".getBytes();
+
+    assertThrows(IllegalArgumentException.class, () ->
+      ImageThumbnails.create(new ByteArrayInputStream(content), List.of(64), 1_000_000, 0.8f)
+    );
+  }
+
+  private static byte[] encode(BufferedImage image, String format) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    ImageIO.write(image, format, output);
+    return output.toByteArray();
+  }
+}
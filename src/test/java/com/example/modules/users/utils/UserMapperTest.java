@@ -4,36 +4,37 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.example.base.BaseServiceTest;
 import com.example.modules.auth.entities.Account;
 import com.example.modules.auth.enums.Role;
-import com.example.modules.minio.services.MinioService;
+import com.example.modules.minio.services.StorageUrlResolver;
 import com.example.modules.users.dtos.UserProfileDTO;
 import com.example.modules.users.entities.User;
-import io.minio.errors.MinioException;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mapstruct.factory.Mappers;
 
 public class UserMapperTest extends BaseServiceTest {
 
-  private MinioService minioService;
+  private StorageUrlResolver storageUrlResolver;
   private UserMapper userMapper;
 
   @BeforeEach
   void setup() {
-    minioService = mock(MinioService.class);
+    storageUrlResolver = mock(StorageUrlResolver.class);
     userMapper = Mappers.getMapper(UserMapper.class);
-    userMapper.minioService = minioService;
+    userMapper.storageUrlResolver = storageUrlResolver;
   }
 
   @Test
-  void toUserProfileDTO_ShouldMapAvatar_WhenAvatarIsValid() throws Exception {
+  void toUserProfileDTO_ShouldMapAvatar_WhenAvatarIsValid() {
     String avatarFileName = "avatar.png";
     String presignedUrl = "http://minio.local/avatar.png";
-    when(minioService.generatePresignedUrl(avatarFileName)).thenReturn(presignedUrl);
+    when(storageUrlResolver.resolve(avatarFileName)).thenReturn(presignedUrl);
 
     User user = User.builder()
       .avatar(avatarFileName)
@@ -72,19 +73,41 @@ public class UserMapperTest extends BaseServiceTest {
   }
 
   @Test
-  void toUserProfileDTO_ShouldReturnNullAvatar_WhenMinioServiceThrowsException() throws Exception {
-    String avatarFileName = "avatar.png";
-    when(minioService.generatePresignedUrl(avatarFileName)).thenThrow(
-      new MinioException("Minio error")
-    );
+  void toUserProfileDTO_ShouldMapAvatarVariants() {
+    String url = "http://minio.local/avatar-64.jpg";
+    when(storageUrlResolver.resolve("avatar-64.jpg")).thenReturn(url);
 
     User user = User.builder()
-      .avatar(avatarFileName)
+      .avatarVariants(Map.of(64, "avatar-64.jpg"))
       .account(Account.builder().email("test@example.com").role(Role.USER).build())
       .build();
 
     UserProfileDTO dto = userMapper.toUserProfileDTO(user);
 
-    assertNull(dto.getAvatar());
+    assertEquals(1, dto.getAvatarVariants().size());
+    assertEquals("avatar-64.jpg", dto.getAvatarVariants().get(64).getFileName());
+    assertEquals(url, dto.getAvatarVariants().get(64).getUrl());
+  }
+
+  @Test
+  void toUserProfileDTO_WithResolvedUrls_ShouldNotResolveThemAgain() {
+    User user = User.builder()
+      .avatar("avatar.png")
+      .avatarVariants(Map.of(64, "avatar-64.jpg"))
+      .account(Account.builder().email("test@example.com").role(Role.USER).build())
+      .build();
+    Map<String, String> urls = Map.of(
+      "avatar.png",
+      "http://minio.local/avatar.png",
+      "avatar-64.jpg",
+      "http://minio.local/avatar-64.jpg"
+    );
+
+    UserProfileDTO dto = userMapper.toUserProfileDTO(user, urls);
+
+    assertEquals("test@example.com", dto.getEmail());
+    assertEquals("http://minio.local/avatar.png", dto.getAvatar().getUrl());
+    assertEquals("http://minio.local/avatar-64.jpg", dto.getAvatarVariants().get(64).getUrl());
+    verifyNoInteractions(storageUrlResolver);
   }
 }